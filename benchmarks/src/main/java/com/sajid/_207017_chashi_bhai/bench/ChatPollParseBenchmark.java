@@ -0,0 +1,69 @@
+package com.sajid._207017_chashi_bhai.bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sajid._207017_chashi_bhai.services.ChatService.ChatMessage;
+import com.sajid._207017_chashi_bhai.services.FirestoreDocuments;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing step of ChatService.pollForNewMessages: a Firestore list response of a
+ * conversation's messages subcollection read with FirestoreDocuments.CHAT_MESSAGE
+ * (the poll itself is private and also does SQLite lookups per message)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatPollParseBenchmark {
+
+    @Param({"20", "200"})
+    public int messages;
+
+    private String response;
+
+    @Setup
+    public void setUp() {
+        String root = "projects/bench/databases/(default)/documents/conversations/c0ffee/messages/";
+        JsonArray documents = new JsonArray();
+        long time = Timestamp.valueOf("2024-01-15 09:30:00").getTime();
+        for (int i = 0; i < messages; i++) {
+            ChatMessage msg = new ChatMessage();
+            msg.setSenderId(i % 2 == 0 ? 19 : 7);
+            msg.setSenderName(i % 2 == 0 ? "রহিম" : "করিম");
+            msg.setText("ভাই, ধান কি এখনও পাওয়া যাবে? কাল সকালে নিতে চাই। #" + i);
+            msg.setType("text");
+            msg.setCreatedAt(new Timestamp(time + i * 60_000L));
+            JsonObject document = JsonParser.parseString(FirestoreDocuments.CHAT_MESSAGE.toDocumentJson(msg)).getAsJsonObject();
+            document.addProperty("name", root + "msg-" + i);
+            document.addProperty("createTime", "2024-01-15T09:30:00.000000Z");
+            document.addProperty("updateTime", "2024-01-15T09:30:00.000000Z");
+            documents.add(document);
+        }
+        JsonObject body = new JsonObject();
+        body.add("documents", documents);
+        response = body.toString();
+    }
+
+    @Benchmark
+    public List<ChatMessage> parseMessageList() {
+        return FirestoreDocuments.CHAT_MESSAGE.readDocumentList(response);
+    }
+}
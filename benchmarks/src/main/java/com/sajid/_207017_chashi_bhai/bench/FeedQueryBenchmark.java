@@ -0,0 +1,87 @@
+package com.sajid._207017_chashi_bhai.bench;
+
+import com.sajid._207017_chashi_bhai.controllers.CropFeedController;
+import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crop feed query as CropFeedController runs it: FEED_SELECT plus the buyer's ORDER BY,
+ * through DatabaseService.executeQueryAsync, reading the columns mapItem() reads
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeedQueryBenchmark {
+
+    private static final String BUYER_ORDER =
+        " ORDER BY CASE WHEN c.district = ? THEN 0 ELSE 1 END, COALESCE(c.harvest_date, c.created_at) DESC";
+
+    @Param({"1"})
+    public int scale;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticData.prepare(scale);
+    }
+
+    @Benchmark
+    public int buyerFeed() throws Exception {
+        return run(CropFeedController.FEED_SELECT + BUYER_ORDER, SyntheticData.DISTRICTS[1]);
+    }
+
+    @Benchmark
+    public int buyerFeedByCategoryCheapestFirst() throws Exception {
+        String sql = CropFeedController.FEED_SELECT + " AND c.category = ?"
+            + " ORDER BY CASE WHEN c.district = ? THEN 0 ELSE 1 END, c.price_per_kg ASC";
+        return run(sql, SyntheticData.CATEGORIES[0], SyntheticData.DISTRICTS[1]);
+    }
+
+    private static int run(String sql, Object... params) throws Exception {
+        CompletableFuture<Integer> rows = new CompletableFuture<>();
+        DatabaseService.executeQueryAsync(sql, params, rs -> {
+            try {
+                rows.complete(readRows(rs));
+            } catch (Exception e) {
+                rows.completeExceptionally(e);
+            }
+        }, rows::completeExceptionally);
+        return rows.get();
+    }
+
+    private static int readRows(ResultSet rs) throws Exception {
+        int count = 0;
+        long checksum = 0;
+        while (rs.next()) {
+            checksum += rs.getInt("id") + rs.getInt("farmer_id");
+            checksum += hash(rs.getString("product_code")) + hash(rs.getString("name")) + hash(rs.getString("category"));
+            checksum += hash(rs.getString("farmer_name")) + hash(rs.getString("farmer_phone"));
+            checksum += rs.getBoolean("is_verified") ? 1 : 0;
+            checksum += (long) (rs.getDouble("price") + rs.getDouble("quantity"));
+            checksum += hash(rs.getString("unit")) + hash(rs.getString("district")) + hash(rs.getString("created_at"));
+            checksum += hash(rs.getString("photo")) + hash(rs.getString("photo_base64"));
+            count++;
+        }
+        return checksum == 42 ? -count : count;
+    }
+
+    private static int hash(String s) {
+        return s != null ? s.length() : 0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.sajid._207017_chashi_bhai.bench;
+
+import com.sajid._207017_chashi_bhai.models.Crop;
+import com.sajid._207017_chashi_bhai.models.Order;
+import com.sajid._207017_chashi_bhai.services.ChatService.ChatMessage;
+import com.sajid._207017_chashi_bhai.services.FirestoreDocuments;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firestore field conversion (FirestoreDocuments codecs) for the documents sync writes and reads most.
+ * Run with -prof gc for bytes/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FirestoreFieldsBenchmark {
+
+    private Crop crop;
+    private Order order;
+    private ChatMessage message;
+    private String cropJson;
+    private String orderJson;
+    private String messageJson;
+
+    @Setup
+    public void setUp() {
+        crop = new Crop();
+        crop.setId(42);
+        crop.setProductCode("CRP-20240115-4821");
+        crop.setFarmerId(7);
+        crop.setName("আমন ধান");
+        crop.setCategory("ধান");
+        crop.setPrice(32.5);
+        crop.setQuantity(1200);
+        crop.setDescription("নতুন মৌসুমের ধান, ভালোভাবে শুকানো");
+        crop.setDistrict("বগুড়া");
+        crop.setHarvestDate("2024-01-10");
+        crop.setTransportInfo("নিজস্ব পরিবহন");
+        crop.setStatus("active");
+        crop.setCreatedAt("2024-01-15 09:30:00");
+
+        order = new Order();
+        order.setId(311);
+        order.setOrderNumber("ORD-20240115-7719");
+        order.setCropId(42);
+        order.setFarmerId(7);
+        order.setBuyerId(19);
+        order.setQuantityKg(150);
+        order.setPricePerKg(32.5);
+        order.setTotalAmount(4875);
+        order.setDeliveryAddress("বাড়ি ১২, রোড ৪");
+        order.setDeliveryDistrict("ঢাকা");
+        order.setDeliveryUpazila("মিরপুর");
+        order.setBuyerPhone("01711000000");
+        order.setBuyerName("রহিম");
+        order.setStatus("new");
+        order.setPaymentStatus("pending");
+        order.setPaymentMethod("cash");
+        order.setNotes("");
+        order.setCreatedAt("2024-01-15 10:02:11");
+
+        message = new ChatMessage();
+        message.setFirebaseId("3f2b8c1e-7a4d-4e55-9c61-0d2f5a8b9e10");
+        message.setSenderId(19);
+        message.setSenderName("রহিম");
+        message.setText("ভাই, ধান কি এখনও পাওয়া যাবে? কাল সকালে নিতে চাই।");
+        message.setType("text");
+        message.setCreatedAt(Timestamp.valueOf("2024-01-15 10:05:00"));
+
+        cropJson = FirestoreDocuments.CROP.toDocumentJson(crop);
+        orderJson = FirestoreDocuments.ORDER.toDocumentJson(order);
+        messageJson = FirestoreDocuments.CHAT_MESSAGE.toDocumentJson(message);
+    }
+
+    @Benchmark
+    public String encodeCrop() {
+        return FirestoreDocuments.CROP.toDocumentJson(crop);
+    }
+
+    @Benchmark
+    public String encodeOrder() {
+        return FirestoreDocuments.ORDER.toDocumentJson(order);
+    }
+
+    @Benchmark
+    public String encodeMessage() {
+        return FirestoreDocuments.CHAT_MESSAGE.toDocumentJson(message);
+    }
+
+    @Benchmark
+    public Crop decodeCrop() {
+        return FirestoreDocuments.CROP.fromDocumentJson(cropJson);
+    }
+
+    @Benchmark
+    public Order decodeOrder() {
+        return FirestoreDocuments.ORDER.fromDocumentJson(orderJson);
+    }
+
+    @Benchmark
+    public ChatMessage decodeMessage() {
+        return FirestoreDocuments.CHAT_MESSAGE.fromDocumentJson(messageJson);
+    }
+}
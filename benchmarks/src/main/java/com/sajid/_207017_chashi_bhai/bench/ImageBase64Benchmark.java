@@ -0,0 +1,53 @@
+package com.sajid._207017_chashi_bhai.bench;
+
+import com.sajid._207017_chashi_bhai.utils.ImageBase64Util;
+import javafx.scene.image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ImageBase64Util on a crop-photo-sized JPEG: encode, decode to bytes, and decode to a
+ * card-sized JavaFX Image (what CropItemController.prepare does; no toolkit start needed)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ImageBase64Benchmark {
+
+    private byte[] photo;
+    private String photoBase64;
+
+    @Setup
+    public void setUp() throws Exception {
+        photo = SyntheticData.samplePhotoBytes();
+        photoBase64 = ImageBase64Util.bytesToBase64(photo);
+    }
+
+    @Benchmark
+    public String encode() {
+        return ImageBase64Util.bytesToBase64(photo);
+    }
+
+    @Benchmark
+    public byte[] decodeBytes() {
+        return ImageBase64Util.base64ToBytes(photoBase64);
+    }
+
+    @Benchmark
+    public Image decodeCardImage() {
+        return ImageBase64Util.base64ToImage(photoBase64, 256, 180);
+    }
+}
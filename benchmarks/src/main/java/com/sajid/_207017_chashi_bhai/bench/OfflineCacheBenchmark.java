@@ -0,0 +1,66 @@
+package com.sajid._207017_chashi_bhai.bench;
+
+import com.sajid._207017_chashi_bhai.utils.OfflineCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OfflineCache.put (memory + gzip to data/cache) and get (memory hit) with a feed-sized payload
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OfflineCacheBenchmark {
+
+    // Approximate crop count in the cached payload
+    @Param({"20", "200"})
+    public int crops;
+
+    private final OfflineCache cache = OfflineCache.getInstance();
+    private String payload;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < crops; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(i)
+                .append(",\"name\":\"আমন ধান\",\"category\":\"শস্য/ধান (Rice/Grain)\",\"price\":32.5")
+                .append(",\"quantity\":1200,\"district\":\"বগুড়া\",\"farmer_name\":\"কৃষক ").append(i).append("\"}");
+        }
+        payload = json.append(']').toString();
+        cache.put(OfflineCache.cropFeedKey(), payload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.clear();
+    }
+
+    @Benchmark
+    public void put() {
+        // Rotate over a few keys, below the in-memory entry limit
+        cache.put(OfflineCache.cropKey(next++ & 31), payload);
+    }
+
+    @Benchmark
+    public String getMemoryHit() {
+        return cache.get(OfflineCache.cropFeedKey());
+    }
+}
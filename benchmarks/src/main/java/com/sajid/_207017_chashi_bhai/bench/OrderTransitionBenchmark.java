@@ -0,0 +1,101 @@
+package com.sajid._207017_chashi_bhai.bench;
+
+import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.services.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderService single-order transitions end to end (transaction, version checks, stock,
+ * request key, outbox row): farmer accepts a new order, buyer cancels it again.
+ * The order is put back to 'new' before each invocation (not measured).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderTransitionBenchmark {
+
+    private record OrderRef(int id, int farmerId, int buyerId) {}
+
+    @Param({"1"})
+    public int scale;
+
+    private final List<OrderRef> pool = new ArrayList<>();
+    private OrderRef current;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticData.prepare(scale);
+        // No JavaFX toolkit here: run transaction callbacks on the DB thread
+        DatabaseService.setCallbackExecutor(Runnable::run);
+        try (Connection conn = SyntheticData.connect();
+             PreparedStatement ps = conn.prepareStatement(
+                 "SELECT id, farmer_id, buyer_id FROM orders WHERE status = 'new' ORDER BY id LIMIT 500");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                pool.add(new OrderRef(rs.getInt("id"), rs.getInt("farmer_id"), rs.getInt("buyer_id")));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        DatabaseService.setCallbackExecutor(null);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextOrder() throws Exception {
+        current = pool.get(next++ % pool.size());
+        try (Connection conn = SyntheticData.connect();
+             PreparedStatement ps = conn.prepareStatement("UPDATE orders SET status = 'new' WHERE id = ?")) {
+            ps.setInt(1, current.id());
+            ps.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public OrderService.ActionResult acceptThenCancel() throws Exception {
+        OrderRef order = current;
+        CompletableFuture<OrderService.ActionResult> accepted = new CompletableFuture<>();
+        OrderService.acceptOrderAsync(order.id(), order.farmerId(), UUID.randomUUID().toString(),
+            accepted::complete, accepted::completeExceptionally);
+        check(accepted.get(), "accept", order);
+
+        CompletableFuture<OrderService.ActionResult> cancelled = new CompletableFuture<>();
+        OrderService.cancelOrderAsync(order.id(), order.buyerId(), UUID.randomUUID().toString(),
+            cancelled::complete, cancelled::completeExceptionally);
+        return check(cancelled.get(), "cancel", order);
+    }
+
+    private static OrderService.ActionResult check(OrderService.ActionResult result, String step, OrderRef order) {
+        if (!result.ok) {
+            // A failed rule check is much cheaper than a transition and would skew the numbers
+            throw new IllegalStateException(step + " of order #" + order.id() + " failed: " + result.message);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sajid._207017_chashi_bhai.bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ResultComparison - Compares two JMH JSON result files and fails on regressions
+ *
+ * Usage: ResultComparison baseline.json current.json [maxSlowdownPercent (default 10)]
+ *
+ * - Benchmarks are matched by name and parameters; ones missing on either side are listed, not failed
+ * - Time modes (avgt, sample, ss): higher is worse; throughput (thrpt): lower is worse
+ * - A change only counts if it is beyond the threshold and beyond both runs' error margins
+ * - Exit code 1 if anything regressed, so a release build can stop on it
+ */
+public final class ResultComparison {
+
+    private record Score(String mode, double score, double error, String unit) {}
+
+    private ResultComparison() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultComparison baseline.json current.json [maxSlowdownPercent]");
+            System.exit(2);
+        }
+        double maxSlowdown = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Score> baseline = read(args[0]);
+        Map<String, Score> current = read(args[1]);
+
+        int regressions = 0;
+        System.out.printf("%-90s %12s %12s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %12s %12.3f %9s%n", entry.getKey(), "-", now.score(), "new");
+                continue;
+            }
+            boolean higherIsWorse = !"thrpt".equals(now.mode());
+            double change = (now.score() - before.score()) / before.score() * 100.0;
+            double slowdown = higherIsWorse ? change : -change;
+            boolean beyondNoise = Math.abs(now.score() - before.score()) > before.error() + now.error();
+            boolean regressed = slowdown > maxSlowdown && beyondNoise;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %12.3f %12.3f %+8.1f%% %s%s%n", entry.getKey(), before.score(), now.score(),
+                change, now.unit(), regressed ? "  ⚠️ REGRESSION" : "");
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                System.out.printf("%-90s %12.3f %12s %9s%n", name, baseline.get(name).score(), "-", "missing");
+            }
+        }
+
+        if (regressions > 0) {
+            System.err.println(regressions + " benchmark(s) slower than baseline by more than " + maxSlowdown + "%");
+            System.exit(1);
+        }
+        System.out.println("✓ No regressions beyond " + maxSlowdown + "%");
+    }
+
+    private static Map<String, Score> read(String file) throws Exception {
+        Map<String, Score> scores = new TreeMap<>();
+        JsonArray results = JsonParser.parseString(Files.readString(Paths.get(file))).getAsJsonArray();
+        for (JsonElement element : results) {
+            JsonObject result = element.getAsJsonObject();
+            StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+            if (result.has("params")) {
+                // TreeMap so the parameter order does not depend on the JSON
+                new TreeMap<>(result.getAsJsonObject("params").asMap())
+                    .forEach((name, value) -> key.append(' ').append(name).append('=').append(value.getAsString()));
+            }
+            JsonObject metric = result.getAsJsonObject("primaryMetric");
+            double error = metric.get("scoreError").isJsonPrimitive()
+                && metric.get("scoreError").getAsJsonPrimitive().isNumber() ? metric.get("scoreError").getAsDouble() : 0;
+            scores.put(key.toString(), new Score(result.get("mode").getAsString(),
+                metric.get("score").getAsDouble(), error, metric.get("scoreUnit").getAsString()));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,252 @@
+package com.sajid._207017_chashi_bhai.bench;
+
+import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.utils.ImageBase64Util;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * SyntheticData - Seeds data/chashi_bhai.db (relative to the working directory) for benchmarks
+ *
+ * - Schema comes from DatabaseService.initializeDatabase(), so triggers and indexes are the real ones
+ * - Row counts scale linearly with the scale factor (scale 1: 200 users, 500 crops, ~750 photos,
+ *   2000 orders, 300 conversations with 3000 messages, 1000 notifications)
+ * - Fixed random seed, so every run sees the same data
+ * - Refuses to touch a database it did not create (no data/.synthetic marker)
+ */
+public final class SyntheticData {
+
+    static final String DB_URL = "jdbc:sqlite:data/chashi_bhai.db";
+
+    private static final Path DATA_DIR = Paths.get("data");
+    private static final Path DB_FILE = DATA_DIR.resolve("chashi_bhai.db");
+    private static final Path MARKER = DATA_DIR.resolve(".synthetic");
+
+    static final String[] DISTRICTS = {"ঢাকা", "বগুড়া", "রাজশাহী", "কুমিল্লা", "যশোর", "দিনাজপুর", "সিলেট", "খুলনা"};
+    static final String[] CATEGORIES = {"শস্য/ধান (Rice/Grain)", "সবজি (Vegetables)", "ফল (Fruits)", "মসলা (Spices)", "ডাল (Pulses)"};
+    private static final String[] CROP_NAMES = {"আমন ধান", "আলু", "টমেটো", "আম", "পেঁয়াজ", "মসুর ডাল", "বেগুন", "লিচু"};
+    private static final String[] ORDER_STATUSES = {"new", "new", "new", "accepted", "in_transit", "completed", "cancelled"};
+
+    private static int seededScale;
+
+    private SyntheticData() {}
+
+    /**
+     * Build (once per JVM and scale) a fresh database with the given scale factor
+     */
+    public static synchronized void prepare(int scale) throws Exception {
+        if (seededScale == scale) {
+            return;
+        }
+        reset();
+        DatabaseService.initializeDatabase().get();
+        seed(scale);
+        seededScale = scale;
+    }
+
+    static Connection connect() throws Exception {
+        return DriverManager.getConnection(DB_URL);
+    }
+
+    private static void reset() throws IOException {
+        if (Files.exists(DB_FILE) && !Files.exists(MARKER)) {
+            throw new IllegalStateException(DB_FILE.toAbsolutePath() + " was not created by the benchmarks; "
+                + "run them from an empty directory (mvn -f benchmarks/pom.xml verify -Prun does)");
+        }
+        Files.createDirectories(DATA_DIR);
+        for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+            Files.deleteIfExists(Paths.get(DB_FILE + suffix));
+        }
+        Files.writeString(MARKER, "created by SyntheticData\n");
+    }
+
+    private static void seed(int scale) throws Exception {
+        Random random = new Random(17);
+        int farmers = 50 * scale;
+        int buyers = 150 * scale;
+        int cropsPerFarmer = 10;
+        int crops = farmers * cropsPerFarmer;
+        int orders = 2000 * scale;
+        int conversations = 300 * scale;
+        int messagesPerConversation = 10;
+        String photo = samplePhotoBase64();
+
+        long start = System.nanoTime();
+        try (Connection conn = connect()) {
+            conn.setAutoCommit(false);
+
+            // Users: farmers get ids 1..farmers, buyers follow
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO users (name, phone, pin, role, district, upazila, is_verified) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= farmers + buyers; i++) {
+                    boolean farmer = i <= farmers;
+                    ps.setString(1, (farmer ? "কৃষক " : "ক্রেতা ") + i);
+                    ps.setString(2, String.format("01%09d", i));
+                    ps.setString(3, "$2a$10$synthetic");
+                    ps.setString(4, farmer ? "farmer" : "buyer");
+                    ps.setString(5, DISTRICTS[random.nextInt(DISTRICTS.length)]);
+                    ps.setString(6, "সদর");
+                    ps.setInt(7, random.nextInt(4) == 0 ? 1 : 0);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            // Crops: cropsPerFarmer each, plenty of stock so order transitions never run out
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO crops (product_code, farmer_id, name, category, initial_quantity_kg, available_quantity_kg, " +
+                    "price_per_kg, description, district, harvest_date, transport_info, status) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= crops; i++) {
+                    int farmerId = (i - 1) / cropsPerFarmer + 1;
+                    double quantity = 500 + random.nextInt(5000);
+                    ps.setString(1, String.format("CRP-SYN-%06d", i));
+                    ps.setInt(2, farmerId);
+                    ps.setString(3, CROP_NAMES[random.nextInt(CROP_NAMES.length)]);
+                    ps.setString(4, CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                    ps.setDouble(5, quantity);
+                    ps.setDouble(6, quantity);
+                    ps.setDouble(7, 10 + random.nextInt(200));
+                    ps.setString(8, "নতুন মৌসুমের ফসল");
+                    ps.setString(9, DISTRICTS[random.nextInt(DISTRICTS.length)]);
+                    ps.setString(10, String.format("2024-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+                    ps.setString(11, "নিজস্ব পরিবহন");
+                    ps.setString(12, random.nextInt(10) == 0 ? "sold" : "active");
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            // Photos: one or two per crop, Base64 like the app stores them
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO crop_photos (crop_id, image_base64, photo_order) VALUES (?, ?, ?)")) {
+                for (int cropId = 1; cropId <= crops; cropId++) {
+                    int count = 1 + random.nextInt(2);
+                    for (int order = 1; order <= count; order++) {
+                        ps.setInt(1, cropId);
+                        ps.setString(2, photo);
+                        ps.setInt(3, order);
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+
+            // Orders: mostly 'new' (the transition benchmark draws from these)
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO orders (order_number, crop_id, farmer_id, buyer_id, quantity_kg, price_per_kg, total_amount, " +
+                    "delivery_address, delivery_district, buyer_phone, buyer_name, status, payment_method) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'cash')")) {
+                for (int i = 1; i <= orders; i++) {
+                    int cropId = 1 + random.nextInt(crops);
+                    int farmerId = (cropId - 1) / cropsPerFarmer + 1;
+                    int buyerId = farmers + 1 + random.nextInt(buyers);
+                    double quantity = 1 + random.nextInt(20);
+                    double price = 10 + random.nextInt(200);
+                    ps.setString(1, String.format("ORD-SYN-%07d", i));
+                    ps.setInt(2, cropId);
+                    ps.setInt(3, farmerId);
+                    ps.setInt(4, buyerId);
+                    ps.setDouble(5, quantity);
+                    ps.setDouble(6, price);
+                    ps.setDouble(7, quantity * price);
+                    ps.setString(8, "বাড়ি " + i);
+                    ps.setString(9, DISTRICTS[random.nextInt(DISTRICTS.length)]);
+                    ps.setString(10, String.format("01%09d", buyerId));
+                    ps.setString(11, "ক্রেতা " + buyerId);
+                    ps.setString(12, ORDER_STATUSES[random.nextInt(ORDER_STATUSES.length)]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            // Conversations (buyer x farmer x crop) and their messages; the unread and inbox triggers fire
+            try (PreparedStatement conv = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO conversations (id, user1_id, user2_id, crop_id) VALUES (?, ?, ?, ?)");
+                 PreparedStatement msg = conn.prepareStatement(
+                    "INSERT INTO messages (conversation_id, sender_id, receiver_id, message_text, is_read, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, datetime('2024-01-01', ?))")) {
+                for (int id = 1; id <= conversations; id++) {
+                    int buyerId = farmers + 1 + random.nextInt(buyers);
+                    int cropId = id;
+                    int farmerId = (cropId - 1) / cropsPerFarmer + 1;
+                    conv.setInt(1, id);
+                    conv.setInt(2, buyerId);
+                    conv.setInt(3, farmerId);
+                    conv.setInt(4, cropId);
+                    conv.executeUpdate();
+                    for (int m = 0; m < messagesPerConversation; m++) {
+                        boolean fromBuyer = m % 2 == 0;
+                        msg.setInt(1, id);
+                        msg.setInt(2, fromBuyer ? buyerId : farmerId);
+                        msg.setInt(3, fromBuyer ? farmerId : buyerId);
+                        msg.setString(4, "ভাই, ধান কি এখনও পাওয়া যাবে? বার্তা " + m);
+                        msg.setInt(5, m < messagesPerConversation - 2 ? 1 : 0);
+                        msg.setString(6, "+" + (id * messagesPerConversation + m) + " minutes");
+                        msg.addBatch();
+                    }
+                }
+                msg.executeBatch();
+            }
+
+            // Notifications: five per user, most already read
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO notifications (user_id, title, message, type, is_read, related_id) VALUES (?, ?, ?, 'order', ?, ?)")) {
+                for (int userId = 1; userId <= farmers + buyers; userId++) {
+                    for (int n = 0; n < 5; n++) {
+                        ps.setInt(1, userId);
+                        ps.setString(2, "অর্ডার আপডেট");
+                        ps.setString(3, "আপনার অর্ডারের অবস্থা পরিবর্তন হয়েছে");
+                        ps.setInt(4, n < 4 ? 1 : 0);
+                        ps.setInt(5, 1 + random.nextInt(orders));
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+
+            conn.commit();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE");
+            }
+        }
+        System.out.printf("Seeded synthetic database (scale %d) in %d ms%n", scale, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * A 480x360 JPEG, roughly the size of a resized crop photo
+     */
+    static byte[] samplePhotoBytes() throws IOException {
+        BufferedImage image = new BufferedImage(480, 360, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(46, 125, 50), 480, 360, new Color(255, 193, 7)));
+        g.fillRect(0, 0, 480, 360);
+        Random random = new Random(3);
+        for (int i = 0; i < 400; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillOval(random.nextInt(480), random.nextInt(360), 8 + random.nextInt(24), 8 + random.nextInt(24));
+        }
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    static String samplePhotoBase64() throws IOException {
+        return ImageBase64Util.bytesToBase64(samplePhotoBytes());
+    }
+}
@@ -4,15 +4,15 @@ import com.sajid._207017_chashi_bhai.models.User;
 import com.sajid._207017_chashi_bhai.services.AuthSessionManager;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
 import com.sajid._207017_chashi_bhai.services.FirebaseService;
+import com.sajid._207017_chashi_bhai.services.HttpTransport;
+import com.sajid._207017_chashi_bhai.services.ServiceBootstrap;
+import com.sajid._207017_chashi_bhai.services.SyncOutbox;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
-import java.awt.Dimension;
-import java.awt.Toolkit;
 import java.io.IOException;
 
 /**
@@ -38,12 +38,9 @@ public class App extends Application {
         // Set implicit exit to true - allows app to exit when last window closes
         javafx.application.Platform.setImplicitExit(true);
         
-        // Initialize SQLite database (local storage)
-        DatabaseService.initializeDatabase();
-        
-        // Firebase now uses REST API - no initialization needed
-        // Authentication happens at login time
-        System.out.println("✅ Firebase REST API ready (authentication required for cloud sync)");
+        // Services start in the background while the welcome screen is built
+        ServiceBootstrap bootstrap = createBootstrap();
+        bootstrap.start();
         
         // Set app icon
         try {
@@ -76,8 +73,11 @@ public class App extends Application {
                     System.err.println("Error shutting down DatabaseService: " + e.getMessage());
                 }
                 
+                com.sajid._207017_chashi_bhai.services.SyncOutbox.getInstance().shutdown();
+
                 // Firebase REST API doesn't need explicit shutdown
                 System.out.println("[App] FirebaseService (REST API) - no shutdown needed");
+                com.sajid._207017_chashi_bhai.services.HttpTransport.getInstance().printStats();
                 
                 System.out.println("[App] All services stopped, exiting...");
                 
@@ -88,6 +88,46 @@ public class App extends Application {
         });
         
         primaryStage.show();
+        afterFirstPaint(primaryStage.getScene(), bootstrap);
+    }
+
+    /**
+     * Startup graph: only the local database is needed before the user can act;
+     * networking and sync wait until the first screen is on screen
+     */
+    private static ServiceBootstrap createBootstrap() {
+        return new ServiceBootstrap()
+            // Extract/load the SQLite native library off the FX thread
+            .add("sqlite-native", ServiceBootstrap.Phase.CRITICAL, org.sqlite.SQLiteJDBCLoader::initialize)
+            .add("database-schema", ServiceBootstrap.Phase.CRITICAL,
+                () -> DatabaseService.initializeDatabase().get(), "sqlite-native")
+            // Firebase uses the REST API - authentication happens at login time
+            .add("http-client", ServiceBootstrap.Phase.DEFERRED, () -> {
+                HttpTransport.getInstance();
+                System.out.println("✅ Firebase REST API ready (authentication required for cloud sync)");
+            })
+            .add("sync-outbox", ServiceBootstrap.Phase.DEFERRED,
+                () -> SyncOutbox.getInstance().start(), "database-schema", "http-client");
+    }
+
+    /**
+     * Release deferred services after the first frame has been laid out, then report timings.
+     * With -Dchashi.exitAfterStartup=true the app quits right after (AppCDS training run).
+     */
+    private static void afterFirstPaint(Scene scene, ServiceBootstrap bootstrap) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            bootstrap.mark("first-paint");
+            System.out.println("[Startup] Welcome screen ready " + bootstrap.millisSinceJvmStart("first-paint") + " ms after JVM start");
+            bootstrap.startDeferred().thenRun(() -> {
+                bootstrap.printTimings();
+                if (Boolean.getBoolean("chashi.exitAfterStartup")) {
+                    Platform.runLater(Platform::exit);
+                }
+            });
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
     }
 
     @Override
@@ -117,7 +157,7 @@ public class App extends Application {
     }
 
     /**
-     * Load a new scene
+     * Show a screen (see ViewNavigator: one Scene, cached views for ViewLifecycle controllers)
      * 
      * @param fxmlFile FXML filename (e.g., "login-view.fxml")
      * @param title Window title
@@ -125,55 +165,7 @@ public class App extends Application {
     public static void loadScene(String fxmlFile, String title) {
         System.out.println("[DEBUG] Loading scene: " + fxmlFile);
         try {
-            // Get screen dimensions
-            Toolkit toolkit = Toolkit.getDefaultToolkit();
-            Dimension screenSize = toolkit.getScreenSize();
-            int screenWidth = screenSize.width;
-            int screenHeight = screenSize.height;
-            
-            System.out.println("[DEBUG] Screen resolution: " + screenWidth + " x " + screenHeight);
-            
-            // Load FXML
-            FXMLLoader fxmlLoader = new FXMLLoader(App.class.getResource(fxmlFile));
-            Parent root = fxmlLoader.load();
-            
-            // Calculate scene dimensions based on screen size
-            // Use 95% of screen width and 90% of screen height as maximum
-            double sceneWidth = Math.min(screenWidth * 0.95, 1920);
-            double sceneHeight = Math.min(screenHeight * 0.90, 1080);
-            
-            // Enforce minimum dimensions for usability
-            sceneWidth = Math.max(sceneWidth, 1024);
-            sceneHeight = Math.max(sceneHeight, 600);
-            
-            System.out.println("[DEBUG] Scene dimensions: " + sceneWidth + " x " + sceneHeight);
-            
-            // Create scene with calculated dimensions
-            Scene scene = new Scene(root, sceneWidth, sceneHeight);
-            
-            // Load complete original CSS file (all styles included)
-            scene.getStylesheets().add(App.class.getResource("styles.css").toExternalForm());
-            
-            // Also load modular CSS files for any additional styling
-            scene.getStylesheets().add(App.class.getResource("base.css").toExternalForm());
-            scene.getStylesheets().add(App.class.getResource("components.css").toExternalForm());
-            scene.getStylesheets().add(App.class.getResource("auth.css").toExternalForm());
-            scene.getStylesheets().add(App.class.getResource("dashboard.css").toExternalForm());
-            scene.getStylesheets().add(App.class.getResource("marketplace.css").toExternalForm());
-            scene.getStylesheets().add(App.class.getResource("tables.css").toExternalForm());
-            
-            primaryStage.setScene(scene);
-            primaryStage.setTitle(title);
-            
-            // Set stage max dimensions to prevent window from exceeding screen
-            primaryStage.setMaxWidth(screenWidth * 0.98);
-            primaryStage.setMaxHeight(screenHeight * 0.95);
-            
-            // Allow window to be resizable
-            primaryStage.setResizable(true);
-            
-            primaryStage.centerOnScreen();
-            
+            ViewNavigator.getInstance().show(fxmlFile, title);
         } catch (IOException e) {
             System.err.println("Error loading scene: " + fxmlFile);
             e.printStackTrace();
@@ -191,7 +183,15 @@ public class App extends Application {
      * Set the current logged-in user
      */
     public static void setCurrentUser(User user) {
+        boolean userChanged = user == null || currentUser == null || currentUser.getId() != user.getId();
         currentUser = user;
+        if (userChanged) {
+            // Cached views belong to the previous user; warm up the new user's main screens
+            ViewNavigator.getInstance().clear();
+            if (user != null) {
+                ViewNavigator.getInstance().preloadFor(user.getRole());
+            }
+        }
     }
 
     /**
@@ -204,6 +204,7 @@ public class App extends Application {
         currentUser = null;
         currentCropId = -1;
         searchQuery = "";
+        ViewNavigator.getInstance().clear();
         loadScene("welcome-view.fxml", "Chashi Bhai");
     }
 
@@ -323,21 +324,7 @@ public class App extends Application {
      * Show a view and pass its controller to a callback
      */
     public static void showView(String fxmlFile, java.util.function.Consumer<Object> controllerCallback) throws IOException {
-        FXMLLoader loader = new FXMLLoader(App.class.getResource(fxmlFile));
-        Scene scene = new Scene(loader.load());
-        
-        // Load CSS
-        scene.getStylesheets().add(App.class.getResource("styles.css").toExternalForm());
-        scene.getStylesheets().add(App.class.getResource("base.css").toExternalForm());
-        scene.getStylesheets().add(App.class.getResource("components.css").toExternalForm());
-        scene.getStylesheets().add(App.class.getResource("chat.css").toExternalForm());
-        
-        primaryStage.setScene(scene);
-        
-        // Pass controller to callback
-        if (controllerCallback != null) {
-            controllerCallback.accept(loader.getController());
-        }
+        ViewNavigator.getInstance().showWithController(fxmlFile, controllerCallback);
     }
 
     public static void main(String[] args) {
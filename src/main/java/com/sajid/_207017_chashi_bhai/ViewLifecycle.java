@@ -0,0 +1,16 @@
+package com.sajid._207017_chashi_bhai;
+
+/**
+ * ViewLifecycle - Hooks for controllers whose view is cached by App navigation
+ *
+ * - initialize() runs once, when the FXML is parsed (possibly preloaded before it is shown)
+ * - onShow() runs every time the view becomes visible: refresh data, start polling
+ * - onHide() runs when another view replaces it: stop polling, timers, listeners
+ */
+public interface ViewLifecycle {
+
+    void onShow();
+
+    default void onHide() {
+    }
+}
@@ -0,0 +1,201 @@
+package com.sajid._207017_chashi_bhai;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * ViewNavigator - One Scene for the whole session, navigation swaps its root
+ *
+ * - Screen size and stylesheets are resolved once, when the Scene is created
+ * - Views whose controller implements ViewLifecycle are parsed once and kept until the
+ *   user changes; onHide/onShow run as they leave and re-enter the Scene
+ * - Other views are loaded fresh on every visit, exactly as before
+ * - After login the role's main screens are preloaded, one per FX event, once the first
+ *   screen is up. Loading stays on the FX thread because controllers' initialize()
+ *   builds UI (alerts, bindings); preloaded views only query the DB when first shown.
+ *
+ * FX thread only.
+ */
+final class ViewNavigator {
+    private static ViewNavigator instance;
+
+    private static final String[] STYLESHEETS = {
+        "styles.css", "base.css", "components.css", "auth.css",
+        "dashboard.css", "marketplace.css", "tables.css"
+    };
+    private static final String CHAT_STYLESHEET = "chat.css";
+
+    private static final List<String> FARMER_SCREENS =
+        List.of("farmer-dashboard-view.fxml", "farmer-orders-view.fxml", "crop-feed-view.fxml");
+    private static final List<String> BUYER_SCREENS =
+        List.of("buyer-dashboard-view.fxml", "buyer-orders-view.fxml", "crop-feed-view.fxml");
+
+    private record View(Parent root, Object controller) {}
+
+    private final Map<String, View> cache = new HashMap<>();
+    private final Deque<String> pendingPreloads = new ArrayDeque<>();
+    private Scene scene;
+    private View current;
+    // Bumped on every navigation; lets a load notice that initialize() navigated away
+    private int navigation;
+
+    private ViewNavigator() {}
+
+    static synchronized ViewNavigator getInstance() {
+        if (instance == null) {
+            instance = new ViewNavigator();
+        }
+        return instance;
+    }
+
+    /**
+     * Show a screen, reusing its cached view when there is one
+     */
+    void show(String fxmlFile, String title) throws IOException {
+        int id = ++navigation;
+        View view = cache.get(fxmlFile);
+        if (view == null) {
+            view = load(fxmlFile);
+            if (id != navigation) {
+                // initialize() already navigated elsewhere (e.g. access denied)
+                return;
+            }
+            if (view.controller() instanceof ViewLifecycle) {
+                cache.put(fxmlFile, view);
+            }
+        }
+        setRoot(view);
+        App.getPrimaryStage().setTitle(title);
+        runPendingPreloads();
+    }
+
+    /**
+     * Show a freshly loaded view and hand its controller to the caller (chat screens)
+     */
+    void showWithController(String fxmlFile, Consumer<Object> controllerCallback) throws IOException {
+        ++navigation;
+        View view = load(fxmlFile);
+        view.root().getStylesheets().add(App.class.getResource(CHAT_STYLESHEET).toExternalForm());
+        setRoot(view);
+        if (controllerCallback != null) {
+            controllerCallback.accept(view.controller());
+        }
+    }
+
+    /**
+     * Queue the role's main screens; they load after the next screen is shown
+     */
+    void preloadFor(String role) {
+        onFxThread(() -> {
+            pendingPreloads.clear();
+            if ("farmer".equals(role)) {
+                pendingPreloads.addAll(FARMER_SCREENS);
+            } else if ("buyer".equals(role)) {
+                pendingPreloads.addAll(BUYER_SCREENS);
+            }
+        });
+    }
+
+    /**
+     * Forget all cached views (logout / user change)
+     */
+    void clear() {
+        onFxThread(() -> {
+            pendingPreloads.clear();
+            cache.clear();
+        });
+    }
+
+    private View load(String fxmlFile) throws IOException {
+        FXMLLoader loader = new FXMLLoader(App.class.getResource(fxmlFile));
+        Parent root = loader.load();
+        return new View(root, loader.getController());
+    }
+
+    private void setRoot(View view) {
+        if (current != null && current.controller() instanceof ViewLifecycle lifecycle) {
+            lifecycle.onHide();
+        }
+        current = view;
+
+        if (scene == null) {
+            scene = createScene(view.root());
+        } else {
+            scene.setRoot(view.root());
+        }
+
+        if (view.controller() instanceof ViewLifecycle lifecycle) {
+            lifecycle.onShow();
+        }
+    }
+
+    private Scene createScene(Parent root) {
+        Rectangle2D screen = Screen.getPrimary().getBounds();
+        System.out.println("[DEBUG] Screen resolution: " + screen.getWidth() + " x " + screen.getHeight());
+
+        // 95% x 90% of the screen, between 1024x600 and 1920x1080
+        double sceneWidth = Math.max(Math.min(screen.getWidth() * 0.95, 1920), 1024);
+        double sceneHeight = Math.max(Math.min(screen.getHeight() * 0.90, 1080), 600);
+        System.out.println("[DEBUG] Scene dimensions: " + sceneWidth + " x " + sceneHeight);
+
+        Scene created = new Scene(root, sceneWidth, sceneHeight);
+        for (String stylesheet : STYLESHEETS) {
+            created.getStylesheets().add(App.class.getResource(stylesheet).toExternalForm());
+        }
+
+        Stage stage = App.getPrimaryStage();
+        stage.setScene(created);
+        // Keep the window within the screen
+        stage.setMaxWidth(screen.getWidth() * 0.98);
+        stage.setMaxHeight(screen.getHeight() * 0.95);
+        stage.setResizable(true);
+        stage.centerOnScreen();
+        return created;
+    }
+
+    private void runPendingPreloads() {
+        if (pendingPreloads.isEmpty()) return;
+        Platform.runLater(() -> {
+            String fxmlFile = pendingPreloads.poll();
+            if (fxmlFile == null) return;
+            preload(fxmlFile);
+            runPendingPreloads();
+        });
+    }
+
+    private void preload(String fxmlFile) {
+        if (cache.containsKey(fxmlFile)) return;
+        int id = navigation;
+        try {
+            long start = System.nanoTime();
+            View view = load(fxmlFile);
+            if (id == navigation && view.controller() instanceof ViewLifecycle) {
+                cache.put(fxmlFile, view);
+                System.out.println("[Nav] Preloaded " + fxmlFile + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        } catch (IOException e) {
+            System.err.println("Error preloading view: " + fxmlFile + " - " + e.getMessage());
+        }
+    }
+
+    private static void onFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
+import com.sajid._207017_chashi_bhai.ViewLifecycle;
 import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.DashboardSnapshotService;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
-import com.sajid._207017_chashi_bhai.services.NotificationService;
+import com.sajid._207017_chashi_bhai.services.UnreadCounters;
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
@@ -14,12 +18,11 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
 import java.io.File;
-import java.sql.ResultSet;
 
 /**
  * BuyerDashboardController - Main dashboard for buyers
  */
-public class BuyerDashboardController {
+public class BuyerDashboardController implements ViewLifecycle {
 
     @FXML private Label lblWelcome;
     @FXML private Button btnBrowseAll;
@@ -33,12 +36,10 @@ public class BuyerDashboardController {
     @FXML private Label lblNotificationBadge;
 
     private User currentUser;
-    private NotificationService notificationService;
 
     @FXML
     public void initialize() {
         currentUser = App.getCurrentUser();
-        notificationService = NotificationService.getInstance();
         
         if (currentUser == null || !"buyer".equals(currentUser.getRole())) {
             showError("অ্যাক্সেস অস্বীকার", "শুধুমাত্র ক্রেতারা এই পেজ দেখতে পারবেন।");
@@ -46,27 +47,30 @@ public class BuyerDashboardController {
             return;
         }
 
-        lblWelcome.setText("স্বাগতম, " + currentUser.getName() + "!");
-        
-        loadPriceTicker();
-        loadFeaturedCrops();
         loadNotificationCount();
     }
+
+    /**
+     * Runs on every visit of the cached view
+     */
+    @Override
+    public void onShow() {
+        if (App.getCurrentUser() == null) return;
+        currentUser = App.getCurrentUser();
+
+        lblWelcome.setText("স্বাগতম, " + currentUser.getName() + "!");
+        loadMarketSnapshot();
+    }
     
     /**
-     * Load unread notification count and update badge
+     * Bind the badge to the cached unread counter (updates live, no COUNT query)
      */
     private void loadNotificationCount() {
-        notificationService.getUnreadCount(currentUser.getId(), count -> {
-            if (lblNotificationBadge != null) {
-                if (count > 0) {
-                    lblNotificationBadge.setText(count > 99 ? "99+" : String.valueOf(count));
-                    lblNotificationBadge.setVisible(true);
-                } else {
-                    lblNotificationBadge.setVisible(false);
-                }
-            }
-        });
+        if (lblNotificationBadge == null) return;
+        ReadOnlyIntegerProperty count = UnreadCounters.getInstance().notificationsProperty(currentUser.getId());
+        lblNotificationBadge.textProperty().bind(Bindings.createStringBinding(
+            () -> count.get() > 99 ? "99+" : String.valueOf(count.get()), count));
+        lblNotificationBadge.visibleProperty().bind(count.greaterThan(0));
     }
     
     @FXML
@@ -75,90 +79,68 @@ public class BuyerDashboardController {
         App.loadScene("notifications-view.fxml", "নোটিফিকেশন");
     }
 
-    private void loadPriceTicker() {
-        DatabaseService.executeQueryAsync(
-            "SELECT crop_name, price FROM market_prices ORDER BY updated_at DESC LIMIT 10",
-            new Object[]{},
-            resultSet -> {
-                Platform.runLater(() -> {
-                    try {
-                        hboxPriceTicker.getChildren().clear();
-                        while (resultSet.next()) {
-                            String cropName = resultSet.getString("crop_name");
-                            double price = resultSet.getDouble("price");
-                            
-                            VBox priceItem = new VBox(5);
-                            priceItem.getStyleClass().add("price-item");
-                            priceItem.setPadding(new Insets(10));
-                            
-                            Label lblCrop = new Label(cropName);
-                            lblCrop.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
-                            
-                            Label lblPrice = new Label(String.format("৳%.2f/কেজি", price));
-                            lblPrice.setStyle("-fx-font-size: 12px; -fx-text-fill: #4CAF50;");
-                            
-                            priceItem.getChildren().addAll(lblCrop, lblPrice);
-                            hboxPriceTicker.getChildren().add(priceItem);
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                });
-            },
-            error -> error.printStackTrace()
-        );
-    }
-
-    private void loadFeaturedCrops() {
+    /**
+     * Price ticker and featured crops come from one cached snapshot (one DB task, shared by all buyers)
+     */
+    private void loadMarketSnapshot() {
         if (progressIndicator != null) {
             progressIndicator.setVisible(true);
         }
 
-        DatabaseService.executeQueryAsync(
-            "SELECT c.*, u.name as farmer_name, u.phone as farmer_phone, u.is_verified, " +
-            "(SELECT photo_path FROM crop_photos WHERE crop_id = c.id ORDER BY photo_order LIMIT 1) as photo " +
-            "FROM crops c " +
-            "JOIN users u ON c.farmer_id = u.id " +
-            "WHERE c.status = 'active' " +
-            "ORDER BY c.created_at DESC LIMIT 4",
-            new Object[]{},
-            resultSet -> {
-                Platform.runLater(() -> {
-                    try {
-                        hboxFeaturedCrops.getChildren().clear();
-                        while (resultSet.next()) {
-                            VBox cropCard = createFeaturedCropCard(resultSet);
-                            hboxFeaturedCrops.getChildren().add(cropCard);
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    } finally {
-                        if (progressIndicator != null) {
-                            progressIndicator.setVisible(false);
-                        }
+        DashboardSnapshotService.getInstance().loadMarketSnapshot(
+            snapshot -> {
+                try {
+                    showPriceTicker(snapshot.prices);
+                    hboxFeaturedCrops.getChildren().clear();
+                    for (DashboardSnapshotService.FeaturedCrop crop : snapshot.featuredCrops) {
+                        hboxFeaturedCrops.getChildren().add(createFeaturedCropCard(crop));
                     }
-                });
-            },
-            error -> {
-                Platform.runLater(() -> {
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
                     if (progressIndicator != null) {
                         progressIndicator.setVisible(false);
                     }
-                    error.printStackTrace();
-                });
+                }
+            },
+            error -> {
+                if (progressIndicator != null) {
+                    progressIndicator.setVisible(false);
+                }
+                error.printStackTrace();
             }
         );
     }
 
-    private VBox createFeaturedCropCard(ResultSet rs) throws Exception {
-        int cropId = rs.getInt("id");
-        String name = rs.getString("name");
-        String farmerName = rs.getString("farmer_name");
-        boolean isVerified = rs.getBoolean("is_verified");
-        double price = rs.getDouble("price_per_kg");
+    private void showPriceTicker(java.util.List<DashboardSnapshotService.MarketPrice> prices) {
+        hboxPriceTicker.getChildren().clear();
+        for (DashboardSnapshotService.MarketPrice item : prices) {
+            VBox priceItem = new VBox(5);
+            priceItem.getStyleClass().add("price-item");
+            priceItem.setPadding(new Insets(10));
+            
+            Label lblCrop = new Label(item.cropName);
+            lblCrop.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
+            
+            Label lblPrice = new Label(String.format("৳%.2f/কেজি", item.price));
+            lblPrice.setStyle("-fx-font-size: 12px; -fx-text-fill: #4CAF50;");
+            
+            priceItem.getChildren().addAll(lblCrop, lblPrice);
+            hboxPriceTicker.getChildren().add(priceItem);
+        }
+    }
+
+
+
+    private VBox createFeaturedCropCard(DashboardSnapshotService.FeaturedCrop crop) {
+        int cropId = crop.cropId;
+        String name = crop.name;
+        String farmerName = crop.farmerName;
+        boolean isVerified = crop.farmerVerified;
+        double price = crop.pricePerKg;
         String unit = "কেজি";
-        String district = rs.getString("district");
-        String photoPath = rs.getString("photo");
+        String district = crop.district;
+        String photoPath = crop.photoPath;
 
         VBox card = new VBox(10);
         card.getStyleClass().add("featured-crop-card");
@@ -3,8 +3,11 @@ package com.sajid._207017_chashi_bhai.controllers;
 import com.sajid._207017_chashi_bhai.App;
 import com.sajid._207017_chashi_bhai.models.User;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.services.DailyRollupService;
 // import com.sajid._207017_chashi_bhai.services.FirebaseSyncService; // Removed - using REST API now
 import com.sajid._207017_chashi_bhai.utils.DataSyncManager;
+import com.sajid._207017_chashi_bhai.utils.KeyedNodeList;
+import com.sajid._207017_chashi_bhai.utils.QueryScheduler;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -50,10 +53,21 @@ public class BuyerHistoryController {
     private User currentUser;
     private DataSyncManager syncManager;
 
+    // Legacy card list by order id; refreshes only rebuild orders whose row changed
+    private KeyedNodeList<Integer, HistoryCardData> historyCards;
+    // Filter/sort changes and polling supersede each other; only the latest load is shown
+    private final QueryScheduler historyQueries = new QueryScheduler();
+
+    private record LoadedHistory(List<HistoryRow> tableRows, List<HistoryCardData> cardRows) {}
+
     @FXML
     public void initialize() {
         currentUser = App.getCurrentUser();
         syncManager = DataSyncManager.getInstance();
+        if (vboxHistoryList != null) {
+            historyCards = new KeyedNodeList<>(vboxHistoryList, data -> data.orderId, data -> data.rowVersion,
+                this::createHistoryCard);
+        }
         
         if (currentUser == null || !"buyer".equals(currentUser.getRole())) {
             showError("অ্যাক্সেস অস্বীকার", "শুধুমাত্র ক্রেতারা এই পেজ দেখতে পারবেন।");
@@ -154,7 +168,6 @@ public class BuyerHistoryController {
             });
         }
 
-        loadSummaryStats();
         loadHistory();
         loadCropFilter();
 
@@ -169,105 +182,29 @@ public class BuyerHistoryController {
         // TODO: Implement REST API sync for buyer orders
         // FirebaseSyncService has been removed - using REST API now
         // For now, just reload from local SQLite
-        loadSummaryStats();
         loadHistory();
     }
 
     private void loadSummaryStats() {
-        // Compute from live orders/reviews so UI always reflects DB state.
-
-        // (1) Total expense + most bought crop (exclude cancelled/rejected)
-        DatabaseService.executeQueryAsync(
-            "SELECT " +
-                "COALESCE(SUM(o.total_amount), 0) as total_expense, " +
-                "(SELECT c.name " +
-                    "FROM orders o2 " +
-                    "JOIN crops c ON o2.crop_id = c.id " +
-                    "WHERE o2.buyer_id = ? AND o2.status NOT IN ('cancelled','rejected') " +
-                    "GROUP BY c.id " +
-                    "ORDER BY COUNT(*) DESC " +
-                    "LIMIT 1) as most_bought_crop " +
-            "FROM orders o " +
-            "WHERE o.buyer_id = ? AND o.status NOT IN ('cancelled','rejected')",
-            new Object[]{currentUser.getId(), currentUser.getId()},
-            resultSet -> {
-                double totalExpense = 0.0;
-                String mostBought = "N/A";
-                try {
-                    if (resultSet.next()) {
-                        totalExpense = resultSet.getDouble("total_expense");
-                        String value = resultSet.getString("most_bought_crop");
-                        if (value != null && !value.isBlank()) {
-                            mostBought = value;
-                        }
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+        // Expense, completed orders, most bought crop and distinct farmers for the selected period,
+        // read from the daily rollups instead of aggregating the orders table
+        String[] range = DailyRollupService.rangeForFilter(cbFilterMonth != null ? cbFilterMonth.getValue() : null);
+        DailyRollupService.loadBuyerSummary(currentUser.getId(), range[0], range[1],
+            summary -> Platform.runLater(() -> {
+                if (lblTotalExpense != null) {
+                    lblTotalExpense.setText(String.format("৳%.2f", summary.revenue));
                 }
-
-                final double finalTotalExpense = totalExpense;
-                final String finalMostBought = mostBought;
-                Platform.runLater(() -> {
-                    if (lblTotalExpense != null) {
-                        lblTotalExpense.setText(String.format("৳%.2f", finalTotalExpense));
-                    }
-                    if (lblMostBought != null) {
-                        lblMostBought.setText(finalMostBought);
-                    }
-                });
-            },
-            error -> error.printStackTrace()
-        );
-
-        // (2) Total orders (all except cancelled/rejected)
-        DatabaseService.executeQueryAsync(
-            "SELECT COUNT(*) as total_orders " +
-                "FROM orders o " +
-                "WHERE o.buyer_id = ? " +
-                "AND o.status NOT IN ('cancelled','rejected')",
-            new Object[]{currentUser.getId()},
-            resultSet -> {
-                int totalOrders = 0;
-                try {
-                    if (resultSet.next()) {
-                        totalOrders = resultSet.getInt("total_orders");
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+                if (lblMostBought != null) {
+                    lblMostBought.setText(summary.topCrop != null && !summary.topCrop.isBlank() ? summary.topCrop : "N/A");
                 }
-                final int finalTotalOrders = totalOrders;
-                Platform.runLater(() -> {
-                    if (lblTotalAcceptedOrders != null) {
-                        lblTotalAcceptedOrders.setText(String.valueOf(finalTotalOrders));
-                    }
-                });
-            },
-            error -> error.printStackTrace()
-        );
-
-        // (3) Favorite farmers count (optional label; not in all FXML versions)
-        DatabaseService.executeQueryAsync(
-            "SELECT COUNT(DISTINCT o.farmer_id) as favorite_farmers " +
-                "FROM orders o " +
-                "WHERE o.buyer_id = ? AND o.status NOT IN ('cancelled','rejected')",
-            new Object[]{currentUser.getId()},
-            resultSet -> {
-                int favoriteFarmers = 0;
-                try {
-                    if (resultSet.next()) {
-                        favoriteFarmers = resultSet.getInt("favorite_farmers");
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+                if (lblTotalAcceptedOrders != null) {
+                    lblTotalAcceptedOrders.setText(String.valueOf(summary.orderCount));
                 }
-
-                final int finalFavoriteFarmers = favoriteFarmers;
-                Platform.runLater(() -> {
-                    if (lblFavoriteFarmers != null) {
-                        lblFavoriteFarmers.setText(String.valueOf(finalFavoriteFarmers));
-                    }
-                });
-            },
+                // Optional label; not in all FXML versions
+                if (lblFavoriteFarmers != null) {
+                    lblFavoriteFarmers.setText(String.valueOf(summary.distinctPartners));
+                }
+            }),
             error -> error.printStackTrace()
         );
     }
@@ -316,20 +253,17 @@ public class BuyerHistoryController {
     }
 
     private void loadHistory() {
+        // Summary follows the same period filter as the list
+        loadSummaryStats();
+
         if (progressIndicator != null) {
             progressIndicator.setVisible(true);
         }
 
-        if (vboxHistoryList != null) {
-            vboxHistoryList.getChildren().clear();
-        }
-        if (tableHistory != null) {
-            tableHistory.getItems().clear();
-        }
-
         String effectiveDateExpr = "COALESCE(o.completed_at, o.delivered_at, o.updated_at, o.created_at)";
 
         String query = "SELECT o.id, o.crop_id, o.quantity_kg, o.price_per_kg, o.total_amount, " +
+                      "o.updated_at, o.version, c.version as crop_version, " +
                       effectiveDateExpr + " as effective_date, " +
                       "c.name as crop_name, " +
                       "u.name as farmer_name, u.is_verified, " +
@@ -379,55 +313,42 @@ public class BuyerHistoryController {
             query += " ORDER BY " + effectiveDateExpr + " DESC";
         }
 
-        DatabaseService.executeQueryAsync(
+        historyQueries.submitNow(
             query,
             params.toArray(),
             resultSet -> {
+                List<HistoryRow> tableRows = new ArrayList<>();
+                List<HistoryCardData> cardRows = new ArrayList<>();
+                while (resultSet.next()) {
+                    tableRows.add(createHistoryRow(resultSet));
+                    cardRows.add(extractCardData(resultSet));
+                }
+                return new LoadedHistory(tableRows, cardRows);
+            },
+            loaded -> {
                 try {
-                    java.util.List<HistoryRow> tableRows = new java.util.ArrayList<>();
-                    java.util.List<HistoryCardData> cardRows = new java.util.ArrayList<>();
-                    while (resultSet.next()) {
-                        tableRows.add(createHistoryRow(resultSet));
-                        cardRows.add(extractCardData(resultSet));
+                    if (tableHistory != null) {
+                        // Unchanged rows keep their instance, so selection and scroll survive polling
+                        KeyedNodeList.patchItems(tableHistory.getItems(), loaded.tableRows(),
+                            HistoryRow::getOrderId, row -> row.version);
+                    } else if (historyCards != null) {
+                        historyCards.update(loaded.cardRows());
                     }
-
-                    Platform.runLater(() -> {
-                        try {
-                            if (tableHistory != null) {
-                                tableHistory.getItems().addAll(tableRows);
-                            } else if (vboxHistoryList != null) {
-                                for (HistoryCardData data : cardRows) {
-                                    HBox historyCard = createHistoryCard(data);
-                                    vboxHistoryList.getChildren().add(historyCard);
-                                }
-                            }
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            showError("ত্রুটি", "ইতিহাস লোড করতে ব্যর্থ হয়েছে।");
-                        } finally {
-                            if (progressIndicator != null) {
-                                progressIndicator.setVisible(false);
-                            }
-                        }
-                    });
                 } catch (Exception e) {
                     e.printStackTrace();
-                    Platform.runLater(() -> {
-                        if (progressIndicator != null) {
-                            progressIndicator.setVisible(false);
-                        }
-                        showError("ত্রুটি", "ইতিহাস লোড করতে ব্যর্থ হয়েছে।");
-                    });
-                }
-            },
-            error -> {
-                Platform.runLater(() -> {
+                    showError("ত্রুটি", "ইতিহাস লোড করতে ব্যর্থ হয়েছে।");
+                } finally {
                     if (progressIndicator != null) {
                         progressIndicator.setVisible(false);
                     }
-                    showError("ডাটাবেস ত্রুটি", "ইতিহাস লোড করতে সমস্যা হয়েছে।");
-                    error.printStackTrace();
-                });
+                }
+            },
+            error -> {
+                if (progressIndicator != null) {
+                    progressIndicator.setVisible(false);
+                }
+                showError("ডাটাবেস ত্রুটি", "ইতিহাস লোড করতে সমস্যা হয়েছে।");
+                error.printStackTrace();
             }
         );
     }
@@ -458,6 +379,7 @@ public class BuyerHistoryController {
 
         return new HistoryRow(
             orderId,
+            rowVersion(rs),
             date,
             cropName != null ? cropName : "",
             farmer,
@@ -470,6 +392,7 @@ public class BuyerHistoryController {
 
     public static class HistoryRow {
         private final int orderId;
+        private final String version;
         private final String date;
         private final String crop;
         private final String farmer;
@@ -478,8 +401,9 @@ public class BuyerHistoryController {
         private final String totalPrice;
         private final String rating;
 
-        public HistoryRow(int orderId, String date, String crop, String farmer, String quantity, String unitPrice, String totalPrice, String rating) {
+        public HistoryRow(int orderId, String version, String date, String crop, String farmer, String quantity, String unitPrice, String totalPrice, String rating) {
             this.orderId = orderId;
+            this.version = version;
             this.date = date;
             this.crop = crop;
             this.farmer = farmer;
@@ -508,9 +432,10 @@ public class BuyerHistoryController {
         final double quantity;
         final double price;
         final Integer myRating;
+        final String rowVersion;
 
         HistoryCardData(int orderId, String date, String farmerName, boolean isVerified,
-                        String cropName, double quantity, double price, Integer myRating) {
+                        String cropName, double quantity, double price, Integer myRating, String rowVersion) {
             this.orderId = orderId;
             this.date = date;
             this.farmerName = farmerName;
@@ -519,6 +444,7 @@ public class BuyerHistoryController {
             this.quantity = quantity;
             this.price = price;
             this.myRating = myRating;
+            this.rowVersion = rowVersion;
         }
     }
 
@@ -534,10 +460,18 @@ public class BuyerHistoryController {
         Object myRatingObj = rs.getObject("my_review_rating");
         Integer myRating = myRatingObj != null ? ((Number) myRatingObj).intValue() : null;
 
-        return new HistoryCardData(orderId, date, farmerName, isVerified, cropName, quantity, price, myRating);
+        return new HistoryCardData(orderId, date, farmerName, isVerified, cropName, quantity, price, myRating, rowVersion(rs));
+    }
+
+    /**
+     * Changes whenever anything shown for the order changes (order row, crop row or my review)
+     */
+    private static String rowVersion(ResultSet rs) throws Exception {
+        return rs.getString("updated_at") + "#" + rs.getLong("version") + "#" + rs.getLong("crop_version")
+            + "#" + rs.getObject("my_review_rating");
     }
 
-    private HBox createHistoryCard(HistoryCardData data) throws Exception {
+    private HBox createHistoryCard(HistoryCardData data) {
         int orderId = data.orderId;
         String date = data.date;
         String farmerName = data.farmerName;
@@ -894,6 +828,7 @@ public class BuyerHistoryController {
         if (syncManager != null && currentUser != null) {
             syncManager.stopPolling("buyer_history_" + currentUser.getId());
         }
+        historyQueries.cancel();
         App.loadScene("buyer-dashboard-view.fxml", "Dashboard");
     }
 
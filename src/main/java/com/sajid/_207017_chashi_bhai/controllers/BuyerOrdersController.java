@@ -1,16 +1,19 @@
 package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
+import com.sajid._207017_chashi_bhai.ViewLifecycle;
 import com.sajid._207017_chashi_bhai.models.User;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
 // import com.sajid._207017_chashi_bhai.services.FirebaseSyncService; // Removed - using REST API now
 import com.sajid._207017_chashi_bhai.services.OrderService;
 import com.sajid._207017_chashi_bhai.utils.DataSyncManager;
-import com.sajid._207017_chashi_bhai.utils.StatisticsCalculator;
+import com.sajid._207017_chashi_bhai.utils.KeyedNodeList;
+import com.sajid._207017_chashi_bhai.utils.QueryScheduler;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -31,7 +34,7 @@ import java.util.Optional;
  * BuyerOrdersController - Track buyer's active orders
  * Features real-time sync with database polling
  */
-public class BuyerOrdersController {
+public class BuyerOrdersController implements ViewLifecycle {
 
     @FXML private Button btnFilterAll;
     @FXML private Button btnFilterPending;
@@ -45,9 +48,15 @@ public class BuyerOrdersController {
     @FXML private ProgressIndicator progressIndicator;
 
     private User currentUser;
+    private final OrderService.RequestKeys requestKeys = new OrderService.RequestKeys();
     private String currentFilter = "all";
     private DataSyncManager syncManager;
 
+    // Cards on screen by order id; refreshes only rebuild orders whose row changed
+    private KeyedNodeList<Integer, OrderRow> orderCards;
+    // Filter clicks, sort changes and polling supersede each other; only the latest load is shown
+    private final QueryScheduler orderQueries = new QueryScheduler();
+
     private static class OrderRow {
         final int orderId;
         final String cropName;
@@ -61,10 +70,12 @@ public class BuyerOrdersController {
         final String createdAt;
         final String photoPath;
         final boolean hasReview;
+        final String rowVersion;
 
         private OrderRow(int orderId, String cropName, String farmerName, String farmerPhone,
                          boolean isVerified, double quantity, double price, String status,
-                         String paymentStatus, String createdAt, String photoPath, boolean hasReview) {
+                         String paymentStatus, String createdAt, String photoPath, boolean hasReview,
+                         String rowVersion) {
             this.orderId = orderId;
             this.cropName = cropName;
             this.farmerName = farmerName;
@@ -77,6 +88,7 @@ public class BuyerOrdersController {
             this.createdAt = createdAt;
             this.photoPath = photoPath;
             this.hasReview = hasReview;
+            this.rowVersion = rowVersion;
         }
     }
 
@@ -84,6 +96,8 @@ public class BuyerOrdersController {
     public void initialize() {
         currentUser = App.getCurrentUser();
         syncManager = DataSyncManager.getInstance();
+        orderCards = new KeyedNodeList<>(vboxOrdersList, row -> row.orderId, row -> row.rowVersion,
+            this::createOrderCardFromRow);
         
         if (currentUser == null || !"buyer".equals(currentUser.getRole())) {
             showError("অ্যাক্সেস অস্বীকার", "শুধুমাত্র ক্রেতারা এই পেজ দেখতে পারবেন।");
@@ -104,7 +118,16 @@ public class BuyerOrdersController {
         if (btnRefresh != null) {
             btnRefresh.setOnAction(e -> onRefresh());
         }
-        
+    }
+
+    /**
+     * Runs on every visit of the cached view
+     */
+    @Override
+    public void onShow() {
+        if (App.getCurrentUser() == null) return;
+        currentUser = App.getCurrentUser();
+
         // Check if navigating from notification with specific filter
         String filterState = App.getOrderFilterState();
         if (filterState != null && !filterState.isEmpty()) {
@@ -121,6 +144,15 @@ public class BuyerOrdersController {
         // Start real-time sync polling for orders (every 15 seconds)
         syncManager.startOrdersSync(currentUser.getId(), this::refreshOrders);
     }
+
+    @Override
+    public void onHide() {
+        // Stop polling while the view is not visible
+        if (syncManager != null && currentUser != null) {
+            syncManager.stopPolling("orders_" + currentUser.getId());
+        }
+        orderQueries.cancel();
+    }
     
     /**
      * Apply filter button styling based on state from notification navigation
@@ -204,9 +236,8 @@ public class BuyerOrdersController {
         if (progressIndicator != null) {
             progressIndicator.setVisible(true);
         }
-        vboxOrdersList.getChildren().clear();
 
-        String query = "SELECT o.*, c.name as crop_name, c.price_per_kg as price, " +
+        String query = "SELECT o.*, c.name as crop_name, c.price_per_kg as price, c.version as crop_version, " +
                   "u.name as farmer_name, u.phone as farmer_phone, u.is_verified, " +
                   "(SELECT COUNT(*) FROM reviews r WHERE r.order_id = o.id AND r.reviewer_id = ?) as has_review, " +
                       "(SELECT photo_path FROM crop_photos WHERE crop_id = c.id ORDER BY photo_order LIMIT 1) as crop_photo " +
@@ -242,83 +273,73 @@ public class BuyerOrdersController {
             new Object[]{currentUser.getId(), currentUser.getId()} :
             new Object[]{currentUser.getId(), currentUser.getId(), filter};
 
-        DatabaseService.executeQueryAsync(
+        orderQueries.submitNow(
                 query,
                 params,
                 resultSet -> {
                     // IMPORTANT: Read ResultSet on DB thread (connection closes after callback).
                     List<OrderRow> rows = new ArrayList<>();
+                    while (resultSet.next()) {
+                        rows.add(new OrderRow(
+                                resultSet.getInt("id"),
+                                resultSet.getString("crop_name"),
+                                resultSet.getString("farmer_name"),
+                                resultSet.getString("farmer_phone"),
+                                resultSet.getBoolean("is_verified"),
+                                resultSet.getDouble("quantity_kg"),
+                                resultSet.getDouble("price"),
+                                resultSet.getString("status"),
+                                resultSet.getString("payment_status"),
+                                resultSet.getString("created_at"),
+                                resultSet.getString("crop_photo"),
+                                resultSet.getInt("has_review") > 0,
+                                // The total shown depends on the crop's price, the review button on reviews
+                                resultSet.getString("updated_at") + "#" + resultSet.getLong("version")
+                                    + "#" + resultSet.getLong("crop_version") + "#" + resultSet.getInt("has_review")
+                        ));
+                    }
+                    return rows;
+                },
+                rows -> {
                     try {
-                        while (resultSet.next()) {
-                            rows.add(new OrderRow(
-                                    resultSet.getInt("id"),
-                                    resultSet.getString("crop_name"),
-                                    resultSet.getString("farmer_name"),
-                                    resultSet.getString("farmer_phone"),
-                                    resultSet.getBoolean("is_verified"),
-                                    resultSet.getDouble("quantity_kg"),
-                                    resultSet.getDouble("price"),
-                                    resultSet.getString("status"),
-                                    resultSet.getString("payment_status"),
-                                    resultSet.getString("created_at"),
-                                    resultSet.getString("crop_photo"),
-                                    resultSet.getInt("has_review") > 0
-                            ));
+                        boolean hasResults = !rows.isEmpty();
+                        int targetOrderId = App.getCurrentOrderId();
+                        
+                        orderCards.update(rows);
+
+                        // Highlight the target order if navigating from notification
+                        Node orderCard = targetOrderId > 0 ? orderCards.nodeFor(targetOrderId) : null;
+                        if (orderCard != null) {
+                            orderCard.setStyle(orderCard.getStyle() + "; -fx-border-color: #4CAF50; -fx-border-width: 3px; -fx-background-color: #E8F5E9;");
+                            // Scroll to this order after a brief delay
+                            Platform.runLater(() -> {
+                                orderCard.requestFocus();
+                            });
+                            App.setCurrentOrderId(-1); // Clear after highlighting
                         }
-                    } catch (Exception e) {
-                        Platform.runLater(() -> {
-                            if (progressIndicator != null) {
-                                progressIndicator.setVisible(false);
-                            }
-                            e.printStackTrace();
-                            showError("ত্রুটি", "অর্ডার লোড করতে ব্যর্থ হয়েছে।");
-                        });
-                        return;
-                    }
 
-                    Platform.runLater(() -> {
-                        try {
-                            boolean hasResults = !rows.isEmpty();
-                            int targetOrderId = App.getCurrentOrderId();
-                            
-                            for (OrderRow row : rows) {
-                                VBox orderCard = createOrderCardFromRow(row);
-                                
-                                // Highlight the target order if navigating from notification
-                                if (targetOrderId > 0 && row.orderId == targetOrderId) {
-                                    orderCard.setStyle(orderCard.getStyle() + "; -fx-border-color: #4CAF50; -fx-border-width: 3px; -fx-background-color: #E8F5E9;");
-                                    // Scroll to this order after a brief delay
-                                    Platform.runLater(() -> {
-                                        orderCard.requestFocus();
-                                    });
-                                    App.setCurrentOrderId(-1); // Clear after highlighting
-                                }
-                                
-                                vboxOrdersList.getChildren().add(orderCard);
-                            }
-                            vboxEmptyState.setVisible(!hasResults);
-                            vboxOrdersList.setVisible(hasResults);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            showError("ত্রুটি", "অর্ডার লোড করতে ব্যর্থ হয়েছে।");
-                        } finally {
-                            if (progressIndicator != null) {
-                                progressIndicator.setVisible(false);
-                            }
+                        vboxEmptyState.setVisible(!hasResults);
+                        vboxOrdersList.setVisible(hasResults);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        showError("ত্রুটি", "অর্ডার লোড করতে ব্যর্থ হয়েছে।");
+                    } finally {
+                        if (progressIndicator != null) {
+                            progressIndicator.setVisible(false);
                         }
-                    });
+                    }
                 },
-                error -> Platform.runLater(() -> {
+                error -> {
                     if (progressIndicator != null) {
                         progressIndicator.setVisible(false);
                     }
                     showError("ডাটাবেস ত্রুটি", "অর্ডার লোড করতে সমস্যা হয়েছে।");
                     error.printStackTrace();
-                })
+                }
         );
     }
 
-    private VBox createOrderCardFromRow(OrderRow row) throws Exception {
+    private VBox createOrderCardFromRow(OrderRow row) {
         VBox card = new VBox(15);
         String safeStatus = row.status != null ? row.status : "new";
         card.getStyleClass().addAll("buyer-order-card", "order-" + safeStatus.replace("_", "-"));
@@ -546,13 +567,12 @@ public class BuyerOrdersController {
             OrderService.markReceivedAsync(
                 orderId,
                 currentUser.getId(),
+                requestKeys.keyFor(orderId, OrderService.Action.MARK_RECEIVED),
                 r -> {
                     if (r.ok) {
                         showSuccess("সফল", r.message);
                         refreshOrders();
-                        // Update buyer and farmer statistics after completion
-                        StatisticsCalculator.updateBuyerStatistics(currentUser.getId());
-                        updateFarmerStatsForOrder(orderId);
+                        // Buyer and farmer statistics were updated in the same transaction
                         // TODO: Implement REST API sync for order status
                         // FirebaseSyncService.getInstance().syncOrderStatusToFirebase(orderId, "completed", null);
                     } else {
@@ -567,23 +587,6 @@ public class BuyerOrdersController {
         }
     }
 
-    private void updateFarmerStatsForOrder(int orderId) {
-        DatabaseService.executeQueryAsync(
-            "SELECT farmer_id FROM orders WHERE id = ?",
-            new Object[]{orderId},
-            rs -> {
-                try {
-                    if (rs.next()) {
-                        int farmerId = rs.getInt("farmer_id");
-                        StatisticsCalculator.updateFarmerStatistics(farmerId);
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            },
-            error -> error.printStackTrace()
-        );
-    }
 
     private void cancelOrder(int orderId) {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
@@ -596,6 +599,7 @@ public class BuyerOrdersController {
             OrderService.cancelOrderAsync(
                 orderId,
                 currentUser.getId(),
+                requestKeys.keyFor(orderId, OrderService.Action.CANCEL),
                 r -> {
                     if (r.ok) {
                         showSuccess("সফল", r.message);
@@ -690,6 +694,7 @@ public class BuyerOrdersController {
             OrderService.deleteOrderAsync(
                 orderId,
                 currentUser.getId(),
+                requestKeys.keyFor(orderId, OrderService.Action.DELETE),
                 r -> {
                     if (r.ok) {
                         showSuccess("সফল", r.message);
@@ -754,10 +759,6 @@ public class BuyerOrdersController {
 
     @FXML
     private void onBack() {
-        // Stop polling when leaving the view
-        if (syncManager != null && currentUser != null) {
-            syncManager.stopPolling("orders_" + currentUser.getId());
-        }
         App.loadScene("buyer-dashboard-view.fxml", "Dashboard");
     }
 
@@ -2,11 +2,17 @@ package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
 import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.ChatService;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.utils.DataSyncManager;
 import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -18,10 +24,18 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * ChatConversationController - Displays and manages a single chat conversation
+ *
+ * Messages live in a virtualized ListView (only visible rows exist as nodes):
+ * - the newest page loads first; older pages load (ChatService message windows, keyset on
+ *   created_at/id) when the list is scrolled to the top
+ * - sent and received messages are appended (window after the newest loaded one), no reload
  */
 public class ChatConversationController {
 
@@ -37,8 +51,7 @@ public class ChatConversationController {
     @FXML private Label lblCropName;
     @FXML private Label lblCropPrice;
     @FXML private Button btnViewCrop;
-    @FXML private ScrollPane scrollPane;
-    @FXML private VBox vboxMessages;
+    @FXML private ListView<MessageItem> listMessages;
     @FXML private HBox hboxTypingIndicator;
     @FXML private Label lblTypingUser;
     @FXML private Button btnAttach;
@@ -67,7 +80,26 @@ public class ChatConversationController {
     }
     private int user1Id;
     private int user2Id;
-    private final List<MessageItem> loadedMessages = new ArrayList<>();
+
+    private static final int PAGE_SIZE = 50;
+    private static final int NEWER_BATCH = 200;
+    private static final int IMAGE_CACHE_SIZE = 64;
+
+    private final ObservableList<MessageItem> messages = FXCollections.observableArrayList();
+    private boolean firstPageLoaded;
+    private boolean hasOlderMessages;
+    private boolean loadingOlder;
+    private boolean scrollTopWatched;
+    private int newestLoadedId;
+    private DataSyncManager syncManager;
+
+    // Decoded attachment thumbnails, so scrolling back doesn't re-read files
+    private final Map<String, Image> imageCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > IMAGE_CACHE_SIZE;
+        }
+    };
 
     private static class MessageItem {
         @SuppressWarnings("unused")
@@ -81,6 +113,8 @@ public class ChatConversationController {
         boolean isRead;
         String createdAt;
         boolean isSent; // true if sent by current user
+        String day;  // date separator text
+        String time; // bubble time text
     }
 
     @FXML
@@ -91,11 +125,19 @@ public class ChatConversationController {
             return;
         }
 
+        syncManager = DataSyncManager.getInstance();
         setupEventHandlers();
-        
-        // Auto-scroll to bottom when new messages arrive
-        vboxMessages.heightProperty().addListener((obs, old, newVal) -> {
-            scrollPane.setVvalue(1.0);
+
+        listMessages.setItems(messages);
+        listMessages.setCellFactory(list -> new MessageCell());
+        listMessages.setFocusTraversable(false);
+        // The vertical scroll bar exists once the skin is created
+        listMessages.skinProperty().addListener((obs, old, skin) -> Platform.runLater(this::watchScrollTop));
+        // Stop polling for new messages once another view replaces this one
+        listMessages.sceneProperty().addListener((obs, old, scene) -> {
+            if (scene == null && conversationId > 0) {
+                syncManager.stopPolling("chat_" + conversationId);
+            }
         });
     }
 
@@ -365,148 +407,226 @@ public class ChatConversationController {
         );
     }
 
+    /**
+     * Newest page first; then poll for messages that arrive while the chat is open
+     */
     private void loadMessages() {
-        loadedMessages.clear();
-        
-        String sql = "SELECT * FROM messages WHERE conversation_id = ? " +
-                     "AND sender_id IN (?, ?) AND receiver_id IN (?, ?) " +
-                     "ORDER BY created_at ASC";
-        DatabaseService.executeQueryAsync(sql, new Object[]{conversationId, user1Id, user2Id, user1Id, user2Id},
-            rs -> {
-                try {
-                    while (rs.next()) {
-                        MessageItem item = mapMessage(rs);
-                        loadedMessages.add(item);
-                    }
-                    Platform.runLater(this::displayMessages);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+        ChatService.getInstance().getLatestMessages(conversationId, PAGE_SIZE,
+            window -> {
+                List<MessageItem> page = toItems(window);
+                messages.setAll(page);
+                firstPageLoaded = true;
+                hasOlderMessages = window.hasMore();
+                newestLoadedId = page.isEmpty() ? 0 : page.get(page.size() - 1).id;
+                scrollToBottom();
+                syncManager.startChatSync(conversationId, this::loadNewerMessages);
             },
             err -> {
-                Platform.runLater(() -> showError("Error", "Failed to load messages"));
+                showError("Error", "Failed to load messages");
                 err.printStackTrace();
             }
         );
     }
 
-    private MessageItem mapMessage(ResultSet rs) throws Exception {
-        MessageItem item = new MessageItem();
-        item.id = rs.getInt("id");
-        item.senderId = rs.getInt("sender_id");
-        item.receiverId = rs.getInt("receiver_id");
-        item.messageText = rs.getString("message_text");
-        item.messageType = rs.getString("message_type");
-        item.attachmentPath = rs.getString("attachment_path");
-        item.isRead = rs.getBoolean("is_read");
-        item.createdAt = rs.getString("created_at");
-        item.isSent = (item.senderId == currentUser.getId());
-        return item;
+    /**
+     * Previous page before the oldest loaded message
+     */
+    private void loadOlderMessages() {
+        if (loadingOlder || !hasOlderMessages || messages.isEmpty()) return;
+        loadingOlder = true;
+
+        ChatService.getInstance().getMessagesBefore(conversationId, messages.get(0).id, PAGE_SIZE,
+            window -> {
+                List<MessageItem> page = toItems(window);
+                messages.addAll(0, page);
+                hasOlderMessages = window.hasMore();
+                loadingOlder = false;
+                // Keep the message the user was looking at in place
+                listMessages.scrollTo(page.size());
+            },
+            err -> {
+                err.printStackTrace();
+                loadingOlder = false;
+            }
+        );
     }
 
-    private void displayMessages() {
-        vboxMessages.getChildren().clear();
-        
-        String currentDate = "";
-        
-        for (MessageItem msg : loadedMessages) {
-            // Add date separator if date changed
-            String msgDate = getDateFromTimestamp(msg.createdAt);
-            if (!msgDate.equals(currentDate)) {
-                currentDate = msgDate;
-                vboxMessages.getChildren().add(createDateSeparator(msgDate));
+    /**
+     * Append messages after the newest loaded one (own sends and incoming)
+     */
+    private void loadNewerMessages() {
+        // Until the first page is in, it will include anything just sent
+        if (!firstPageLoaded) return;
+        ChatService chatService = ChatService.getInstance();
+        Consumer<ChatService.MessageWindow> onWindow = window -> {
+            appendMessages(toItems(window));
+            if (window.hasMore()) {
+                loadNewerMessages();
             }
-            
-            // Add message bubble
-            HBox messageBubble = createMessageBubble(msg);
-            vboxMessages.getChildren().add(messageBubble);
+        };
+        Consumer<Exception> onError = Throwable::printStackTrace;
+        if (newestLoadedId == 0) {
+            // Conversation was empty: there is no message to anchor on yet
+            chatService.getLatestMessages(conversationId, NEWER_BATCH, onWindow, onError);
+        } else {
+            chatService.getMessagesAfter(conversationId, newestLoadedId, NEWER_BATCH, onWindow, onError);
         }
-        
-        // Scroll to bottom
-        Platform.runLater(() -> scrollPane.setVvalue(1.0));
     }
 
-    private HBox createDateSeparator(String date) {
-        HBox container = new HBox();
-        container.setAlignment(Pos.CENTER);
-        container.setPadding(new Insets(10, 0, 10, 0));
-        
-        Label lblDate = new Label(date);
-        lblDate.getStyleClass().add("date-separator");
-        container.getChildren().add(lblDate);
-        
-        return container;
+    private void appendMessages(List<MessageItem> page) {
+        boolean received = false;
+        for (MessageItem item : page) {
+            // Overlapping polls may return the same rows
+            if (!messages.isEmpty() && !isAfter(item, messages.get(messages.size() - 1))) continue;
+            messages.add(item);
+            newestLoadedId = item.id;
+            received |= !item.isSent;
+        }
+        if (!page.isEmpty()) {
+            scrollToBottom();
+        }
+        if (received) {
+            markMessagesAsRead();
+        }
     }
 
-    private HBox createMessageBubble(MessageItem msg) {
-        HBox container = new HBox(10);
-        container.setPadding(new Insets(5, 0, 5, 0));
-        
-        if (msg.isSent) {
-            // Sent message - align right
-            container.setAlignment(Pos.CENTER_RIGHT);
-            Region spacer = new Region();
-            HBox.setHgrow(spacer, Priority.ALWAYS);
-            container.getChildren().add(spacer);
-        } else {
-            // Received message - align left
-            container.setAlignment(Pos.CENTER_LEFT);
+    // Same (created_at, id) order as the message windows
+    private static boolean isAfter(MessageItem a, MessageItem b) {
+        int byTime = String.valueOf(a.createdAt).compareTo(String.valueOf(b.createdAt));
+        return byTime != 0 ? byTime > 0 : a.id > b.id;
+    }
+
+    private List<MessageItem> toItems(ChatService.MessageWindow window) {
+        List<MessageItem> items = new ArrayList<>(window.messages().size());
+        for (ChatService.StoredMessage stored : window.messages()) {
+            MessageItem item = new MessageItem();
+            item.id = stored.id();
+            item.senderId = stored.senderId();
+            item.receiverId = stored.receiverId();
+            item.messageText = stored.text();
+            item.messageType = stored.type();
+            item.attachmentPath = stored.attachmentPath();
+            item.isRead = stored.read();
+            item.createdAt = stored.createdAt();
+            item.isSent = (item.senderId == currentUser.getId());
+            item.day = getDateFromTimestamp(item.createdAt);
+            item.time = formatMessageTime(item.createdAt);
+            items.add(item);
         }
-        
-        VBox bubble = new VBox(5);
-        bubble.getStyleClass().add("message-bubble");
-        if (msg.isSent) {
-            bubble.getStyleClass().add("message-sent");
-        } else {
-            bubble.getStyleClass().add("message-received");
+        return items;
+    }
+
+    private void scrollToBottom() {
+        if (!messages.isEmpty()) {
+            listMessages.scrollTo(messages.size() - 1);
         }
-        bubble.setPadding(new Insets(10, 15, 10, 15));
-        bubble.setMaxWidth(600);
-        
-        // Message text
-        Label lblText = new Label(msg.messageText);
-        lblText.getStyleClass().add("message-text");
-        lblText.setWrapText(true);
-        bubble.getChildren().add(lblText);
-        
-        // Image attachment
-        if ("image".equals(msg.messageType) && msg.attachmentPath != null) {
-            ImageView imgView = new ImageView();
+    }
+
+    private void watchScrollTop() {
+        if (scrollTopWatched) return;
+        for (Node node : listMessages.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                scrollTopWatched = true;
+                bar.valueProperty().addListener((obs, old, value) -> {
+                    if (value.doubleValue() <= bar.getMin()) {
+                        loadOlderMessages();
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    private Image attachmentImage(String path) {
+        return imageCache.computeIfAbsent(path, p -> {
+            File imgFile = new File(p);
+            // Decoded in the background at thumbnail size
+            return imgFile.exists() ? new Image(imgFile.toURI().toString(), 300, 200, true, true, true) : null;
+        });
+    }
+
+    private static void show(Node node, boolean visible) {
+        node.setVisible(visible);
+        node.setManaged(visible);
+    }
+
+    /**
+     * One reusable row: optional date separator above a message bubble
+     */
+    private final class MessageCell extends ListCell<MessageItem> {
+        private final Label lblDate = new Label();
+        private final HBox dateRow = new HBox(lblDate);
+        private final Region spacer = new Region();
+        private final Label lblText = new Label();
+        private final ImageView imgView = new ImageView();
+        private final Label lblTime = new Label();
+        private final Label lblStatus = new Label();
+        private final VBox bubble;
+        private final HBox bubbleRow;
+        private final VBox row;
+
+        MessageCell() {
+            lblDate.getStyleClass().add("date-separator");
+            dateRow.setAlignment(Pos.CENTER);
+            dateRow.setPadding(new Insets(10, 0, 10, 0));
+
+            lblText.getStyleClass().add("message-text");
+            lblText.setWrapText(true);
+
             imgView.setFitWidth(300);
             imgView.setFitHeight(200);
             imgView.setPreserveRatio(true);
             imgView.getStyleClass().add("message-image");
-            
-            File imgFile = new File(msg.attachmentPath);
-            if (imgFile.exists()) {
-                imgView.setImage(new Image(imgFile.toURI().toString()));
-            }
-            bubble.getChildren().add(imgView);
-        }
-        
-        // Time and status
-        HBox timeBox = new HBox(8);
-        timeBox.setAlignment(Pos.BASELINE_RIGHT);
-        
-        String time = formatMessageTime(msg.createdAt);
-        Label lblTime = new Label(time);
-        lblTime.getStyleClass().add("message-time");
-        timeBox.getChildren().add(lblTime);
-        
-        // Status for sent messages
-        if (msg.isSent) {
-            Label lblStatus = new Label(msg.isRead ? "✓✓" : "✓");
+
+            lblTime.getStyleClass().add("message-time");
             lblStatus.getStyleClass().add("message-status");
-            if (msg.isRead) {
-                lblStatus.setStyle("-fx-text-fill: #4CAF50;");
+            HBox timeBox = new HBox(8, lblTime, lblStatus);
+            timeBox.setAlignment(Pos.BASELINE_RIGHT);
+
+            bubble = new VBox(5, lblText, imgView, timeBox);
+            bubble.setPadding(new Insets(10, 15, 10, 15));
+            bubble.setMaxWidth(600);
+
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+            bubbleRow = new HBox(10, spacer, bubble);
+            bubbleRow.setPadding(new Insets(5, 0, 5, 0));
+
+            row = new VBox(dateRow, bubbleRow);
+            // Follow the list width instead of widening it (no horizontal scrolling)
+            setPrefWidth(0);
+        }
+
+        @Override
+        protected void updateItem(MessageItem msg, boolean empty) {
+            super.updateItem(msg, empty);
+            setText(null);
+            if (empty || msg == null) {
+                setGraphic(null);
+                return;
             }
-            timeBox.getChildren().add(lblStatus);
+
+            int index = getIndex();
+            boolean newDay = index <= 0 || index > messages.size() - 1 || !messages.get(index - 1).day.equals(msg.day);
+            show(dateRow, newDay);
+            lblDate.setText(msg.day);
+
+            // Sent messages align right, received left
+            show(spacer, msg.isSent);
+            bubbleRow.setAlignment(msg.isSent ? Pos.CENTER_RIGHT : Pos.CENTER_LEFT);
+            bubble.getStyleClass().setAll("message-bubble", msg.isSent ? "message-sent" : "message-received");
+
+            lblText.setText(msg.messageText);
+            boolean hasImage = "image".equals(msg.messageType) && msg.attachmentPath != null;
+            show(imgView, hasImage);
+            imgView.setImage(hasImage ? attachmentImage(msg.attachmentPath) : null);
+
+            lblTime.setText(msg.time);
+            show(lblStatus, msg.isSent);
+            lblStatus.setText(msg.isRead ? "✓✓" : "✓");
+            lblStatus.setStyle(msg.isRead ? "-fx-text-fill: #4CAF50;" : "");
+
+            setGraphic(row);
         }
-        
-        bubble.getChildren().add(timeBox);
-        container.getChildren().add(bubble);
-        
-        return container;
     }
 
     @FXML
@@ -523,7 +643,7 @@ public class ChatConversationController {
             rows -> {
                 Platform.runLater(() -> {
                     txtMessage.clear();
-                    loadMessages(); // Reload to show new message
+                    loadNewerMessages(); // Append the new message
                 });
             },
             err -> {
@@ -539,14 +659,8 @@ public class ChatConversationController {
         Object[] params = {conversationId, currentUser.getId()};
         
         DatabaseService.executeUpdateAsync(sql, params,
-            rows -> {
-                // Update unread count in conversations for the correct side
-                String updateConv = (currentUser.getId() == user1Id) ?
-                    "UPDATE conversations SET unread_count_user1 = 0 WHERE id = ?" :
-                    "UPDATE conversations SET unread_count_user2 = 0 WHERE id = ?";
-                DatabaseService.executeUpdateAsync(updateConv, new Object[]{conversationId},
-                    r -> {}, e -> {});
-            },
+            // conversation_unread / user_unread_counters are kept in step by triggers
+            rows -> {},
             err -> err.printStackTrace()
         );
     }
@@ -646,7 +760,7 @@ public class ChatConversationController {
                           "[Image]", imageFile.getAbsolutePath()};
         
         DatabaseService.executeUpdateAsync(sql, params,
-            rows -> Platform.runLater(this::loadMessages),
+            rows -> Platform.runLater(this::loadNewerMessages),
             err -> Platform.runLater(() -> showError("Error", "Failed to send image"))
         );
     }
@@ -658,7 +772,7 @@ public class ChatConversationController {
                           "[File: " + file.getName() + "]", file.getAbsolutePath()};
         
         DatabaseService.executeUpdateAsync(sql, params,
-            rows -> Platform.runLater(this::loadMessages),
+            rows -> Platform.runLater(this::loadNewerMessages),
             err -> Platform.runLater(() -> showError("Error", "Failed to send file"))
         );
     }
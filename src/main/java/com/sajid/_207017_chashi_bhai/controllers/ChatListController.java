@@ -3,6 +3,8 @@ package com.sajid._207017_chashi_bhai.controllers;
 import com.sajid._207017_chashi_bhai.App;
 import com.sajid._207017_chashi_bhai.models.User;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.services.InboxProjection;
+import com.sajid._207017_chashi_bhai.utils.QueryScheduler;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -36,6 +38,7 @@ public class ChatListController {
     private User currentUser;
     private String currentFilter = "all";
     private final List<ConversationItem> loadedConversations = new ArrayList<>();
+    private final QueryScheduler searchFilter = new QueryScheduler(150);
 
     private static class ConversationItem {
         int id;
@@ -67,7 +70,7 @@ public class ChatListController {
     private void setupEventHandlers() {
         btnBack.setOnAction(e -> onBack());
         btnRefresh.setOnAction(e -> onRefresh());
-        txtSearch.textProperty().addListener((obs, old, newVal) -> filterConversations());
+        txtSearch.textProperty().addListener((obs, old, newVal) -> searchFilter.debounce(this::filterConversations));
         
         btnFilterAll.setOnAction(e -> setFilter("all"));
         btnFilterUnread.setOnAction(e -> setFilter("unread"));
@@ -79,26 +82,10 @@ public class ChatListController {
         showLoading(true);
         loadedConversations.clear();
 
-        String sql = "SELECT c.*, " +
-                    "CASE WHEN c.user1_id = ? THEN c.user2_id ELSE c.user1_id END as other_user_id, " +
-                    "CASE WHEN c.user1_id = ? THEN u2.name ELSE u1.name END as other_user_name, " +
-                    "CASE WHEN c.user1_id = ? THEN u2.role ELSE u1.role END as other_user_role, " +
-                    "CASE WHEN c.user1_id = ? THEN u2.phone ELSE u1.phone END as other_user_phone, " +
-                    "CASE WHEN c.user1_id = ? THEN u2.is_verified ELSE u1.is_verified END as other_user_verified, " +
-                    "CASE WHEN c.user1_id = ? THEN c.unread_count_user1 ELSE c.unread_count_user2 END as unread, " +
-                    "cr.name as crop_name " +
-                    "FROM conversations c " +
-                    "LEFT JOIN users u1 ON c.user1_id = u1.id " +
-                    "LEFT JOIN users u2 ON c.user2_id = u2.id " +
-                    "LEFT JOIN crops cr ON c.crop_id = cr.id " +
-                    "WHERE c.user1_id = ? OR c.user2_id = ? " +
-                    "ORDER BY c.last_message_time DESC";
-
-        Object[] params = {currentUser.getId(), currentUser.getId(), currentUser.getId(), 
-                          currentUser.getId(), currentUser.getId(), currentUser.getId(),
-                          currentUser.getId(), currentUser.getId()};
-
-        DatabaseService.executeQueryAsync(sql, params, 
+        // One range scan of the user's inbox projection (kept current by triggers)
+        Object[] params = {currentUser.getId()};
+
+        DatabaseService.executeQueryAsync(InboxProjection.INBOX_QUERY, params, 
             rs -> {
                 try {
                     while (rs.next()) {
@@ -128,7 +115,7 @@ public class ChatListController {
 
     private ConversationItem mapConversation(ResultSet rs) throws Exception {
         ConversationItem item = new ConversationItem();
-        item.id = rs.getInt("id");
+        item.id = rs.getInt("conversation_id");
         item.otherUserId = rs.getInt("other_user_id");
         item.otherUserName = rs.getString("other_user_name");
         item.otherUserRole = rs.getString("other_user_role");
@@ -316,7 +303,8 @@ public class ChatListController {
 
     @FXML
     private void onSearchKeyUp() {
-        filterConversations();
+        // The text listener already covers typing; key-up only coalesces into the same pending filter
+        searchFilter.debounce(this::filterConversations);
     }
 
     private void showLoading(boolean show) {
@@ -3,6 +3,7 @@ package com.sajid._207017_chashi_bhai.controllers;
 import com.sajid._207017_chashi_bhai.App;
 import com.sajid._207017_chashi_bhai.models.User;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.services.FirebaseService;
 import com.sajid._207017_chashi_bhai.utils.ImageBase64Util;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -266,9 +267,10 @@ public class CropDetailController {
                             loadThumbnails();
                             updateNavigationButtons();
                         } else {
-                            System.out.println("⚠️ No photos found for crop " + cropId);
+                            System.out.println("⚠️ No local photos for crop " + cropId + ", checking Firebase");
                             if (btnPrevPhoto != null) btnPrevPhoto.setVisible(false);
                             if (btnNextPhoto != null) btnNextPhoto.setVisible(false);
+                            loadCropPhotosFromFirebase();
                         }
                     } catch (Exception e) {
                         e.printStackTrace();
@@ -279,6 +281,26 @@ public class CropDetailController {
         );
     }
 
+    /**
+     * Fetch photos from Firestore, showing each one as soon as it arrives
+     */
+    private void loadCropPhotosFromFirebase() {
+        int requestedCropId = cropId;
+        FirebaseService.getInstance().loadAllCropPhotos(String.valueOf(requestedCropId),
+            (photoOrder, base64) -> Platform.runLater(() -> {
+                if (cropId != requestedCropId) return; // Navigated to another crop
+                cropPhotos.add(new CropPhoto(null, base64));
+                if (cropPhotos.size() == 1) {
+                    loadPhoto(0);
+                }
+                loadThumbnails();
+                updateNavigationButtons();
+            }),
+            photos -> System.out.println("✓ Loaded " + photos.size() + " photos from Firebase for crop " + requestedCropId),
+            error -> System.err.println("Error loading photos from Firebase: " + error.getMessage())
+        );
+    }
+
     private void loadPhoto(int index) {
         if (cropPhotos != null && index >= 0 && index < cropPhotos.size()) {
             currentPhotoIndex = index;
@@ -1,8 +1,12 @@
 package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
+import com.sajid._207017_chashi_bhai.ViewLifecycle;
 import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.DataChangeEvents;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.utils.FxBatchRenderer;
+import com.sajid._207017_chashi_bhai.utils.QueryScheduler;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -17,13 +21,19 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * CropFeedController - Shared crop feed for both buyers and farmers
  * Role-aware behavior and actions, with filters and search
  */
-public class CropFeedController {
+public class CropFeedController implements ViewLifecycle {
 
     // FXML fields matching crop-feed-view.fxml
     @FXML private TextField txtQuickSearch;
@@ -36,6 +46,7 @@ public class CropFeedController {
 
     private User currentUser;
     private String role; // "farmer" or "buyer"
+    private boolean shownBefore;
     
     // 64 districts of Bangladesh with Bangla translations
     private static final String[] DISTRICTS = {
@@ -89,6 +100,32 @@ public class CropFeedController {
 
     private final List<CropItem> loadedCrops = new ArrayList<>();
 
+    // Filter changes and typing are debounced; only the latest query/filter result is shown
+    private final QueryScheduler cropQueries = new QueryScheduler();
+    private final QueryScheduler quickSearch = new QueryScheduler(150);
+
+    // Card pipeline: texts and images are prepared on workers, then cards are placed a few per pulse
+    private static final int GRID_COLUMNS = 3;
+    private static final int FIRST_SCREEN = 12;
+    private static final int PREPARE_CHUNK = 24;
+    private static final long PLACE_BUDGET_MS = 8;
+    private static final ExecutorService CARD_PREP = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)), r -> {
+            Thread thread = new Thread(r, "CropCardPrep");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private record PreparedCard(CropItem item, CropItemController.Card card) {}
+
+    // Prepared cards of the current result set, reused by the quick search. Each load starts a
+    // new map (FX thread), so workers still preparing an older load fill only the old one.
+    private Map<Integer, CropItemController.Card> preparedCards = new ConcurrentHashMap<>();
+    private final FxBatchRenderer<PreparedCard> cardRenderer =
+        new FxBatchRenderer<>(FIRST_SCREEN, PLACE_BUDGET_MS, this::placeCard);
+    private long renderGeneration;
+    private int placedCards;
+
     @FXML
     public void initialize() {
         currentUser = App.getCurrentUser();
@@ -112,11 +149,6 @@ public class CropFeedController {
         // Initialize sort dropdown with default selection
         if (cbSortBy != null) {
             cbSortBy.getSelectionModel().select(0); // Default: Newest First
-            cbSortBy.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
-                if (newVal != null) {
-                    loadCrops(true);
-                }
-            });
         }
 
         // Pre-select district for farmer - find matching item in "বাংলা / English" format
@@ -130,13 +162,41 @@ public class CropFeedController {
             }
         }
 
+        // Filters apply as they change (after the district pre-selection above)
+        for (ComboBox<String> combo : Arrays.asList(cbFilterCropType, cbFilterDistrict, cbSortBy)) {
+            if (combo != null) {
+                combo.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+                    if (newVal != null) {
+                        loadCrops(true, true);
+                    }
+                });
+            }
+        }
+
         // Live search
         if (txtQuickSearch != null) {
-            txtQuickSearch.textProperty().addListener((obs, oldV, newV) -> filterLocally(newV));
+            txtQuickSearch.textProperty().addListener((obs, oldV, newV) -> quickSearch.debounce(() -> filterLocally(newV)));
         }
 
-        // Initial load - don't apply filters yet, just load all crops with default sort
-        loadCrops(false);
+    }
+
+    /**
+     * Runs on every visit of the cached view
+     */
+    @Override
+    public void onShow() {
+        // First visit: don't apply filters yet, just load all crops with default sort.
+        // Later visits keep whatever filters the user picked.
+        loadCrops(shownBefore);
+        shownBefore = true;
+    }
+
+    @Override
+    public void onHide() {
+        cropQueries.cancel();
+        quickSearch.cancel();
+        renderGeneration++;
+        cardRenderer.reset();
     }
 
     @FXML
@@ -435,7 +495,8 @@ public class CropFeedController {
     @FXML
     private void onSearchKeyUp() {
         if (txtQuickSearch != null) {
-            filterLocally(txtQuickSearch.getText().trim());
+            String text = txtQuickSearch.getText().trim();
+            quickSearch.debounce(() -> filterLocally(text));
         }
     }
 
@@ -453,20 +514,29 @@ public class CropFeedController {
         loadCrops(false);
     }
 
+    /**
+     * Active crops with farmer and first photo; loadCrops() appends filters and ORDER BY
+     * (public for the feed query benchmark)
+     */
+    public static final String FEED_SELECT =
+        "SELECT c.*, u.name as farmer_name, u.phone as farmer_phone, u.is_verified, " +
+        "c.price_per_kg as price, c.available_quantity_kg as quantity, 'কেজি' as unit, " +
+        " (SELECT photo_path FROM crop_photos WHERE crop_id = c.id ORDER BY photo_order LIMIT 1) as photo," +
+        " (SELECT image_base64 FROM crop_photos WHERE crop_id = c.id ORDER BY photo_order LIMIT 1) as photo_base64" +
+        " FROM crops c JOIN users u ON c.farmer_id = u.id WHERE c.status = 'active'";
+
     /**
      * Load crops from DB with optional filters.
      */
     private void loadCrops(boolean useFilters) {
-        if (gridCropFeed != null) gridCropFeed.getChildren().clear();
-        if (vboxEmptyState != null) vboxEmptyState.setVisible(false);
-        loadedCrops.clear();
+        loadCrops(useFilters, false);
+    }
 
-        StringBuilder sql = new StringBuilder();
-        sql.append("SELECT c.*, u.name as farmer_name, u.phone as farmer_phone, u.is_verified, ")
-           .append("c.price_per_kg as price, c.available_quantity_kg as quantity, 'কেজি' as unit, ")
-           .append(" (SELECT photo_path FROM crop_photos WHERE crop_id = c.id ORDER BY photo_order LIMIT 1) as photo,")
-           .append(" (SELECT image_base64 FROM crop_photos WHERE crop_id = c.id ORDER BY photo_order LIMIT 1) as photo_base64")
-           .append(" FROM crops c JOIN users u ON c.farmer_id = u.id WHERE c.status = 'active'");
+    /**
+     * @param debounced wait for the filter controls to settle (combo changes) instead of running now
+     */
+    private void loadCrops(boolean useFilters, boolean debounced) {
+        StringBuilder sql = new StringBuilder(FEED_SELECT);
 
         List<Object> params = new ArrayList<>();
 
@@ -540,63 +610,116 @@ public class CropFeedController {
         System.out.println("[CropFeed] Loading crops with query: " + sql.toString());
         System.out.println("[CropFeed] Params: " + params);
 
-        DatabaseService.executeQueryAsync(sql.toString(), params.toArray(), rs -> {
-            // CRITICAL: Read ResultSet data BEFORE Platform.runLater to avoid closed ResultSet
+        QueryScheduler.RowReader<List<CropItem>> reader = rs -> {
+            // Read ResultSet data on the DB thread (it is closed after the callback)
             List<CropItem> items = new ArrayList<>();
-            try {
-                while (rs.next()) {
-                    CropItem item = mapItem(rs);
-                    items.add(item);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> showError("ত্রুটি", "ফসলের তালিকা লোড করতে ব্যর্থ হয়েছে।"));
-                return;
+            while (rs.next()) {
+                items.add(mapItem(rs));
             }
-            
-            // Now update UI with the loaded data
-            Platform.runLater(() -> {
-                try {
-                    loadedCrops.clear();
-                    loadedCrops.addAll(items);
-                    
-                    int colCount = 3; // Number of columns in the grid
-                    int row = 0, col = 0;
-                    
-                    for (CropItem item : items) {
-                        if (gridCropFeed != null) {
-                            gridCropFeed.add(buildCropCard(item), col, row);
-                            col++;
-                            if (col >= colCount) {
-                                col = 0;
-                                row++;
-                            }
-                        }
-                    }
-                    
-                    System.out.println("[CropFeed] Loaded " + items.size() + " crops");
-
-                    // Show empty state if no crops found
-                    if (items.isEmpty() && vboxEmptyState != null) {
-                        vboxEmptyState.setVisible(true);
-                        if (gridCropFeed != null) gridCropFeed.setVisible(false);
-                    } else {
-                        if (vboxEmptyState != null) vboxEmptyState.setVisible(false);
-                        if (gridCropFeed != null) gridCropFeed.setVisible(true);
+            return items;
+        };
+        if (debounced) {
+            cropQueries.submit(sql.toString(), params.toArray(), reader, this::showCrops, this::onCropsFailed);
+        } else {
+            cropQueries.submitNow(sql.toString(), params.toArray(), reader, this::showCrops, this::onCropsFailed);
+        }
+    }
+
+    private void showCrops(List<CropItem> items) {
+        loadedCrops.clear();
+        loadedCrops.addAll(items);
+        preparedCards = new ConcurrentHashMap<>(); // rows may have changed since the last load
+        renderCards(items);
+        System.out.println("[CropFeed] Loaded " + items.size() + " crops");
+    }
+
+    /**
+     * Replace the grid with these crops: prepare cards on workers in order (first screenful
+     * first), place them in per-pulse batches. The old cards stay until the first batch arrives.
+     */
+    private void renderCards(List<CropItem> items) {
+        long generation = ++renderGeneration;
+        cardRenderer.reset();
+        placedCards = 0;
+
+        // Show empty state if no crops found
+        if (items.isEmpty()) {
+            if (gridCropFeed != null) gridCropFeed.getChildren().clear();
+            if (vboxEmptyState != null) vboxEmptyState.setVisible(true);
+            if (gridCropFeed != null) gridCropFeed.setVisible(vboxEmptyState == null);
+            return;
+        }
+        if (vboxEmptyState != null) vboxEmptyState.setVisible(false);
+        if (gridCropFeed != null) gridCropFeed.setVisible(true);
+
+        // Chunks are prepared in parallel but handed over in order
+        Map<Integer, CropItemController.Card> cache = preparedCards;
+        CompletableFuture<Void> delivered = CompletableFuture.completedFuture(null);
+        for (int from = 0; from < items.size(); ) {
+            int to = Math.min(items.size(), from + (from == 0 ? FIRST_SCREEN : PREPARE_CHUNK));
+            List<CropItem> chunk = List.copyOf(items.subList(from, to));
+            CompletableFuture<List<PreparedCard>> prepared =
+                CompletableFuture.supplyAsync(() -> prepareCards(chunk, cache), CARD_PREP);
+            delivered = delivered
+                .thenCombine(prepared, (ignored, cards) -> cards)
+                .thenAccept(cards -> Platform.runLater(() -> {
+                    if (generation == renderGeneration) {
+                        cardRenderer.enqueue(cards);
                     }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    showError("ত্রুটি", "ফসলের তালিকা প্রদর্শন করতে ব্যর্থ হয়েছে।");
-                }
-            });
-        }, err -> {
-            Platform.runLater(() -> {
-                showError("ডাটাবেস ত্রুটি", "ফসল লোডে সমস্যা হয়েছে।");
-                err.printStackTrace();
-            });
+                }));
+            from = to;
+        }
+        delivered.exceptionally(error -> {
+            error.printStackTrace();
+            return null;
         });
     }
 
+    /**
+     * Worker thread: format texts and decode images (cached per crop for the quick search)
+     */
+    private static List<PreparedCard> prepareCards(List<CropItem> chunk, Map<Integer, CropItemController.Card> cache) {
+        List<PreparedCard> cards = new ArrayList<>(chunk.size());
+        for (CropItem item : chunk) {
+            CropItemController.Card card = cache.get(item.id);
+            if (card == null) {
+                card = CropItemController.prepare(
+                    item.id,
+                    item.name,
+                    "শ্রেণী: " + (item.category != null ? item.category : "") + " , জেলা: " + (item.district != null ? item.district : ""),
+                    item.farmerName + (item.farmerVerified ? " ✓" : ""),
+                    item.quantity,
+                    item.unit,
+                    item.price,
+                    item.photoPath,
+                    item.photoBase64
+                );
+                cache.putIfAbsent(item.id, card);
+            }
+            cards.add(new PreparedCard(item, card));
+        }
+        return cards;
+    }
+
+    private void placeCard(PreparedCard prepared) {
+        if (gridCropFeed == null) return;
+        if (placedCards == 0) {
+            gridCropFeed.getChildren().clear();
+        }
+        try {
+            gridCropFeed.add(buildCropCard(prepared), placedCards % GRID_COLUMNS, placedCards / GRID_COLUMNS);
+        } catch (Exception e) {
+            e.printStackTrace();
+            showError("ত্রুটি", "ফসলের তালিকা প্রদর্শন করতে ব্যর্থ হয়েছে।");
+        }
+        placedCards++;
+    }
+
+    private void onCropsFailed(Exception err) {
+        err.printStackTrace();
+        showError("ডাটাবেস ত্রুটি", "ফসল লোডে সমস্যা হয়েছে।");
+    }
+
     private CropItem mapItem(ResultSet rs) throws Exception {
         CropItem item = new CropItem();
         item.id = rs.getInt("id");
@@ -630,31 +753,21 @@ public class CropFeedController {
     /**
      * Build crop card using FXML template
      */
-    private Pane buildCropCard(CropItem item) {
+    private Pane buildCropCard(PreparedCard prepared) {
         try {
             // Load FXML template
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/sajid/_207017_chashi_bhai/item-crop.fxml"));
             VBox cardRoot = loader.load();
             
-            // Get controller and set data
+            // Get controller and set the prepared data
             CropItemController controller = loader.getController();
-            controller.setCropData(
-                item.id,
-                item.name,
-                "শ্রেণী: " + (item.category != null ? item.category : "") + " , জেলা: " + (item.district != null ? item.district : ""),
-                item.farmerName + (item.farmerVerified ? " ✓" : ""),
-                item.quantity,
-                item.unit,
-                item.price,
-                item.photoPath,
-                item.photoBase64
-            );
+            controller.setCard(prepared.card());
             
             return cardRoot;
         } catch (IOException e) {
             e.printStackTrace();
             // Fallback to programmatic card if FXML fails
-            return buildCropCardProgrammatic(item);
+            return buildCropCardProgrammatic(prepared.item());
         }
     }
 
@@ -774,10 +887,7 @@ public class CropFeedController {
 
     private void filterLocally(String query) {
         String q = query == null ? "" : query.trim().toLowerCase();
-        if (gridCropFeed != null) gridCropFeed.getChildren().clear();
-        int count = 0;
-        int colCount = 3;
-        int row = 0, col = 0;
+        List<CropItem> matches = new ArrayList<>();
         
         for (CropItem item : loadedCrops) {
             if (q.isEmpty() || 
@@ -785,26 +895,12 @@ public class CropFeedController {
                 (item.district != null && item.district.toLowerCase().contains(q)) ||
                 (item.farmerName != null && item.farmerName.toLowerCase().contains(q)) ||
                 (item.productCode != null && item.productCode.toLowerCase().contains(q))) {
-                if (gridCropFeed != null) {
-                    gridCropFeed.add(buildCropCard(item), col, row);
-                    col++;
-                    if (col >= colCount) {
-                        col = 0;
-                        row++;
-                    }
-                }
-                count++;
+                matches.add(item);
             }
         }
         
-        // Show/hide empty state
-        if (count == 0 && vboxEmptyState != null) {
-            vboxEmptyState.setVisible(true);
-            if (gridCropFeed != null) gridCropFeed.setVisible(false);
-        } else {
-            if (vboxEmptyState != null) vboxEmptyState.setVisible(false);
-            if (gridCropFeed != null) gridCropFeed.setVisible(true);
-        }
+        // Cards already prepared for the loaded crops are reused
+        renderCards(matches);
     }
 
     private void openDetails(int cropId) {
@@ -829,6 +925,7 @@ public class CropFeedController {
                     "UPDATE crops SET status = 'deleted' WHERE id = ?",
                     new Object[]{cropId},
                     rowsAffected -> {
+                        DataChangeEvents.getInstance().publish(DataChangeEvents.Topic.CROPS, currentUser.getId());
                         Platform.runLater(() -> {
                             showSuccess("সফল", "ফসল মুছে ফেলা হয়েছে।");
                             loadCrops(false);
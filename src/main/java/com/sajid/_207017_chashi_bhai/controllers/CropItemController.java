@@ -27,46 +27,69 @@ public class CropItemController {
 
     private int cropId;
 
+    // Matches the ImageView in item-crop.fxml, so images are decoded at display size
+    private static final double IMAGE_WIDTH = 256;
+    private static final double IMAGE_HEIGHT = 180;
+
     /**
-     * Set the crop data for this card
+     * Everything a card shows: texts already formatted, image already decoded
      */
-    public void setCropData(int id, String name, String category, String farmerName, 
-                           double quantity, String unit, double price, String photoPath, String photoBase64) {
-        this.cropId = id;
-        
-        // Set labels
-        nameLabel.setText(name);
-        categoryLabel.setText(category);
-        farmerLabel.setText("Farmer: " + farmerName);
-        remainingLabel.setText(String.format("Remaining: %.1f %s", quantity, unit));
-        priceLabel.setText(String.format("৳ %.2f", price));
-        
+    public record Card(int cropId, String name, String category, String farmer,
+                       String remaining, String price, Image image) {}
+
+    /**
+     * Build a card's content; does no UI work, so it can run on a worker thread
+     */
+    public static Card prepare(int id, String name, String category, String farmerName,
+                               double quantity, String unit, double price, String photoPath, String photoBase64) {
         // Load image - try Base64 first, then file path
         Image image = null;
         if (photoBase64 != null && !photoBase64.isEmpty()) {
-            System.out.println("[CropItem] Loading image from Base64 (length: " + photoBase64.length() + ")");
-            image = ImageBase64Util.base64ToImage(photoBase64);
-            if (image != null) {
-                System.out.println("[CropItem] ✓ Base64 image loaded successfully");
-            } else {
-                System.out.println("[CropItem] ❌ Failed to load Base64 image");
+            image = ImageBase64Util.base64ToImage(photoBase64, IMAGE_WIDTH, IMAGE_HEIGHT);
+            if (image == null) {
+                System.out.println("[CropItem] ❌ Failed to load Base64 image for crop " + id);
             }
         }
         if (image == null && photoPath != null && !photoPath.isEmpty()) {
-            System.out.println("[CropItem] Trying to load from file path: " + photoPath);
             File photoFile = new File(photoPath);
             if (photoFile.exists()) {
-                image = new Image(photoFile.toURI().toString());
-                System.out.println("[CropItem] ✓ File image loaded");
+                image = new Image(photoFile.toURI().toString(), IMAGE_WIDTH, IMAGE_HEIGHT, false, true, false);
             } else {
                 System.out.println("[CropItem] ❌ File not found: " + photoPath);
             }
         }
-        if (image != null) {
-            imageView.setImage(image);
-            System.out.println("[CropItem] Image set to ImageView (" + image.getWidth() + "x" + image.getHeight() + ")");
-        } else {
-            System.out.println("[CropItem] ⚠️ No image available for crop " + id);
+
+        return new Card(
+            id,
+            name,
+            category,
+            "Farmer: " + farmerName,
+            String.format("Remaining: %.1f %s", quantity, unit),
+            String.format("৳ %.2f", price),
+            image
+        );
+    }
+
+    /**
+     * Set the crop data for this card
+     */
+    public void setCropData(int id, String name, String category, String farmerName, 
+                           double quantity, String unit, double price, String photoPath, String photoBase64) {
+        setCard(prepare(id, name, category, farmerName, quantity, unit, price, photoPath, photoBase64));
+    }
+
+    /**
+     * Show a prepared card (FX thread)
+     */
+    public void setCard(Card card) {
+        this.cropId = card.cropId();
+        nameLabel.setText(card.name());
+        categoryLabel.setText(card.category());
+        farmerLabel.setText(card.farmer());
+        remainingLabel.setText(card.remaining());
+        priceLabel.setText(card.price());
+        if (card.image() != null) {
+            imageView.setImage(card.image());
         }
     }
 
@@ -2,6 +2,7 @@ package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
 import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.DataChangeEvents;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
 import com.sajid._207017_chashi_bhai.services.FirebaseService;
 import com.sajid._207017_chashi_bhai.utils.ImageBase64Util;
@@ -234,6 +235,7 @@ public class EditCropController {
             new Object[]{cropName, category, price, quantity, harvestDate.toString(), district, transport, description, cropId, currentUser.getId()},
             rowsAffected -> {
                 if (rowsAffected > 0) {
+                    DataChangeEvents.getInstance().publish(DataChangeEvents.Topic.CROPS, currentUser.getId());
                     updatePhotos();
                 } else {
                     Platform.runLater(() -> {
@@ -1,10 +1,14 @@
 package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
+import com.sajid._207017_chashi_bhai.ViewLifecycle;
 import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.DashboardSnapshotService;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
-import com.sajid._207017_chashi_bhai.services.NotificationService;
+import com.sajid._207017_chashi_bhai.services.UnreadCounters;
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -17,7 +21,7 @@ import javafx.scene.control.TextInputDialog;
  * FarmerDashboardController - Main dashboard for farmers
  * Displays welcome message, verification status, quick stats, and navigation buttons
  */
-public class FarmerDashboardController {
+public class FarmerDashboardController implements ViewLifecycle {
 
     @FXML private Label lblWelcome;
     @FXML private Label lblVerifiedBadge;
@@ -41,12 +45,10 @@ public class FarmerDashboardController {
     @FXML private ProgressIndicator progressIndicator;
 
     private User currentUser;
-    private NotificationService notificationService;
 
     @FXML
     public void initialize() {
         currentUser = App.getCurrentUser();
-        notificationService = NotificationService.getInstance();
         
         if (currentUser == null || !"farmer".equals(currentUser.getRole())) {
             showError("অ্যাক্সেস অস্বীকার", "শুধুমাত্র কৃষকরা এই পেজ দেখতে পারবেন।");
@@ -54,6 +56,18 @@ public class FarmerDashboardController {
             return;
         }
 
+        // Load notification count
+        loadNotificationCount();
+    }
+
+    /**
+     * Runs on every visit of the cached view
+     */
+    @Override
+    public void onShow() {
+        if (App.getCurrentUser() == null) return;
+        currentUser = App.getCurrentUser();
+
         // Set welcome message
         lblWelcome.setText("স্বাগতম, " + currentUser.getName() + "!");
         
@@ -78,25 +92,17 @@ public class FarmerDashboardController {
 
         // Load dashboard statistics
         loadDashboardStats();
-        
-        // Load notification count
-        loadNotificationCount();
     }
     
     /**
-     * Load unread notification count and update badge
+     * Bind the badge to the cached unread counter (updates live, no COUNT query)
      */
     private void loadNotificationCount() {
-        notificationService.getUnreadCount(currentUser.getId(), count -> {
-            if (lblNotificationBadge != null) {
-                if (count > 0) {
-                    lblNotificationBadge.setText(count > 99 ? "99+" : String.valueOf(count));
-                    lblNotificationBadge.setVisible(true);
-                } else {
-                    lblNotificationBadge.setVisible(false);
-                }
-            }
-        });
+        if (lblNotificationBadge == null) return;
+        ReadOnlyIntegerProperty count = UnreadCounters.getInstance().notificationsProperty(currentUser.getId());
+        lblNotificationBadge.textProperty().bind(Bindings.createStringBinding(
+            () -> count.get() > 99 ? "99+" : String.valueOf(count.get()), count));
+        lblNotificationBadge.visibleProperty().bind(count.greaterThan(0));
     }
     
     @FXML
@@ -113,65 +119,34 @@ public class FarmerDashboardController {
             progressIndicator.setVisible(true);
         }
 
-        DatabaseService.executeQueryAsync(
-            "SELECT " +
-            "(SELECT COALESCE(SUM(o.total_amount), 0) FROM orders o " +
-            " WHERE o.farmer_id = ? AND o.status IN ('delivered', 'completed')) as total_earnings, " +
-            "(SELECT COUNT(*) FROM crops WHERE farmer_id = ? AND status = 'active') as active_crops, " +
-            "(SELECT COUNT(*) FROM orders o " +
-            " WHERE o.farmer_id = ? AND o.status IN ('new', 'processing', 'accepted', 'shipped', 'in_transit')) as pending_orders",
-            new Object[]{currentUser.getId(), currentUser.getId(), currentUser.getId()},
-            resultSet -> {
-                double earnings = 0.0;
-                int activeCrops = 0;
-                int pendingOrders = 0;
-                boolean ok = false;
+        // One query (or none if cached and nothing changed since)
+        DashboardSnapshotService.getInstance().loadFarmerSnapshot(currentUser.getId(),
+            snapshot -> {
                 try {
-                    if (resultSet.next()) {
-                        earnings = resultSet.getDouble("total_earnings");
-                        activeCrops = resultSet.getInt("active_crops");
-                        pendingOrders = resultSet.getInt("pending_orders");
-                        ok = true;
+                    if (lblTotalEarnings != null) {
+                        lblTotalEarnings.setText(String.format("৳%.2f", snapshot.earnings));
+                    }
+                    if (lblActiveListings != null) {
+                        lblActiveListings.setText(String.valueOf(snapshot.activeCrops));
+                    }
+                    if (lblPendingOrders != null) {
+                        lblPendingOrders.setText(String.valueOf(snapshot.pendingOrders));
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
-                }
-
-                final boolean finalOk = ok;
-                final double finalEarnings = earnings;
-                final int finalActiveCrops = activeCrops;
-                final int finalPendingOrders = pendingOrders;
-                Platform.runLater(() -> {
-                    try {
-                        if (finalOk) {
-                            if (lblTotalEarnings != null) {
-                                lblTotalEarnings.setText(String.format("৳%.2f", finalEarnings));
-                            }
-                            if (lblActiveListings != null) {
-                                lblActiveListings.setText(String.valueOf(finalActiveCrops));
-                            }
-                            if (lblPendingOrders != null) {
-                                lblPendingOrders.setText(String.valueOf(finalPendingOrders));
-                            }
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        showError("ত্রুটি", "পরিসংখ্যান লোড করতে ব্যর্থ হয়েছে।");
-                    } finally {
-                        if (progressIndicator != null) {
-                            progressIndicator.setVisible(false);
-                        }
-                    }
-                });
-            },
-            error -> {
-                Platform.runLater(() -> {
+                    showError("ত্রুটি", "পরিসংখ্যান লোড করতে ব্যর্থ হয়েছে।");
+                } finally {
                     if (progressIndicator != null) {
                         progressIndicator.setVisible(false);
                     }
-                    showError("ডাটাবেস ত্রুটি", "পরিসংখ্যান লোড করতে সমস্যা হয়েছে।");
-                    error.printStackTrace();
-                });
+                }
+            },
+            error -> {
+                if (progressIndicator != null) {
+                    progressIndicator.setVisible(false);
+                }
+                showError("ডাটাবেস ত্রুটি", "পরিসংখ্যান লোড করতে সমস্যা হয়েছে।");
+                error.printStackTrace();
             }
         );
     }
@@ -3,8 +3,11 @@ package com.sajid._207017_chashi_bhai.controllers;
 import com.sajid._207017_chashi_bhai.App;
 import com.sajid._207017_chashi_bhai.models.User;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.services.DailyRollupService;
 // import com.sajid._207017_chashi_bhai.services.FirebaseSyncService; // Removed - using REST API now
 import com.sajid._207017_chashi_bhai.utils.DataSyncManager;
+import com.sajid._207017_chashi_bhai.utils.KeyedNodeList;
+import com.sajid._207017_chashi_bhai.utils.QueryScheduler;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -37,10 +40,19 @@ public class FarmerHistoryController {
     private User currentUser;
     private DataSyncManager syncManager;
 
+    // History cards on screen by order id; refreshes only rebuild orders whose row changed
+    private KeyedNodeList<Integer, HistoryCardData> historyCards;
+    // Filter/sort changes and polling supersede each other; only the latest load is shown
+    private final QueryScheduler historyQueries = new QueryScheduler();
+
     @FXML
     public void initialize() {
         currentUser = App.getCurrentUser();
         syncManager = DataSyncManager.getInstance();
+        if (vboxHistoryList != null) {
+            historyCards = new KeyedNodeList<>(vboxHistoryList, data -> data.orderId, data -> data.rowVersion,
+                this::createHistoryCard);
+        }
         
         if (currentUser == null || !"farmer".equals(currentUser.getRole())) {
             showError("অ্যাক্সেস অস্বীকার", "শুধুমাত্র কৃষকরা এই পেজ দেখতে পারবেন।");
@@ -73,7 +85,6 @@ public class FarmerHistoryController {
         }
         
         loadCropFilter();
-        loadSummaryStats();
         loadHistory();
         
         // Start real-time sync polling for history (every 30 seconds)
@@ -125,99 +136,36 @@ public class FarmerHistoryController {
     }
 
     private void loadSummaryStats() {
-        // Get total income (completed/delivered)
-        DatabaseService.executeQueryAsync(
-            "SELECT COALESCE(SUM(o.total_amount), 0) as total_income " +
-                "FROM orders o " +
-                "WHERE o.farmer_id = ? AND o.status IN ('delivered', 'completed')",
-            new Object[]{currentUser.getId()},
-            resultSet -> {
-                double income = 0.0;
-                try {
-                    if (resultSet.next()) {
-                        income = resultSet.getDouble("total_income");
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+        // Income, completed orders and most sold crop (by quantity) for the selected period, from daily rollups
+        String[] range = DailyRollupService.rangeForFilter(cbFilterMonth != null ? cbFilterMonth.getValue() : null);
+        DailyRollupService.loadFarmerSummary(currentUser.getId(), range[0], range[1],
+            summary -> Platform.runLater(() -> {
+                if (lblTotalIncome != null) {
+                    lblTotalIncome.setText(String.format("৳%.2f", summary.revenue));
                 }
-                final double finalIncome = income;
-                Platform.runLater(() -> {
-                    if (lblTotalIncome != null) {
-                        lblTotalIncome.setText(String.format("৳%.2f", finalIncome));
-                    }
-                });
-            },
-            error -> error.printStackTrace()
-        );
-
-        // Get most sold crop (by quantity)
-        DatabaseService.executeQueryAsync(
-            "SELECT c.name as most_sold, COALESCE(SUM(o.quantity_kg), 0) as qty " +
-                "FROM orders o " +
-                "JOIN crops c ON o.crop_id = c.id " +
-                "WHERE o.farmer_id = ? AND o.status IN ('delivered', 'completed') " +
-                "GROUP BY c.id " +
-                "ORDER BY qty DESC LIMIT 1",
-            new Object[]{currentUser.getId()},
-            resultSet -> {
-                String mostSold = "N/A";
-                try {
-                    if (resultSet.next()) {
-                        String name = resultSet.getString("most_sold");
-                        if (name != null && !name.isBlank()) {
-                            mostSold = name;
-                        }
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+                if (lblMostSold != null) {
+                    lblMostSold.setText(summary.topCrop != null && !summary.topCrop.isBlank() ? summary.topCrop : "N/A");
                 }
-                final String finalMostSold = mostSold;
-                Platform.runLater(() -> {
-                    if (lblMostSold != null) {
-                        lblMostSold.setText(finalMostSold);
-                    }
-                });
-            },
-            error -> error.printStackTrace()
-        );
-
-        // Get total accepted orders (pipeline statuses)
-        DatabaseService.executeQueryAsync(
-            "SELECT COUNT(*) as total_orders " +
-            "FROM orders o " +
-            "WHERE o.farmer_id = ? AND o.status IN ('accepted','shipped','in_transit','delivered','completed')",
-            new Object[]{currentUser.getId()},
-            resultSet -> {
-                int totalOrders = 0;
-                try {
-                    if (resultSet.next()) {
-                        totalOrders = resultSet.getInt("total_orders");
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+                if (lblTotalAcceptedOrders != null) {
+                    lblTotalAcceptedOrders.setText(String.valueOf(summary.orderCount));
                 }
-                final int finalTotalOrders = totalOrders;
-                Platform.runLater(() -> {
-                    if (lblTotalAcceptedOrders != null) {
-                        lblTotalAcceptedOrders.setText(String.valueOf(finalTotalOrders));
-                    }
-                });
-            },
+            }),
             error -> error.printStackTrace()
         );
     }
 
     private void loadHistory() {
+        // Summary follows the same period filter as the list
+        loadSummaryStats();
+
         if (progressIndicator != null) {
             progressIndicator.setVisible(true);
         }
-        if (vboxHistoryList != null) {
-            vboxHistoryList.getChildren().clear();
-        }
 
         String effectiveDateExpr = "COALESCE(o.completed_at, o.delivered_at, o.updated_at, o.created_at)";
 
         String query = "SELECT o.id, o.quantity_kg, o.price_per_kg, o.total_amount, o.payment_status, " +
+                      "o.updated_at, o.version, c.version as crop_version, " +
                       effectiveDateExpr + " as order_date, " +
                       "c.name as crop_name, " +
                       "u.name as buyer_name " +
@@ -266,49 +214,36 @@ public class FarmerHistoryController {
             query += " ORDER BY " + effectiveDateExpr + " DESC";
         }
 
-        DatabaseService.executeQueryAsync(
+        historyQueries.submitNow(
             query,
             params.toArray(),
             resultSet -> {
+                List<HistoryCardData> cardRows = new ArrayList<>();
+                while (resultSet.next()) {
+                    cardRows.add(extractCardData(resultSet));
+                }
+                return cardRows;
+            },
+            cardRows -> {
                 try {
-                    java.util.List<HistoryCardData> cardRows = new java.util.ArrayList<>();
-                    while (resultSet.next()) {
-                        cardRows.add(extractCardData(resultSet));
+                    if (historyCards != null) {
+                        historyCards.update(cardRows);
                     }
-
-                    Platform.runLater(() -> {
-                        try {
-                            for (HistoryCardData data : cardRows) {
-                                HBox historyCard = createHistoryCard(data);
-                                vboxHistoryList.getChildren().add(historyCard);
-                            }
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            showError("ত্রুটি", "ইতিহাস লোড করতে ব্যর্থ হয়েছে।");
-                        } finally {
-                            if (progressIndicator != null) {
-                                progressIndicator.setVisible(false);
-                            }
-                        }
-                    });
                 } catch (Exception e) {
                     e.printStackTrace();
-                    Platform.runLater(() -> {
-                        if (progressIndicator != null) {
-                            progressIndicator.setVisible(false);
-                        }
-                        showError("ত্রুটি", "ইতিহাস লোড করতে ব্যর্থ হয়েছে।");
-                    });
-                }
-            },
-            error -> {
-                Platform.runLater(() -> {
+                    showError("ত্রুটি", "ইতিহাস লোড করতে ব্যর্থ হয়েছে।");
+                } finally {
                     if (progressIndicator != null) {
                         progressIndicator.setVisible(false);
                     }
-                    showError("ডাটাবেস ত্রুটি", "ইতিহাস লোড করতে সমস্যা হয়েছে।");
-                    error.printStackTrace();
-                });
+                }
+            },
+            error -> {
+                if (progressIndicator != null) {
+                    progressIndicator.setVisible(false);
+                }
+                showError("ডাটাবেস ত্রুটি", "ইতিহাস লোড করতে সমস্যা হয়েছে।");
+                error.printStackTrace();
             }
         );
     }
@@ -321,9 +256,10 @@ public class FarmerHistoryController {
         final double quantity;
         final double price;
         final String paymentStatus;
+        final String rowVersion;
 
         HistoryCardData(int orderId, String date, String buyerName, String cropName,
-                        double quantity, double price, String paymentStatus) {
+                        double quantity, double price, String paymentStatus, String rowVersion) {
             this.orderId = orderId;
             this.date = date;
             this.buyerName = buyerName;
@@ -331,6 +267,7 @@ public class FarmerHistoryController {
             this.quantity = quantity;
             this.price = price;
             this.paymentStatus = paymentStatus;
+            this.rowVersion = rowVersion;
         }
     }
 
@@ -345,11 +282,12 @@ public class FarmerHistoryController {
         double quantity = rs.getDouble("quantity_kg");
         double price = rs.getDouble("price_per_kg");
         String paymentStatus = rs.getString("payment_status");
+        String rowVersion = rs.getString("updated_at") + "#" + rs.getLong("version") + "#" + rs.getLong("crop_version");
 
-        return new HistoryCardData(orderId, date, buyerName, cropName, quantity, price, paymentStatus);
+        return new HistoryCardData(orderId, date, buyerName, cropName, quantity, price, paymentStatus, rowVersion);
     }
 
-    private HBox createHistoryCard(HistoryCardData data) throws Exception {
+    private HBox createHistoryCard(HistoryCardData data) {
         int orderId = data.orderId;
         String date = data.date;
         String buyerName = data.buyerName;
@@ -525,7 +463,6 @@ public class FarmerHistoryController {
         // TODO: Implement REST API sync for farmer orders
         // FirebaseSyncService has been removed - using REST API now
         // For now, just reload from local SQLite
-        loadSummaryStats();
         loadHistory();
     }
 
@@ -540,6 +477,7 @@ public class FarmerHistoryController {
         if (syncManager != null && currentUser != null) {
             syncManager.stopPolling("history_" + currentUser.getId());
         }
+        historyQueries.cancel();
         App.loadScene("farmer-dashboard-view.fxml", "Dashboard");
     }
 
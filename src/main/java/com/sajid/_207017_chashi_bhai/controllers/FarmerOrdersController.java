@@ -1,14 +1,17 @@
 package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
+import com.sajid._207017_chashi_bhai.ViewLifecycle;
 import com.sajid._207017_chashi_bhai.models.User;
-import com.sajid._207017_chashi_bhai.services.DatabaseService;
 // import com.sajid._207017_chashi_bhai.services.FirebaseSyncService; // Removed - using REST API now
 import com.sajid._207017_chashi_bhai.services.OrderService;
 import com.sajid._207017_chashi_bhai.utils.DataSyncManager;
+import com.sajid._207017_chashi_bhai.utils.KeyedNodeList;
+import com.sajid._207017_chashi_bhai.utils.QueryScheduler;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -19,14 +22,17 @@ import java.awt.Desktop;
 import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * FarmerOrdersController - Manage incoming buyer orders
  * Features real-time sync with database polling
  */
-public class FarmerOrdersController {
+public class FarmerOrdersController implements ViewLifecycle {
 
     @FXML private Button btnFilterAll;
     @FXML private Button btnFilterNew;
@@ -38,11 +44,28 @@ public class FarmerOrdersController {
     @FXML private VBox vboxEmptyState;
     @FXML private Button btnRefresh;
     @FXML private ProgressIndicator progressIndicator;
+    @FXML private CheckBox chkSelectAll;
+    @FXML private Label lblSelectedCount;
+    @FXML private Button btnBulkAccept;
+    @FXML private Button btnBulkReject;
+    @FXML private Button btnBulkShip;
 
     private User currentUser;
+    private final OrderService.RequestKeys requestKeys = new OrderService.RequestKeys();
     private String currentFilter = "all";
     private DataSyncManager syncManager;
 
+    // Bulk selection: order id -> status when selected; checkboxes of the cards on screen
+    private final Map<Integer, String> selectedOrders = new LinkedHashMap<>();
+    private final Map<Integer, CheckBox> selectionBoxes = new HashMap<>();
+
+    // Cards on screen by order id; refreshes only rebuild orders whose row changed
+    private KeyedNodeList<Integer, OrderRow> orderCards;
+    // Card highlighted for a notification; kept cards outlive a refresh, so it is cleared on the next one
+    private Node highlightedCard;
+    // Filter clicks, sort changes and polling supersede each other; only the latest load is shown
+    private final QueryScheduler orderQueries = new QueryScheduler();
+
     private static class OrderRow {
         final int orderId;
         final String cropName;
@@ -54,10 +77,11 @@ public class FarmerOrdersController {
         final String status;
         final String createdAt;
         final String photoPath;
+        final String rowVersion;
 
         private OrderRow(int orderId, String cropName, String buyerName, String buyerPhone,
                          String buyerDistrict, double quantity, double price, String status,
-                         String createdAt, String photoPath) {
+                         String createdAt, String photoPath, String rowVersion) {
             this.orderId = orderId;
             this.cropName = cropName;
             this.buyerName = buyerName;
@@ -68,6 +92,7 @@ public class FarmerOrdersController {
             this.status = status;
             this.createdAt = createdAt;
             this.photoPath = photoPath;
+            this.rowVersion = rowVersion;
         }
     }
 
@@ -75,6 +100,8 @@ public class FarmerOrdersController {
     public void initialize() {
         currentUser = App.getCurrentUser();
         syncManager = DataSyncManager.getInstance();
+        orderCards = new KeyedNodeList<>(vboxOrdersList, row -> row.orderId, row -> row.rowVersion,
+            this::createOrderCardFromRow);
         
         if (currentUser == null || !"farmer".equals(currentUser.getRole())) {
             showError("অ্যাক্সেস অস্বীকার", "শুধুমাত্র কৃষকরা এই পেজ দেখতে পারবেন।");
@@ -95,7 +122,16 @@ public class FarmerOrdersController {
         if (btnRefresh != null) {
             btnRefresh.setOnAction(e -> onRefresh());
         }
-        
+    }
+
+    /**
+     * Runs on every visit of the cached view
+     */
+    @Override
+    public void onShow() {
+        if (App.getCurrentUser() == null) return;
+        currentUser = App.getCurrentUser();
+
         // Check if navigating from notification with specific filter
         String filterState = App.getOrderFilterState();
         if (filterState != null && !filterState.isEmpty()) {
@@ -109,6 +145,15 @@ public class FarmerOrdersController {
         // Start real-time sync polling for orders (every 15 seconds)
         syncManager.startOrdersSync(currentUser.getId(), this::refreshOrders);
     }
+
+    @Override
+    public void onHide() {
+        // Stop polling while the view is not visible
+        if (syncManager != null && currentUser != null) {
+            syncManager.stopPolling("orders_" + currentUser.getId());
+        }
+        orderQueries.cancel();
+    }
     
     /**
      * Apply filter button styling based on state from notification navigation
@@ -188,9 +233,8 @@ public class FarmerOrdersController {
         if (progressIndicator != null) {
             progressIndicator.setVisible(true);
         }
-        vboxOrdersList.getChildren().clear();
 
-        String query = "SELECT o.*, c.name as crop_name, c.price_per_kg as price, " +
+        String query = "SELECT o.*, c.name as crop_name, c.price_per_kg as price, c.version as crop_version, " +
                       "u.name as buyer_name, u.phone as buyer_phone, u.district as buyer_district, " +
                       "(SELECT photo_path FROM crop_photos WHERE crop_id = c.id ORDER BY photo_order LIMIT 1) as crop_photo " +
                       "FROM orders o " +
@@ -225,82 +269,85 @@ public class FarmerOrdersController {
             new Object[]{currentUser.getId()} :
             new Object[]{currentUser.getId(), filter};
 
-        DatabaseService.executeQueryAsync(
+        orderQueries.submitNow(
                 query,
                 params,
                 resultSet -> {
                     // IMPORTANT: Read ResultSet on DB thread (connection closes after callback).
                     List<OrderRow> rows = new ArrayList<>();
+                    while (resultSet.next()) {
+                        rows.add(new OrderRow(
+                                resultSet.getInt("id"),
+                                resultSet.getString("crop_name"),
+                                resultSet.getString("buyer_name"),
+                                resultSet.getString("buyer_phone"),
+                                resultSet.getString("buyer_district"),
+                                resultSet.getDouble("quantity_kg"),
+                                resultSet.getDouble("price"),
+                                resultSet.getString("status"),
+                                resultSet.getString("created_at"),
+                                resultSet.getString("crop_photo"),
+                                // The total shown depends on the crop's price as well
+                                resultSet.getString("updated_at") + "#" + resultSet.getLong("version")
+                                    + "#" + resultSet.getLong("crop_version")
+                        ));
+                    }
+                    return rows;
+                },
+                rows -> {
                     try {
-                        while (resultSet.next()) {
-                            rows.add(new OrderRow(
-                                    resultSet.getInt("id"),
-                                    resultSet.getString("crop_name"),
-                                    resultSet.getString("buyer_name"),
-                                    resultSet.getString("buyer_phone"),
-                                    resultSet.getString("buyer_district"),
-                                    resultSet.getDouble("quantity_kg"),
-                                    resultSet.getDouble("price"),
-                                    resultSet.getString("status"),
-                                    resultSet.getString("created_at"),
-                                    resultSet.getString("crop_photo")
-                            ));
+                        boolean hasResults = !rows.isEmpty();
+                        int targetOrderId = App.getCurrentOrderId();
+                        
+                        orderCards.update(rows);
+
+                        // Drop selections of orders that left the list or were rebuilt
+                        selectionBoxes.keySet().retainAll(orderCards.keys());
+                        selectedOrders.keySet().retainAll(selectionBoxes.keySet());
+                        updateBulkBar();
+
+                        // Highlight the target order if navigating from notification
+                        if (highlightedCard != null) {
+                            highlightedCard.getStyleClass().remove("order-highlight");
+                            highlightedCard = null;
+                        }
+                        Node orderCard = targetOrderId > 0 ? orderCards.nodeFor(targetOrderId) : null;
+                        if (orderCard != null) {
+                            orderCard.getStyleClass().add("order-highlight");
+                            highlightedCard = orderCard;
+                            // Scroll to this order after a brief delay
+                            Platform.runLater(() -> {
+                                orderCard.requestFocus();
+                            });
+                            App.setCurrentOrderId(-1); // Clear after highlighting
                         }
-                    } catch (Exception e) {
-                        Platform.runLater(() -> {
-                            if (progressIndicator != null) {
-                                progressIndicator.setVisible(false);
-                            }
-                            e.printStackTrace();
-                            showError("ত্রুটি", "অর্ডার লোড করতে ব্যর্থ হয়েছে।");
-                        });
-                        return;
-                    }
 
-                    Platform.runLater(() -> {
-                        try {
-                            boolean hasResults = !rows.isEmpty();
-                            int targetOrderId = App.getCurrentOrderId();
-                            
-                            for (OrderRow row : rows) {
-                                HBox orderCard = createOrderCardFromRow(row);
-                                
-                                // Highlight the target order if navigating from notification
-                                if (targetOrderId > 0 && row.orderId == targetOrderId) {
-                                    orderCard.setStyle(orderCard.getStyle() + "; -fx-border-color: #4CAF50; -fx-border-width: 3px; -fx-background-color: #E8F5E9;");
-                                    // Scroll to this order after a brief delay
-                                    Platform.runLater(() -> {
-                                        orderCard.requestFocus();
-                                    });
-                                    App.setCurrentOrderId(-1); // Clear after highlighting
-                                }
-                                
-                                vboxOrdersList.getChildren().add(orderCard);
-                            }
-                            vboxEmptyState.setVisible(!hasResults);
-                            vboxOrdersList.setVisible(hasResults);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            showError("ত্রুটি", "অর্ডার লোড করতে ব্যর্থ হয়েছে।");
-                        } finally {
-                            if (progressIndicator != null) {
-                                progressIndicator.setVisible(false);
-                            }
+                        vboxEmptyState.setVisible(!hasResults);
+                        vboxOrdersList.setVisible(hasResults);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        showError("ত্রুটি", "অর্ডার লোড করতে ব্যর্থ হয়েছে।");
+                    } finally {
+                        if (progressIndicator != null) {
+                            progressIndicator.setVisible(false);
                         }
-                    });
+                    }
                 },
-                error -> Platform.runLater(() -> {
+                error -> {
                     if (progressIndicator != null) {
                         progressIndicator.setVisible(false);
                     }
                     showError("ডাটাবেস ত্রুটি", "অর্ডার লোড করতে সমস্যা হয়েছে।");
                     error.printStackTrace();
-                })
+                }
         );
     }
 
     private HBox createOrderCardFromRow(OrderRow row) {
         String safeStatus = row.status != null ? row.status : "new";
+        // A rebuilt card starts unselected
+        selectionBoxes.remove(row.orderId);
+        selectedOrders.remove(row.orderId);
 
         HBox card = new HBox(15);
         card.getStyleClass().addAll("order-card", "order-" + safeStatus.replace("_", "-"));
@@ -361,6 +408,20 @@ public class FarmerOrdersController {
         actionsBox.setPrefWidth(180);
         actionsBox.getChildren().addAll(getActionButtons(row.orderId, safeStatus, row.buyerPhone));
 
+        if ("new".equals(safeStatus) || "accepted".equals(safeStatus)) {
+            CheckBox chkSelect = new CheckBox();
+            chkSelect.selectedProperty().addListener((obs, was, selected) -> {
+                if (selected) {
+                    selectedOrders.put(row.orderId, safeStatus);
+                } else {
+                    selectedOrders.remove(row.orderId);
+                }
+                updateBulkBar();
+            });
+            selectionBoxes.put(row.orderId, chkSelect);
+            card.getChildren().add(chkSelect);
+        }
+
         card.getChildren().addAll(imageView, detailsBox, actionsBox);
         return card;
     }
@@ -465,6 +526,7 @@ public class FarmerOrdersController {
             OrderService.acceptOrderAsync(
                 orderId,
                 currentUser.getId(),
+                requestKeys.keyFor(orderId, OrderService.Action.ACCEPT),
                 r -> {
                     if (r.ok) {
                         showSuccess("সফল", r.message);
@@ -494,6 +556,7 @@ public class FarmerOrdersController {
             OrderService.rejectOrderAsync(
                 orderId,
                 currentUser.getId(),
+                requestKeys.keyFor(orderId, OrderService.Action.REJECT),
                 r -> {
                     if (r.ok) {
                         showSuccess("সফল", r.message);
@@ -523,6 +586,7 @@ public class FarmerOrdersController {
             OrderService.markInTransitAsync(
                 orderId,
                 currentUser.getId(),
+                requestKeys.keyFor(orderId, OrderService.Action.MARK_IN_TRANSIT),
                 r -> {
                     if (r.ok) {
                         showSuccess("সফল", r.message);
@@ -552,6 +616,7 @@ public class FarmerOrdersController {
             OrderService.deleteOrderAsync(
                 orderId,
                 currentUser.getId(),
+                requestKeys.keyFor(orderId, OrderService.Action.DELETE),
                 r -> {
                     if (r.ok) {
                         showSuccess("সফল", r.message);
@@ -568,6 +633,113 @@ public class FarmerOrdersController {
         }
     }
 
+    // ==================== BULK ACTIONS ====================
+
+    @FXML
+    private void onSelectAll() {
+        boolean select = chkSelectAll.isSelected();
+        for (CheckBox box : selectionBoxes.values()) {
+            box.setSelected(select);
+        }
+    }
+
+    @FXML
+    private void onBulkAccept() {
+        runBulk(OrderService.Action.ACCEPT, "new", "গ্রহণ",
+            "অর্ডার গ্রহণ করলে ফসলের পরিমাণ কমে যাবে।");
+    }
+
+    @FXML
+    private void onBulkReject() {
+        runBulk(OrderService.Action.REJECT, "new", "প্রত্যাখ্যান", "আপনি কি নিশ্চিত?");
+    }
+
+    @FXML
+    private void onBulkShip() {
+        runBulk(OrderService.Action.MARK_IN_TRANSIT, "accepted", "ডেলিভারির জন্য",
+            "অর্ডারের স্ট্যাটাস 'ডেলিভারির পথে' হবে।");
+    }
+
+    private void updateBulkBar() {
+        long newCount = selectedOrders.values().stream().filter("new"::equals).count();
+        long acceptedCount = selectedOrders.values().stream().filter("accepted"::equals).count();
+        if (lblSelectedCount != null) {
+            lblSelectedCount.setText(selectedOrders.isEmpty()
+                ? "কোনো অর্ডার নির্বাচিত নয়"
+                : selectedOrders.size() + "টি অর্ডার নির্বাচিত");
+        }
+        if (btnBulkAccept != null) btnBulkAccept.setDisable(newCount == 0);
+        if (btnBulkReject != null) btnBulkReject.setDisable(newCount == 0);
+        if (btnBulkShip != null) btnBulkShip.setDisable(acceptedCount == 0);
+        if (chkSelectAll != null) {
+            chkSelectAll.setSelected(!selectionBoxes.isEmpty() && selectedOrders.size() == selectionBoxes.size());
+        }
+    }
+
+    /**
+     * Apply one action to every selected order in the given status (one transaction)
+     */
+    private void runBulk(OrderService.Action action, String fromStatus, String verb, String detail) {
+        List<Integer> orderIds = new ArrayList<>();
+        selectedOrders.forEach((orderId, status) -> {
+            if (fromStatus.equals(status)) {
+                orderIds.add(orderId);
+            }
+        });
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("নিশ্চিত করুন");
+        confirm.setHeaderText(orderIds.size() + "টি অর্ডার " + verb + " করবেন?");
+        confirm.setContentText(detail);
+        Optional<ButtonType> result = confirm.showAndWait();
+        if (result.isEmpty() || result.get() != ButtonType.OK) {
+            return;
+        }
+
+        setBulkDisabled(true);
+        OrderService.bulkTransitionAsync(
+            orderIds,
+            currentUser.getId(),
+            action,
+            requestKeys,
+            bulk -> {
+                showBulkResult(bulk);
+                refreshOrders();
+            },
+            err -> {
+                setBulkDisabled(false);
+                showError("ত্রুটি", "অর্ডার আপডেট করতে সমস্যা হয়েছে।");
+                err.printStackTrace();
+            }
+        );
+    }
+
+    private void setBulkDisabled(boolean disabled) {
+        if (btnBulkAccept != null) btnBulkAccept.setDisable(disabled);
+        if (btnBulkReject != null) btnBulkReject.setDisable(disabled);
+        if (btnBulkShip != null) btnBulkShip.setDisable(disabled);
+        if (!disabled) updateBulkBar();
+    }
+
+    private void showBulkResult(OrderService.BulkResult bulk) {
+        Alert alert = new Alert(bulk.failed() == 0 ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+        alert.setTitle("ফলাফল");
+        alert.setHeaderText("সফল: " + bulk.succeeded() + "  |  ব্যর্থ: " + bulk.failed());
+
+        StringBuilder details = new StringBuilder();
+        bulk.results.forEach((orderId, r) ->
+            details.append(r.ok ? "✓ " : "✗ ").append("অর্ডার #").append(orderId).append(": ").append(r.message).append('\n'));
+        TextArea area = new TextArea(details.toString());
+        area.setEditable(false);
+        area.setWrapText(true);
+        area.setPrefRowCount(Math.min(12, bulk.results.size()));
+        alert.getDialogPane().setContent(area);
+        alert.showAndWait();
+    }
+
     private void contactBuyer(String phone) {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("যোগাযোগ করুন");
@@ -620,10 +792,6 @@ public class FarmerOrdersController {
 
     @FXML
     private void onBack() {
-        // Stop polling when leaving the view
-        if (syncManager != null && currentUser != null) {
-            syncManager.stopPolling("orders_" + currentUser.getId());
-        }
         App.loadScene("farmer-dashboard-view.fxml", "Dashboard");
     }
 
@@ -2,6 +2,7 @@ package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
 import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.DataChangeEvents;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -214,7 +215,12 @@ public class MyCropsController {
             "UPDATE crops SET status = 'sold', updated_at = datetime('now') " +
             "WHERE farmer_id = ? AND status != 'sold' AND initial_quantity_kg > 0 AND available_quantity_kg <= 0",
             new Object[]{currentUser.getId()},
-            rows -> loadQuery.run(),
+            rows -> {
+                if (rows > 0) {
+                    DataChangeEvents.getInstance().publish(DataChangeEvents.Topic.CROPS, currentUser.getId());
+                }
+                loadQuery.run();
+            },
             error -> Platform.runLater(() -> {
                 if (progressIndicator != null) {
                     progressIndicator.setVisible(false);
@@ -284,6 +290,7 @@ public class MyCropsController {
                 new Object[]{cropId, currentUser.getId()},
                 rowsAffected -> {
                     if (rowsAffected > 0) {
+                        DataChangeEvents.getInstance().publish(DataChangeEvents.Topic.CROPS, currentUser.getId());
                         // Also delete photos
                         DatabaseService.executeUpdateAsync(
                             "DELETE FROM crop_photos WHERE crop_id = ?",
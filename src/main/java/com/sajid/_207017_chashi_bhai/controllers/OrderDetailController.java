@@ -6,7 +6,6 @@ import com.sajid._207017_chashi_bhai.services.DatabaseService;
 import com.sajid._207017_chashi_bhai.services.NotificationService;
 // import com.sajid._207017_chashi_bhai.services.FirebaseSyncService; // Removed - using REST API now
 import com.sajid._207017_chashi_bhai.services.OrderService;
-import com.sajid._207017_chashi_bhai.utils.StatisticsCalculator;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -87,6 +86,7 @@ public class OrderDetailController {
     @FXML private Button btnRateOrder;
 
     private User currentUser;
+    private final OrderService.RequestKeys requestKeys = new OrderService.RequestKeys();
     private int orderId;
     private String orderNumber;
     private int cropId;
@@ -693,13 +693,16 @@ public class OrderDetailController {
                 OrderService.acceptOrderAsync(
                     orderId,
                     currentUser.getId(),
+                    requestKeys.keyFor(orderId, OrderService.Action.ACCEPT),
                     r -> {
                         if (r.ok) {
                             showInfo("সফল", r.message);
-                            // Send notification to buyer
-                            NotificationService.getInstance().notifyBuyerOrderAccepted(
-                                buyerId, orderId, currentUser.getName(), cropName
-                            );
+                            // Send notification to buyer (not again for a replayed request)
+                            if (!r.replayed) {
+                                NotificationService.getInstance().notifyBuyerOrderAccepted(
+                                    buyerId, orderId, currentUser.getName(), cropName
+                                );
+                            }
                             loadOrderDetails();
                         } else {
                             showError("ত্রুটি", r.message);
@@ -724,13 +727,16 @@ public class OrderDetailController {
                 OrderService.rejectOrderAsync(
                     orderId,
                     currentUser.getId(),
+                    requestKeys.keyFor(orderId, OrderService.Action.REJECT),
                     r -> {
                         if (r.ok) {
                             showInfo("সফল", r.message);
-                            // Send notification to buyer
-                            NotificationService.getInstance().notifyBuyerOrderRejected(
-                                buyerId, orderId, currentUser.getName(), cropName
-                            );
+                            // Send notification to buyer (not again for a replayed request)
+                            if (!r.replayed) {
+                                NotificationService.getInstance().notifyBuyerOrderRejected(
+                                    buyerId, orderId, currentUser.getName(), cropName
+                                );
+                            }
                             loadOrderDetails();
                         } else {
                             showError("ত্রुটি", r.message);
@@ -750,13 +756,16 @@ public class OrderDetailController {
         OrderService.markInTransitAsync(
             orderId,
             currentUser.getId(),
+            requestKeys.keyFor(orderId, OrderService.Action.MARK_IN_TRANSIT),
             r -> {
                 if (r.ok) {
                     showInfo("সফল", r.message);
-                    // Send notification to buyer
-                    NotificationService.getInstance().notifyBuyerOrderInTransit(
-                        buyerId, orderId, currentUser.getName(), cropName
-                    );
+                    // Send notification to buyer (not again for a replayed request)
+                    if (!r.replayed) {
+                        NotificationService.getInstance().notifyBuyerOrderInTransit(
+                            buyerId, orderId, currentUser.getName(), cropName
+                        );
+                    }
                     loadOrderDetails();
                 } else {
                     showError("ত্রুটি", r.message);
@@ -780,15 +789,16 @@ public class OrderDetailController {
                 OrderService.markReceivedAsync(
                     orderId,
                     currentUser.getId(),
+                    requestKeys.keyFor(orderId, OrderService.Action.MARK_RECEIVED),
                     r -> {
                         if (r.ok) {
                             showInfo("সফল", r.message);
-                            // Send notification to farmer that order is completed
-                            NotificationService.getInstance().notifyFarmerOrderCompleted(
-                                farmerId, orderId, currentUser.getName(), cropName
-                            );
-                            StatisticsCalculator.updateBuyerStatistics(currentUser.getId());
-                            updateFarmerStats(orderId);
+                            // Send notification to farmer that order is completed (not again for a replayed request)
+                            if (!r.replayed) {
+                                NotificationService.getInstance().notifyFarmerOrderCompleted(
+                                    farmerId, orderId, currentUser.getName(), cropName
+                                );
+                            }
                             loadOrderDetails();
                         } else {
                             showError("ত্রুটি", r.message);
@@ -803,22 +813,6 @@ public class OrderDetailController {
         });
     }
 
-    private void updateFarmerStats(int orderId) {
-        DatabaseService.executeQueryAsync(
-            "SELECT farmer_id FROM orders WHERE id = ?",
-            new Object[]{orderId},
-            rs -> {
-                try {
-                    if (rs.next()) {
-                        StatisticsCalculator.updateFarmerStatistics(rs.getInt("farmer_id"));
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            },
-            error -> error.printStackTrace()
-        );
-    }
 
     @FXML
     private void onCancelOrder() {
@@ -830,13 +824,16 @@ public class OrderDetailController {
                 OrderService.cancelOrderAsync(
                     orderId,
                     currentUser.getId(),
+                    requestKeys.keyFor(orderId, OrderService.Action.CANCEL),
                     r -> {
                         if (r.ok) {
                             showInfo("সফল", r.message);
-                            // Send notification to farmer about cancellation
-                            NotificationService.getInstance().notifyFarmerOrderCancelled(
-                                farmerId, orderId, currentUser.getName(), cropName
-                            );
+                            // Send notification to farmer about cancellation (not again for a replayed request)
+                            if (!r.replayed) {
+                                NotificationService.getInstance().notifyFarmerOrderCancelled(
+                                    farmerId, orderId, currentUser.getName(), cropName
+                                );
+                            }
                             loadOrderDetails();
                         } else {
                             showError("ত্রুটি", r.message);
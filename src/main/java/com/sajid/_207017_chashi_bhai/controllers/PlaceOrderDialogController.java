@@ -1,18 +1,20 @@
 package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
+import com.sajid._207017_chashi_bhai.models.Order;
 import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.DataChangeEvents;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import com.sajid._207017_chashi_bhai.services.FirebaseService;
+import com.sajid._207017_chashi_bhai.services.IdService;
 import com.sajid._207017_chashi_bhai.services.NotificationService;
+import com.sajid._207017_chashi_bhai.services.WriteBatcher;
 // import com.sajid._207017_chashi_bhai.services.FirebaseSyncService; // Removed - using REST API now
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-
 /**
  * PlaceOrderDialogController - Dialog for placing an order
  */
@@ -186,8 +188,8 @@ public class PlaceOrderDialogController {
             return;
         }
 
-        // Generate order number
-        final String orderNumber = generateOrderNumber();
+        // Time-ordered, unique per device (see IdService)
+        final String orderNumber = IdService.getInstance().nextOrderNumber();
         final double totalAmount = quantity * pricePerKg;
         
         // Make variables final for lambda usage
@@ -203,7 +205,7 @@ public class PlaceOrderDialogController {
         String insertSql = "INSERT INTO orders (order_number, crop_id, farmer_id, buyer_id, quantity_kg, " +
                           "price_per_kg, total_amount, delivery_address, delivery_district, delivery_upazila, " +
                           "buyer_phone, buyer_name, status, payment_status, payment_method, notes) " +
-                          "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'new', 'pending', ?, ?)";
+                          "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'new', 'pending', ?, ?) RETURNING id";
 
         Object[] params = {
             orderNumber,
@@ -222,64 +224,48 @@ public class PlaceOrderDialogController {
             finalNotes.isEmpty() ? null : finalNotes
         };
 
-        DatabaseService.executeUpdateAsync(insertSql, params,
-            rowsAffected -> {
+        // The new id comes straight back from RETURNING (no lookup by order number)
+        WriteBatcher.getInstance().insert(insertSql, params,
+            orderId -> {
+                DataChangeEvents.getInstance().publish(DataChangeEvents.Topic.ORDERS, farmerId, currentUser.getId());
+
+                // Create notification for farmer using NotificationService
+                NotificationService.getInstance().notifyFarmerNewOrder(
+                    farmerId, orderId.intValue(), currentUser.getName(),
+                    finalCropName, finalQuantity, "কেজি"
+                );
+
+                // Prepare order data for Firebase
+                Order order = new Order();
+                order.setId(orderId.intValue());
+                order.setOrderNumber(orderNumber);
+                order.setCropId(cropId);
+                order.setFarmerId(farmerId);
+                order.setBuyerId(currentUser.getId());
+                order.setQuantityKg(finalQuantity);
+                order.setPricePerKg(pricePerKg);
+                order.setTotalAmount(totalAmount);
+                order.setDeliveryAddress(finalAddress);
+                order.setDeliveryDistrict(finalDistrict);
+                order.setDeliveryUpazila(finalUpazila);
+                order.setBuyerPhone(currentUser.getPhone());
+                order.setBuyerName(currentUser.getName());
+                order.setStatus("new");
+                order.setPaymentStatus("pending");
+                order.setPaymentMethod(finalPaymentMethod);
+                order.setNotes(finalNotes);
+
+                // Sync to Firebase
+                FirebaseService.getInstance().saveOrder(
+                    String.valueOf(orderId),
+                    order,
+                    () -> System.out.println("✅ Order synced to Firebase: " + orderNumber),
+                    err -> System.err.println("⚠️ Firebase sync failed (order saved locally): " + err.getMessage())
+                );
+
                 Platform.runLater(() -> {
                     orderPlaced = true;
                     showSuccess("সফল!", "আপনার অর্ডার সফলভাবে সম্পন্ন হয়েছে। কৃষক শীঘ্রই যোগাযোগ করবেন।\nঅর্ডার নম্বর: " + orderNumber);
-
-                    // Sync order to Firebase (REST API) and create notification
-                    DatabaseService.executeQueryAsync(
-                        "SELECT id FROM orders WHERE order_number = ?",
-                        new Object[]{orderNumber},
-                        rs -> {
-                            try {
-                                if (rs.next()) {
-                                    int orderId = rs.getInt("id");
-                                    
-                                    // Create notification for farmer using NotificationService
-                                    NotificationService.getInstance().notifyFarmerNewOrder(
-                                        farmerId, orderId, currentUser.getName(), 
-                                        finalCropName, finalQuantity, "কেজি"
-                                    );
-                                    
-                                    // Prepare order data for Firebase
-                                    java.util.Map<String, Object> orderData = new java.util.HashMap<>();
-                                    orderData.put("order_number", orderNumber);
-                                    orderData.put("crop_id", cropId);
-                                    orderData.put("farmer_id", farmerId);
-                                    orderData.put("buyer_id", currentUser.getId());
-                                    orderData.put("quantity_kg", finalQuantity);
-                                    orderData.put("price_per_kg", pricePerKg);
-                                    orderData.put("total_amount", totalAmount);
-                                    orderData.put("delivery_address", finalAddress);
-                                    orderData.put("delivery_district", finalDistrict);
-                                    orderData.put("delivery_upazila", finalUpazila.isEmpty() ? "" : finalUpazila);
-                                    orderData.put("buyer_phone", currentUser.getPhone());
-                                    orderData.put("buyer_name", currentUser.getName());
-                                    orderData.put("status", "new");
-                                    orderData.put("payment_status", "pending");
-                                    orderData.put("payment_method", finalPaymentMethod);
-                                    orderData.put("notes", finalNotes.isEmpty() ? "" : finalNotes);
-                                    orderData.put("created_at", System.currentTimeMillis());
-                                    
-                                    // Sync to Firebase
-                                    com.sajid._207017_chashi_bhai.services.FirebaseService.getInstance().saveOrder(
-                                        String.valueOf(orderId),
-                                        orderData,
-                                        () -> System.out.println("✅ Order synced to Firebase: " + orderNumber),
-                                        err -> System.err.println("⚠️ Firebase sync failed (order saved locally): " + err.getMessage())
-                                    );
-                                }
-                            } catch (Exception e) {
-                                System.err.println("⚠️ Failed to sync order to Firebase: " + e.getMessage());
-                            }
-                        },
-                        err -> {
-                            System.err.println("⚠️ Could not retrieve order ID for sync: " + err.getMessage());
-                        }
-                    );
-                    
                     if (dialogStage != null) {
                         dialogStage.close();
                     }
@@ -301,12 +287,6 @@ public class PlaceOrderDialogController {
         }
     }
 
-    private String generateOrderNumber() {
-        String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        int random = (int) (Math.random() * 9000) + 1000;
-        return "ORD-" + date + "-" + random;
-    }
-
     private void showError(String message) {
         lblError.setText("⚠ " + message);
         lblError.setVisible(true);
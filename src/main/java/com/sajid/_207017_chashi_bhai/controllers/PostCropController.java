@@ -1,9 +1,13 @@
 package com.sajid._207017_chashi_bhai.controllers;
 
 import com.sajid._207017_chashi_bhai.App;
+import com.sajid._207017_chashi_bhai.models.Crop;
 import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.DataChangeEvents;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
 import com.sajid._207017_chashi_bhai.services.FirebaseService;
+import com.sajid._207017_chashi_bhai.services.IdService;
+import com.sajid._207017_chashi_bhai.services.WriteBatcher;
 import com.sajid._207017_chashi_bhai.utils.BangladeshData;
 import com.sajid._207017_chashi_bhai.utils.ImageBase64Util;
 import javafx.application.Platform;
@@ -21,9 +25,7 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * PostCropController - Create new crop listing with photo uploads
@@ -156,75 +158,46 @@ public class PostCropController {
         String transport = cbTransport.getValue();
         String description = txtDescription.getText() != null ? txtDescription.getText().trim() : "";
 
-        // Generate product code: CRP-YYYYMMDD-XXXX
-        String dateStr = java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String productCode = String.format("CRP-%s-%04d", dateStr, System.currentTimeMillis() % 10000);
+        // Time-ordered, unique per device (see IdService)
+        String productCode = IdService.getInstance().nextProductCode();
 
         // Insert crop into database using correct schema
         String insertSql = "INSERT INTO crops (product_code, farmer_id, name, category, price_per_kg, initial_quantity_kg, available_quantity_kg, description, district, harvest_date, transport_info, status, created_at) " +
-                          "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'active', datetime('now'))";
+                          "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'active', datetime('now')) RETURNING id";
         
-        DatabaseService.executeUpdateAsync(
+        // The new id comes straight back from RETURNING (no separate last_insert_rowid() query)
+        WriteBatcher.getInstance().insert(
             insertSql,
             new Object[]{productCode, currentUser.getId(), cropName, category, price, quantity, quantity, description, district, harvestDate != null ? harvestDate.toString() : null, transport},
-            rowsAffected -> {
-                if (rowsAffected > 0) {
-                    // Get the last inserted crop ID
-                    DatabaseService.executeQueryAsync(
-                        "SELECT last_insert_rowid() as crop_id",
-                        new Object[]{},
-                        resultSet -> {
-                            try {
-                                if (resultSet.next()) {
-                                    int cropId = resultSet.getInt("crop_id");
-                                    System.out.println("✓ Crop created with ID: " + cropId);
-                                    
-                                    // Sync crop to Firebase
-                                    Map<String, Object> cropData = new HashMap<>();
-                                    cropData.put("product_code", productCode);
-                                    cropData.put("farmer_id", currentUser.getId());
-                                    cropData.put("name", cropName);
-                                    cropData.put("category", category);
-                                    cropData.put("price_per_kg", price);
-                                    cropData.put("quantity_kg", quantity);
-                                    cropData.put("description", description);
-                                    cropData.put("district", district);
-                                    cropData.put("harvest_date", harvestDate != null ? harvestDate.toString() : "");
-                                    cropData.put("transport_info", transport);
-                                    cropData.put("status", "active");
-                                    cropData.put("created_at", System.currentTimeMillis());
-                                    
-                                    FirebaseService.getInstance().saveCrop(
-                                        String.valueOf(cropId),
-                                        cropData,
-                                        () -> System.out.println("✓ Crop synced to Firebase: " + cropId),
-                                        err -> System.err.println("❌ Firebase sync error: " + err.getMessage())
-                                    );
-                                    
-                                    // Save photos with correct cropId
-                                    savePhotos(cropId);
-                                }
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                Platform.runLater(() -> {
-                                    btnPostCrop.setDisable(false);
-                                    showError("ত্রুটি", "ফসল সংরক্ষণে সমস্যা হয়েছে।");
-                                });
-                            }
-                        },
-                        error -> {
-                            Platform.runLater(() -> {
-                                btnPostCrop.setDisable(false);
-                                showError("ত্রুটি", "ফসল ID পেতে সমস্যা হয়েছে।");
-                            });
-                        }
-                    );
-                } else {
-                    Platform.runLater(() -> {
-                        btnPostCrop.setDisable(false);
-                        lblError.setText("ফসল যোগ করতে ব্যর্থ হয়েছে।");
-                    });
-                }
+            id -> {
+                int cropId = id.intValue();
+                System.out.println("✓ Crop created with ID: " + cropId);
+                DataChangeEvents.getInstance().publish(DataChangeEvents.Topic.CROPS, currentUser.getId());
+
+                // Sync crop to Firebase
+                Crop crop = new Crop();
+                crop.setId(cropId);
+                crop.setProductCode(productCode);
+                crop.setFarmerId(currentUser.getId());
+                crop.setName(cropName);
+                crop.setCategory(category);
+                crop.setPrice(price);
+                crop.setQuantity(quantity);
+                crop.setDescription(description);
+                crop.setDistrict(district);
+                crop.setHarvestDate(harvestDate != null ? harvestDate.toString() : "");
+                crop.setTransportInfo(transport);
+                crop.setStatus("active");
+
+                FirebaseService.getInstance().saveCrop(
+                    String.valueOf(cropId),
+                    crop,
+                    () -> System.out.println("✓ Crop synced to Firebase: " + cropId),
+                    err -> System.err.println("❌ Firebase sync error: " + err.getMessage())
+                );
+
+                // Save photos with correct cropId
+                savePhotos(cropId);
             },
             error -> {
                 Platform.runLater(() -> {
@@ -4,7 +4,7 @@ import com.sajid._207017_chashi_bhai.App;
 import com.sajid._207017_chashi_bhai.models.User;
 import com.sajid._207017_chashi_bhai.services.DatabaseService;
 import com.sajid._207017_chashi_bhai.services.NotificationService;
-import com.sajid._207017_chashi_bhai.utils.StatisticsCalculator;
+import com.sajid._207017_chashi_bhai.services.StatisticsService;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -186,8 +186,9 @@ public class RateOrderDialogController {
                     ratingSubmitted = true;
                     showSuccess("সফল!", "আপনার রেটিং সফলভাবে জমা হয়েছে। ধন্যবাদ!");
                     
-                    // Update farmer rating statistics
-                    StatisticsCalculator.updateFarmerStatistics(farmerId);
+                    // Fold the new rating into the farmer's average
+                    StatisticsService.applyReviewAddedAsync(farmerId, selectedRating, null,
+                        error -> error.printStackTrace());
                     
                     // Create notification for farmer using NotificationService
                     NotificationService.getInstance().notifyFarmerNewReview(
@@ -0,0 +1,114 @@
+package com.sajid._207017_chashi_bhai.models;
+
+/**
+ * Notification model - Represents an in-app notification for a farmer or buyer
+ */
+public class Notification {
+    private int id;
+    private int userId;
+    private String title;
+    private String message;
+    private String type; // "info", "success", "warning", "error", "order", "message", "review"
+    private Integer relatedId; // Usually the order id
+    private boolean isRead;
+    private String createdAt;
+    private String updatedAt; // Firestore server time of the last write (sync cursor)
+
+    // Constructors
+    public Notification() {}
+
+    public Notification(int id, int userId, String title, String message, String type,
+                        Integer relatedId, boolean isRead, String createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.title = title;
+        this.message = message;
+        this.type = type;
+        this.relatedId = relatedId;
+        this.isRead = isRead;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Integer getRelatedId() {
+        return relatedId;
+    }
+
+    public void setRelatedId(Integer relatedId) {
+        this.relatedId = relatedId;
+    }
+
+    public boolean isRead() {
+        return isRead;
+    }
+
+    public void setRead(boolean read) {
+        isRead = read;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Notification{" +
+                "id=" + id +
+                ", userId=" + userId +
+                ", title='" + title + '\'' +
+                ", isRead=" + isRead +
+                '}';
+    }
+}
@@ -0,0 +1,185 @@
+package com.sajid._207017_chashi_bhai.models;
+
+/**
+ * Order model - Represents a buyer's order for a crop listing
+ */
+public class Order {
+    private int id;
+    private String orderNumber;
+    private int cropId;
+    private int farmerId;
+    private int buyerId;
+    private double quantityKg;
+    private double pricePerKg;
+    private double totalAmount;
+    private String deliveryAddress;
+    private String deliveryDistrict;
+    private String deliveryUpazila;
+    private String buyerPhone;
+    private String buyerName;
+    private String status; // "new", "accepted", "in_transit", "completed", ...
+    private String paymentStatus;
+    private String paymentMethod;
+    private String notes;
+    private String createdAt;
+
+    // Constructors
+    public Order() {}
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public void setOrderNumber(String orderNumber) {
+        this.orderNumber = orderNumber;
+    }
+
+    public int getCropId() {
+        return cropId;
+    }
+
+    public void setCropId(int cropId) {
+        this.cropId = cropId;
+    }
+
+    public int getFarmerId() {
+        return farmerId;
+    }
+
+    public void setFarmerId(int farmerId) {
+        this.farmerId = farmerId;
+    }
+
+    public int getBuyerId() {
+        return buyerId;
+    }
+
+    public void setBuyerId(int buyerId) {
+        this.buyerId = buyerId;
+    }
+
+    public double getQuantityKg() {
+        return quantityKg;
+    }
+
+    public void setQuantityKg(double quantityKg) {
+        this.quantityKg = quantityKg;
+    }
+
+    public double getPricePerKg() {
+        return pricePerKg;
+    }
+
+    public void setPricePerKg(double pricePerKg) {
+        this.pricePerKg = pricePerKg;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(double totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public String getDeliveryAddress() {
+        return deliveryAddress;
+    }
+
+    public void setDeliveryAddress(String deliveryAddress) {
+        this.deliveryAddress = deliveryAddress;
+    }
+
+    public String getDeliveryDistrict() {
+        return deliveryDistrict;
+    }
+
+    public void setDeliveryDistrict(String deliveryDistrict) {
+        this.deliveryDistrict = deliveryDistrict;
+    }
+
+    public String getDeliveryUpazila() {
+        return deliveryUpazila;
+    }
+
+    public void setDeliveryUpazila(String deliveryUpazila) {
+        this.deliveryUpazila = deliveryUpazila;
+    }
+
+    public String getBuyerPhone() {
+        return buyerPhone;
+    }
+
+    public void setBuyerPhone(String buyerPhone) {
+        this.buyerPhone = buyerPhone;
+    }
+
+    public String getBuyerName() {
+        return buyerName;
+    }
+
+    public void setBuyerName(String buyerName) {
+        this.buyerName = buyerName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Order{" +
+                "id=" + id +
+                ", orderNumber='" + orderNumber + '\'' +
+                ", cropId=" + cropId +
+                ", quantityKg=" + quantityKg +
+                ", totalAmount=" + totalAmount +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
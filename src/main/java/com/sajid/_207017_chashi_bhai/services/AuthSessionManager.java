@@ -16,7 +16,7 @@ public class AuthSessionManager {
     private static AuthSessionManager instance;
     
     private AuthSessionManager() {
-        initializeSessionTable();
+        // auth_sessions is created with the rest of the schema (DatabaseService.initializeDatabase)
     }
     
     public static AuthSessionManager getInstance() {
@@ -26,35 +26,6 @@ public class AuthSessionManager {
         return instance;
     }
     
-    /**
-     * Create auth_sessions table if not exists
-     */
-    private void initializeSessionTable() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS auth_sessions (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                user_id INTEGER NOT NULL,
-                firebase_uid TEXT,
-                id_token TEXT,
-                refresh_token TEXT,
-                phone TEXT NOT NULL,
-                role TEXT NOT NULL,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                expires_at TIMESTAMP,
-                is_active BOOLEAN DEFAULT 1,
-                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
-            )
-            """;
-        
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("✓ Auth sessions table initialized");
-        } catch (SQLException e) {
-            System.err.println("Error creating auth_sessions table: " + e.getMessage());
-        }
-    }
-    
     /**
      * Save authentication session after successful login
      * 
@@ -1,18 +1,13 @@
 package com.sajid._207017_chashi_bhai.services;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import javafx.application.Platform;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.sql.*;
-import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
@@ -83,16 +78,12 @@ public class ChatService {
     
     private static ChatService instance;
     private final FirebaseService firebaseService;
-    private final HttpClient httpClient;
-    private final Gson gson;
+    private final HttpTransport transport;
     
     // Database
     private static final String DB_URL = "jdbc:sqlite:data/chashi_bhai.db";
     
-    // Firebase REST API
-    private static final String PROJECT_ID = FirebaseConfig.getProjectId();
-    private static final String FIRESTORE_BASE_URL = 
-        "https://firestore.googleapis.com/v1/projects/" + PROJECT_ID + "/databases/(default)/documents";
+    // Firebase REST API: document root comes from FirebaseConfig per call (see FirebaseConfig.setBaseUrls)
     
     // Collections
     private static final String CONVERSATIONS_COLLECTION = "conversations";
@@ -113,13 +104,11 @@ public class ChatService {
     private Consumer<ChatMessage> onMessageStatusChanged;
     private Consumer<Throwable> onError;
     
-    // Background executor for async operations
-    private final ExecutorService executor = Executors.newFixedThreadPool(3, r -> {
-        Thread t = new Thread(r);
-        t.setDaemon(true);
-        t.setName("ChatServiceWorker");
-        return t;
-    });
+    // Background executor for async operations (virtual thread per task)
+    private final ExecutorService executor = HttpTransport.newIoExecutor("ChatServiceWorker");
+    
+    // Conversations with a poll currently in flight, so a slow poll isn't stacked up
+    private final Set<String> pollsInFlight = ConcurrentHashMap.newKeySet();
     
     // ============================================================================
     // INITIALIZATION
@@ -127,13 +116,8 @@ public class ChatService {
     
     private ChatService() {
         this.firebaseService = FirebaseService.getInstance();
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .build();
-        this.gson = new Gson();
-        
-        // Initialize chat tables
-        initializeChatTables();
+        this.transport = HttpTransport.getInstance();
+        // Chat tables are created with the rest of the schema (DatabaseService.initializeDatabase)
     }
     
     public static ChatService getInstance() {
@@ -143,73 +127,6 @@ public class ChatService {
         return instance;
     }
     
-    /**
-     * Initialize SQLite tables for chat
-     */
-    private void initializeChatTables() {
-        String conversationsTable = """
-            CREATE TABLE IF NOT EXISTS conversations (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                firebase_id TEXT UNIQUE,
-                user1_id INTEGER NOT NULL,
-                user2_id INTEGER NOT NULL,
-                crop_id INTEGER,
-                user1_name TEXT,
-                user2_name TEXT,
-                crop_name TEXT,
-                last_message TEXT,
-                last_message_time TIMESTAMP,
-                last_sender_id INTEGER,
-                unread_count INTEGER DEFAULT 0,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                sync_status TEXT DEFAULT 'pending',
-                UNIQUE(user1_id, user2_id, crop_id)
-            )
-            """;
-        
-        String messagesTable = """
-            CREATE TABLE IF NOT EXISTS messages (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                firebase_id TEXT UNIQUE,
-                conversation_id INTEGER NOT NULL,
-                sender_id INTEGER NOT NULL,
-                sender_name TEXT,
-                message_text TEXT NOT NULL,
-                message_type TEXT DEFAULT 'text',
-                attachment_url TEXT,
-                crop_reference_id INTEGER,
-                is_read INTEGER DEFAULT 0,
-                read_at TIMESTAMP,
-                status TEXT DEFAULT 'sending',
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                sync_status TEXT DEFAULT 'pending',
-                FOREIGN KEY (conversation_id) REFERENCES conversations(id)
-            )
-            """;
-        
-        String messagesIndex = """
-            CREATE INDEX IF NOT EXISTS idx_messages_conversation 
-            ON messages(conversation_id, created_at DESC)
-            """;
-        
-        String syncIndex = """
-            CREATE INDEX IF NOT EXISTS idx_messages_sync 
-            ON messages(sync_status)
-            """;
-        
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(conversationsTable);
-            stmt.execute(messagesTable);
-            stmt.execute(messagesIndex);
-            stmt.execute(syncIndex);
-            System.out.println("✓ Chat tables initialized");
-        } catch (SQLException e) {
-            System.err.println("❌ Error initializing chat tables: " + e.getMessage());
-        }
-    }
-    
     // ============================================================================
     // CONVERSATION MANAGEMENT
     // ============================================================================
@@ -310,7 +227,7 @@ public class ChatService {
             String participantKey = generateParticipantKey(user1Id, user2Id);
             
             // Query Firestore for conversation with this participant key
-            String queryUrl = FIRESTORE_BASE_URL + ":runQuery";
+            String queryUrl = FirebaseConfig.getDocumentsUrl() + ":runQuery";
             
             // Build structured query
             JsonObject structuredQuery = new JsonObject();
@@ -342,22 +259,14 @@ public class ChatService {
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()));
             
-            if (firebaseService.isAuthenticated()) {
-                // Add auth token if available
-            }
-            
-            HttpResponse<String> response = httpClient.send(
-                requestBuilder.build(),
-                HttpResponse.BodyHandlers.ofString()
-            );
+            HttpResponse<String> response = transport.send(requestBuilder.build());
             
             if (response.statusCode() == 200) {
-                JsonArray results = JsonParser.parseString(response.body()).getAsJsonArray();
-                for (JsonElement result : results) {
-                    JsonObject doc = result.getAsJsonObject();
-                    if (doc.has("document")) {
-                        return parseFirestoreConversation(doc.getAsJsonObject("document"));
-                    }
+                List<Conversation> results = FirestoreDocuments.CONVERSATION.readQueryResults(response.body());
+                if (!results.isEmpty()) {
+                    Conversation conv = results.get(0);
+                    conv.setSyncStatus("synced");
+                    return conv;
                 }
             }
         } catch (Exception e) {
@@ -394,10 +303,8 @@ public class ChatService {
         // Save to SQLite first (offline-first)
         saveConversationToSQLite(conv);
         
-        // Sync to Firebase in background
-        if (firebaseService.isAuthenticated()) {
-            syncConversationToFirebase(conv);
-        }
+        // Queue for Firebase (the outbox sends it once we are signed in)
+        syncConversationToFirebase(conv);
         
         return conv;
     }
@@ -451,42 +358,20 @@ public class ChatService {
      * Sync conversation to Firebase (REST API)
      */
     private void syncConversationToFirebase(Conversation conv) {
-        executor.submit(() -> {
-            try {
-                String url = FIRESTORE_BASE_URL + "/" + CONVERSATIONS_COLLECTION + "?documentId=" + conv.getFirebaseId();
-                
-                Map<String, Object> data = new HashMap<>();
-                data.put("participantKey", generateParticipantKey(conv.getUser1Id(), conv.getUser2Id()));
-                data.put("user1Id", conv.getUser1Id());
-                data.put("user2Id", conv.getUser2Id());
-                data.put("user1Name", conv.getUser1Name());
-                data.put("user2Name", conv.getUser2Name());
-                data.put("cropId", conv.getCropId());
-                data.put("cropName", conv.getCropName());
-                data.put("createdAt", System.currentTimeMillis());
-                
-                Map<String, Object> document = new HashMap<>();
-                document.put("fields", convertToFirestoreFields(data));
-                
-                HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(document)))
-                    .build();
-                
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
+        SyncOutbox.getInstance().enqueueUpsert(SyncOutbox.Priority.CHAT,
+            CONVERSATIONS_COLLECTION + "/" + conv.getFirebaseId(),
+            FirestoreDocuments.CONVERSATION.toFieldsJson(conv),
+            FirestoreDocuments.CONVERSATION.writableFieldPaths(),
+            synced -> {
+                if (synced) {
                     // Update sync status
                     updateConversationSyncStatus(conv.getId(), "synced");
                     System.out.println("✓ Conversation synced to Firebase: " + conv.getFirebaseId());
+                } else {
+                    System.err.println("❌ Error syncing conversation to Firebase: " + conv.getFirebaseId());
+                    updateConversationSyncStatus(conv.getId(), "error");
                 }
-                
-            } catch (Exception e) {
-                System.err.println("❌ Error syncing conversation to Firebase: " + e.getMessage());
-                updateConversationSyncStatus(conv.getId(), "error");
-            }
-        });
+            });
     }
     
     // ============================================================================
@@ -530,8 +415,8 @@ public class ChatService {
                 // Step 2: Notify UI immediately
                 Platform.runLater(() -> onSuccess.accept(msg));
                 
-                // Step 3: Sync to Firebase in background
-                if (firebaseService.isAuthenticated() && firebaseConvId != null) {
+                // Step 3: Queue for Firebase (survives offline periods and restarts)
+                if (firebaseConvId != null) {
                     syncMessageToFirebase(firebaseConvId, msg);
                 }
                 
@@ -586,79 +471,43 @@ public class ChatService {
      * Sync message to Firebase (REST API)
      */
     private void syncMessageToFirebase(String firebaseConvId, ChatMessage msg) {
-        executor.submit(() -> {
-            try {
-                // Save to messages subcollection under conversation
-                String url = FIRESTORE_BASE_URL + "/" + CONVERSATIONS_COLLECTION + "/" + firebaseConvId 
-                    + "/" + MESSAGES_COLLECTION + "?documentId=" + msg.getFirebaseId();
-                
-                Map<String, Object> data = new HashMap<>();
-                data.put("senderId", msg.getSenderId());
-                data.put("senderName", msg.getSenderName());
-                data.put("text", msg.getText());
-                data.put("type", msg.getType());
-                data.put("isRead", false);
-                data.put("status", "sent");
-                data.put("createdAt", msg.getCreatedAt().getTime());
-                
-                Map<String, Object> document = new HashMap<>();
-                document.put("fields", convertToFirestoreFields(data));
-                
-                HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(document)))
-                    .build();
-                
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
+        // Save to messages subcollection under conversation (queued in the outbox, sent ahead of other writes)
+        SyncOutbox.getInstance().enqueueUpsert(SyncOutbox.Priority.CHAT,
+            CONVERSATIONS_COLLECTION + "/" + firebaseConvId + "/" + MESSAGES_COLLECTION + "/" + msg.getFirebaseId(),
+            FirestoreDocuments.CHAT_MESSAGE.toFieldsJson(msg),
+            FirestoreDocuments.CHAT_MESSAGE.writableFieldPaths(),
+            synced -> {
+                if (synced) {
                     // Success - update local status
                     msg.setStatus("sent");
                     msg.setSyncStatus("synced");
                     updateMessageSyncStatus(msg.getId(), "sent", "synced");
-                    
-                    // Notify UI of status change
-                    Platform.runLater(() -> {
-                        if (onMessageStatusChanged != null) {
-                            onMessageStatusChanged.accept(msg);
-                        }
-                    });
-                    
                     System.out.println("✓ Message synced to Firebase: " + msg.getFirebaseId());
-                    
-                    // Also update conversation's lastMessage in Firebase
-                    updateFirebaseConversationLastMessage(firebaseConvId, msg);
-                    
                 } else {
-                    throw new RuntimeException("HTTP " + response.statusCode());
+                    System.err.println("❌ Error syncing message to Firebase: " + msg.getFirebaseId());
+                    // Mark as failed
+                    msg.setStatus("failed");
+                    msg.setSyncStatus("error");
+                    updateMessageSyncStatus(msg.getId(), "failed", "error");
                 }
                 
-            } catch (Exception e) {
-                System.err.println("❌ Error syncing message to Firebase: " + e.getMessage());
-                
-                // Mark as failed
-                msg.setStatus("failed");
-                msg.setSyncStatus("error");
-                updateMessageSyncStatus(msg.getId(), "failed", "error");
-                
+                // Notify UI of status change
                 Platform.runLater(() -> {
                     if (onMessageStatusChanged != null) {
                         onMessageStatusChanged.accept(msg);
                     }
                 });
-            }
-        });
+            });
+        
+        // Also update conversation's lastMessage in Firebase (coalesced per conversation)
+        updateFirebaseConversationLastMessage(firebaseConvId, msg);
     }
     
     /**
      * Update conversation's last message in SQLite
      */
     private void updateConversationLastMessage(int conversationId, ChatMessage msg) {
-        String preview = msg.getText();
-        if (preview.length() > 50) {
-            preview = preview.substring(0, 50) + "...";
-        }
+        String preview = previewOf(msg.getText());
         
         String sql = "UPDATE conversations SET last_message = ?, last_message_time = ?, last_sender_id = ?, updated_at = ? WHERE id = ?";
         try (Connection conn = DriverManager.getConnection(DB_URL);
@@ -678,34 +527,12 @@ public class ChatService {
      * Update conversation's last message in Firebase
      */
     private void updateFirebaseConversationLastMessage(String firebaseConvId, ChatMessage msg) {
-        try {
-            String url = FIRESTORE_BASE_URL + "/" + CONVERSATIONS_COLLECTION + "/" + firebaseConvId
-                + "?updateMask.fieldPaths=lastMessage&updateMask.fieldPaths=lastMessageTime&updateMask.fieldPaths=lastSenderId";
-            
-            String preview = msg.getText();
-            if (preview.length() > 50) {
-                preview = preview.substring(0, 50) + "...";
-            }
-            
-            Map<String, Object> data = new HashMap<>();
-            data.put("lastMessage", preview);
-            data.put("lastMessageTime", msg.getCreatedAt().getTime());
-            data.put("lastSenderId", msg.getSenderId());
-            
-            Map<String, Object> document = new HashMap<>();
-            document.put("fields", convertToFirestoreFields(data));
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Content-Type", "application/json")
-                .method("PATCH", HttpRequest.BodyPublishers.ofString(gson.toJson(document)))
-                .build();
-            
-            httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-        } catch (Exception e) {
-            // Non-critical, don't fail
-        }
+        // Non-critical, no callback needed
+        SyncOutbox.getInstance().enqueueUpsert(SyncOutbox.Priority.CHAT,
+            CONVERSATIONS_COLLECTION + "/" + firebaseConvId,
+            FirestoreDocuments.CONVERSATION_LAST_MESSAGE.toFieldsJson(msg),
+            FirestoreDocuments.CONVERSATION_LAST_MESSAGE.writableFieldPaths(),
+            null);
     }
     
     // ============================================================================
@@ -727,9 +554,18 @@ public class ChatService {
         // Stop existing poller if any
         stopListening(firebaseConvId);
         
-        // Start new polling task
+        // Start new polling task; the scheduler only keeps time, the HTTP call runs on the executor
         ScheduledFuture<?> poller = pollScheduler.scheduleAtFixedRate(() -> {
-            pollForNewMessages(firebaseConvId, localConvId, currentUserId);
+            if (!pollsInFlight.add(firebaseConvId)) {
+                return; // Previous poll still running
+            }
+            executor.submit(() -> {
+                try {
+                    pollForNewMessages(firebaseConvId, localConvId, currentUserId);
+                } finally {
+                    pollsInFlight.remove(firebaseConvId);
+                }
+            });
         }, 0, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
         
         activePollers.put(firebaseConvId, poller);
@@ -745,7 +581,7 @@ public class ChatService {
             long lastTimestamp = getLastMessageTimestamp(localConvId);
             
             // Query Firebase for messages after this timestamp
-            String queryUrl = FIRESTORE_BASE_URL + "/" + CONVERSATIONS_COLLECTION + "/" + firebaseConvId 
+            String queryUrl = FirebaseConfig.getDocumentsUrl() + "/" + CONVERSATIONS_COLLECTION + "/" + firebaseConvId 
                 + "/" + MESSAGES_COLLECTION;
             
             HttpRequest request = HttpRequest.newBuilder()
@@ -753,35 +589,28 @@ public class ChatService {
                 .GET()
                 .build();
             
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = transport.send(request);
             
             if (response.statusCode() == 200) {
-                JsonObject result = JsonParser.parseString(response.body()).getAsJsonObject();
-                
-                if (result.has("documents")) {
-                    JsonArray documents = result.getAsJsonArray("documents");
+                for (ChatMessage msg : FirestoreDocuments.CHAT_MESSAGE.readDocumentList(response.body())) {
+                    msg.setConversationId(localConvId);
                     
-                    for (JsonElement docElement : documents) {
-                        JsonObject doc = docElement.getAsJsonObject();
-                        ChatMessage msg = parseFirestoreMessage(doc, localConvId);
-                        
-                        // Check if this is a new message (not from current user, not already in SQLite)
-                        if (msg != null && msg.getSenderId() != currentUserId) {
-                            if (!messageExistsInSQLite(msg.getFirebaseId())) {
-                                // Save new message to SQLite
-                                msg.setSyncStatus("synced");
-                                saveMessageToSQLite(msg);
-                                
-                                // Notify UI
-                                Platform.runLater(() -> {
-                                    if (onMessageReceived != null) {
-                                        onMessageReceived.accept(msg);
-                                    }
-                                });
-                                
-                                // Update conversation
-                                updateConversationLastMessage(localConvId, msg);
-                            }
+                    // Check if this is a new message (not from current user, not already in SQLite)
+                    if (msg.getSenderId() != currentUserId) {
+                        if (!messageExistsInSQLite(msg.getFirebaseId())) {
+                            // Save new message to SQLite
+                            msg.setSyncStatus("synced");
+                            saveMessageToSQLite(msg);
+                            
+                            // Notify UI
+                            Platform.runLater(() -> {
+                                if (onMessageReceived != null) {
+                                    onMessageReceived.accept(msg);
+                                }
+                            });
+                            
+                            // Update conversation
+                            updateConversationLastMessage(localConvId, msg);
                         }
                     }
                 }
@@ -923,39 +752,85 @@ public class ChatService {
     }
     
     // ============================================================================
-    // MESSAGE RETRIEVAL
+    // MESSAGE WINDOWS (KEYSET PAGING)
     // ============================================================================
-    
+
     /**
-     * Get messages for a conversation from SQLite
+     * One locally stored message, as the conversation view shows it
      */
-    public List<ChatMessage> getMessages(int conversationId, int limit, int offset) {
-        List<ChatMessage> messages = new ArrayList<>();
-        
-        String sql = """
-            SELECT * FROM messages 
-            WHERE conversation_id = ?
-            ORDER BY created_at ASC
-            LIMIT ? OFFSET ?
-            """;
-        
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, conversationId);
-            stmt.setInt(2, limit);
-            stmt.setInt(3, offset);
-            
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                messages.add(mapResultSetToMessage(rs));
-            }
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        return messages;
+    public record StoredMessage(int id, int senderId, int receiverId, String text, String type,
+                                String attachmentPath, boolean read, String createdAt) {}
+
+    /**
+     * A run of messages in chronological order; hasMore = further messages exist beyond
+     * the end the window was read towards (older for latest/before, newer for after)
+     */
+    public record MessageWindow(List<StoredMessage> messages, boolean hasMore) {}
+
+    // Only messages between the two participants; idx_messages_window serves both the
+    // conversation filter and the (created_at, id) order, so a window reads just its rows
+    private static final String WINDOW_QUERY =
+        "SELECT m.id, m.sender_id, m.receiver_id, m.message_text, m.message_type, m.attachment_path, " +
+        "m.is_read, m.created_at FROM messages m JOIN conversations c ON c.id = m.conversation_id " +
+        "WHERE m.conversation_id = ? " +
+        "AND m.sender_id IN (c.user1_id, c.user2_id) AND m.receiver_id IN (c.user1_id, c.user2_id) ";
+    private static final String ANCHOR = "(SELECT created_at, id FROM messages WHERE id = ?)";
+
+    /**
+     * Newest {@code limit} messages of a conversation; onSuccess runs on the JavaFX thread
+     */
+    public void getLatestMessages(int conversationId, int limit,
+                                  Consumer<MessageWindow> onSuccess, Consumer<Exception> onError) {
+        readWindow(WINDOW_QUERY + "ORDER BY m.created_at DESC, m.id DESC LIMIT ?",
+            new Object[]{conversationId, limit + 1}, limit, true, onSuccess, onError);
+    }
+
+    /**
+     * Up to {@code limit} messages just before the given message (scrolling back)
+     */
+    public void getMessagesBefore(int conversationId, int beforeMessageId, int limit,
+                                  Consumer<MessageWindow> onSuccess, Consumer<Exception> onError) {
+        readWindow(WINDOW_QUERY + "AND (m.created_at, m.id) < " + ANCHOR + " ORDER BY m.created_at DESC, m.id DESC LIMIT ?",
+            new Object[]{conversationId, beforeMessageId, limit + 1}, limit, true, onSuccess, onError);
+    }
+
+    /**
+     * Up to {@code limit} messages just after the given message (new arrivals)
+     */
+    public void getMessagesAfter(int conversationId, int afterMessageId, int limit,
+                                 Consumer<MessageWindow> onSuccess, Consumer<Exception> onError) {
+        readWindow(WINDOW_QUERY + "AND (m.created_at, m.id) > " + ANCHOR + " ORDER BY m.created_at, m.id LIMIT ?",
+            new Object[]{conversationId, afterMessageId, limit + 1}, limit, false, onSuccess, onError);
+    }
+
+    private void readWindow(String sql, Object[] params, int limit, boolean newestFirst,
+                            Consumer<MessageWindow> onSuccess, Consumer<Exception> onError) {
+        DatabaseService.executeQueryAsync(sql, params,
+            rs -> {
+                try {
+                    List<StoredMessage> rows = new ArrayList<>();
+                    while (rs.next()) {
+                        rows.add(new StoredMessage(
+                            rs.getInt("id"), rs.getInt("sender_id"), rs.getInt("receiver_id"),
+                            rs.getString("message_text"), rs.getString("message_type"),
+                            rs.getString("attachment_path"), rs.getBoolean("is_read"),
+                            rs.getString("created_at")));
+                    }
+                    // One extra row was read only to tell whether more exist
+                    boolean hasMore = rows.size() > limit;
+                    if (hasMore) {
+                        rows.remove(rows.size() - 1);
+                    }
+                    if (newestFirst) {
+                        Collections.reverse(rows);
+                    }
+                    MessageWindow window = new MessageWindow(rows, hasMore);
+                    Platform.runLater(() -> onSuccess.accept(window));
+                } catch (Exception e) {
+                    Platform.runLater(() -> onError.accept(e));
+                }
+            },
+            error -> Platform.runLater(() -> onError.accept(error)));
     }
     
     /**
@@ -1064,155 +939,13 @@ public class ChatService {
     }
     
     /**
-     * Convert Java map to Firestore fields format
-     */
-    private Map<String, Object> convertToFirestoreFields(Map<String, Object> data) {
-        Map<String, Object> fields = new HashMap<>();
-        
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            
-            Map<String, Object> fieldValue = new HashMap<>();
-            
-            if (value == null) {
-                fieldValue.put("nullValue", null);
-            } else if (value instanceof String) {
-                fieldValue.put("stringValue", value);
-            } else if (value instanceof Integer) {
-                fieldValue.put("integerValue", String.valueOf(value));
-            } else if (value instanceof Long) {
-                fieldValue.put("integerValue", String.valueOf(value));
-            } else if (value instanceof Double) {
-                fieldValue.put("doubleValue", value);
-            } else if (value instanceof Boolean) {
-                fieldValue.put("booleanValue", value);
-            } else {
-                fieldValue.put("stringValue", value.toString());
-            }
-            
-            fields.put(key, fieldValue);
-        }
-        
-        return fields;
-    }
-    
-    /**
-     * Parse Firestore document to Conversation
-     */
-    private Conversation parseFirestoreConversation(JsonObject doc) {
-        try {
-            Conversation conv = new Conversation();
-            
-            // Extract document ID from name
-            String name = doc.get("name").getAsString();
-            String firebaseId = name.substring(name.lastIndexOf('/') + 1);
-            conv.setFirebaseId(firebaseId);
-            
-            JsonObject fields = doc.getAsJsonObject("fields");
-            
-            conv.setUser1Id(getIntFromFirestore(fields, "user1Id"));
-            conv.setUser2Id(getIntFromFirestore(fields, "user2Id"));
-            conv.setUser1Name(getStringFromFirestore(fields, "user1Name"));
-            conv.setUser2Name(getStringFromFirestore(fields, "user2Name"));
-            conv.setCropName(getStringFromFirestore(fields, "cropName"));
-            conv.setLastMessage(getStringFromFirestore(fields, "lastMessage"));
-            
-            Long cropId = getLongFromFirestore(fields, "cropId");
-            conv.setCropId(cropId != null ? cropId.intValue() : null);
-            
-            Long lastSenderId = getLongFromFirestore(fields, "lastSenderId");
-            conv.setLastSenderId(lastSenderId != null ? lastSenderId.intValue() : null);
-            
-            Long lastMsgTime = getLongFromFirestore(fields, "lastMessageTime");
-            if (lastMsgTime != null) {
-                conv.setLastMessageTime(new Timestamp(lastMsgTime));
-            }
-            
-            Long createdAt = getLongFromFirestore(fields, "createdAt");
-            if (createdAt != null) {
-                conv.setCreatedAt(new Timestamp(createdAt));
-            }
-            
-            conv.setSyncStatus("synced");
-            return conv;
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-    
-    /**
-     * Parse Firestore document to ChatMessage
+     * Conversation list preview of a message (first 50 characters)
      */
-    private ChatMessage parseFirestoreMessage(JsonObject doc, int localConvId) {
-        try {
-            ChatMessage msg = new ChatMessage();
-            
-            // Extract document ID from name
-            String name = doc.get("name").getAsString();
-            String firebaseId = name.substring(name.lastIndexOf('/') + 1);
-            msg.setFirebaseId(firebaseId);
-            msg.setConversationId(localConvId);
-            
-            JsonObject fields = doc.getAsJsonObject("fields");
-            
-            msg.setSenderId(getIntFromFirestore(fields, "senderId"));
-            msg.setSenderName(getStringFromFirestore(fields, "senderName"));
-            msg.setText(getStringFromFirestore(fields, "text"));
-            msg.setType(getStringFromFirestore(fields, "type"));
-            msg.setStatus(getStringFromFirestore(fields, "status"));
-            msg.setRead(getBooleanFromFirestore(fields, "isRead"));
-            
-            Long createdAt = getLongFromFirestore(fields, "createdAt");
-            if (createdAt != null) {
-                msg.setCreatedAt(new Timestamp(createdAt));
-            } else {
-                msg.setCreatedAt(new Timestamp(System.currentTimeMillis()));
-            }
-            
-            return msg;
-            
-        } catch (Exception e) {
-            return null;
+    static String previewOf(String text) {
+        if (text == null) {
+            return "";
         }
-    }
-    
-    // Firestore field extraction helpers
-    private String getStringFromFirestore(JsonObject fields, String key) {
-        if (fields.has(key)) {
-            JsonObject field = fields.getAsJsonObject(key);
-            if (field.has("stringValue")) {
-                return field.get("stringValue").getAsString();
-            }
-        }
-        return null;
-    }
-    
-    private int getIntFromFirestore(JsonObject fields, String key) {
-        Long value = getLongFromFirestore(fields, key);
-        return value != null ? value.intValue() : 0;
-    }
-    
-    private Long getLongFromFirestore(JsonObject fields, String key) {
-        if (fields.has(key)) {
-            JsonObject field = fields.getAsJsonObject(key);
-            if (field.has("integerValue")) {
-                return Long.parseLong(field.get("integerValue").getAsString());
-            }
-        }
-        return null;
-    }
-    
-    private boolean getBooleanFromFirestore(JsonObject fields, String key) {
-        if (fields.has(key)) {
-            JsonObject field = fields.getAsJsonObject(key);
-            if (field.has("booleanValue")) {
-                return field.get("booleanValue").getAsBoolean();
-            }
-        }
-        return false;
+        return text.length() > 50 ? text.substring(0, 50) + "..." : text;
     }
     
     // ResultSet mappers
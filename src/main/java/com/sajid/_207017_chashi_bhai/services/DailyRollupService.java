@@ -0,0 +1,178 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * DailyRollupService - Pre-aggregated daily order totals for history screens and charts
+ *
+ * daily_order_rollups holds one row per (farmer, day, buyer, crop) with the number of
+ * completed orders, kilograms and revenue. Rows are bumped when an order completes
+ * (same transaction as the status change), so history summaries read a few hundred
+ * rollup rows for a date range instead of scanning the orders table.
+ *
+ * Days are UTC dates, the same as SQLite's date('now') used by the history filters.
+ */
+public final class DailyRollupService {
+
+    // When an order counts as completed; an order's rollup day is date() of this, both when
+    // it is recorded and when everything is rebuilt ("o" is the orders alias)
+    static final String ORDER_COMPLETED_AT = "COALESCE(o.completed_at, o.delivered_at, o.updated_at, o.created_at)";
+
+    private DailyRollupService() {}
+
+    /**
+     * Headline numbers for a user over a date range
+     */
+    public static final class Summary {
+        public final double revenue;
+        public final int orderCount;
+        public final double quantityKg;
+        public final String topCrop;
+        public final int distinctPartners;
+
+        Summary(double revenue, int orderCount, double quantityKg, String topCrop, int distinctPartners) {
+            this.revenue = revenue;
+            this.orderCount = orderCount;
+            this.quantityKg = quantityKg;
+            this.topCrop = topCrop;
+            this.distinctPartners = distinctPartners;
+        }
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    /**
+     * Add one completed order to the rollup row of the day it completed (call inside the
+     * completing transaction); completedAt is the order's ORDER_COMPLETED_AT value
+     */
+    public static void recordCompletedOrder(Connection conn, int farmerId, int buyerId, int cropId,
+                                            String cropName, double quantityKg, double revenue,
+                                            String completedAt) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(
+            "INSERT INTO daily_order_rollups (farmer_id, day, buyer_id, crop_id, crop_name, order_count, quantity_kg, revenue) " +
+            "VALUES (?, date(?), ?, ?, ?, 1, ?, ?) " +
+            "ON CONFLICT(farmer_id, day, buyer_id, crop_id) DO UPDATE SET " +
+            "order_count = order_count + 1, quantity_kg = quantity_kg + excluded.quantity_kg, " +
+            "revenue = revenue + excluded.revenue, crop_name = excluded.crop_name")) {
+            ps.setInt(1, farmerId);
+            ps.setString(2, completedAt);
+            ps.setInt(3, buyerId);
+            ps.setInt(4, cropId);
+            ps.setString(5, cropName);
+            ps.setDouble(6, quantityKg);
+            ps.setDouble(7, revenue);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Recompute all rollups from the orders table in one set-based pass (repair / first run)
+     */
+    public static int rebuild(Connection conn) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM daily_order_rollups");
+            return stmt.executeUpdate(
+                "INSERT INTO daily_order_rollups (farmer_id, day, buyer_id, crop_id, crop_name, order_count, quantity_kg, revenue) " +
+                "SELECT c.farmer_id, date(" + ORDER_COMPLETED_AT + "), " +
+                "o.buyer_id, o.crop_id, MAX(c.name), COUNT(*), COALESCE(SUM(o.quantity_kg), 0), COALESCE(SUM(o.total_amount), 0) " +
+                "FROM orders o JOIN crops c ON o.crop_id = c.id " +
+                "WHERE o.status IN ('delivered', 'completed') " +
+                "GROUP BY c.farmer_id, 2, o.buyer_id, o.crop_id"
+            );
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Farmer summary (income, orders, most sold crop by kg, distinct buyers) for [fromDay, toDay)
+     * Either bound may be null for an open range.
+     */
+    public static void loadFarmerSummary(int farmerId, String fromDay, String toDay,
+                                         Consumer<Summary> onSuccess, Consumer<Exception> onError) {
+        loadSummary("farmer_id", "buyer_id", "quantity_kg", farmerId, fromDay, toDay, onSuccess, onError);
+    }
+
+    /**
+     * Buyer summary (expense, orders, most bought crop by order count, distinct farmers) for [fromDay, toDay)
+     */
+    public static void loadBuyerSummary(int buyerId, String fromDay, String toDay,
+                                        Consumer<Summary> onSuccess, Consumer<Exception> onError) {
+        loadSummary("buyer_id", "farmer_id", "order_count", buyerId, fromDay, toDay, onSuccess, onError);
+    }
+
+    private static void loadSummary(String ownerColumn, String partnerColumn, String topCropMeasure,
+                                    int userId, String fromDay, String toDay,
+                                    Consumer<Summary> onSuccess, Consumer<Exception> onError) {
+        String range = "";
+        List<Object> rangeParams = new ArrayList<>();
+        if (fromDay != null) {
+            range += " AND day >= ?";
+            rangeParams.add(fromDay);
+        }
+        if (toDay != null) {
+            range += " AND day < ?";
+            rangeParams.add(toDay);
+        }
+
+        String sql =
+            "SELECT COALESCE(SUM(revenue), 0) AS revenue, " +
+            "COALESCE(SUM(order_count), 0) AS order_count, " +
+            "COALESCE(SUM(quantity_kg), 0) AS quantity_kg, " +
+            "COUNT(DISTINCT " + partnerColumn + ") AS partners, " +
+            "(SELECT crop_name FROM daily_order_rollups WHERE " + ownerColumn + " = ?" + range +
+            " GROUP BY crop_id ORDER BY SUM(" + topCropMeasure + ") DESC LIMIT 1) AS top_crop " +
+            "FROM daily_order_rollups WHERE " + ownerColumn + " = ?" + range;
+
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        params.addAll(rangeParams);
+        params.add(userId);
+        params.addAll(rangeParams);
+
+        DatabaseService.executeQueryAsync(sql, params.toArray(),
+            rs -> {
+                try {
+                    Summary summary = rs.next()
+                        ? new Summary(rs.getDouble("revenue"), rs.getInt("order_count"), rs.getDouble("quantity_kg"),
+                                      rs.getString("top_crop"), rs.getInt("partners"))
+                        : new Summary(0, 0, 0, null, 0);
+                    if (onSuccess != null) onSuccess.accept(summary);
+                } catch (Exception e) {
+                    if (onError != null) onError.accept(e);
+                }
+            },
+            onError);
+    }
+
+    /**
+     * Translate a history month filter label into a [fromDay, toDay) range (null = open)
+     */
+    public static String[] rangeForFilter(String label) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        if (label == null) {
+            return new String[]{null, null};
+        }
+        if (label.contains("This Month") || label.contains("এই মাস")) {
+            return new String[]{today.withDayOfMonth(1).toString(), null};
+        }
+        if (label.contains("Last Month") || label.contains("গত মাস")) {
+            LocalDate startOfMonth = today.withDayOfMonth(1);
+            return new String[]{startOfMonth.minusMonths(1).toString(), startOfMonth.toString()};
+        }
+        if (label.contains("Last 3") || label.contains("গত ৩")) {
+            return new String[]{today.minusMonths(3).toString(), null};
+        }
+        if (label.contains("This Year") || label.contains("এই বছর")) {
+            return new String[]{today.withDayOfYear(1).toString(), null};
+        }
+        return new String[]{null, null};
+    }
+}
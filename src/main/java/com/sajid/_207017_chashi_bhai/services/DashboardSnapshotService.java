@@ -0,0 +1,200 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import javafx.application.Platform;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * DashboardSnapshotService - Headline numbers for the dashboards, one DB round trip each
+ *
+ * - Farmer snapshot: earnings, completed orders, active crops, pending orders in one
+ *   prepared statement (index-backed subqueries), cached per farmer.
+ * - Market snapshot: latest market prices + featured crops for the buyer dashboard,
+ *   loaded in a single DB task and shared by all buyers.
+ *
+ * Cached snapshots are dropped when DataChangeEvents reports an order or crop change,
+ * so reopening a dashboard costs no query until something actually changed.
+ * Callbacks are delivered on the JavaFX thread.
+ */
+public class DashboardSnapshotService {
+    private static DashboardSnapshotService instance;
+
+    // Market prices are entered outside the app, so don't keep them forever
+    private static final long MARKET_TTL_MS = 5 * 60_000;
+
+    private final Map<Integer, FarmerSnapshot> farmerSnapshots = new ConcurrentHashMap<>();
+    private volatile MarketSnapshot marketSnapshot;
+
+    // Bumped on every invalidation so a load that raced with a change is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private DashboardSnapshotService() {
+        DataChangeEvents events = DataChangeEvents.getInstance();
+        events.subscribe(DataChangeEvents.Topic.ORDERS, userId -> {
+            generation.incrementAndGet();
+            farmerSnapshots.remove(userId);
+        });
+        events.subscribe(DataChangeEvents.Topic.CROPS, userId -> {
+            generation.incrementAndGet();
+            farmerSnapshots.remove(userId);
+            marketSnapshot = null;
+        });
+    }
+
+    public static synchronized DashboardSnapshotService getInstance() {
+        if (instance == null) {
+            instance = new DashboardSnapshotService();
+        }
+        return instance;
+    }
+
+    // ==================== FARMER ====================
+
+    public static final class FarmerSnapshot {
+        public final double earnings;
+        public final int completedOrders;
+        public final int activeCrops;
+        public final int pendingOrders;
+
+        FarmerSnapshot(double earnings, int completedOrders, int activeCrops, int pendingOrders) {
+            this.earnings = earnings;
+            this.completedOrders = completedOrders;
+            this.activeCrops = activeCrops;
+            this.pendingOrders = pendingOrders;
+        }
+    }
+
+    public void loadFarmerSnapshot(int farmerId, Consumer<FarmerSnapshot> onSuccess, Consumer<Exception> onError) {
+        FarmerSnapshot cached = farmerSnapshots.get(farmerId);
+        if (cached != null) {
+            onSuccess.accept(cached);
+            return;
+        }
+
+        long loadGeneration = generation.get();
+        DatabaseService.executeQueryAsync(
+            "SELECT " +
+            "(SELECT COALESCE(SUM(revenue), 0) FROM daily_order_rollups WHERE farmer_id = ?) as earnings, " +
+            "(SELECT COALESCE(SUM(order_count), 0) FROM daily_order_rollups WHERE farmer_id = ?) as completed_orders, " +
+            "(SELECT COUNT(*) FROM crops WHERE farmer_id = ? AND status = 'active') as active_crops, " +
+            "(SELECT COUNT(*) FROM orders WHERE farmer_id = ? " +
+            " AND status IN ('new', 'processing', 'accepted', 'shipped', 'in_transit')) as pending_orders",
+            new Object[]{farmerId, farmerId, farmerId, farmerId},
+            rs -> {
+                try {
+                    FarmerSnapshot snapshot = rs.next()
+                        ? new FarmerSnapshot(rs.getDouble("earnings"), rs.getInt("completed_orders"),
+                                             rs.getInt("active_crops"), rs.getInt("pending_orders"))
+                        : new FarmerSnapshot(0, 0, 0, 0);
+                    if (generation.get() == loadGeneration) {
+                        farmerSnapshots.put(farmerId, snapshot);
+                    }
+                    Platform.runLater(() -> onSuccess.accept(snapshot));
+                } catch (Exception e) {
+                    if (onError != null) Platform.runLater(() -> onError.accept(e));
+                }
+            },
+            error -> {
+                if (onError != null) Platform.runLater(() -> onError.accept(error));
+            }
+        );
+    }
+
+    // ==================== MARKET (BUYER DASHBOARD) ====================
+
+    public static final class MarketPrice {
+        public final String cropName;
+        public final double price;
+
+        MarketPrice(String cropName, double price) {
+            this.cropName = cropName;
+            this.price = price;
+        }
+    }
+
+    public static final class FeaturedCrop {
+        public final int cropId;
+        public final String name;
+        public final String farmerName;
+        public final boolean farmerVerified;
+        public final double pricePerKg;
+        public final String district;
+        public final String photoPath;
+
+        FeaturedCrop(int cropId, String name, String farmerName, boolean farmerVerified,
+                     double pricePerKg, String district, String photoPath) {
+            this.cropId = cropId;
+            this.name = name;
+            this.farmerName = farmerName;
+            this.farmerVerified = farmerVerified;
+            this.pricePerKg = pricePerKg;
+            this.district = district;
+            this.photoPath = photoPath;
+        }
+    }
+
+    public static final class MarketSnapshot {
+        public final List<MarketPrice> prices;
+        public final List<FeaturedCrop> featuredCrops;
+        final long loadedAt;
+
+        MarketSnapshot(List<MarketPrice> prices, List<FeaturedCrop> featuredCrops) {
+            this.prices = Collections.unmodifiableList(prices);
+            this.featuredCrops = Collections.unmodifiableList(featuredCrops);
+            this.loadedAt = System.currentTimeMillis();
+        }
+    }
+
+    public void loadMarketSnapshot(Consumer<MarketSnapshot> onSuccess, Consumer<Exception> onError) {
+        MarketSnapshot cached = marketSnapshot;
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < MARKET_TTL_MS) {
+            onSuccess.accept(cached);
+            return;
+        }
+
+        long loadGeneration = generation.get();
+        // Both reads run back to back in one task on the DB thread
+        DatabaseService.executeTransactionAsync(conn -> {
+            List<MarketPrice> prices = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT crop_name, price FROM market_prices ORDER BY updated_at DESC LIMIT 10");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    prices.add(new MarketPrice(rs.getString("crop_name"), rs.getDouble("price")));
+                }
+            }
+
+            List<FeaturedCrop> featured = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT c.id, c.name, c.price_per_kg, c.district, u.name as farmer_name, u.is_verified, " +
+                    "(SELECT photo_path FROM crop_photos WHERE crop_id = c.id ORDER BY photo_order LIMIT 1) as photo " +
+                    "FROM crops c " +
+                    "JOIN users u ON c.farmer_id = u.id " +
+                    "WHERE c.status = 'active' " +
+                    "ORDER BY c.created_at DESC LIMIT 4");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    featured.add(new FeaturedCrop(rs.getInt("id"), rs.getString("name"), rs.getString("farmer_name"),
+                        rs.getBoolean("is_verified"), rs.getDouble("price_per_kg"), rs.getString("district"),
+                        rs.getString("photo")));
+                }
+            }
+            return new MarketSnapshot(prices, featured);
+        },
+        snapshot -> {
+            if (generation.get() == loadGeneration) {
+                marketSnapshot = snapshot;
+            }
+            onSuccess.accept(snapshot);
+        },
+        onError);
+    }
+}
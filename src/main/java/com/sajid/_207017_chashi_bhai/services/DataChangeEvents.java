@@ -0,0 +1,60 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+/**
+ * DataChangeEvents - Tiny publish/subscribe hub for "this user's data changed" events
+ *
+ * Writers publish after their change is committed; caches subscribe and drop the
+ * affected user's entries. Listeners run on the publishing thread, so keep them cheap
+ * (invalidate, don't reload).
+ */
+public class DataChangeEvents {
+    private static DataChangeEvents instance;
+
+    public enum Topic {
+        ORDERS,
+        CROPS,
+        NOTIFICATIONS,
+        CHATS
+    }
+
+    private final Map<Topic, List<IntConsumer>> listeners = new ConcurrentHashMap<>();
+
+    private DataChangeEvents() {}
+
+    public static synchronized DataChangeEvents getInstance() {
+        if (instance == null) {
+            instance = new DataChangeEvents();
+        }
+        return instance;
+    }
+
+    /**
+     * Register a listener that receives the id of each affected user
+     */
+    public void subscribe(Topic topic, IntConsumer listener) {
+        listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Announce that data of the given users changed
+     */
+    public void publish(Topic topic, int... userIds) {
+        List<IntConsumer> subscribers = listeners.get(topic);
+        if (subscribers == null) return;
+        for (int userId : userIds) {
+            for (IntConsumer listener : subscribers) {
+                try {
+                    listener.accept(userId);
+                } catch (Exception e) {
+                    System.err.println("Data change listener error (" + topic + "): " + e.getMessage());
+                }
+            }
+        }
+    }
+}
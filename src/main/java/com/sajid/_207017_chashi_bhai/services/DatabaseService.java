@@ -3,8 +3,10 @@ package com.sajid._207017_chashi_bhai.services;
 import javafx.application.Platform;
 
 import java.sql.*;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 /**
@@ -24,6 +26,17 @@ public class DatabaseService {
         return thread;
     });
     
+    // Where transaction callbacks run: the FX thread in the app
+    private static volatile Executor callbackExecutor = Platform::runLater;
+
+    /**
+     * Run executeTransactionAsync callbacks on this executor instead of the FX thread
+     * (benchmarks and tools that never start the JavaFX toolkit); null restores the default
+     */
+    public static void setCallbackExecutor(Executor executor) {
+        callbackExecutor = executor != null ? executor : Platform::runLater;
+    }
+
     public interface TransactionWork<T> {
         T apply(Connection conn) throws Exception;
     }
@@ -38,7 +51,7 @@ public class DatabaseService {
                     T result = work.apply(conn);
                     conn.commit();
                     if (onSuccess != null) {
-                        Platform.runLater(() -> onSuccess.accept(result));
+                        callbackExecutor.execute(() -> onSuccess.accept(result));
                     }
                 } catch (Exception e) {
                     try {
@@ -47,7 +60,7 @@ public class DatabaseService {
                         // ignore rollback failures
                     }
                     if (onError != null) {
-                        Platform.runLater(() -> onError.accept(e));
+                        callbackExecutor.execute(() -> onError.accept(e));
                     }
                 } finally {
                     try {
@@ -58,7 +71,7 @@ public class DatabaseService {
                 }
             } catch (Exception outer) {
                 if (onError != null) {
-                    Platform.runLater(() -> onError.accept(outer));
+                    callbackExecutor.execute(() -> onError.accept(outer));
                 }
             }
         });
@@ -76,9 +89,9 @@ public class DatabaseService {
     }
 
     /**
-     * Get a database connection
+     * Get a database connection (package-private for WriteBatcher)
      */
-    private static Connection getConnection() throws SQLException {
+    static Connection getConnection() throws SQLException {
         return DriverManager.getConnection(DB_URL);
     }
 
@@ -122,6 +135,84 @@ public class DatabaseService {
         });
     }
 
+    /**
+     * Handle to a query started with executeCancellableQueryAsync.
+     * cancel() skips the query if it is still queued, or interrupts its statement if it is running;
+     * a cancelled query calls neither callback.
+     */
+    public static final class QueryHandle {
+        private boolean cancelled;
+        private Statement running;
+
+        public synchronized void cancel() {
+            cancelled = true;
+            if (running != null) {
+                try {
+                    running.cancel(); // sqlite3_interrupt on this query's own connection
+                } catch (SQLException ignored) {
+                    // statement already finishing
+                }
+            }
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private synchronized boolean attach(Statement statement) {
+            running = statement;
+            return !cancelled;
+        }
+
+        private synchronized void detach() {
+            running = null;
+        }
+    }
+
+    /**
+     * Same as executeQueryAsync (callbacks on the DB thread), but the query can be cancelled
+     * while it waits in the queue or runs, e.g. when a newer search supersedes it
+     */
+    public static QueryHandle executeCancellableQueryAsync(String sql, Object[] params,
+                                                           Consumer<ResultSet> onSuccess,
+                                                           Consumer<Exception> onError) {
+        QueryHandle handle = new QueryHandle();
+        dbExecutor.submit(() -> {
+            if (handle.isCancelled()) {
+                return;
+            }
+            try (Connection conn = getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                if (params != null) {
+                    for (int i = 0; i < params.length; i++) {
+                        stmt.setObject(i + 1, params[i]);
+                    }
+                }
+                if (!handle.attach(stmt)) {
+                    return;
+                }
+                try {
+                    ResultSet rs = stmt.executeQuery();
+                    if (onSuccess != null && !handle.isCancelled()) {
+                        onSuccess.accept(rs);
+                    }
+                } finally {
+                    handle.detach();
+                }
+            } catch (Exception e) {
+                if (handle.isCancelled()) {
+                    return; // interrupted on purpose
+                }
+                System.err.println("Database query error: " + e.getMessage());
+                e.printStackTrace();
+                if (onError != null) {
+                    onError.accept(e);
+                }
+            }
+        });
+        return handle;
+    }
+
     /**
      * Execute an update asynchronously (INSERT, UPDATE, DELETE operations)
      * 
@@ -210,337 +301,594 @@ public class DatabaseService {
 
     /**
      * Initialize database tables (call this on app startup)
+     * Runs on the DB thread; the future completes when the schema is ready
      */
-    public static void initializeDatabase() {
-        dbExecutor.submit(() -> {
-            try (Connection conn = getConnection();
-                 Statement stmt = conn.createStatement()) {
-                
-                // Users table
-                stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS users (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "name TEXT NOT NULL, " +
-                    "phone TEXT UNIQUE NOT NULL, " +
-                    "pin TEXT NOT NULL, " +
-                    "role TEXT NOT NULL, " +
-                    "district TEXT, " +
-                    "upazila TEXT, " +
-                    "village TEXT, " +
-                    "nid TEXT, " +
-                    "profile_photo TEXT, " +
-                    "is_verified INTEGER DEFAULT 0, " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
-                );
-                
-                // Add farmer statistics columns (if not exist)
-                try {
-                    stmt.execute("ALTER TABLE users ADD COLUMN total_accepted_orders INTEGER DEFAULT 0");
-                    System.out.println("Added column: total_accepted_orders");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        throw e;
-                    }
+    public static Future<?> initializeDatabase() {
+        return dbExecutor.submit(() -> {
+            try (Connection conn = getConnection()) {
+                createSchema(conn);
+                System.out.println("Database initialized successfully");
+            } catch (Exception e) {
+                System.err.println("Database initialization error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Create or migrate every table, index and trigger on the given connection, then seed the
+     * derived tables the first time they appear. Tests run it against an in-memory database.
+     */
+    static void createSchema(Connection conn) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            
+            // Users table
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS users (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "name TEXT NOT NULL, " +
+                "phone TEXT UNIQUE NOT NULL, " +
+                "pin TEXT NOT NULL, " +
+                "role TEXT NOT NULL, " +
+                "district TEXT, " +
+                "upazila TEXT, " +
+                "village TEXT, " +
+                "nid TEXT, " +
+                "profile_photo TEXT, " +
+                "is_verified INTEGER DEFAULT 0, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+            );
+            
+            // Add farmer statistics columns (if not exist)
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN total_accepted_orders INTEGER DEFAULT 0");
+                System.out.println("Added column: total_accepted_orders");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
-                
-                try {
-                    stmt.execute("ALTER TABLE users ADD COLUMN most_sold_crop TEXT");
-                    System.out.println("Added column: most_sold_crop");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        throw e;
-                    }
+            }
+            
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN most_sold_crop TEXT");
+                System.out.println("Added column: most_sold_crop");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
-                
-                try {
-                    stmt.execute("ALTER TABLE users ADD COLUMN total_income REAL DEFAULT 0.0");
-                    System.out.println("Added column: total_income");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        throw e;
-                    }
+            }
+            
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN total_income REAL DEFAULT 0.0");
+                System.out.println("Added column: total_income");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
-                
-                try {
-                    stmt.execute("ALTER TABLE users ADD COLUMN rating REAL DEFAULT 0.0");
-                    System.out.println("Added column: rating");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        throw e;
-                    }
+            }
+            
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN rating REAL DEFAULT 0.0");
+                System.out.println("Added column: rating");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
-                
-                // Add buyer statistics columns (if not exist)
-                try {
-                    stmt.execute("ALTER TABLE users ADD COLUMN total_buyer_orders INTEGER DEFAULT 0");
-                    System.out.println("Added column: total_buyer_orders");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        throw e;
-                    }
+            }
+            
+            // Add buyer statistics columns (if not exist)
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN total_buyer_orders INTEGER DEFAULT 0");
+                System.out.println("Added column: total_buyer_orders");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
-                
-                try {
-                    stmt.execute("ALTER TABLE users ADD COLUMN most_bought_crop TEXT");
-                    System.out.println("Added column: most_bought_crop");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        throw e;
-                    }
+            }
+            
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN most_bought_crop TEXT");
+                System.out.println("Added column: most_bought_crop");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
-                
-                try {
-                    stmt.execute("ALTER TABLE users ADD COLUMN total_expense REAL DEFAULT 0.0");
-                    System.out.println("Added column: total_expense");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        throw e;
-                    }
+            }
+            
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN total_expense REAL DEFAULT 0.0");
+                System.out.println("Added column: total_expense");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
+            }
 
-                // Crops table with proper columns
-                stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS crops (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "product_code TEXT UNIQUE NOT NULL, " +
-                    "farmer_id INTEGER NOT NULL, " +
-                    "name TEXT NOT NULL, " +
-                    "category TEXT NOT NULL, " +
-                    "initial_quantity_kg REAL NOT NULL, " +
-                    "available_quantity_kg REAL NOT NULL, " +
-                    "price_per_kg REAL NOT NULL, " +
-                    "description TEXT, " +
-                    "district TEXT NOT NULL, " +
-                    "upazila TEXT, " +
-                    "village TEXT, " +
-                    "harvest_date DATE, " +
-                    "transport_info TEXT, " +
-                    "status TEXT DEFAULT 'active' CHECK(status IN ('active', 'sold', 'expired', 'deleted')), " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "FOREIGN KEY (farmer_id) REFERENCES users(id) ON DELETE CASCADE)"
-                );
+            // Number of reviews behind users.rating (lets the average be updated incrementally)
+            boolean statisticsNeedRebuild = false;
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN rating_count INTEGER DEFAULT 0");
+                System.out.println("Added column: rating_count");
+                statisticsNeedRebuild = true;
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
+                }
+            }
 
-                // Crop photos table - now with Base64 support
-                stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS crop_photos (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "crop_id INTEGER NOT NULL, " +
-                    "photo_path TEXT, " +
-                    "image_base64 TEXT, " +
-                    "photo_order INTEGER DEFAULT 1, " +
-                    "FOREIGN KEY (crop_id) REFERENCES crops(id) ON DELETE CASCADE)"
-                );
-                
-                // Add image_base64 column if not exists (migration)
-                try {
-                    stmt.execute("ALTER TABLE crop_photos ADD COLUMN image_base64 TEXT");
-                    System.out.println("Added column: image_base64 to crop_photos");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        // Column already exists, ignore
-                    }
+            // Crops table with proper columns
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS crops (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "product_code TEXT UNIQUE NOT NULL, " +
+                "farmer_id INTEGER NOT NULL, " +
+                "name TEXT NOT NULL, " +
+                "category TEXT NOT NULL, " +
+                "initial_quantity_kg REAL NOT NULL, " +
+                "available_quantity_kg REAL NOT NULL, " +
+                "price_per_kg REAL NOT NULL, " +
+                "description TEXT, " +
+                "district TEXT NOT NULL, " +
+                "upazila TEXT, " +
+                "village TEXT, " +
+                "harvest_date DATE, " +
+                "transport_info TEXT, " +
+                "status TEXT DEFAULT 'active' CHECK(status IN ('active', 'sold', 'expired', 'deleted')), " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "FOREIGN KEY (farmer_id) REFERENCES users(id) ON DELETE CASCADE)"
+            );
+
+            // Crop photos table - now with Base64 support
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS crop_photos (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "crop_id INTEGER NOT NULL, " +
+                "photo_path TEXT, " +
+                "image_base64 TEXT, " +
+                "photo_order INTEGER DEFAULT 1, " +
+                "FOREIGN KEY (crop_id) REFERENCES crops(id) ON DELETE CASCADE)"
+            );
+            
+            // Add image_base64 column if not exists (migration)
+            try {
+                stmt.execute("ALTER TABLE crop_photos ADD COLUMN image_base64 TEXT");
+                System.out.println("Added column: image_base64 to crop_photos");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    // Column already exists, ignore
                 }
+            }
 
-                // Farm photos table - now with Base64 support
-                stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS farm_photos (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "farmer_id INTEGER NOT NULL, " +
-                    "photo_path TEXT, " +
-                    "image_base64 TEXT, " +
-                    "FOREIGN KEY (farmer_id) REFERENCES users(id))"
-                );
-                
-                // Add image_base64 column if not exists (migration)
-                try {
-                    stmt.execute("ALTER TABLE farm_photos ADD COLUMN image_base64 TEXT");
-                    System.out.println("Added column: image_base64 to farm_photos");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        // Column already exists, ignore
-                    }
+            // Farm photos table - now with Base64 support
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS farm_photos (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "farmer_id INTEGER NOT NULL, " +
+                "photo_path TEXT, " +
+                "image_base64 TEXT, " +
+                "FOREIGN KEY (farmer_id) REFERENCES users(id))"
+            );
+            
+            // Add image_base64 column if not exists (migration)
+            try {
+                stmt.execute("ALTER TABLE farm_photos ADD COLUMN image_base64 TEXT");
+                System.out.println("Added column: image_base64 to farm_photos");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    // Column already exists, ignore
                 }
-                
-                // Add profile_photo_base64 column to users if not exists
-                try {
-                    stmt.execute("ALTER TABLE users ADD COLUMN profile_photo_base64 TEXT");
-                    System.out.println("Added column: profile_photo_base64 to users");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        // Column already exists, ignore
-                    }
+            }
+            
+            // Add profile_photo_base64 column to users if not exists
+            try {
+                stmt.execute("ALTER TABLE users ADD COLUMN profile_photo_base64 TEXT");
+                System.out.println("Added column: profile_photo_base64 to users");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    // Column already exists, ignore
                 }
+            }
 
-                // Orders table with proper columns
-                stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS orders (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "order_number TEXT UNIQUE NOT NULL, " +
-                    "crop_id INTEGER NOT NULL, " +
-                    "farmer_id INTEGER NOT NULL, " +
-                    "buyer_id INTEGER NOT NULL, " +
-                    "quantity_kg REAL NOT NULL, " +
-                    "price_per_kg REAL NOT NULL, " +
-                    "total_amount REAL NOT NULL, " +
-                    "delivery_address TEXT, " +
-                    "delivery_district TEXT, " +
-                    "delivery_upazila TEXT, " +
-                    "buyer_phone TEXT NOT NULL, " +
-                    "buyer_name TEXT NOT NULL, " +
-                    "status TEXT DEFAULT 'new' CHECK(status IN ('new', 'processing', 'accepted', 'shipped', 'in_transit', 'delivered', 'rejected', 'cancelled', 'completed')), " +
-                    "payment_status TEXT DEFAULT 'pending' CHECK(payment_status IN ('pending', 'partial', 'paid', 'refunded')), " +
-                    "payment_method TEXT CHECK(payment_method IN ('cash', 'bkash', 'nagad', 'rocket', 'bank')), " +
-                    "notes TEXT, " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "accepted_at TIMESTAMP, " +
-                    "in_transit_at TIMESTAMP, " +
-                    "delivered_at TIMESTAMP, " +
-                    "completed_at TIMESTAMP, " +
-                    "FOREIGN KEY (crop_id) REFERENCES crops(id) ON DELETE CASCADE, " +
-                    "FOREIGN KEY (farmer_id) REFERENCES users(id) ON DELETE CASCADE, " +
-                    "FOREIGN KEY (buyer_id) REFERENCES users(id) ON DELETE CASCADE)"
-                );
+            // Orders table with proper columns
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS orders (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "order_number TEXT UNIQUE NOT NULL, " +
+                "crop_id INTEGER NOT NULL, " +
+                "farmer_id INTEGER NOT NULL, " +
+                "buyer_id INTEGER NOT NULL, " +
+                "quantity_kg REAL NOT NULL, " +
+                "price_per_kg REAL NOT NULL, " +
+                "total_amount REAL NOT NULL, " +
+                "delivery_address TEXT, " +
+                "delivery_district TEXT, " +
+                "delivery_upazila TEXT, " +
+                "buyer_phone TEXT NOT NULL, " +
+                "buyer_name TEXT NOT NULL, " +
+                "status TEXT DEFAULT 'new' CHECK(status IN ('new', 'processing', 'accepted', 'shipped', 'in_transit', 'delivered', 'rejected', 'cancelled', 'completed')), " +
+                "payment_status TEXT DEFAULT 'pending' CHECK(payment_status IN ('pending', 'partial', 'paid', 'refunded')), " +
+                "payment_method TEXT CHECK(payment_method IN ('cash', 'bkash', 'nagad', 'rocket', 'bank')), " +
+                "notes TEXT, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "accepted_at TIMESTAMP, " +
+                "in_transit_at TIMESTAMP, " +
+                "delivered_at TIMESTAMP, " +
+                "completed_at TIMESTAMP, " +
+                "FOREIGN KEY (crop_id) REFERENCES crops(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (farmer_id) REFERENCES users(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (buyer_id) REFERENCES users(id) ON DELETE CASCADE)"
+            );
 
-                // Orders migrations - add missing columns if they don't exist
-                try {
-                    stmt.execute("ALTER TABLE orders ADD COLUMN in_transit_at TIMESTAMP");
-                    System.out.println("Added column: in_transit_at");
-                } catch (SQLException e) {
-                    String msg = e.getMessage().toLowerCase();
-                    if (!msg.contains("duplicate") && !msg.contains("already exists")) {
-                        System.err.println("Warning: Could not add in_transit_at column: " + e.getMessage());
-                    }
+            // Orders migrations - add missing columns if they don't exist
+            try {
+                stmt.execute("ALTER TABLE orders ADD COLUMN in_transit_at TIMESTAMP");
+                System.out.println("Added column: in_transit_at");
+            } catch (SQLException e) {
+                String msg = e.getMessage().toLowerCase();
+                if (!msg.contains("duplicate") && !msg.contains("already exists")) {
+                    System.err.println("Warning: Could not add in_transit_at column: " + e.getMessage());
                 }
+            }
 
-                try {
-                    // SQLite doesn't allow non-constant defaults in ALTER TABLE; add column without default
-                    stmt.execute("ALTER TABLE orders ADD COLUMN updated_at TIMESTAMP");
-                    System.out.println("Added column: updated_at");
-                } catch (SQLException e) {
-                    String msg = e.getMessage().toLowerCase();
-                    if (!msg.contains("duplicate") && !msg.contains("already exists")) {
-                        System.err.println("Warning: Could not add updated_at column: " + e.getMessage());
-                    }
+            try {
+                // SQLite doesn't allow non-constant defaults in ALTER TABLE; add column without default
+                stmt.execute("ALTER TABLE orders ADD COLUMN updated_at TIMESTAMP");
+                System.out.println("Added column: updated_at");
+            } catch (SQLException e) {
+                String msg = e.getMessage().toLowerCase();
+                if (!msg.contains("duplicate") && !msg.contains("already exists")) {
+                    System.err.println("Warning: Could not add updated_at column: " + e.getMessage());
                 }
-                
-                // Initialize updated_at for existing rows that don't have it
-                try {
-                    stmt.execute("UPDATE orders SET updated_at = created_at WHERE updated_at IS NULL");
-                    System.out.println("Initialized updated_at for existing orders");
-                } catch (SQLException e) {
-                    // Ignore - column might not exist yet or no rows to update
-                }
-                
-                // Clean up old notifications without related_id (from before notification system update)
-                try {
-                    stmt.execute("DELETE FROM notifications WHERE related_id IS NULL");
-                    System.out.println("Cleaned up old notifications without related_id");
-                } catch (SQLException e) {
-                    // Ignore - notifications table might not exist yet
+            }
+            
+            // Initialize updated_at for existing rows that don't have it
+            try {
+                stmt.execute("UPDATE orders SET updated_at = created_at WHERE updated_at IS NULL");
+                System.out.println("Initialized updated_at for existing orders");
+            } catch (SQLException e) {
+                // Ignore - column might not exist yet or no rows to update
+            }
+            
+            // Clean up old notifications without related_id (from before notification system update)
+            try {
+                stmt.execute("DELETE FROM notifications WHERE related_id IS NULL");
+                System.out.println("Cleaned up old notifications without related_id");
+            } catch (SQLException e) {
+                // Ignore - notifications table might not exist yet
+            }
+
+            // Reviews table (replaces old ratings table)
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS reviews (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "order_id INTEGER NOT NULL, " +
+                "reviewer_id INTEGER NOT NULL, " +
+                "reviewee_id INTEGER NOT NULL, " +
+                "rating INTEGER NOT NULL CHECK(rating >= 1 AND rating <= 5), " +
+                "comment TEXT, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (reviewer_id) REFERENCES users(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (reviewee_id) REFERENCES users(id) ON DELETE CASCADE)"
+            );
+
+            // Enforce one-time rating per order per reviewer
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_reviews_order_reviewer ON reviews(order_id, reviewer_id)");
+
+            // Best-effort migration for older DBs that used review_text
+            try {
+                stmt.execute("ALTER TABLE reviews ADD COLUMN comment TEXT");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
+            }
+            try {
+                stmt.execute("UPDATE reviews SET comment = COALESCE(comment, review_text)");
+            } catch (SQLException e) {
+                // ignore (e.g., review_text column doesn't exist)
+            }
 
-                // Reviews table (replaces old ratings table)
-                stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS reviews (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "order_id INTEGER NOT NULL, " +
-                    "reviewer_id INTEGER NOT NULL, " +
-                    "reviewee_id INTEGER NOT NULL, " +
-                    "rating INTEGER NOT NULL CHECK(rating >= 1 AND rating <= 5), " +
-                    "comment TEXT, " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE, " +
-                    "FOREIGN KEY (reviewer_id) REFERENCES users(id) ON DELETE CASCADE, " +
-                    "FOREIGN KEY (reviewee_id) REFERENCES users(id) ON DELETE CASCADE)"
-                );
+            // Market prices table
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS market_prices (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "crop_name TEXT NOT NULL, " +
+                "price REAL NOT NULL, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+            );
 
-                // Enforce one-time rating per order per reviewer
-                stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_reviews_order_reviewer ON reviews(order_id, reviewer_id)");
+            // Conversations table
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS conversations (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "user1_id INTEGER NOT NULL, " +
+                "user2_id INTEGER NOT NULL, " +
+                "crop_id INTEGER, " +
+                "last_message TEXT, " +
+                "last_message_time TIMESTAMP, " +
+                "unread_count_user1 INTEGER DEFAULT 0, " +
+                "unread_count_user2 INTEGER DEFAULT 0, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "FOREIGN KEY (user1_id) REFERENCES users(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (user2_id) REFERENCES users(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (crop_id) REFERENCES crops(id) ON DELETE SET NULL, " +
+                "UNIQUE(user1_id, user2_id, crop_id))"
+            );
 
-                // Best-effort migration for older DBs that used review_text
-                try {
-                    stmt.execute("ALTER TABLE reviews ADD COLUMN comment TEXT");
-                } catch (SQLException e) {
-                    if (!e.getMessage().contains("duplicate column name")) {
-                        throw e;
-                    }
+            // Messages table
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS messages (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "conversation_id INTEGER NOT NULL, " +
+                "sender_id INTEGER NOT NULL, " +
+                "receiver_id INTEGER NOT NULL, " +
+                "message_text TEXT, " +
+                "message_type TEXT DEFAULT 'text' CHECK(message_type IN ('text', 'image', 'file', 'location')), " +
+                "attachment_path TEXT, " +
+                "is_read BOOLEAN DEFAULT 0, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "read_at TIMESTAMP, " +
+                "FOREIGN KEY (conversation_id) REFERENCES conversations(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (sender_id) REFERENCES users(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (receiver_id) REFERENCES users(id) ON DELETE CASCADE)"
+            );
+            // Message windows are read by (conversation_id, created_at, id) keyset (ChatService)
+            stmt.execute("DROP INDEX IF EXISTS idx_messages_conversation");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_messages_window ON messages(conversation_id, created_at, id)");
+
+            // Cached login sessions (AuthSessionManager)
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS auth_sessions (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "user_id INTEGER NOT NULL, " +
+                "firebase_uid TEXT, " +
+                "id_token TEXT, " +
+                "refresh_token TEXT, " +
+                "phone TEXT NOT NULL, " +
+                "role TEXT NOT NULL, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "expires_at TIMESTAMP, " +
+                "is_active BOOLEAN DEFAULT 1, " +
+                "FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE)"
+            );
+
+            // Notifications table
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS notifications (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "user_id INTEGER NOT NULL, " +
+                "title TEXT NOT NULL, " +
+                "message TEXT NOT NULL, " +
+                "type TEXT DEFAULT 'info' CHECK(type IN ('info', 'success', 'warning', 'error', 'order', 'message', 'review')), " +
+                "is_read BOOLEAN DEFAULT 0, " +
+                "related_id INTEGER, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE)"
+            );
+
+            // Per-user, per-crop counters behind most_sold_crop / most_bought_crop (see StatisticsService)
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS user_crop_stats (" +
+                "user_id INTEGER NOT NULL, " +
+                "side TEXT NOT NULL CHECK(side IN ('sold', 'bought')), " +
+                "crop_name TEXT NOT NULL, " +
+                "order_count INTEGER NOT NULL DEFAULT 0, " +
+                "quantity_kg REAL NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY (user_id, side, crop_name))"
+            );
+
+            // Daily completed-order totals per farmer, buyer and crop (see DailyRollupService)
+            boolean rollupsNeedSeed;
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'daily_order_rollups'")) {
+                rollupsNeedSeed = !rs.next();
+            }
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS daily_order_rollups (" +
+                "farmer_id INTEGER NOT NULL, " +
+                "day TEXT NOT NULL, " +
+                "buyer_id INTEGER NOT NULL, " +
+                "crop_id INTEGER NOT NULL, " +
+                "crop_name TEXT, " +
+                "order_count INTEGER NOT NULL DEFAULT 0, " +
+                "quantity_kg REAL NOT NULL DEFAULT 0, " +
+                "revenue REAL NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY (farmer_id, day, buyer_id, crop_id))"
+            );
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_daily_order_rollups_buyer ON daily_order_rollups(buyer_id, day)");
+
+            // Outbound Firestore writes waiting to be flushed (see SyncOutbox)
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS sync_outbox (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "coalesce_key TEXT NOT NULL UNIQUE, " +
+                "priority INTEGER NOT NULL, " +
+                "document_path TEXT NOT NULL, " +
+                "operation TEXT NOT NULL CHECK(operation IN ('upsert', 'delete')), " +
+                "fields_json TEXT, " +
+                "field_mask TEXT, " +
+                "server_time_fields TEXT, " +
+                "revision INTEGER DEFAULT 0, " +
+                "attempts INTEGER DEFAULT 0, " +
+                "next_attempt_at INTEGER DEFAULT 0, " +
+                "state TEXT DEFAULT 'pending' CHECK(state IN ('pending', 'dead')), " +
+                "last_error TEXT, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+            );
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_sync_outbox_due ON sync_outbox(state, priority, next_attempt_at, id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_sync_outbox_path ON sync_outbox(document_path, state, id)");
+            try {
+                stmt.execute("ALTER TABLE sync_outbox ADD COLUMN server_time_fields TEXT");
+                System.out.println("Added column: sync_outbox.server_time_fields");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
-                try {
-                    stmt.execute("UPDATE reviews SET comment = COALESCE(comment, review_text)");
-                } catch (SQLException e) {
-                    // ignore (e.g., review_text column doesn't exist)
+            }
+
+            // Notification sync change tracking (see NotificationSync)
+            try {
+                stmt.execute("ALTER TABLE notifications ADD COLUMN change_seq INTEGER DEFAULT 0");
+                System.out.println("Added column: notifications.change_seq");
+                // Existing rows go out once with the first incremental push
+                stmt.execute("UPDATE notifications SET change_seq = id");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
                 }
+            }
+            try {
+                stmt.execute("ALTER TABLE notifications ADD COLUMN remote_updated_at TEXT");
+                System.out.println("Added column: notifications.remote_updated_at");
+            } catch (SQLException e) {
+                if (!e.getMessage().contains("duplicate column name")) {
+                    throw e;
+                }
+            }
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notifications_change_seq ON notifications(change_seq)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notifications_user_change ON notifications(user_id, change_seq)");
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS notification_sync_cursors (" +
+                "user_id INTEGER PRIMARY KEY, " +
+                "pushed_seq INTEGER NOT NULL DEFAULT 0, " +
+                "pulled_through TEXT)"
+            );
+
+            // Dashboard snapshot lookups (see DashboardSnapshotService)
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_orders_farmer_status ON orders(farmer_id, status)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_orders_buyer_status ON orders(buyer_id, status)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_crops_farmer_status ON crops(farmer_id, status)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_crops_status_created ON crops(status, created_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_market_prices_updated ON market_prices(updated_at)");
 
-                // Market prices table
+            // Unread counters (see UnreadCounters), kept in step by triggers in the writing transaction
+            boolean unreadCountersNeedSeed;
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'user_unread_counters'")) {
+                unreadCountersNeedSeed = !rs.next();
+            }
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS user_unread_counters (" +
+                "user_id INTEGER PRIMARY KEY, " +
+                "notifications INTEGER NOT NULL DEFAULT 0, " +
+                "chat_messages INTEGER NOT NULL DEFAULT 0)"
+            );
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS conversation_unread (" +
+                "user_id INTEGER NOT NULL, " +
+                "conversation_id INTEGER NOT NULL, " +
+                "unread INTEGER NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY (user_id, conversation_id))"
+            );
+            stmt.execute(
+                "CREATE TRIGGER IF NOT EXISTS trg_notifications_unread_insert " +
+                "AFTER INSERT ON notifications WHEN NEW.is_read = 0 BEGIN " +
+                "INSERT INTO user_unread_counters (user_id, notifications) VALUES (NEW.user_id, 1) " +
+                "ON CONFLICT(user_id) DO UPDATE SET notifications = notifications + 1; END"
+            );
+            stmt.execute(
+                "CREATE TRIGGER IF NOT EXISTS trg_notifications_unread_update " +
+                "AFTER UPDATE OF is_read ON notifications WHEN OLD.is_read <> NEW.is_read BEGIN " +
+                "INSERT INTO user_unread_counters (user_id, notifications) VALUES (NEW.user_id, NEW.is_read = 0) " +
+                "ON CONFLICT(user_id) DO UPDATE SET " +
+                "notifications = MAX(0, notifications + CASE WHEN NEW.is_read = 0 THEN 1 ELSE -1 END); END"
+            );
+            stmt.execute(
+                "CREATE TRIGGER IF NOT EXISTS trg_notifications_unread_delete " +
+                "AFTER DELETE ON notifications WHEN OLD.is_read = 0 BEGIN " +
+                "UPDATE user_unread_counters SET notifications = MAX(0, notifications - 1) WHERE user_id = OLD.user_id; END"
+            );
+            try {
                 stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS market_prices (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "crop_name TEXT NOT NULL, " +
-                    "price REAL NOT NULL, " +
-                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+                    "CREATE TRIGGER IF NOT EXISTS trg_messages_unread_insert " +
+                    "AFTER INSERT ON messages WHEN NEW.is_read = 0 BEGIN " +
+                    "INSERT INTO conversation_unread (user_id, conversation_id, unread) " +
+                    "VALUES (NEW.receiver_id, NEW.conversation_id, 1) " +
+                    "ON CONFLICT(user_id, conversation_id) DO UPDATE SET unread = unread + 1; " +
+                    "INSERT INTO user_unread_counters (user_id, chat_messages) VALUES (NEW.receiver_id, 1) " +
+                    "ON CONFLICT(user_id) DO UPDATE SET chat_messages = chat_messages + 1; END"
                 );
-
-                // Conversations table
                 stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS conversations (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "user1_id INTEGER NOT NULL, " +
-                    "user2_id INTEGER NOT NULL, " +
-                    "crop_id INTEGER, " +
-                    "last_message TEXT, " +
-                    "last_message_time TIMESTAMP, " +
-                    "unread_count_user1 INTEGER DEFAULT 0, " +
-                    "unread_count_user2 INTEGER DEFAULT 0, " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "FOREIGN KEY (user1_id) REFERENCES users(id) ON DELETE CASCADE, " +
-                    "FOREIGN KEY (user2_id) REFERENCES users(id) ON DELETE CASCADE, " +
-                    "FOREIGN KEY (crop_id) REFERENCES crops(id) ON DELETE SET NULL, " +
-                    "UNIQUE(user1_id, user2_id, crop_id))"
+                    "CREATE TRIGGER IF NOT EXISTS trg_messages_unread_read " +
+                    "AFTER UPDATE OF is_read ON messages WHEN OLD.is_read = 0 AND NEW.is_read = 1 BEGIN " +
+                    "UPDATE conversation_unread SET unread = MAX(0, unread - 1) " +
+                    "WHERE user_id = NEW.receiver_id AND conversation_id = NEW.conversation_id; " +
+                    "UPDATE user_unread_counters SET chat_messages = MAX(0, chat_messages - 1) WHERE user_id = NEW.receiver_id; END"
                 );
-
-                // Messages table
                 stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS messages (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "conversation_id INTEGER NOT NULL, " +
-                    "sender_id INTEGER NOT NULL, " +
-                    "receiver_id INTEGER NOT NULL, " +
-                    "message_text TEXT, " +
-                    "message_type TEXT DEFAULT 'text' CHECK(message_type IN ('text', 'image', 'file', 'location')), " +
-                    "attachment_path TEXT, " +
-                    "is_read BOOLEAN DEFAULT 0, " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "read_at TIMESTAMP, " +
-                    "FOREIGN KEY (conversation_id) REFERENCES conversations(id) ON DELETE CASCADE, " +
-                    "FOREIGN KEY (sender_id) REFERENCES users(id) ON DELETE CASCADE, " +
-                    "FOREIGN KEY (receiver_id) REFERENCES users(id) ON DELETE CASCADE)"
+                    "CREATE TRIGGER IF NOT EXISTS trg_messages_unread_delete " +
+                    "AFTER DELETE ON messages WHEN OLD.is_read = 0 BEGIN " +
+                    "UPDATE conversation_unread SET unread = MAX(0, unread - 1) " +
+                    "WHERE user_id = OLD.receiver_id AND conversation_id = OLD.conversation_id; " +
+                    "UPDATE user_unread_counters SET chat_messages = MAX(0, chat_messages - 1) WHERE user_id = OLD.receiver_id; END"
                 );
+            } catch (SQLException e) {
+                // messages created by an older chat schema without receiver_id
+                System.err.println("Chat unread triggers not installed: " + e.getMessage());
+            }
+
+            // Chat list rows per user (see InboxProjection), kept in step by triggers
+            boolean inboxInstalled = false;
+            boolean inboxNeedsSeed = false;
+            try {
+                inboxNeedsSeed = InboxProjection.install(stmt);
+                inboxInstalled = true;
+            } catch (SQLException e) {
+                System.err.println("Inbox projection not installed: " + e.getMessage());
+            }
 
-                // Notifications table
+            // Optimistic concurrency for order transitions (see OrderService)
+            for (String table : new String[]{"orders", "crops"}) {
+                try {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN version INTEGER NOT NULL DEFAULT 0");
+                    System.out.println("Added column: " + table + ".version");
+                } catch (SQLException e) {
+                    if (!e.getMessage().contains("duplicate column name")) {
+                        throw e;
+                    }
+                }
+                // Writers that don't bump the version themselves still invalidate readers
                 stmt.execute(
-                    "CREATE TABLE IF NOT EXISTS notifications (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "user_id INTEGER NOT NULL, " +
-                    "title TEXT NOT NULL, " +
-                    "message TEXT NOT NULL, " +
-                    "type TEXT DEFAULT 'info' CHECK(type IN ('info', 'success', 'warning', 'error', 'order', 'message', 'review')), " +
-                    "is_read BOOLEAN DEFAULT 0, " +
-                    "related_id INTEGER, " +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                    "FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE)"
+                    "CREATE TRIGGER IF NOT EXISTS trg_" + table + "_version " +
+                    "AFTER UPDATE ON " + table + " WHEN NEW.version = OLD.version BEGIN " +
+                    "UPDATE " + table + " SET version = OLD.version + 1 WHERE id = NEW.id; END"
                 );
+            }
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS order_requests (" +
+                "request_key TEXT PRIMARY KEY, " +
+                "order_id INTEGER NOT NULL, " +
+                "action TEXT NOT NULL, " +
+                "actor_user_id INTEGER NOT NULL, " +
+                "message TEXT, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+            );
+            stmt.execute("DELETE FROM order_requests WHERE created_at < datetime('now', '-30 days')");
 
-                System.out.println("Database initialized successfully");
-                
-            } catch (Exception e) {
-                System.err.println("Database initialization error: " + e.getMessage());
-                e.printStackTrace();
+            // First run with incremental statistics: seed counters from existing orders once
+            if (statisticsNeedRebuild) {
+                int users = StatisticsService.rebuildAll(conn);
+                System.out.println("Seeded statistics for " + users + " users");
             }
-        });
+            if (unreadCountersNeedSeed) {
+                UnreadCounters.rebuild(conn);
+                System.out.println("Seeded unread counters");
+            }
+            if (inboxInstalled && (inboxNeedsSeed || unreadCountersNeedSeed)) {
+                InboxProjection.rebuild(conn);
+                System.out.println("Seeded chat inboxes");
+            }
+            if (rollupsNeedSeed && !statisticsNeedRebuild) {
+                int rows = DailyRollupService.rebuild(conn);
+                System.out.println("Seeded " + rows + " daily rollup rows");
+            }
+        }
     }
 
     /**
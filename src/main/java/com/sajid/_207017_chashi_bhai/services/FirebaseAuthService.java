@@ -6,10 +6,8 @@ import com.google.gson.JsonParser;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -29,18 +27,16 @@ import java.util.Map;
 public class FirebaseAuthService {
     private static final String API_KEY = FirebaseConfig.getWebApiKey();
     
-    // Firebase Auth REST API endpoints
-    private static final String SIGN_IN_URL = "https://identitytoolkit.googleapis.com/v1/accounts:signInWithPassword?key=" + API_KEY;
-    private static final String SIGN_UP_URL = "https://identitytoolkit.googleapis.com/v1/accounts:signUp?key=" + API_KEY;
-    private static final String UPDATE_PROFILE_URL = "https://identitytoolkit.googleapis.com/v1/accounts:update?key=" + API_KEY;
+    // Firebase Auth REST API endpoints (relative to FirebaseConfig.getAuthBaseUrl())
+    private static final String SIGN_IN = "accounts:signInWithPassword";
+    private static final String SIGN_UP = "accounts:signUp";
+    private static final String UPDATE_PROFILE = "accounts:update";
     
-    private final HttpClient httpClient;
+    private final HttpTransport transport;
     private final Gson gson;
 
     public FirebaseAuthService() {
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .build();
+        this.transport = HttpTransport.getInstance();
         this.gson = new Gson();
         
         // Validate API key is configured
@@ -74,12 +70,12 @@ public class FirebaseAuthService {
 
         try {
             HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(SIGN_UP_URL))
+                .uri(URI.create(authUrl(SIGN_UP)))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                 .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = transport.send(request);
 
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
@@ -123,12 +119,12 @@ public class FirebaseAuthService {
 
         try {
             HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(SIGN_IN_URL))
+                .uri(URI.create(authUrl(SIGN_IN)))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                 .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = transport.send(request);
 
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
@@ -201,17 +197,21 @@ public class FirebaseAuthService {
             String jsonBody = gson.toJson(requestBody);
 
             HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(UPDATE_PROFILE_URL))
+                .uri(URI.create(authUrl(UPDATE_PROFILE)))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                 .build();
 
-            httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            transport.send(request);
         } catch (IOException | InterruptedException e) {
             System.err.println("Failed to update display name: " + e.getMessage());
         }
     }
 
+    private static String authUrl(String method) {
+        return FirebaseConfig.getAuthBaseUrl() + "/" + method + "?key=" + API_KEY;
+    }
+
     /**
      * Convert Bangladesh phone number to Firebase email format
      * 01712345678 -> 8801712345678@chashi-bhai.app
@@ -3,6 +3,7 @@ package com.sajid._207017_chashi_bhai.services;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.util.Properties;
 
 /**
@@ -13,6 +14,13 @@ public class FirebaseConfig {
     private static final Properties properties = new Properties();
     private static boolean loaded = false;
 
+    public static final String DEFAULT_FIRESTORE_BASE_URL = "https://firestore.googleapis.com/v1";
+    public static final String DEFAULT_AUTH_BASE_URL = "https://identitytoolkit.googleapis.com/v1";
+
+    // Set in-process by tests/benchmarks pointing the app at a local server (null = configured value)
+    private static volatile String firestoreBaseUrlOverride;
+    private static volatile String authBaseUrlOverride;
+
     static {
         loadConfig();
     }
@@ -67,6 +75,66 @@ public class FirebaseConfig {
         return projectId;
     }
 
+    /**
+     * Firestore REST root, e.g. https://firestore.googleapis.com/v1
+     * Tries in order: 1) setBaseUrls(), 2) System property, 3) firebase.properties, 4) Default value
+     * (system property first, so a CI run can point at a local server without editing the file)
+     */
+    public static String getFirestoreBaseUrl() {
+        return baseUrl(firestoreBaseUrlOverride, "FIRESTORE_BASE_URL", DEFAULT_FIRESTORE_BASE_URL);
+    }
+
+    /**
+     * Identity Toolkit (Auth) REST root, e.g. https://identitytoolkit.googleapis.com/v1
+     */
+    public static String getAuthBaseUrl() {
+        return baseUrl(authBaseUrlOverride, "FIREBASE_AUTH_BASE_URL", DEFAULT_AUTH_BASE_URL);
+    }
+
+    /**
+     * Resource name of the document root: projects/{id}/databases/(default)/documents
+     */
+    public static String getDocumentsRoot() {
+        return "projects/" + getProjectId() + "/databases/(default)/documents";
+    }
+
+    /**
+     * Full URL of the document root (collections hang off this)
+     */
+    public static String getDocumentsUrl() {
+        return getFirestoreBaseUrl() + "/" + getDocumentsRoot();
+    }
+
+    /**
+     * Host that should get the Firebase ID token (the Firestore host)
+     */
+    public static String getFirestoreHost() {
+        return URI.create(getFirestoreBaseUrl()).getHost();
+    }
+
+    /**
+     * Point Firestore and Auth calls somewhere else at runtime; null restores the configured URL
+     */
+    public static void setBaseUrls(String firestoreBaseUrl, String authBaseUrl) {
+        firestoreBaseUrlOverride = firestoreBaseUrl;
+        authBaseUrlOverride = authBaseUrl;
+    }
+
+    private static String baseUrl(String override, String key, String defaultUrl) {
+        String url = override;
+        if (url == null || url.trim().isEmpty()) {
+            url = System.getProperty(key);
+        }
+        if (url == null || url.trim().isEmpty()) {
+            url = properties.getProperty(key);
+        }
+        if (url == null || url.trim().isEmpty()) {
+            url = defaultUrl;
+        }
+        url = url.trim();
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
     /**
      * Check if configuration is properly set up
      */
@@ -83,6 +151,10 @@ public class FirebaseConfig {
         System.out.println("Config file loaded: " + (loaded ? "✓ Yes" : "✗ No"));
         System.out.println("API Key configured: " + (isConfigured() ? "✓ Yes" : "✗ No"));
         System.out.println("Project ID: " + getProjectId());
+        if (!getFirestoreBaseUrl().equals(DEFAULT_FIRESTORE_BASE_URL) || !getAuthBaseUrl().equals(DEFAULT_AUTH_BASE_URL)) {
+            System.out.println("Firestore URL: " + getFirestoreBaseUrl());
+            System.out.println("Auth URL: " + getAuthBaseUrl());
+        }
         
         if (!isConfigured()) {
             System.err.println("\n⚠️  Firebase Web API Key NOT configured!");
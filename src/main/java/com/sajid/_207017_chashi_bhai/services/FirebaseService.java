@@ -1,19 +1,22 @@
 package com.sajid._207017_chashi_bhai.services;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.sajid._207017_chashi_bhai.models.Crop;
+import com.sajid._207017_chashi_bhai.models.Notification;
+import com.sajid._207017_chashi_bhai.models.Order;
+import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.FirestoreDocuments.CropPhotoDocument;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -38,22 +41,14 @@ import java.util.function.Consumer;
  */
 public class FirebaseService {
     private static FirebaseService instance;
-    private static final String PROJECT_ID = FirebaseConfig.getProjectId();
-    private static final String BASE_URL = "https://firestore.googleapis.com/v1/projects/" + PROJECT_ID + "/databases/(default)/documents";
     
-    private final HttpClient httpClient;
-    private final Gson gson;
+    private final HttpTransport transport;
     
     // Current auth token (set after login)
-    private String currentIdToken;
+    private volatile String currentIdToken;
     
-    // Executor for async operations
-    private static final ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
-        Thread thread = new Thread(r);
-        thread.setDaemon(true);
-        thread.setName("FirebaseWorker");
-        return thread;
-    });
+    // Executor for async operations (virtual thread per task; HttpTransport limits concurrency)
+    private static final ExecutorService executor = HttpTransport.newIoExecutor("FirebaseWorker");
 
     // Collection names
     public static final String COLLECTION_USERS = "users";
@@ -66,12 +61,14 @@ public class FirebaseService {
     public static final String COLLECTION_MESSAGES = "messages";
     public static final String COLLECTION_NOTIFICATIONS = "notifications";
     public static final String COLLECTION_PASSWORD_RESET_OTPS = "password_reset_otps";
+    
+    // Crop photo documents are stored as {cropId}_1 .. {cropId}_5
+    public static final int MAX_CROP_PHOTOS = 5;
 
     private FirebaseService() {
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .build();
-        this.gson = new Gson();
+        this.transport = HttpTransport.getInstance();
+        // Auth header is attached centrally for Firestore requests
+        transport.setIdTokenSupplier(() -> currentIdToken);
     }
 
     public static FirebaseService getInstance() {
@@ -81,11 +78,22 @@ public class FirebaseService {
         return instance;
     }
 
+    /**
+     * Document root URL, read per call so FirebaseConfig.setBaseUrls() takes effect
+     */
+    private static String documentsUrl() {
+        return FirebaseConfig.getDocumentsUrl();
+    }
+
     /**
      * Set authentication token for API calls
      */
     public void setIdToken(String idToken) {
         this.currentIdToken = idToken;
+        if (isAuthenticated()) {
+            // Flush anything queued while signed out
+            SyncOutbox.getInstance().wake();
+        }
     }
 
     /**
@@ -104,68 +112,28 @@ public class FirebaseService {
      */
     public void saveUser(String userId, Map<String, Object> userData, 
                         Runnable onSuccess, Consumer<Exception> onError) {
-        executor.submit(() -> {
-            try {
-                String url = BASE_URL + "/" + COLLECTION_USERS + "?documentId=" + userId;
-                
-                Map<String, Object> document = new HashMap<>();
-                document.put("fields", convertToFirestoreFields(userData));
-                
-                String jsonBody = gson.toJson(document);
-
-                HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody));
-                
-                if (currentIdToken != null) {
-                    requestBuilder.header("Authorization", "Bearer " + currentIdToken);
-                }
-                
-                HttpResponse<String> response = httpClient.send(
-                    requestBuilder.build(), 
-                    HttpResponse.BodyHandlers.ofString()
-                );
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                    System.out.println("✓ User data saved to Firestore: " + userId);
-                    if (onSuccess != null) onSuccess.run();
-                } else {
-                    throw new RuntimeException("HTTP " + response.statusCode() + ": " + response.body());
-                }
-                
-            } catch (Exception e) {
-                System.err.println("❌ Error saving user to Firestore: " + e.getMessage());
-                if (onError != null) onError.accept(e);
-            }
-        });
+        enqueueWrite(SyncOutbox.Priority.ORDERS, COLLECTION_USERS + "/" + userId,
+            FirestoreCodec.mapToFieldsJson(userData), new ArrayList<>(userData.keySet()),
+            "User data", onSuccess, onError);
     }
 
     /**
      * Load user data from Firestore
      */
-    public void loadUser(String userId, Consumer<Map<String, Object>> onSuccess, 
+    public void loadUser(String userId, Consumer<User> onSuccess, 
                         Consumer<Exception> onError) {
         executor.submit(() -> {
             try {
-                String url = BASE_URL + "/" + COLLECTION_USERS + "/" + userId;
+                String url = documentsUrl() + "/" + COLLECTION_USERS + "/" + userId;
                 
                 HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                     .uri(URI.create(url))
                     .GET();
                 
-                if (currentIdToken != null) {
-                    requestBuilder.header("Authorization", "Bearer " + currentIdToken);
-                }
-                
-                HttpResponse<String> response = httpClient.send(
-                    requestBuilder.build(), 
-                    HttpResponse.BodyHandlers.ofString()
-                );
+                HttpResponse<String> response = transport.send(requestBuilder.build());
                 
                 if (response.statusCode() == 200) {
-                    JsonObject document = JsonParser.parseString(response.body()).getAsJsonObject();
-                    Map<String, Object> userData = parseFirestoreDocument(document);
+                    User userData = FirestoreDocuments.USER.fromDocumentJson(response.body());
                     
                     System.out.println("✓ User data loaded from Firestore: " + userId);
                     if (onSuccess != null) onSuccess.accept(userData);
@@ -187,43 +155,11 @@ public class FirebaseService {
     /**
      * Save crop data to Firestore
      */
-    public void saveCrop(String cropId, Map<String, Object> cropData,
+    public void saveCrop(String cropId, Crop crop,
                         Runnable onSuccess, Consumer<Exception> onError) {
-        executor.submit(() -> {
-            try {
-                String url = BASE_URL + "/" + COLLECTION_CROPS + "?documentId=" + cropId;
-                
-                Map<String, Object> document = new HashMap<>();
-                document.put("fields", convertToFirestoreFields(cropData));
-                
-                String jsonBody = gson.toJson(document);
-
-                HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody));
-                
-                if (currentIdToken != null) {
-                    requestBuilder.header("Authorization", "Bearer " + currentIdToken);
-                }
-                
-                HttpResponse<String> response = httpClient.send(
-                    requestBuilder.build(), 
-                    HttpResponse.BodyHandlers.ofString()
-                );
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                    System.out.println("✓ Crop saved to Firestore: " + cropId);
-                    if (onSuccess != null) onSuccess.run();
-                } else {
-                    throw new RuntimeException("HTTP " + response.statusCode() + ": " + response.body());
-                }
-                
-            } catch (Exception e) {
-                System.err.println("❌ Error saving crop to Firestore: " + e.getMessage());
-                if (onError != null) onError.accept(e);
-            }
-        });
+        enqueueWrite(SyncOutbox.Priority.ORDERS, COLLECTION_CROPS + "/" + cropId,
+            FirestoreDocuments.CROP.toFieldsJson(crop), FirestoreDocuments.CROP.writableFieldPaths(crop),
+            "Crop", onSuccess, onError);
     }
 
     /**
@@ -234,48 +170,12 @@ public class FirebaseService {
      */
     public void saveCropPhoto(String cropId, int photoOrder, String imageBase64,
                              Runnable onSuccess, Consumer<Exception> onError) {
-        executor.submit(() -> {
-            try {
-                String photoId = cropId + "_" + photoOrder;
-                String url = BASE_URL + "/" + COLLECTION_CROP_PHOTOS + "?documentId=" + photoId;
-                
-                Map<String, Object> photoData = new HashMap<>();
-                photoData.put("crop_id", cropId);
-                photoData.put("photo_order", photoOrder);
-                photoData.put("image_base64", imageBase64);
-                photoData.put("created_at", System.currentTimeMillis());
-                
-                Map<String, Object> document = new HashMap<>();
-                document.put("fields", convertToFirestoreFields(photoData));
-                
-                String jsonBody = gson.toJson(document);
-
-                HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody));
-                
-                if (currentIdToken != null) {
-                    requestBuilder.header("Authorization", "Bearer " + currentIdToken);
-                }
-                
-                HttpResponse<String> response = httpClient.send(
-                    requestBuilder.build(), 
-                    HttpResponse.BodyHandlers.ofString()
-                );
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                    System.out.println("✓ Crop photo saved to Firestore: " + photoId);
-                    if (onSuccess != null) onSuccess.run();
-                } else {
-                    throw new RuntimeException("HTTP " + response.statusCode() + ": " + response.body());
-                }
-                
-            } catch (Exception e) {
-                System.err.println("❌ Error saving crop photo: " + e.getMessage());
-                if (onError != null) onError.accept(e);
-            }
-        });
+        String photoId = cropId + "_" + photoOrder;
+        enqueueWrite(SyncOutbox.Priority.PHOTOS, COLLECTION_CROP_PHOTOS + "/" + photoId,
+            FirestoreDocuments.CROP_PHOTO.toFieldsJson(
+                new CropPhotoDocument(cropId, photoOrder, imageBase64, System.currentTimeMillis())),
+            FirestoreDocuments.CROP_PHOTO.writableFieldPaths(),
+            "Crop photo", onSuccess, onError);
     }
 
     /**
@@ -286,26 +186,16 @@ public class FirebaseService {
         executor.submit(() -> {
             try {
                 String photoId = cropId + "_" + photoOrder;
-                String url = BASE_URL + "/" + COLLECTION_CROP_PHOTOS + "/" + photoId;
+                String url = documentsUrl() + "/" + COLLECTION_CROP_PHOTOS + "/" + photoId;
                 
                 HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                     .uri(URI.create(url))
                     .GET();
                 
-                if (currentIdToken != null) {
-                    requestBuilder.header("Authorization", "Bearer " + currentIdToken);
-                }
-                
-                HttpResponse<String> response = httpClient.send(
-                    requestBuilder.build(), 
-                    HttpResponse.BodyHandlers.ofString()
-                );
+                HttpResponse<String> response = transport.send(requestBuilder.build());
                 
                 if (response.statusCode() == 200) {
-                    JsonObject document = JsonParser.parseString(response.body()).getAsJsonObject();
-                    Map<String, Object> photoData = parseFirestoreDocument(document);
-                    
-                    String imageBase64 = (String) photoData.get("image_base64");
+                    String imageBase64 = FirestoreDocuments.CROP_PHOTO.fromDocumentJson(response.body()).imageBase64;
                     if (onSuccess != null) onSuccess.accept(imageBase64);
                 } else if (response.statusCode() == 404) {
                     if (onSuccess != null) onSuccess.accept(null);
@@ -321,237 +211,127 @@ public class FirebaseService {
     }
 
     /**
-     * Load all crop photos for a crop
+     * Load all photos for a crop (up to MAX_CROP_PHOTOS)
      */
     public void loadAllCropPhotos(String cropId, Consumer<List<String>> onSuccess, 
                                   Consumer<Exception> onError) {
-        executor.submit(() -> {
-            try {
-                List<String> photoBase64List = new ArrayList<>();
-                
-                // Load photos 1-5
-                for (int i = 1; i <= 5; i++) {
-                    String photoId = cropId + "_" + i;
-                    String url = BASE_URL + "/" + COLLECTION_CROP_PHOTOS + "/" + photoId;
-                    
-                    try {
-                        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                            .uri(URI.create(url))
-                            .GET();
-                        
-                        if (currentIdToken != null) {
-                            requestBuilder.header("Authorization", "Bearer " + currentIdToken);
-                        }
-                        
-                        HttpResponse<String> response = httpClient.send(
-                            requestBuilder.build(), 
-                            HttpResponse.BodyHandlers.ofString()
-                        );
-                        
-                        if (response.statusCode() == 200) {
-                            JsonObject document = JsonParser.parseString(response.body()).getAsJsonObject();
-                            Map<String, Object> photoData = parseFirestoreDocument(document);
-                            
-                            String imageBase64 = (String) photoData.get("image_base64");
-                            if (imageBase64 != null && !imageBase64.isEmpty()) {
-                                photoBase64List.add(imageBase64);
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Photo doesn't exist, continue
-                    }
-                }
-                
-                if (onSuccess != null) onSuccess.accept(photoBase64List);
-                
-            } catch (Exception e) {
-                if (onError != null) onError.accept(e);
-            }
-        });
+        loadAllCropPhotos(cropId, null, onSuccess, onError);
     }
 
-    // ==================== PROFILE PHOTO OPERATIONS ====================
-
     /**
-     * Save user profile photo as Base64
+     * Load all photos for a crop, requesting every slot at once.
+     * onPhoto receives (photoOrder, base64) in photo order as soon as each photo
+     * and all photos before it have arrived; onSuccess receives the full list at the end.
+     * Missing slots are skipped; a network or HTTP error on any slot goes to onError.
      */
-    public void saveProfilePhoto(String userId, String imageBase64,
-                                Runnable onSuccess, Consumer<Exception> onError) {
-        executor.submit(() -> {
-            try {
-                String url = BASE_URL + "/" + COLLECTION_USERS + "/" + userId 
-                    + "?updateMask.fieldPaths=profile_photo_base64&updateMask.fieldPaths=updated_at";
-                
-                // Update user document with profile photo
-                Map<String, Object> updateData = new HashMap<>();
-                updateData.put("profile_photo_base64", imageBase64);
-                updateData.put("updated_at", System.currentTimeMillis());
-                
-                Map<String, Object> document = new HashMap<>();
-                document.put("fields", convertToFirestoreFields(updateData));
-                
-                String jsonBody = gson.toJson(document);
+    public void loadAllCropPhotos(String cropId, BiConsumer<Integer, String> onPhoto,
+                                  Consumer<List<String>> onSuccess, Consumer<Exception> onError) {
+        try {
+            List<CompletableFuture<String>> pending = new ArrayList<>(MAX_CROP_PHOTOS);
+            for (int i = 1; i <= MAX_CROP_PHOTOS; i++) {
+                pending.add(fetchCropPhotoAsync(cropId + "_" + i));
+            }
 
-                // Use PATCH to update specific fields
-                HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .method("PATCH", HttpRequest.BodyPublishers.ofString(jsonBody));
-                
-                if (currentIdToken != null) {
-                    requestBuilder.header("Authorization", "Bearer " + currentIdToken);
-                }
-                
-                HttpResponse<String> response = httpClient.send(
-                    requestBuilder.build(), 
-                    HttpResponse.BodyHandlers.ofString()
-                );
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                    System.out.println("✓ Profile photo saved to Firestore: " + userId);
-                    if (onSuccess != null) onSuccess.run();
-                } else {
-                    throw new RuntimeException("HTTP " + response.statusCode() + ": " + response.body());
-                }
-                
-            } catch (Exception e) {
-                System.err.println("❌ Error saving profile photo: " + e.getMessage());
-                if (onError != null) onError.accept(e);
+            // Chain deliveries so photo N is never handed out before photo N-1
+            List<String> photoBase64List = Collections.synchronizedList(new ArrayList<>());
+            CompletableFuture<Void> delivered = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < pending.size(); i++) {
+                int photoOrder = i + 1;
+                delivered = delivered.thenCombine(pending.get(i), (ignored, imageBase64) -> {
+                    if (imageBase64 != null && !imageBase64.isEmpty()) {
+                        photoBase64List.add(imageBase64);
+                        if (onPhoto != null) onPhoto.accept(photoOrder, imageBase64);
+                    }
+                    return null;
+                });
             }
-        });
-    }
 
-    // ==================== ORDER OPERATIONS ====================
+            delivered.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    System.err.println("❌ Error loading crop photos: " + cause.getMessage());
+                    if (onError != null) onError.accept(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+                } else if (onSuccess != null) {
+                    onSuccess.accept(new ArrayList<>(photoBase64List));
+                }
+            });
+
+        } catch (Exception e) {
+            if (onError != null) onError.accept(e);
+        }
+    }
 
     /**
-     * Save order to Firestore
+     * GET one crop photo document without blocking a worker thread.
+     * Completes with null when the photo doesn't exist (404), exceptionally when the request fails.
      */
-    public void saveOrder(String orderId, Map<String, Object> orderData,
-                         Runnable onSuccess, Consumer<Exception> onError) {
-        executor.submit(() -> {
-            try {
-                String url = BASE_URL + "/" + COLLECTION_ORDERS + "?documentId=" + orderId;
-                
-                Map<String, Object> document = new HashMap<>();
-                document.put("fields", convertToFirestoreFields(orderData));
-                
-                String jsonBody = gson.toJson(document);
+    private CompletableFuture<String> fetchCropPhotoAsync(String photoId) {
+        String url = documentsUrl() + "/" + COLLECTION_CROP_PHOTOS + "/" + photoId;
 
-                HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody));
-                
-                if (currentIdToken != null) {
-                    requestBuilder.header("Authorization", "Bearer " + currentIdToken);
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+            .uri(URI.create(url))
+            .GET();
+
+        return transport.sendAsync(requestBuilder.build())
+            .thenApply(response -> {
+                if (response.statusCode() == 404) {
+                    return null; // Photo doesn't exist, continue
                 }
-                
-                HttpResponse<String> response = httpClient.send(
-                    requestBuilder.build(), 
-                    HttpResponse.BodyHandlers.ofString()
-                );
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                    System.out.println("✓ Order saved to Firestore: " + orderId);
-                    if (onSuccess != null) onSuccess.run();
-                } else {
-                    throw new RuntimeException("HTTP " + response.statusCode() + ": " + response.body());
+                if (response.statusCode() != 200) {
+                    throw new RuntimeException("HTTP " + response.statusCode() + " loading photo " + photoId);
                 }
-                
-            } catch (Exception e) {
-                System.err.println("❌ Error saving order: " + e.getMessage());
-                if (onError != null) onError.accept(e);
-            }
-        });
+                return FirestoreDocuments.CROP_PHOTO.fromDocumentJson(response.body()).imageBase64;
+            });
     }
 
-    // ==================== HELPER METHODS ====================
+    // ==================== PROFILE PHOTO OPERATIONS ====================
 
     /**
-     * Convert Java map to Firestore fields format
+     * Save user profile photo as Base64
      */
-    private Map<String, Object> convertToFirestoreFields(Map<String, Object> data) {
-        Map<String, Object> fields = new HashMap<>();
-        
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            
-            Map<String, Object> fieldValue = new HashMap<>();
-            
-            if (value == null) {
-                fieldValue.put("nullValue", null);
-            } else if (value instanceof String) {
-                fieldValue.put("stringValue", value);
-            } else if (value instanceof Integer) {
-                fieldValue.put("integerValue", String.valueOf(value));
-            } else if (value instanceof Long) {
-                fieldValue.put("integerValue", String.valueOf(value));
-            } else if (value instanceof Double) {
-                fieldValue.put("doubleValue", value);
-            } else if (value instanceof Float) {
-                fieldValue.put("doubleValue", ((Float) value).doubleValue());
-            } else if (value instanceof Boolean) {
-                fieldValue.put("booleanValue", value);
-            } else {
-                // Convert other types to string
-                fieldValue.put("stringValue", value.toString());
-            }
-            
-            fields.put(key, fieldValue);
-        }
-        
-        return fields;
+    public void saveProfilePhoto(String userId, String imageBase64,
+                                Runnable onSuccess, Consumer<Exception> onError) {
+        // Only these two fields are touched, the rest of the user document is kept
+        enqueueWrite(SyncOutbox.Priority.PHOTOS, COLLECTION_USERS + "/" + userId,
+            FirestoreCodec.mapToFieldsJson(Map.of(
+                "profile_photo_base64", imageBase64,
+                "updated_at", System.currentTimeMillis())),
+            List.of("profile_photo_base64", "updated_at"),
+            "Profile photo", onSuccess, onError);
     }
 
+    // ==================== ORDER OPERATIONS ====================
+
     /**
-     * Parse Firestore document to Java map
+     * Save order to Firestore
      */
-    private Map<String, Object> parseFirestoreDocument(JsonObject document) {
-        Map<String, Object> result = new HashMap<>();
-        
-        if (!document.has("fields")) {
-            return result;
-        }
-        
-        JsonObject fields = document.getAsJsonObject("fields");
-        
-        for (String key : fields.keySet()) {
-            JsonObject field = fields.getAsJsonObject(key);
-            Object value = parseFirestoreValue(field);
-            result.put(key, value);
-        }
-        
-        return result;
+    public void saveOrder(String orderId, Order order,
+                         Runnable onSuccess, Consumer<Exception> onError) {
+        enqueueWrite(SyncOutbox.Priority.ORDERS, COLLECTION_ORDERS + "/" + orderId,
+            FirestoreDocuments.ORDER.toFieldsJson(order), FirestoreDocuments.ORDER.writableFieldPaths(order),
+            "Order", onSuccess, onError);
     }
 
     /**
-     * Parse a single Firestore field value
+     * Queue a document write in the outbox; callbacks fire once it reached Firestore
+     * (or was given up after retries)
      */
-    private Object parseFirestoreValue(JsonObject field) {
-        if (field.has("stringValue")) {
-            return field.get("stringValue").getAsString();
-        } else if (field.has("integerValue")) {
-            return Long.parseLong(field.get("integerValue").getAsString());
-        } else if (field.has("doubleValue")) {
-            return field.get("doubleValue").getAsDouble();
-        } else if (field.has("booleanValue")) {
-            return field.get("booleanValue").getAsBoolean();
-        } else if (field.has("nullValue")) {
-            return null;
-        } else if (field.has("arrayValue")) {
-            JsonArray array = field.getAsJsonObject("arrayValue").getAsJsonArray("values");
-            List<Object> list = new ArrayList<>();
-            if (array != null) {
-                for (JsonElement element : array) {
-                    list.add(parseFirestoreValue(element.getAsJsonObject()));
-                }
+    private void enqueueWrite(SyncOutbox.Priority priority, String documentPath, String fieldsJson,
+                              List<String> fieldMask, String label,
+                              Runnable onSuccess, Consumer<Exception> onError) {
+        SyncOutbox.getInstance().enqueueUpsert(priority, documentPath, fieldsJson, fieldMask, synced -> {
+            if (synced) {
+                System.out.println("✓ " + label + " saved to Firestore: " + documentPath);
+                if (onSuccess != null) onSuccess.run();
+            } else {
+                System.err.println("❌ " + label + " could not be saved to Firestore: " + documentPath);
+                if (onError != null) onError.accept(new RuntimeException("Sync failed for " + documentPath));
             }
-            return list;
-        }
-        return null;
+        });
     }
 
+    // ==================== HELPER METHODS ====================
+
     /**
      * Sync local SQLite data to Firestore
      * Call this after any local database changes
@@ -591,28 +371,25 @@ public class FirebaseService {
         long expiresAt = now + (15 * 60 * 1000); // 15 minutes
         
         // Create OTP document
-        Map<String, Object> fields = new HashMap<>();
-        fields.put("phone", createStringValue(phone));
-        fields.put("role", createStringValue(role));
-        fields.put("otp", createStringValue(otp));
-        fields.put("createdAt", createIntegerValue(now));
-        fields.put("expiresAt", createIntegerValue(expiresAt));
-        fields.put("used", createBooleanValue(false));
-        
-        Map<String, Object> document = new HashMap<>();
-        document.put("fields", fields);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("phone", phone);
+        fields.put("role", role);
+        fields.put("otp", otp);
+        fields.put("createdAt", now);
+        fields.put("expiresAt", expiresAt);
+        fields.put("used", false);
         
         // Use phone+role as document ID for easy lookup
         String documentId = phone + "_" + role;
-        String url = BASE_URL + "/" + COLLECTION_PASSWORD_RESET_OTPS + "?documentId=" + documentId;
+        String url = documentsUrl() + "/" + COLLECTION_PASSWORD_RESET_OTPS + "?documentId=" + documentId;
         
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(url))
             .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(document)))
+            .POST(HttpRequest.BodyPublishers.ofString(FirestoreCodec.mapToDocumentJson(fields)))
             .build();
         
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = transport.send(request);
         
         if (response.statusCode() >= 200 && response.statusCode() < 300) {
             System.out.println("✅ OTP stored in Firestore for " + phone + " (" + role + ")");
@@ -635,14 +412,14 @@ public class FirebaseService {
      */
     public boolean verifyPinResetOTP(String phone, String role, String otp) throws Exception {
         String documentId = phone + "_" + role;
-        String url = BASE_URL + "/" + COLLECTION_PASSWORD_RESET_OTPS + "/" + documentId;
+        String url = documentsUrl() + "/" + COLLECTION_PASSWORD_RESET_OTPS + "/" + documentId;
         
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(url))
             .GET()
             .build();
         
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = transport.send(request);
         
         if (response.statusCode() == 404) {
             System.out.println("❌ No OTP request found for " + phone + " (" + role + ")");
@@ -691,21 +468,15 @@ public class FirebaseService {
      */
     public void markOTPAsUsed(String phone, String role) throws Exception {
         String documentId = phone + "_" + role;
-        String url = BASE_URL + "/" + COLLECTION_PASSWORD_RESET_OTPS + "/" + documentId + "?updateMask.fieldPaths=used";
-        
-        Map<String, Object> fields = new HashMap<>();
-        fields.put("used", createBooleanValue(true));
-        
-        Map<String, Object> document = new HashMap<>();
-        document.put("fields", fields);
+        String url = documentsUrl() + "/" + COLLECTION_PASSWORD_RESET_OTPS + "/" + documentId + "?updateMask.fieldPaths=used";
         
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(url))
             .header("Content-Type", "application/json")
-            .method("PATCH", HttpRequest.BodyPublishers.ofString(gson.toJson(document)))
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(FirestoreCodec.mapToDocumentJson(Map.of("used", true))))
             .build();
         
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = transport.send(request);
         
         if (response.statusCode() >= 200 && response.statusCode() < 300) {
             System.out.println("✅ OTP marked as used");
@@ -714,33 +485,6 @@ public class FirebaseService {
         }
     }
 
-    /**
-     * Helper method to create string value for Firestore
-     */
-    private Map<String, Object> createStringValue(String value) {
-        Map<String, Object> valueMap = new HashMap<>();
-        valueMap.put("stringValue", value);
-        return valueMap;
-    }
-
-    /**
-     * Helper method to create integer value for Firestore
-     */
-    private Map<String, Object> createIntegerValue(long value) {
-        Map<String, Object> valueMap = new HashMap<>();
-        valueMap.put("integerValue", String.valueOf(value));
-        return valueMap;
-    }
-
-    /**
-     * Helper method to create boolean value for Firestore
-     */
-    private Map<String, Object> createBooleanValue(boolean value) {
-        Map<String, Object> valueMap = new HashMap<>();
-        valueMap.put("booleanValue", value);
-        return valueMap;
-    }
-
     /**
      * Helper method to get string value from Firestore field
      */
@@ -785,88 +529,31 @@ public class FirebaseService {
     /**
      * Sync notification to Firebase
      */
-    public void syncNotificationToFirebase(int notificationId, int userId, String title, String message, 
-                                           String type, Integer relatedId, boolean isRead, String createdAt) {
-        if (!isAuthenticated()) {
-            System.err.println("[Firebase] Cannot sync notification - not authenticated");
-            return;
-        }
-        
-        executor.submit(() -> {
-            try {
-                JsonObject fields = new JsonObject();
-                
-                // Add notification fields in Firestore format
-                JsonObject notifIdField = new JsonObject();
-                notifIdField.addProperty("integerValue", String.valueOf(notificationId));
-                fields.add("notification_id", notifIdField);
-                
-                JsonObject userIdField = new JsonObject();
-                userIdField.addProperty("integerValue", String.valueOf(userId));
-                fields.add("user_id", userIdField);
-                
-                JsonObject titleField = new JsonObject();
-                titleField.addProperty("stringValue", title);
-                fields.add("title", titleField);
-                
-                JsonObject messageField = new JsonObject();
-                messageField.addProperty("stringValue", message);
-                fields.add("message", messageField);
-                
-                JsonObject typeField = new JsonObject();
-                typeField.addProperty("stringValue", type);
-                fields.add("type", typeField);
-                
-                if (relatedId != null) {
-                    JsonObject relatedIdField = new JsonObject();
-                    relatedIdField.addProperty("integerValue", String.valueOf(relatedId));
-                    fields.add("related_id", relatedIdField);
-                }
-                
-                JsonObject isReadField = new JsonObject();
-                isReadField.addProperty("booleanValue", isRead);
-                fields.add("is_read", isReadField);
-                
-                JsonObject createdAtField = new JsonObject();
-                createdAtField.addProperty("stringValue", createdAt);
-                fields.add("created_at", createdAtField);
-                
-                JsonObject syncedAtField = new JsonObject();
-                syncedAtField.addProperty("stringValue", java.time.Instant.now().toString());
-                fields.add("synced_at", syncedAtField);
-                
-                JsonObject document = new JsonObject();
-                document.add("fields", fields);
-                
-                // Use notification_id as document ID
-                String url = BASE_URL + "/" + COLLECTION_NOTIFICATIONS + "/" + notificationId;
-                
-                HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url + "?key=" + FirebaseConfig.getWebApiKey()))
-                    .header("Authorization", "Bearer " + currentIdToken)
-                    .header("Content-Type", "application/json")
-                    .method("PATCH", HttpRequest.BodyPublishers.ofString(gson.toJson(document)))
-                    .build();
-                
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
+    public void syncNotificationToFirebase(Notification notification) {
+        int notificationId = notification.getId();
+        SyncOutbox.getInstance().enqueueUpsert(SyncOutbox.Priority.NOTIFICATIONS,
+            COLLECTION_NOTIFICATIONS + "/" + notificationId,
+            FirestoreDocuments.NOTIFICATION.toFieldsJson(notification),
+            FirestoreDocuments.NOTIFICATION.writableFieldPaths(),
+            FirestoreDocuments.NOTIFICATION.serverTimestampFieldPaths(),
+            synced -> {
+                if (synced) {
                     System.out.println("✓ Notification #" + notificationId + " synced to Firebase");
                 } else {
-                    System.err.println("✗ Failed to sync notification #" + notificationId + ": " + response.body());
+                    System.err.println("✗ Failed to sync notification #" + notificationId);
                 }
-                
-            } catch (Exception e) {
-                System.err.println("✗ Error syncing notification #" + notificationId + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        });
+            });
     }
     
     /**
-     * Sync notifications from Firebase for a specific user
+     * Fetch one page of a user's notifications changed at or after updatedSince (Firestore
+     * server time), oldest change first, ties in document order. updatedSince == null fetches
+     * the user's notifications regardless of updated_at in document order (first sync,
+     * including documents written before updated_at existed). afterId (may be null) is the
+     * document id the previous page ended on; the page starts right after it.
      */
-    public void syncNotificationsFromFirebase(int userId, Consumer<List<Map<String, Object>>> onSuccess, Consumer<Exception> onError) {
+    public void fetchNotificationChanges(int userId, String updatedSince, String afterId, int limit,
+                                         Consumer<List<Notification>> onSuccess, Consumer<Exception> onError) {
         if (!isAuthenticated()) {
             System.err.println("[Firebase] Cannot sync notifications - not authenticated");
             if (onError != null) {
@@ -877,59 +564,20 @@ public class FirebaseService {
         
         executor.submit(() -> {
             try {
-                // Query notifications for this user
-                String url = BASE_URL + "/" + COLLECTION_NOTIFICATIONS + 
-                           "?pageSize=100&orderBy=created_at desc";
-                
                 HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url + "&key=" + FirebaseConfig.getWebApiKey()))
-                    .header("Authorization", "Bearer " + currentIdToken)
-                    .GET()
+                    .uri(URI.create(documentsUrl() + ":runQuery"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(notificationChangesQuery(userId, updatedSince, afterId, limit)))
                     .build();
                 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = transport.send(request);
                 
                 if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                    JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
-                    
-                    List<Map<String, Object>> notifications = new ArrayList<>();
-                    
-                    if (jsonResponse.has("documents")) {
-                        JsonArray documents = jsonResponse.getAsJsonArray("documents");
-                        
-                        for (JsonElement docElement : documents) {
-                            JsonObject doc = docElement.getAsJsonObject();
-                            JsonObject fields = doc.getAsJsonObject("fields");
-                            
-                            // Filter by user_id
-                            int notifUserId = (int) getIntegerValue(fields, "user_id");
-                            if (notifUserId != userId) {
-                                continue;
-                            }
-                            
-                            Map<String, Object> notification = new HashMap<>();
-                            notification.put("id", getIntegerValue(fields, "notification_id"));
-                            notification.put("userId", notifUserId);
-                            notification.put("title", getStringValue(fields, "title"));
-                            notification.put("message", getStringValue(fields, "message"));
-                            notification.put("type", getStringValue(fields, "type"));
-                            
-                            long relatedId = getIntegerValue(fields, "related_id");
-                            notification.put("relatedId", relatedId > 0 ? (int) relatedId : null);
-                            
-                            notification.put("isRead", getBooleanValue(fields, "is_read"));
-                            notification.put("createdAt", getStringValue(fields, "created_at"));
-                            
-                            notifications.add(notification);
-                        }
-                    }
-                    
-                    System.out.println("✓ Synced " + notifications.size() + " notifications from Firebase");
-                    
+                    List<Notification> notifications = FirestoreDocuments.NOTIFICATION.readQueryResults(response.body());
+                    System.out.println("✓ Fetched " + notifications.size() + " changed notifications from Firebase");
                     if (onSuccess != null) {
                         onSuccess.accept(notifications);
                     }
-                    
                 } else {
                     throw new RuntimeException("HTTP " + response.statusCode() + ": " + response.body());
                 }
@@ -942,38 +590,102 @@ public class FirebaseService {
             }
         });
     }
+
+    /**
+     * user_id == userId [AND updated_at >= updatedSince] ORDER BY [updated_at,] __name__
+     * [START AFTER (updatedSince,) afterId] LIMIT limit
+     * (the range form needs the (user_id, updated_at) composite index from firestore.indexes.json)
+     */
+    private static String notificationChangesQuery(int userId, String updatedSince, String afterId, int limit) {
+        JsonObject userFilter = fieldFilter("user_id", "EQUAL", "integerValue", String.valueOf(userId));
+        JsonObject where;
+        if (updatedSince == null) {
+            where = userFilter;
+        } else {
+            JsonArray filters = new JsonArray();
+            filters.add(userFilter);
+            filters.add(fieldFilter("updated_at", "GREATER_THAN_OR_EQUAL", "timestampValue", updatedSince));
+            JsonObject composite = new JsonObject();
+            composite.addProperty("op", "AND");
+            composite.add("filters", filters);
+            where = new JsonObject();
+            where.add("compositeFilter", composite);
+        }
+
+        JsonObject from = new JsonObject();
+        from.addProperty("collectionId", COLLECTION_NOTIFICATIONS);
+        JsonArray fromArray = new JsonArray();
+        fromArray.add(from);
+
+        // Document name breaks updated_at ties, so a page can always start after the previous one
+        JsonArray orderBy = new JsonArray();
+        if (updatedSince != null) {
+            orderBy.add(ascending("updated_at"));
+        }
+        orderBy.add(ascending("__name__"));
+
+        JsonObject structuredQuery = new JsonObject();
+        structuredQuery.add("from", fromArray);
+        structuredQuery.add("where", where);
+        structuredQuery.add("orderBy", orderBy);
+        if (afterId != null) {
+            JsonArray values = new JsonArray();
+            if (updatedSince != null) {
+                JsonObject since = new JsonObject();
+                since.addProperty("timestampValue", updatedSince);
+                values.add(since);
+            }
+            JsonObject afterName = new JsonObject();
+            afterName.addProperty("referenceValue",
+                FirebaseConfig.getDocumentsRoot() + "/" + COLLECTION_NOTIFICATIONS + "/" + afterId);
+            values.add(afterName);
+            JsonObject startAt = new JsonObject();
+            startAt.add("values", values);
+            startAt.addProperty("before", false);
+            structuredQuery.add("startAt", startAt);
+        }
+        structuredQuery.addProperty("limit", limit);
+
+        JsonObject body = new JsonObject();
+        body.add("structuredQuery", structuredQuery);
+        return body.toString();
+    }
+
+    private static JsonObject ascending(String fieldPath) {
+        JsonObject field = new JsonObject();
+        field.addProperty("fieldPath", fieldPath);
+        JsonObject order = new JsonObject();
+        order.add("field", field);
+        order.addProperty("direction", "ASCENDING");
+        return order;
+    }
+
+    private static JsonObject fieldFilter(String fieldPath, String op, String valueKind, String value) {
+        JsonObject field = new JsonObject();
+        field.addProperty("fieldPath", fieldPath);
+        JsonObject typedValue = new JsonObject();
+        typedValue.addProperty(valueKind, value);
+        JsonObject filter = new JsonObject();
+        filter.add("field", field);
+        filter.addProperty("op", op);
+        filter.add("value", typedValue);
+        JsonObject wrapper = new JsonObject();
+        wrapper.add("fieldFilter", filter);
+        return wrapper;
+    }
     
     /**
      * Delete notification from Firebase
      */
     public void deleteNotificationFromFirebase(int notificationId) {
-        if (!isAuthenticated()) {
-            System.err.println("[Firebase] Cannot delete notification - not authenticated");
-            return;
-        }
-        
-        executor.submit(() -> {
-            try {
-                String url = BASE_URL + "/" + COLLECTION_NOTIFICATIONS + "/" + notificationId;
-                
-                HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url + "?key=" + FirebaseConfig.getWebApiKey()))
-                    .header("Authorization", "Bearer " + currentIdToken)
-                    .DELETE()
-                    .build();
-                
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-                
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
+        SyncOutbox.getInstance().enqueueDelete(SyncOutbox.Priority.NOTIFICATIONS,
+            COLLECTION_NOTIFICATIONS + "/" + notificationId,
+            synced -> {
+                if (synced) {
                     System.out.println("✓ Notification #" + notificationId + " deleted from Firebase");
                 } else {
-                    System.err.println("✗ Failed to delete notification #" + notificationId + ": " + response.body());
+                    System.err.println("✗ Failed to delete notification #" + notificationId);
                 }
-                
-            } catch (Exception e) {
-                System.err.println("✗ Error deleting notification #" + notificationId + ": " + e.getMessage());
-            }
-        });
+            });
     }
 }
-
@@ -0,0 +1,627 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * FirestoreCodec - Typed mapping between a Java object and a Firestore document
+ *
+ * Each codec holds a precomputed field table (Firestore field name + value kind +
+ * getter/setter), so encoding streams straight into a Gson JsonWriter and decoding
+ * streams straight out of a JsonReader. No HashMap / JsonObject tree is built per
+ * document or per field, unlike the old convertToFirestoreFields/parseFirestoreDocument.
+ *
+ * Wire format (Firestore REST typed values):
+ *   {"fields": {"name": {"stringValue": "..."}, "qty": {"doubleValue": 1.5}, ...}}
+ *
+ * Codec instances are immutable and thread-safe; see FirestoreDocuments for the
+ * codecs used by the app.
+ */
+public final class FirestoreCodec<T> {
+
+    // SQLite stores timestamps as "yyyy-MM-dd HH:mm:ss" text
+    private static final DateTimeFormatter SQLITE_DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Supplier<T> factory;
+    private final Field<T>[] fields;
+    private final Map<String, Field<T>> fieldsByName;
+    private final BiConsumer<T, String> documentIdSetter;
+    private final List<String> fieldPaths;
+    private final List<String> writableFieldPaths;
+    private final List<String> serverTimestampFieldPaths;
+
+    private FirestoreCodec(Builder<T> builder) {
+        this.factory = builder.factory;
+        @SuppressWarnings("unchecked")
+        Field<T>[] table = (Field<T>[]) builder.fields.toArray(new Field<?>[0]);
+        this.fields = table;
+        Map<String, Field<T>> byName = new HashMap<>();
+        List<String> paths = new ArrayList<>();
+        List<String> writable = new ArrayList<>();
+        List<String> serverTimestamps = new ArrayList<>();
+        for (Field<T> field : table) {
+            byName.put(field.name, field);
+            paths.add(field.name);
+            if (field.writable()) {
+                writable.add(field.name);
+            }
+            if (field.serverTimestamp()) {
+                serverTimestamps.add(field.name);
+            }
+        }
+        this.fieldsByName = Collections.unmodifiableMap(byName);
+        this.documentIdSetter = builder.documentIdSetter;
+        this.fieldPaths = Collections.unmodifiableList(paths);
+        this.writableFieldPaths = Collections.unmodifiableList(writable);
+        this.serverTimestampFieldPaths = Collections.unmodifiableList(serverTimestamps);
+    }
+
+    public static <T> Builder<T> builder(Supplier<T> factory) {
+        return new Builder<>(factory);
+    }
+
+    /**
+     * Firestore field names in table order (useful for updateMask.fieldPaths)
+     */
+    public List<String> fieldPaths() {
+        return fieldPaths;
+    }
+
+    /**
+     * Field names this codec writes (the updateMask for a merge-style PATCH)
+     */
+    public List<String> writableFieldPaths() {
+        return writableFieldPaths;
+    }
+
+    /**
+     * writableFieldPaths() without the fields this value leaves out (e.g. a corrupt
+     * created_at); use it as the updateMask so those fields are not cleared remotely
+     */
+    public List<String> writableFieldPaths(T value) {
+        List<String> paths = null;
+        for (Field<T> field : fields) {
+            if (field.writable() && !field.hasValue(value)) {
+                if (paths == null) {
+                    paths = new ArrayList<>(writableFieldPaths);
+                }
+                paths.remove(field.name);
+            }
+        }
+        return paths != null ? paths : writableFieldPaths;
+    }
+
+    /**
+     * Fields Firestore stamps with the request time on every write (sent as updateTransforms)
+     */
+    public List<String> serverTimestampFieldPaths() {
+        return serverTimestampFieldPaths;
+    }
+
+    // ==================== ENCODING ====================
+
+    /**
+     * Encode a full document body: {"fields": {...}}
+     */
+    public String toDocumentJson(T value) {
+        StringWriter out = new StringWriter(256);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writeDocument(writer, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Encode only the fields object {...} (for embedding in batch writes)
+     */
+    public String toFieldsJson(T value) {
+        StringWriter out = new StringWriter(256);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writeFields(writer, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Write {"fields": {...}} to the given writer
+     */
+    public void writeDocument(JsonWriter writer, T value) throws IOException {
+        writer.beginObject();
+        writer.name("fields");
+        writeFields(writer, value);
+        writer.endObject();
+    }
+
+    /**
+     * Write only the fields object {...} to the given writer
+     */
+    public void writeFields(JsonWriter writer, T value) throws IOException {
+        writer.beginObject();
+        for (Field<T> field : fields) {
+            if (!field.writable()) {
+                continue;
+            }
+            if (!field.hasValue(value)) {
+                System.err.println("⚠️ Not syncing field " + field.name + ": value cannot be encoded");
+                continue;
+            }
+            writer.name(field.name);
+            field.write(writer, value);
+        }
+        writer.endObject();
+    }
+
+    // ==================== DECODING ====================
+
+    /**
+     * Decode a single document JSON (as returned by GET /documents/{path})
+     */
+    public T fromDocumentJson(String json) {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            return readDocument(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read one document object {"name": ..., "fields": {...}, ...} from the reader
+     */
+    public T readDocument(JsonReader reader) throws IOException {
+        T target = factory.get();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if ("name".equals(key) && documentIdSetter != null && reader.peek() == JsonToken.STRING) {
+                String name = reader.nextString();
+                documentIdSetter.accept(target, name.substring(name.lastIndexOf('/') + 1));
+            } else if ("fields".equals(key)) {
+                readFields(reader, target);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return target;
+    }
+
+    /**
+     * Read a fields object {...} into the target
+     */
+    public void readFields(JsonReader reader, T target) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            Field<T> field = fieldsByName.get(reader.nextName());
+            if (field == null || !field.readable()) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String kind = reader.nextName();
+                if (reader.peek() == JsonToken.NULL || "nullValue".equals(kind)) {
+                    reader.skipValue();
+                    field.readNull(target);
+                } else {
+                    field.read(kind, reader, target);
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Read a list response {"documents": [...], "nextPageToken": ...}
+     */
+    public List<T> readDocumentList(String json) {
+        List<T> result = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("documents".equals(reader.nextName())) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        result.add(readDocument(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Read a runQuery response [{"document": {...}}, {"readTime": ...}, ...]
+     */
+    public List<T> readQueryResults(String json) {
+        List<T> result = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("document".equals(reader.nextName())) {
+                        result.add(readDocument(reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    // ==================== SHARED VALUE HELPERS ====================
+
+    /**
+     * Write a single Java value as a Firestore typed value. Used by the
+     * schemaless Map path in FirebaseService (no intermediate maps either).
+     */
+    static void writeValue(JsonWriter writer, Object value) throws IOException {
+        writer.beginObject();
+        if (value == null) {
+            writeNull(writer);
+        } else if (value instanceof String s) {
+            writer.name("stringValue").value(s);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            writer.name("integerValue").value(String.valueOf(value));
+        } else if (value instanceof Double || value instanceof Float) {
+            writer.name("doubleValue").value(((Number) value).doubleValue());
+        } else if (value instanceof Boolean b) {
+            writer.name("booleanValue").value(b);
+        } else {
+            writer.name("stringValue").value(value.toString());
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Write a schemaless map as {"fields": {...}}
+     */
+    static String mapToDocumentJson(Map<String, Object> data) {
+        StringWriter out = new StringWriter(256);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name("fields");
+            writeMapFields(writer, data);
+            writer.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Write a schemaless map as the fields object {...} only
+     */
+    static String mapToFieldsJson(Map<String, Object> data) {
+        StringWriter out = new StringWriter(256);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writeMapFields(writer, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static void writeMapFields(JsonWriter writer, Map<String, Object> data) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            writer.name(entry.getKey());
+            writeValue(writer, entry.getValue());
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Write "nullValue": null even when the writer drops null members by default
+     */
+    private static void writeNull(JsonWriter writer) throws IOException {
+        boolean serializeNulls = writer.getSerializeNulls();
+        writer.setSerializeNulls(true);
+        writer.name("nullValue").nullValue();
+        writer.setSerializeNulls(serializeNulls);
+    }
+
+    private static long readLong(String kind, JsonReader reader) throws IOException {
+        // integerValue is a JSON string; doubleValue is a number
+        if ("doubleValue".equals(kind)) {
+            return (long) reader.nextDouble();
+        }
+        return Long.parseLong(reader.nextString());
+    }
+
+    private static double readDouble(String kind, JsonReader reader) throws IOException {
+        if ("integerValue".equals(kind)) {
+            return Long.parseLong(reader.nextString());
+        }
+        return reader.nextDouble();
+    }
+
+    static String millisToSqlite(long millis) {
+        return LocalDateTime.ofInstant(new Timestamp(millis).toInstant(), ZoneId.systemDefault()).format(SQLITE_DATETIME);
+    }
+
+    /**
+     * Epoch millis for SQLite datetime text; null if the text cannot be parsed.
+     * A missing value is a row that has not been stamped yet and counts as now.
+     */
+    static Long sqliteToMillis(String value) {
+        if (value == null || value.isEmpty()) {
+            return System.currentTimeMillis();
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException notNumeric) {
+            try {
+                LocalDateTime parsed = value.length() == 19
+                    ? parseSqliteDateTime(value)
+                    : LocalDateTime.parse(value, SQLITE_DATETIME);
+                return parsed.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
+    // Fixed-width "yyyy-MM-dd HH:mm:ss" without going through DateTimeFormatter
+    private static LocalDateTime parseSqliteDateTime(String v) {
+        return LocalDateTime.of(
+            Integer.parseInt(v, 0, 4, 10), Integer.parseInt(v, 5, 7, 10), Integer.parseInt(v, 8, 10, 10),
+            Integer.parseInt(v, 11, 13, 10), Integer.parseInt(v, 14, 16, 10), Integer.parseInt(v, 17, 19, 10));
+    }
+
+    // ==================== FIELD TABLE ====================
+
+    private abstract static class Field<T> {
+        final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        abstract boolean writable();
+        abstract boolean readable();
+        abstract void write(JsonWriter writer, T source) throws IOException;
+        abstract void read(String kind, JsonReader reader, T target) throws IOException;
+
+        void readNull(T target) {
+            // leave model default
+        }
+
+        // false leaves the field out of this value's fields and updateMask
+        boolean hasValue(T source) {
+            return true;
+        }
+
+        boolean serverTimestamp() {
+            return false;
+        }
+    }
+
+    /**
+     * Builder for a codec field table. A null setter makes the field write-only,
+     * a null getter makes it read-only.
+     */
+    public static final class Builder<T> {
+        private final Supplier<T> factory;
+        private final List<Field<T>> fields = new ArrayList<>();
+        private BiConsumer<T, String> documentIdSetter;
+
+        private Builder(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Populate the model from the last path segment of the document "name"
+         */
+        public Builder<T> documentId(BiConsumer<T, String> setter) {
+            this.documentIdSetter = setter;
+            return this;
+        }
+
+        public Builder<T> string(String name, Function<T, String> getter, BiConsumer<T, String> setter) {
+            fields.add(new Field<T>(name) {
+                boolean writable() { return getter != null; }
+                boolean readable() { return setter != null; }
+                void write(JsonWriter w, T src) throws IOException {
+                    String v = getter.apply(src);
+                    w.beginObject();
+                    if (v == null) {
+                        writeNull(w);
+                    } else {
+                        w.name("stringValue").value(v);
+                    }
+                    w.endObject();
+                }
+                void read(String kind, JsonReader r, T dst) throws IOException {
+                    if ("stringValue".equals(kind)) {
+                        setter.accept(dst, r.nextString());
+                    } else {
+                        r.skipValue();
+                    }
+                }
+                void readNull(T dst) {
+                    setter.accept(dst, null);
+                }
+            });
+            return this;
+        }
+
+        public Builder<T> integer(String name, ToLongFunction<T> getter, ObjLongConsumer<T> setter) {
+            fields.add(new Field<T>(name) {
+                boolean writable() { return getter != null; }
+                boolean readable() { return setter != null; }
+                void write(JsonWriter w, T src) throws IOException {
+                    w.beginObject().name("integerValue").value(Long.toString(getter.applyAsLong(src))).endObject();
+                }
+                void read(String kind, JsonReader r, T dst) throws IOException {
+                    if ("integerValue".equals(kind) || "doubleValue".equals(kind)) {
+                        setter.accept(dst, readLong(kind, r));
+                    } else {
+                        r.skipValue();
+                    }
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Nullable integer (e.g. optional crop/related ids)
+         */
+        public Builder<T> optionalInteger(String name, Function<T, Integer> getter, BiConsumer<T, Integer> setter) {
+            fields.add(new Field<T>(name) {
+                boolean writable() { return getter != null; }
+                boolean readable() { return setter != null; }
+                void write(JsonWriter w, T src) throws IOException {
+                    Integer v = getter.apply(src);
+                    w.beginObject();
+                    if (v == null) {
+                        writeNull(w);
+                    } else {
+                        w.name("integerValue").value(v.toString());
+                    }
+                    w.endObject();
+                }
+                void read(String kind, JsonReader r, T dst) throws IOException {
+                    if ("integerValue".equals(kind) || "doubleValue".equals(kind)) {
+                        setter.accept(dst, (int) readLong(kind, r));
+                    } else {
+                        r.skipValue();
+                    }
+                }
+                void readNull(T dst) {
+                    setter.accept(dst, null);
+                }
+            });
+            return this;
+        }
+
+        public Builder<T> decimal(String name, ToDoubleFunction<T> getter, ObjDoubleConsumer<T> setter) {
+            fields.add(new Field<T>(name) {
+                boolean writable() { return getter != null; }
+                boolean readable() { return setter != null; }
+                void write(JsonWriter w, T src) throws IOException {
+                    w.beginObject().name("doubleValue").value(getter.applyAsDouble(src)).endObject();
+                }
+                void read(String kind, JsonReader r, T dst) throws IOException {
+                    if ("doubleValue".equals(kind) || "integerValue".equals(kind)) {
+                        setter.accept(dst, readDouble(kind, r));
+                    } else {
+                        r.skipValue();
+                    }
+                }
+            });
+            return this;
+        }
+
+        public Builder<T> bool(String name, Predicate<T> getter, BiConsumer<T, Boolean> setter) {
+            fields.add(new Field<T>(name) {
+                boolean writable() { return getter != null; }
+                boolean readable() { return setter != null; }
+                void write(JsonWriter w, T src) throws IOException {
+                    w.beginObject().name("booleanValue").value(getter.test(src)).endObject();
+                }
+                void read(String kind, JsonReader r, T dst) throws IOException {
+                    if ("booleanValue".equals(kind)) {
+                        setter.accept(dst, r.nextBoolean());
+                    } else {
+                        r.skipValue();
+                    }
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Timestamp stored in Firestore as epoch-millis integerValue
+         */
+        public Builder<T> timestamp(String name, Function<T, Timestamp> getter, BiConsumer<T, Timestamp> setter) {
+            return integer(name,
+                getter == null ? null : src -> {
+                    Timestamp ts = getter.apply(src);
+                    return ts != null ? ts.getTime() : System.currentTimeMillis();
+                },
+                setter == null ? null : (dst, millis) -> setter.accept(dst, new Timestamp(millis)));
+        }
+
+        /**
+         * SQLite datetime text on the model, epoch-millis integerValue in Firestore
+         * (matches how created_at has always been written by the controllers)
+         */
+        public Builder<T> epochMillis(String name, Function<T, String> getter, BiConsumer<T, String> setter) {
+            fields.add(new Field<T>(name) {
+                boolean writable() { return getter != null; }
+                boolean readable() { return setter != null; }
+                boolean hasValue(T src) {
+                    // Unparseable text is left out rather than sent as some other time
+                    return sqliteToMillis(getter.apply(src)) != null;
+                }
+                void write(JsonWriter w, T src) throws IOException {
+                    w.beginObject().name("integerValue").value(sqliteToMillis(getter.apply(src)).toString()).endObject();
+                }
+                void read(String kind, JsonReader r, T dst) throws IOException {
+                    if ("integerValue".equals(kind) || "doubleValue".equals(kind)) {
+                        setter.accept(dst, millisToSqlite(readLong(kind, r)));
+                    } else {
+                        r.skipValue();
+                    }
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Server-assigned timestampValue (RFC 3339 text on the model); never written
+         * from the model, set to REQUEST_TIME by the write instead
+         */
+        public Builder<T> serverTimestamp(String name, BiConsumer<T, String> setter) {
+            fields.add(new Field<T>(name) {
+                boolean writable() { return false; }
+                boolean readable() { return setter != null; }
+                boolean serverTimestamp() { return true; }
+                void write(JsonWriter w, T src) {
+                    throw new UnsupportedOperationException(name + " is set by the server");
+                }
+                void read(String kind, JsonReader r, T dst) throws IOException {
+                    if ("timestampValue".equals(kind)) {
+                        setter.accept(dst, r.nextString());
+                    } else {
+                        r.skipValue();
+                    }
+                }
+            });
+            return this;
+        }
+
+        public FirestoreCodec<T> build() {
+            return new FirestoreCodec<>(this);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import com.sajid._207017_chashi_bhai.models.Crop;
+import com.sajid._207017_chashi_bhai.models.Notification;
+import com.sajid._207017_chashi_bhai.models.Order;
+import com.sajid._207017_chashi_bhai.models.User;
+import com.sajid._207017_chashi_bhai.services.ChatService.ChatMessage;
+import com.sajid._207017_chashi_bhai.services.ChatService.Conversation;
+
+import java.time.Instant;
+
+/**
+ * FirestoreDocuments - Field tables for every document type we store in Firestore
+ *
+ * Field names and value kinds match what the app has always written, so documents
+ * created before the codecs existed still decode correctly.
+ */
+public final class FirestoreDocuments {
+
+    private FirestoreDocuments() {}
+
+    /**
+     * crops/{cropId}
+     */
+    public static final FirestoreCodec<Crop> CROP = FirestoreCodec.builder(Crop::new)
+        .documentId((c, id) -> c.setId(parseIntOrZero(id)))
+        .string("product_code", Crop::getProductCode, Crop::setProductCode)
+        .integer("farmer_id", Crop::getFarmerId, (c, v) -> c.setFarmerId((int) v))
+        .string("name", Crop::getName, Crop::setName)
+        .string("category", Crop::getCategory, Crop::setCategory)
+        .decimal("price_per_kg", Crop::getPrice, Crop::setPrice)
+        .decimal("quantity_kg", Crop::getQuantity, Crop::setQuantity)
+        .string("description", Crop::getDescription, Crop::setDescription)
+        .string("district", Crop::getDistrict, Crop::setDistrict)
+        .string("harvest_date", c -> c.getHarvestDate() != null ? c.getHarvestDate() : "", Crop::setHarvestDate)
+        .string("transport_info", Crop::getTransportInfo, Crop::setTransportInfo)
+        .string("status", Crop::getStatus, Crop::setStatus)
+        .epochMillis("created_at", Crop::getCreatedAt, Crop::setCreatedAt)
+        .build();
+
+    /**
+     * users/{localId}
+     */
+    public static final FirestoreCodec<User> USER = FirestoreCodec.builder(User::new)
+        .integer("local_id", User::getId, (u, v) -> u.setId((int) v))
+        .string("name", User::getName, User::setName)
+        .string("phone", User::getPhone, User::setPhone)
+        .string("role", User::getRole, User::setRole)
+        .string("district", User::getDistrict, User::setDistrict)
+        .string("upazila", User::getUpazila, User::setUpazila)
+        .bool("is_verified", User::isVerified, User::setVerified)
+        .epochMillis("created_at", User::getCreatedAt, User::setCreatedAt)
+        .build();
+
+    /**
+     * orders/{orderId}
+     */
+    public static final FirestoreCodec<Order> ORDER = FirestoreCodec.builder(Order::new)
+        .documentId((o, id) -> o.setId(parseIntOrZero(id)))
+        .string("order_number", Order::getOrderNumber, Order::setOrderNumber)
+        .integer("crop_id", Order::getCropId, (o, v) -> o.setCropId((int) v))
+        .integer("farmer_id", Order::getFarmerId, (o, v) -> o.setFarmerId((int) v))
+        .integer("buyer_id", Order::getBuyerId, (o, v) -> o.setBuyerId((int) v))
+        .decimal("quantity_kg", Order::getQuantityKg, Order::setQuantityKg)
+        .decimal("price_per_kg", Order::getPricePerKg, Order::setPricePerKg)
+        .decimal("total_amount", Order::getTotalAmount, Order::setTotalAmount)
+        .string("delivery_address", Order::getDeliveryAddress, Order::setDeliveryAddress)
+        .string("delivery_district", Order::getDeliveryDistrict, Order::setDeliveryDistrict)
+        .string("delivery_upazila", o -> emptyIfNull(o.getDeliveryUpazila()), Order::setDeliveryUpazila)
+        .string("buyer_phone", Order::getBuyerPhone, Order::setBuyerPhone)
+        .string("buyer_name", Order::getBuyerName, Order::setBuyerName)
+        .string("status", Order::getStatus, Order::setStatus)
+        .string("payment_status", Order::getPaymentStatus, Order::setPaymentStatus)
+        .string("payment_method", Order::getPaymentMethod, Order::setPaymentMethod)
+        .string("notes", o -> emptyIfNull(o.getNotes()), Order::setNotes)
+        .epochMillis("created_at", Order::getCreatedAt, Order::setCreatedAt)
+        .build();
+
+    /**
+     * orders/{orderId}, status only (bulk transitions; written with a "status" field mask)
+     */
+    public static final FirestoreCodec<Order> ORDER_STATUS = FirestoreCodec.builder(Order::new)
+        .documentId((o, id) -> o.setId(parseIntOrZero(id)))
+        .string("status", Order::getStatus, Order::setStatus)
+        .build();
+
+    /**
+     * notifications/{notificationId}
+     * created_at is kept as the SQLite datetime string, as before.
+     * updated_at is stamped by Firestore on every write and drives incremental pulls.
+     */
+    public static final FirestoreCodec<Notification> NOTIFICATION = FirestoreCodec.builder(Notification::new)
+        .integer("notification_id", Notification::getId, (n, v) -> n.setId((int) v))
+        .integer("user_id", Notification::getUserId, (n, v) -> n.setUserId((int) v))
+        .string("title", Notification::getTitle, Notification::setTitle)
+        .string("message", Notification::getMessage, Notification::setMessage)
+        .string("type", Notification::getType, Notification::setType)
+        .optionalInteger("related_id", Notification::getRelatedId, Notification::setRelatedId)
+        .bool("is_read", Notification::isRead, Notification::setRead)
+        .string("created_at", Notification::getCreatedAt, Notification::setCreatedAt)
+        .string("synced_at", n -> Instant.now().toString(), null)
+        .serverTimestamp("updated_at", Notification::setUpdatedAt)
+        .build();
+
+    /**
+     * conversations/{firebaseId}
+     * lastMessage* fields are read here but written through CONVERSATION_LAST_MESSAGE.
+     */
+    public static final FirestoreCodec<Conversation> CONVERSATION = FirestoreCodec.builder(Conversation::new)
+        .documentId(Conversation::setFirebaseId)
+        .string("participantKey", Conversation::getParticipantKey, null)
+        .integer("user1Id", Conversation::getUser1Id, (c, v) -> c.setUser1Id((int) v))
+        .integer("user2Id", Conversation::getUser2Id, (c, v) -> c.setUser2Id((int) v))
+        .string("user1Name", Conversation::getUser1Name, Conversation::setUser1Name)
+        .string("user2Name", Conversation::getUser2Name, Conversation::setUser2Name)
+        .optionalInteger("cropId", Conversation::getCropId, Conversation::setCropId)
+        .string("cropName", Conversation::getCropName, Conversation::setCropName)
+        .timestamp("createdAt", Conversation::getCreatedAt, Conversation::setCreatedAt)
+        .string("lastMessage", null, Conversation::setLastMessage)
+        .timestamp("lastMessageTime", null, Conversation::setLastMessageTime)
+        .optionalInteger("lastSenderId", null, Conversation::setLastSenderId)
+        .build();
+
+    /**
+     * PATCH body for conversations/{firebaseId} after a message is sent
+     */
+    public static final FirestoreCodec<ChatMessage> CONVERSATION_LAST_MESSAGE = FirestoreCodec.builder(ChatMessage::new)
+        .string("lastMessage", m -> ChatService.previewOf(m.getText()), null)
+        .timestamp("lastMessageTime", ChatMessage::getCreatedAt, null)
+        .integer("lastSenderId", ChatMessage::getSenderId, null)
+        .build();
+
+    /**
+     * conversations/{firebaseId}/messages/{messageId}
+     */
+    public static final FirestoreCodec<ChatMessage> CHAT_MESSAGE = FirestoreCodec.builder(ChatMessage::new)
+        .documentId(ChatMessage::setFirebaseId)
+        .integer("senderId", ChatMessage::getSenderId, (m, v) -> m.setSenderId((int) v))
+        .string("senderName", ChatMessage::getSenderName, ChatMessage::setSenderName)
+        .string("text", ChatMessage::getText, ChatMessage::setText)
+        .string("type", ChatMessage::getType, ChatMessage::setType)
+        .bool("isRead", ChatMessage::isRead, ChatMessage::setRead)
+        .string("status", m -> "sent", ChatMessage::setStatus)
+        .timestamp("createdAt", ChatMessage::getCreatedAt, ChatMessage::setCreatedAt)
+        .build();
+
+    /**
+     * crop_photos/{cropId}_{photoOrder}
+     */
+    public static final FirestoreCodec<CropPhotoDocument> CROP_PHOTO = FirestoreCodec.builder(CropPhotoDocument::new)
+        .string("crop_id", p -> p.cropId, (p, v) -> p.cropId = v)
+        .integer("photo_order", p -> p.photoOrder, (p, v) -> p.photoOrder = (int) v)
+        .string("image_base64", p -> p.imageBase64, (p, v) -> p.imageBase64 = v)
+        .integer("created_at", p -> p.createdAt, (p, v) -> p.createdAt = v)
+        .build();
+
+    /**
+     * Crop photo document (photos have no model class of their own)
+     */
+    public static final class CropPhotoDocument {
+        public String cropId;
+        public int photoOrder;
+        public String imageBase64;
+        public long createdAt;
+
+        public CropPhotoDocument() {}
+
+        public CropPhotoDocument(String cropId, int photoOrder, String imageBase64, long createdAt) {
+            this.cropId = cropId;
+            this.photoOrder = photoOrder;
+            this.imageBase64 = imageBase64;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static int parseIntOrZero(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String emptyIfNull(String value) {
+        return value != null ? value : "";
+    }
+}
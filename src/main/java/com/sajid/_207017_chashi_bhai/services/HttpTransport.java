@@ -0,0 +1,424 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HttpTransport - Shared HTTP layer for all Firebase REST calls
+ *
+ * One HttpClient (HTTP/2 preferred) is shared by FirebaseService, ChatService
+ * and FirebaseAuthService so connections are reused. Every request gets:
+ * - a request timeout (so a dead rural link can't hang a worker forever)
+ * - the Firebase ID token, for Firestore hosts only
+ * - gzip response support
+ * - retries with jittered exponential backoff, for idempotent requests only
+ * - a per-endpoint-class concurrency limit (photos / messages / metadata)
+ * - latency recorded in a per-endpoint histogram (see printStats)
+ */
+public class HttpTransport {
+    private static HttpTransport instance;
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(20);
+
+    // Retry policy
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MS = 300;
+    private static final long MAX_BACKOFF_MS = 5000;
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(408, 429, 500, 502, 503, 504);
+
+    private static final ExecutorService ASYNC_EXECUTOR = newIoExecutor("HttpTransport");
+
+    /**
+     * Requests are grouped so slow photo uploads can't use up the slots chat needs.
+     * Each class has its own cap on requests in flight; callers run on virtual
+     * threads, so waiting for a permit costs no platform thread.
+     */
+    public enum EndpointClass {
+        PHOTOS(5),    // enough to fetch one crop's photo set in a single round
+        MESSAGES(8),
+        METADATA(6);
+
+        private final int limit;
+        private final Semaphore permits;
+
+        EndpointClass(int limit) {
+            this.limit = limit;
+            this.permits = new Semaphore(limit);
+        }
+
+        static EndpointClass of(HttpRequest request) {
+            URI uri = request.uri();
+            String path = uri.getPath();
+            String query = uri.getQuery() != null ? uri.getQuery() : "";
+            if (path.contains("photo") || query.contains("photo")) {
+                return PHOTOS;
+            }
+            if (path.contains("/conversations")) {
+                return MESSAGES;
+            }
+            return METADATA;
+        }
+
+        public int inFlight() {
+            return limit - permits.availablePermits();
+        }
+
+        public int waiting() {
+            return permits.getQueueLength();
+        }
+    }
+
+    private final HttpClient client;
+
+    // Bearer token is only attached for the Firestore host (FirebaseConfig) and these extra
+    // hosts; identitytoolkit uses the API key
+    private final Set<String> authenticatedHosts = ConcurrentHashMap.newKeySet();
+    private volatile Supplier<String> idTokenSupplier = () -> null;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<HttpClient.Version, LongAdder> responsesByVersion = new ConcurrentHashMap<>();
+
+    private HttpTransport() {
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    }
+
+    public static synchronized HttpTransport getInstance() {
+        if (instance == null) {
+            instance = new HttpTransport();
+        }
+        return instance;
+    }
+
+    /**
+     * Virtual-thread-per-task executor for blocking network work
+     */
+    public static ExecutorService newIoExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+
+    /**
+     * Where to read the current Firebase ID token from (FirebaseService registers itself)
+     */
+    public void setIdTokenSupplier(Supplier<String> supplier) {
+        this.idTokenSupplier = supplier != null ? supplier : () -> null;
+    }
+
+    /**
+     * Attach the bearer token to requests for this host as well
+     */
+    public void addAuthenticatedHost(String host) {
+        authenticatedHosts.add(host);
+    }
+
+    // ==================== SENDING ====================
+
+    /**
+     * Send a request and block until the (possibly retried) response arrives
+     */
+    public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpRequest prepared = prepare(request);
+        String endpoint = endpointOf(prepared);
+        EndpointClass endpointClass = EndpointClass.of(prepared);
+        boolean idempotent = isIdempotent(prepared);
+
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = sendOnce(prepared, endpointClass);
+                record(endpoint, start, response);
+
+                if (idempotent && attempt < MAX_ATTEMPTS && RETRYABLE_STATUS.contains(response.statusCode())) {
+                    Thread.sleep(backoffMillis(attempt, response));
+                    histogram(endpoint).retries.increment();
+                    continue;
+                }
+                return response;
+
+            } catch (IOException e) {
+                histogram(endpoint).recordFailure(System.nanoTime() - start);
+                // Timeouts, refused/reset connections and GOAWAY all surface as IOExceptions
+                if (!idempotent || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                Thread.sleep(backoffMillis(attempt, null));
+                histogram(endpoint).retries.increment();
+            }
+        }
+    }
+
+    /**
+     * Send a request on a virtual thread; same retry and concurrency rules as send()
+     */
+    public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(request);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, ASYNC_EXECUTOR);
+    }
+
+    /**
+     * One attempt, holding a permit of the request's endpoint class while on the wire
+     */
+    private HttpResponse<String> sendOnce(HttpRequest prepared, EndpointClass endpointClass)
+            throws IOException, InterruptedException {
+        endpointClass.permits.acquire();
+        try {
+            return client.send(prepared, BODY_HANDLER);
+        } finally {
+            endpointClass.permits.release();
+        }
+    }
+
+    /**
+     * Copy the request adding timeout, auth and encoding headers
+     */
+    private HttpRequest prepare(HttpRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+
+        if (request.timeout().isEmpty()) {
+            builder.timeout(DEFAULT_REQUEST_TIMEOUT);
+        }
+
+        HttpHeaders headers = request.headers();
+        if (headers.firstValue("Accept-Encoding").isEmpty()) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+
+        String token = idTokenSupplier.get();
+        if (token != null && !token.isEmpty()
+                && headers.firstValue("Authorization").isEmpty()
+                && isAuthenticatedHost(request.uri().getHost())) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+
+        return builder.build();
+    }
+
+    private boolean isAuthenticatedHost(String host) {
+        return host != null && (authenticatedHosts.contains(host) || host.equalsIgnoreCase(FirebaseConfig.getFirestoreHost()));
+    }
+
+    // ==================== RETRY POLICY ====================
+
+    /**
+     * GET/PUT/DELETE/PATCH, plus read-only POSTs (runQuery, batchGet), are safe to resend.
+     * Document-creating POSTs are not: a lost response may already have created it.
+     */
+    static boolean isIdempotent(HttpRequest request) {
+        switch (request.method()) {
+            case "GET":
+            case "HEAD":
+            case "PUT":
+            case "DELETE":
+            case "PATCH":
+                return true;
+            case "POST":
+                String path = request.uri().getPath();
+                return path.endsWith(":runQuery") || path.endsWith(":batchGet");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Full-jitter exponential backoff; honours Retry-After (seconds) when the server sends one
+     */
+    static long backoffMillis(int attempt, HttpResponse<?> response) {
+        if (response != null) {
+            String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+            if (retryAfter != null) {
+                try {
+                    return Math.min(MAX_BACKOFF_MS, Long.parseLong(retryAfter.trim()) * 1000);
+                } catch (NumberFormatException ignored) {
+                    // HTTP-date form, fall through to normal backoff
+                }
+            }
+        }
+        long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 10));
+        return ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+    }
+
+    // ==================== GZIP ====================
+
+    private static final HttpResponse.BodyHandler<String> BODY_HANDLER = responseInfo -> {
+        boolean gzip = responseInfo.headers().firstValue("Content-Encoding")
+            .map(v -> v.equalsIgnoreCase("gzip"))
+            .orElse(false);
+        if (!gzip) {
+            return HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+        }
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), HttpTransport::gunzip);
+    };
+
+    private static String gunzip(byte[] body) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    /**
+     * Endpoint name used for metrics, e.g. "GET crop_photos/{id}" or "POST accounts:signUp".
+     * Firestore document ids are collapsed so each collection gets one histogram.
+     */
+    static String endpointOf(HttpRequest request) {
+        String path = request.uri().getPath();
+        int documents = path.indexOf("/documents");
+        String template;
+        if (documents >= 0) {
+            String rest = path.substring(documents + "/documents".length());
+            StringBuilder sb = new StringBuilder();
+            String[] segments = rest.split("/");
+            int index = 0;
+            for (String segment : segments) {
+                if (segment.isEmpty()) continue;
+                if (sb.length() > 0) sb.append('/');
+                // Segments alternate collection / document id
+                sb.append(index % 2 == 0 || segment.contains(":") ? segment : "{id}");
+                index++;
+            }
+            template = sb.length() > 0 ? sb.toString() : rest;
+            if (template.isEmpty()) template = "documents";
+        } else {
+            template = path.substring(path.lastIndexOf('/') + 1);
+        }
+        return request.method() + " " + template;
+    }
+
+    private void record(String endpoint, long startNanos, HttpResponse<?> response) {
+        histogram(endpoint).record(System.nanoTime() - startNanos, response.statusCode());
+        responsesByVersion.computeIfAbsent(response.version(), v -> new LongAdder()).increment();
+    }
+
+    private LatencyHistogram histogram(String endpoint) {
+        return histograms.computeIfAbsent(endpoint, e -> new LatencyHistogram());
+    }
+
+    /**
+     * Snapshot of per-endpoint latency histograms, sorted by endpoint
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /**
+     * Print a per-endpoint latency table (p50/p90/p99 are bucket upper bounds)
+     */
+    public void printStats() {
+        System.out.println("\n=== HTTP Transport Stats ===");
+        System.out.printf("%-40s %7s %7s %7s %7s %7s %8s %8s%n",
+            "endpoint", "count", "errors", "retries", "p50ms", "p90ms", "p99ms", "maxms");
+        getHistograms().forEach((endpoint, h) -> System.out.printf("%-40s %7d %7d %7d %7d %7d %8d %8d%n",
+            endpoint, h.count(), h.errors(), h.retries(), h.percentileMillis(50), h.percentileMillis(90),
+            h.percentileMillis(99), h.maxMillis()));
+        responsesByVersion.forEach((version, count) ->
+            System.out.println("Responses over " + version + ": " + count.sum()));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            System.out.println(endpointClass + ": " + endpointClass.inFlight() + "/" + endpointClass.limit
+                + " in flight, " + endpointClass.waiting() + " waiting");
+        }
+        System.out.println("============================\n");
+    }
+
+    /**
+     * Fixed-bucket latency histogram (lock-free, cheap enough to record on every call)
+     */
+    public static final class LatencyHistogram {
+        // Upper bounds in milliseconds; the last bucket is open-ended
+        private static final long[] BOUNDS_MS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, Long.MAX_VALUE};
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MS.length);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        void record(long nanos, int statusCode) {
+            add(nanos);
+            if (statusCode >= 400) {
+                errors.increment();
+            }
+        }
+
+        void recordFailure(long nanos) {
+            add(nanos);
+            errors.increment();
+        }
+
+        private void add(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int i = 0;
+            while (millis > BOUNDS_MS[i]) i++;
+            buckets.incrementAndGet(i);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long count() { return count.sum(); }
+        public long errors() { return errors.sum(); }
+        public long retries() { return retries.sum(); }
+        public long maxMillis() { return TimeUnit.NANOSECONDS.toMillis(maxNanos.get()); }
+
+        public long meanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.sum() / n);
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile (capped at the observed max)
+         */
+        public long percentileMillis(double percentile) {
+            long n = count.sum();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(percentile / 100.0 * n);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS_MS.length; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(BOUNDS_MS[i], maxMillis());
+                }
+            }
+            return maxMillis();
+        }
+    }
+}
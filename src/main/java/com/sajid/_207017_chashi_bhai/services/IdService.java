@@ -0,0 +1,99 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * IdService - Time-ordered, collision-free order numbers and product codes
+ *
+ * Layout (Snowflake style, written as fixed-width Crockford base32 so text order = time order):
+ * - 48 bits: milliseconds since the epoch (10 chars)
+ * - 20 bits: device node, random once per installation and kept in data/device_id
+ * - 10 bits: sequence within the same millisecond
+ * e.g. ORD-01HQ3K5V2M7F0XA4 / CRP-01HQ3K5V2M7F0XA5
+ *
+ * Ids from one device are strictly increasing, even if the clock steps back.
+ * Rows get their database id from "INSERT ... RETURNING id", so callers never look them
+ * up again by number.
+ */
+public final class IdService {
+    private static IdService instance;
+
+    private static final Path DEVICE_ID_FILE = Paths.get("data", "device_id");
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final int NODE_BITS = 20;
+    private static final int SEQUENCE_BITS = 10;
+    private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+    private final int node;
+    private final LongSupplier clock;
+    private long lastMillis = -1;
+    private int sequence;
+
+    IdService(int node, LongSupplier clock) {
+        this.node = node & ((1 << NODE_BITS) - 1);
+        this.clock = clock;
+    }
+
+    public static synchronized IdService getInstance() {
+        if (instance == null) {
+            instance = new IdService(loadOrCreateNode(), System::currentTimeMillis);
+        }
+        return instance;
+    }
+
+    public String nextOrderNumber() {
+        return "ORD-" + next();
+    }
+
+    public String nextProductCode() {
+        return "CRP-" + next();
+    }
+
+    synchronized String next() {
+        long now = clock.getAsLong();
+        if (now > lastMillis) {
+            lastMillis = now;
+            sequence = 0;
+        } else if (++sequence > MAX_SEQUENCE) {
+            // Same millisecond used up (or the clock went back): move just past the last id
+            lastMillis++;
+            sequence = 0;
+        }
+        return encode(lastMillis, 10) + encode(((long) node << SEQUENCE_BITS) | sequence, 6);
+    }
+
+    private static String encode(long value, int chars) {
+        char[] out = new char[chars];
+        for (int i = chars - 1; i >= 0; i--) {
+            out[i] = CROCKFORD[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(out);
+    }
+
+    private static int loadOrCreateNode() {
+        try {
+            if (Files.exists(DEVICE_ID_FILE)) {
+                return Integer.parseInt(Files.readString(DEVICE_ID_FILE, StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("⚠️ Could not read device id, creating a new one: " + e.getMessage());
+        }
+
+        int node = new SecureRandom().nextInt(1 << NODE_BITS);
+        try {
+            Files.createDirectories(DEVICE_ID_FILE.getParent());
+            Files.writeString(DEVICE_ID_FILE, String.valueOf(node), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not save device id (ids stay unique for this run): " + e.getMessage());
+        }
+        return node;
+    }
+}
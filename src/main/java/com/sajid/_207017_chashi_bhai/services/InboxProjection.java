@@ -0,0 +1,185 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * InboxProjection - Per-user conversation list, ready to read
+ *
+ * - user_inbox holds one row per participant per conversation with everything the chat list
+ *   shows: the other party's name/role/phone/verified flag, crop name, last message preview,
+ *   unread count and the sort key. Reading a user's inbox is one range scan of
+ *   (user_id, sort_key) instead of joining users/crops/unread for every conversation.
+ * - Triggers keep it in step inside the writing transaction: conversations insert/update/delete,
+ *   new messages (preview + time), conversation_unread (unread), and users/crops edits
+ *   (other party's profile, crop name).
+ * - rebuild() recomputes it from the source tables (first run or repair), taking the preview
+ *   from the latest message like the trigger does.
+ */
+public final class InboxProjection {
+
+    /**
+     * Columns of a user's inbox, newest conversation first (same order as before: last_message_time DESC)
+     */
+    public static final String INBOX_QUERY =
+        "SELECT conversation_id, other_user_id, other_user_name, other_user_role, other_user_phone, " +
+        "other_user_verified, crop_id, crop_name, last_message, last_message_time, unread " +
+        "FROM user_inbox WHERE user_id = ? ORDER BY sort_key DESC, conversation_id DESC";
+
+    private InboxProjection() {}
+
+    /**
+     * Create the table, indexes and triggers; returns true if the table is new and needs rebuild()
+     */
+    public static boolean install(Statement stmt) throws SQLException {
+        boolean created;
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'user_inbox'")) {
+            created = !rs.next();
+        }
+        stmt.execute(
+            "CREATE TABLE IF NOT EXISTS user_inbox (" +
+            "user_id INTEGER NOT NULL, " +
+            "conversation_id INTEGER NOT NULL, " +
+            "other_user_id INTEGER NOT NULL, " +
+            "other_user_name TEXT, " +
+            "other_user_role TEXT, " +
+            "other_user_phone TEXT, " +
+            "other_user_verified INTEGER NOT NULL DEFAULT 0, " +
+            "crop_id INTEGER, " +
+            "crop_name TEXT, " +
+            "last_message TEXT, " +
+            "last_message_time TIMESTAMP, " +
+            "unread INTEGER NOT NULL DEFAULT 0, " +
+            "sort_key TIMESTAMP, " +
+            "PRIMARY KEY (user_id, conversation_id))"
+        );
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_user_inbox_sort ON user_inbox(user_id, sort_key, conversation_id)");
+        // Profile and crop edits fan out to the rows that show them
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_user_inbox_other ON user_inbox(other_user_id)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_user_inbox_crop ON user_inbox(crop_id) WHERE crop_id IS NOT NULL");
+
+        // New conversation: one row per participant. INSERT OR REPLACE on conversations may
+        // give the same (user1, user2, crop) a new id, so rows of the replaced id are dropped.
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_conversation_insert " +
+            "AFTER INSERT ON conversations BEGIN " +
+            "DELETE FROM user_inbox WHERE conversation_id <> NEW.id AND crop_id IS NEW.crop_id AND (" +
+            "(user_id = NEW.user1_id AND other_user_id = NEW.user2_id) OR " +
+            "(user_id = NEW.user2_id AND other_user_id = NEW.user1_id)); " +
+            insertRowsFor("NEW") + " END"
+        );
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_conversation_update " +
+            "AFTER UPDATE OF last_message, last_message_time, crop_id ON conversations BEGIN " +
+            "UPDATE user_inbox SET last_message = NEW.last_message, last_message_time = NEW.last_message_time, " +
+            "sort_key = NEW.last_message_time, crop_id = NEW.crop_id, " +
+            "crop_name = (SELECT name FROM crops WHERE id = NEW.crop_id) " +
+            "WHERE conversation_id = NEW.id AND user_id IN (NEW.user1_id, NEW.user2_id); END"
+        );
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_conversation_delete " +
+            "AFTER DELETE ON conversations BEGIN " +
+            "DELETE FROM user_inbox WHERE user_id IN (OLD.user1_id, OLD.user2_id) AND conversation_id = OLD.id; END"
+        );
+        // Sent and received messages move the conversation up and replace the preview
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_message_insert " +
+            "AFTER INSERT ON messages BEGIN " +
+            "UPDATE user_inbox SET last_message = " + preview("NEW") + ", " +
+            "last_message_time = COALESCE(NEW.created_at, CURRENT_TIMESTAMP), " +
+            "sort_key = COALESCE(NEW.created_at, CURRENT_TIMESTAMP) " +
+            "WHERE conversation_id = NEW.conversation_id AND user_id IN " +
+            "(SELECT user1_id FROM conversations WHERE id = NEW.conversation_id " +
+            "UNION ALL SELECT user2_id FROM conversations WHERE id = NEW.conversation_id); END"
+        );
+        // Unread counts follow conversation_unread (itself maintained by the message triggers)
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_unread_insert " +
+            "AFTER INSERT ON conversation_unread BEGIN " +
+            "UPDATE user_inbox SET unread = NEW.unread " +
+            "WHERE user_id = NEW.user_id AND conversation_id = NEW.conversation_id; END"
+        );
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_unread_update " +
+            "AFTER UPDATE OF unread ON conversation_unread BEGIN " +
+            "UPDATE user_inbox SET unread = NEW.unread " +
+            "WHERE user_id = NEW.user_id AND conversation_id = NEW.conversation_id; END"
+        );
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_unread_delete " +
+            "AFTER DELETE ON conversation_unread BEGIN " +
+            "UPDATE user_inbox SET unread = 0 " +
+            "WHERE user_id = OLD.user_id AND conversation_id = OLD.conversation_id; END"
+        );
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_user_update " +
+            "AFTER UPDATE OF name, role, phone, is_verified ON users BEGIN " +
+            "UPDATE user_inbox SET other_user_name = NEW.name, other_user_role = NEW.role, " +
+            "other_user_phone = NEW.phone, other_user_verified = COALESCE(NEW.is_verified, 0) " +
+            "WHERE other_user_id = NEW.id; END"
+        );
+        stmt.execute(
+            "CREATE TRIGGER IF NOT EXISTS trg_inbox_crop_update " +
+            "AFTER UPDATE OF name ON crops BEGIN " +
+            "UPDATE user_inbox SET crop_name = NEW.name WHERE crop_id = NEW.id; END"
+        );
+        return created;
+    }
+
+    /**
+     * Recompute every inbox row from conversations, messages, users, crops and conversation_unread.
+     * The preview comes from the latest message, like the message trigger; conversations.last_message
+     * is only used when a conversation has no local messages (not every send path updates it).
+     */
+    public static void rebuild(Connection conn) throws SQLException {
+        String lastTime = "COALESCE(m.created_at, c.last_message_time)";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM user_inbox");
+            stmt.executeUpdate(
+                "INSERT INTO user_inbox (user_id, conversation_id, other_user_id, other_user_name, other_user_role, " +
+                "other_user_phone, other_user_verified, crop_id, crop_name, last_message, last_message_time, unread, sort_key) " +
+                "SELECT p.user_id, c.id, p.other_id, u.name, u.role, u.phone, COALESCE(u.is_verified, 0), " +
+                "c.crop_id, cr.name, CASE WHEN m.id IS NULL THEN c.last_message ELSE " + preview("m") + " END, " +
+                lastTime + ", COALESCE(cu.unread, 0), " + lastTime + " " +
+                "FROM conversations c " +
+                "JOIN (SELECT id, user1_id AS user_id, user2_id AS other_id FROM conversations " +
+                "      UNION ALL SELECT id, user2_id, user1_id FROM conversations) p ON p.id = c.id " +
+                "LEFT JOIN messages m ON m.id = (SELECT id FROM messages WHERE conversation_id = c.id " +
+                "      ORDER BY created_at DESC, id DESC LIMIT 1) " +
+                "LEFT JOIN users u ON u.id = p.other_id " +
+                "LEFT JOIN crops cr ON cr.id = c.crop_id " +
+                "LEFT JOIN conversation_unread cu ON cu.user_id = p.user_id AND cu.conversation_id = c.id"
+            );
+        }
+    }
+
+    /**
+     * Chat list preview of a messages row: the first 50 characters
+     */
+    private static String preview(String row) {
+        return "CASE WHEN length(" + row + ".message_text) > 50 THEN substr(" + row + ".message_text, 1, 50) || '...' " +
+            "ELSE COALESCE(" + row + ".message_text, '') END";
+    }
+
+    private static String insertRowsFor(String row) {
+        StringBuilder sql = new StringBuilder();
+        String[][] sides = {{row + ".user1_id", row + ".user2_id"}, {row + ".user2_id", row + ".user1_id"}};
+        for (String[] side : sides) {
+            sql.append("INSERT OR REPLACE INTO user_inbox (user_id, conversation_id, other_user_id, other_user_name, ")
+               .append("other_user_role, other_user_phone, other_user_verified, crop_id, crop_name, last_message, ")
+               .append("last_message_time, unread, sort_key) ")
+               .append("SELECT ").append(side[0]).append(", ").append(row).append(".id, ").append(side[1]).append(", ")
+               .append("u.name, u.role, u.phone, COALESCE(u.is_verified, 0), ").append(row).append(".crop_id, ")
+               .append("(SELECT name FROM crops WHERE id = ").append(row).append(".crop_id), ")
+               .append(row).append(".last_message, ").append(row).append(".last_message_time, ")
+               .append("COALESCE((SELECT unread FROM conversation_unread WHERE user_id = ").append(side[0])
+               .append(" AND conversation_id = ").append(row).append(".id), 0), ")
+               .append(row).append(".last_message_time ")
+               .append("FROM (SELECT 1) LEFT JOIN users u ON u.id = ").append(side[1]).append("; ");
+        }
+        return sql.toString();
+    }
+}
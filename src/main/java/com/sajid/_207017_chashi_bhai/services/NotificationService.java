@@ -3,9 +3,8 @@ package com.sajid._207017_chashi_bhai.services;
 import com.sajid._207017_chashi_bhai.App;
 import javafx.application.Platform;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,6 +18,9 @@ import java.util.function.Consumer;
 public class NotificationService {
     
     private static NotificationService instance;
+
+    // Same text format as SQLite's datetime('now', 'localtime')
+    private static final DateTimeFormatter CREATED_AT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     private NotificationService() {}
     
@@ -45,39 +47,16 @@ public class NotificationService {
      * Create a new notification and sync to Firebase
      */
     public void createNotification(int userId, String title, String message, String type, Integer relatedId) {
-        String sql = "INSERT INTO notifications (user_id, title, message, type, related_id, is_read, created_at) " +
-                     "VALUES (?, ?, ?, ?, ?, 0, datetime('now', 'localtime'))";
+        String createdAt = LocalDateTime.now().format(CREATED_AT_FORMAT);
+        String sql = "INSERT INTO notifications (user_id, title, message, type, related_id, is_read, created_at, change_seq) " +
+                     "VALUES (?, ?, ?, ?, ?, 0, ?, " + NotificationSync.NEXT_CHANGE_SEQ + ") RETURNING id";
         
-        DatabaseService.executeUpdateAsync(sql, new Object[]{userId, title, message, type, relatedId},
-            rowsAffected -> {
-                System.out.println("✓ Notification created for user " + userId + ": " + title);
-                
-                // Get the generated notification ID and sync to Firebase
-                DatabaseService.executeQueryAsync(
-                    "SELECT id, created_at FROM notifications WHERE user_id = ? AND title = ? ORDER BY created_at DESC LIMIT 1",
-                    new Object[]{userId, title},
-                    rs -> {
-                        try {
-                            if (rs.next()) {
-                                int notificationId = rs.getInt("id");
-                                String createdAt = rs.getString("created_at");
-                                
-                                // Sync to Firebase if authenticated
-                                FirebaseService firebaseService = FirebaseService.getInstance();
-                                if (firebaseService.isAuthenticated()) {
-                                    firebaseService.syncNotificationToFirebase(
-                                        notificationId, userId, title, message, type, relatedId, false, createdAt
-                                    );
-                                }
-                            }
-                        } catch (Exception e) {
-                            System.err.println("Error syncing notification to Firebase: " + e.getMessage());
-                        }
-                    },
-                    error -> {
-                        System.err.println("Error querying notification for Firebase sync: " + error.getMessage());
-                    }
-                );
+        // Grouped with other small writes; the id comes straight back from RETURNING
+        WriteBatcher.getInstance().insert(sql, new Object[]{userId, title, message, type, relatedId, createdAt},
+            notificationId -> {
+                System.out.println("✓ Notification #" + notificationId + " created for user " + userId + ": " + title);
+                UnreadCounters.getInstance().adjust(UnreadCounters.Kind.NOTIFICATIONS, userId, 1);
+                NotificationSync.getInstance().pushChanges(userId);
             },
             error -> {
                 System.err.println("Failed to create notification: " + error.getMessage());
@@ -198,189 +177,52 @@ public class NotificationService {
     }
     
     /**
-     * Get unread notification count for a user
+     * Get unread notification count for a user (cached counter, no COUNT query).
+     * Badges should bind to UnreadCounters.notificationsProperty instead.
      */
     public void getUnreadCount(int userId, Consumer<Integer> onSuccess) {
-        String sql = "SELECT COUNT(*) as count FROM notifications WHERE user_id = ? AND is_read = 0";
-        
-        DatabaseService.executeQueryAsync(sql, new Object[]{userId},
-            rs -> {
-                int count = 0;
-                try {
-                    if (rs.next()) {
-                        count = rs.getInt("count");
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-                final int finalCount = count;
-                Platform.runLater(() -> onSuccess.accept(finalCount));
-            },
-            error -> Platform.runLater(() -> onSuccess.accept(0))
-        );
+        UnreadCounters.getInstance().get(UnreadCounters.Kind.NOTIFICATIONS, userId, onSuccess);
     }
     
     /**
      * Mark a notification as read and sync to Firebase
      */
     public void markAsRead(int notificationId) {
-        String sql = "UPDATE notifications SET is_read = 1 WHERE id = ?";
-        DatabaseService.executeUpdateAsync(sql, new Object[]{notificationId},
-            rowsAffected -> {
-                // Sync read status to Firebase
-                DatabaseService.executeQueryAsync(
-                    "SELECT user_id, title, message, type, related_id, created_at FROM notifications WHERE id = ?",
-                    new Object[]{notificationId},
-                    rs -> {
-                        try {
-                            if (rs.next()) {
-                                FirebaseService firebaseService = FirebaseService.getInstance();
-                                if (firebaseService.isAuthenticated()) {
-                                    firebaseService.syncNotificationToFirebase(
-                                        notificationId,
-                                        rs.getInt("user_id"),
-                                        rs.getString("title"),
-                                        rs.getString("message"),
-                                        rs.getString("type"),
-                                        rs.getObject("related_id") != null ? rs.getInt("related_id") : null,
-                                        true, // is_read = true
-                                        rs.getString("created_at")
-                                    );
-                                }
-                            }
-                        } catch (Exception e) {
-                            System.err.println("Error syncing read status to Firebase: " + e.getMessage());
-                        }
-                    },
-                    error -> {}
-                );
+        String sql = "UPDATE notifications SET is_read = 1, change_seq = " + NotificationSync.NEXT_CHANGE_SEQ + " " +
+                     "WHERE id = ? AND is_read = 0 RETURNING user_id";
+        WriteBatcher.getInstance().updateReturning(sql, new Object[]{notificationId},
+            userId -> {
+                // null = already read, nothing to sync
+                if (userId != null) {
+                    UnreadCounters.getInstance().adjust(UnreadCounters.Kind.NOTIFICATIONS, userId.intValue(), -1);
+                    NotificationSync.getInstance().pushChanges(userId.intValue());
+                }
             },
             error -> error.printStackTrace()
         );
     }
     
     /**
-     * Sync all notifications between SQLite and Firebase
-     * This performs a full bidirectional sync
+     * Exchange notification changes with Firebase (only what changed since the last sync)
      */
     public void syncWithFirebase(int userId, Runnable onComplete) {
-        FirebaseService firebaseService = FirebaseService.getInstance();
-        
-        if (!firebaseService.isAuthenticated()) {
-            System.out.println("[Notification] Firebase not authenticated, skipping sync");
-            if (onComplete != null) {
-                Platform.runLater(onComplete);
-            }
-            return;
-        }
-        
-        System.out.println("[Notification] Starting Firebase sync for user " + userId);
-        
-        // Step 1: Push local notifications to Firebase
-        DatabaseService.executeQueryAsync(
-            "SELECT id, user_id, title, message, type, related_id, is_read, created_at " +
-            "FROM notifications WHERE user_id = ?",
-            new Object[]{userId},
-            rs -> {
-                try {
-                    while (rs.next()) {
-                        int notificationId = rs.getInt("id");
-                        String title = rs.getString("title");
-                        String message = rs.getString("message");
-                        String type = rs.getString("type");
-                        Integer relatedId = rs.getObject("related_id") != null ? rs.getInt("related_id") : null;
-                        boolean isRead = rs.getBoolean("is_read");
-                        String createdAt = rs.getString("created_at");
-                        
-                        firebaseService.syncNotificationToFirebase(
-                            notificationId, userId, title, message, type, relatedId, isRead, createdAt
-                        );
-                    }
-                    System.out.println("✓ Pushed local notifications to Firebase");
-                } catch (Exception e) {
-                    System.err.println("Error pushing notifications to Firebase: " + e.getMessage());
-                }
-                
-                // Step 2: Pull notifications from Firebase and merge
-                firebaseService.syncNotificationsFromFirebase(userId,
-                    firebaseNotifications -> {
-                        // Merge Firebase notifications into local database
-                        for (Map<String, Object> notification : firebaseNotifications) {
-                            mergeNotificationFromFirebase(notification);
-                        }
-                        System.out.println("✓ Notification sync completed");
-                        if (onComplete != null) {
-                            Platform.runLater(onComplete);
-                        }
-                    },
-                    error -> {
-                        System.err.println("Error pulling notifications from Firebase: " + error.getMessage());
-                        if (onComplete != null) {
-                            Platform.runLater(onComplete);
-                        }
-                    }
-                );
-            },
-            error -> {
-                System.err.println("Error reading local notifications: " + error.getMessage());
-                if (onComplete != null) {
-                    Platform.runLater(onComplete);
-                }
-            }
-        );
-    }
-    
-    /**
-     * Merge a notification from Firebase into local database
-     */
-    private void mergeNotificationFromFirebase(Map<String, Object> notification) {
-        int notificationId = (int) notification.get("id");
-        int userId = (int) notification.get("userId");
-        String title = (String) notification.get("title");
-        String message = (String) notification.get("message");
-        String type = (String) notification.get("type");
-        Integer relatedId = (Integer) notification.get("relatedId");
-        boolean isRead = (boolean) notification.get("isRead");
-        String createdAt = (String) notification.get("createdAt");
-        
-        // Check if notification exists in local database
-        DatabaseService.executeQueryAsync(
-            "SELECT id FROM notifications WHERE id = ?",
-            new Object[]{notificationId},
-            rs -> {
-                try {
-                    if (rs.next()) {
-                        // Update existing notification
-                        String updateSql = "UPDATE notifications SET is_read = ? WHERE id = ?";
-                        DatabaseService.executeUpdateAsync(updateSql, new Object[]{isRead, notificationId},
-                            rowsAffected -> {},
-                            error -> error.printStackTrace()
-                        );
-                    } else {
-                        // Insert new notification from Firebase
-                        String insertSql = "INSERT INTO notifications (id, user_id, title, message, type, related_id, is_read, created_at) " +
-                                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-                        DatabaseService.executeUpdateAsync(insertSql, 
-                            new Object[]{notificationId, userId, title, message, type, relatedId, isRead, createdAt},
-                            rowsAffected -> {},
-                            error -> error.printStackTrace()
-                        );
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            },
-            error -> error.printStackTrace()
-        );
+        NotificationSync.getInstance().sync(userId, onComplete);
     }
     
     /**
      * Mark all notifications as read for a user
      */
     public void markAllAsRead(int userId) {
-        String sql = "UPDATE notifications SET is_read = 1 WHERE user_id = ? AND is_read = 0";
-        DatabaseService.executeUpdateAsync(sql, new Object[]{userId},
-            rowsAffected -> System.out.println("Marked " + rowsAffected + " notifications as read"),
+        String sql = "UPDATE notifications SET is_read = 1, change_seq = " + NotificationSync.NEXT_CHANGE_SEQ + " " +
+                     "WHERE user_id = ? AND is_read = 0";
+        WriteBatcher.getInstance().update(sql, new Object[]{userId},
+            rowsAffected -> {
+                System.out.println("Marked " + rowsAffected + " notifications as read");
+                if (rowsAffected > 0) {
+                    UnreadCounters.getInstance().adjust(UnreadCounters.Kind.NOTIFICATIONS, userId, -rowsAffected);
+                    NotificationSync.getInstance().pushChanges(userId);
+                }
+            },
             error -> error.printStackTrace()
         );
     }
@@ -394,6 +236,7 @@ public class NotificationService {
             rowsAffected -> {
                 if (rowsAffected > 0) {
                     System.out.println("Cleaned up " + rowsAffected + " old notifications");
+                    UnreadCounters.getInstance().reloadAll(UnreadCounters.Kind.NOTIFICATIONS);
                 }
             },
             error -> error.printStackTrace()
@@ -0,0 +1,247 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import com.sajid._207017_chashi_bhai.models.Notification;
+import javafx.application.Platform;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * NotificationSync - Incremental two-way notification sync with Firestore
+ *
+ * Change tracking:
+ * - Local: every insert / read-state change gives the row a new notifications.change_seq
+ *   (one increasing counter per database). Push sends rows with change_seq above the
+ *   user's pushed_seq cursor, queued in the same transaction that advances the cursor.
+ * - Remote: Firestore stamps updated_at with its own clock on every write. Pull asks for
+ *   the user's documents with updated_at >= pulled_through and then moves the cursor.
+ *   Pages are ordered by (updated_at, document name) and each one starts after the last
+ *   document of the previous page, so a page full of equal timestamps still moves on.
+ *   The first pull has no cursor yet: it pages through all of the user's documents by name
+ *   (older documents may have no updated_at) and only then stores a cursor.
+ *
+ * Conflicts: is_read only ever goes false -> true, so "read wins" (local OR remote).
+ * If the remote copy is behind a local read, the row gets a new change_seq and is pushed
+ * again, so both sides converge regardless of the order of exchanges.
+ *
+ * Cursors live in notification_sync_cursors (one row per user on this device).
+ */
+public class NotificationSync {
+    private static NotificationSync instance;
+
+    private static final int PULL_PAGE = 300;
+
+    // Next value of the local change counter (idx_notifications_change_seq makes MAX cheap)
+    static final String NEXT_CHANGE_SEQ = "(SELECT COALESCE(MAX(change_seq), 0) + 1 FROM notifications)";
+
+    private NotificationSync() {}
+
+    public static synchronized NotificationSync getInstance() {
+        if (instance == null) {
+            instance = new NotificationSync();
+        }
+        return instance;
+    }
+
+    /**
+     * Push local changes, then pull remote changes; onComplete runs on the JavaFX thread
+     */
+    public void sync(int userId, Runnable onComplete) {
+        Runnable done = () -> {
+            if (onComplete != null) {
+                Platform.runLater(onComplete);
+            }
+        };
+
+        if (!FirebaseService.getInstance().isAuthenticated()) {
+            System.out.println("[Notification] Firebase not authenticated, skipping sync");
+            done.run();
+            return;
+        }
+
+        System.out.println("[Notification] Starting incremental sync for user " + userId);
+        pushChanges(userId);
+        DatabaseService.executeQueryAsync(
+            "SELECT pulled_through FROM notification_sync_cursors WHERE user_id = ?",
+            new Object[]{userId},
+            rs -> {
+                String since = null;
+                try {
+                    if (rs.next()) {
+                        since = rs.getString("pulled_through");
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error reading notification cursor: " + e.getMessage());
+                }
+                pullPage(userId, new PullPosition(since, null, null), done);
+            },
+            error -> done.run()
+        );
+    }
+
+    // ==================== PUSH ====================
+
+    /**
+     * Queue this user's locally changed notifications for upload (no-op when nothing changed)
+     */
+    public void pushChanges(int userId) {
+        DatabaseService.executeTransactionAsync(conn -> {
+            long pushedSeq = 0;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT pushed_seq FROM notification_sync_cursors WHERE user_id = ?")) {
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) pushedSeq = rs.getLong(1);
+                }
+            }
+
+            int pushed = 0;
+            long maxSeq = pushedSeq;
+            SyncOutbox outbox = SyncOutbox.getInstance();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT id, title, message, type, related_id, is_read, created_at, change_seq " +
+                    "FROM notifications WHERE user_id = ? AND change_seq > ? ORDER BY change_seq")) {
+                ps.setInt(1, userId);
+                ps.setLong(2, pushedSeq);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Notification n = new Notification(
+                            rs.getInt("id"), userId, rs.getString("title"), rs.getString("message"),
+                            rs.getString("type"), rs.getObject("related_id") != null ? rs.getInt("related_id") : null,
+                            rs.getBoolean("is_read"), rs.getString("created_at"));
+                        outbox.enqueueUpsert(conn, SyncOutbox.Priority.NOTIFICATIONS,
+                            "notifications/" + n.getId(),
+                            FirestoreDocuments.NOTIFICATION.toFieldsJson(n),
+                            FirestoreDocuments.NOTIFICATION.writableFieldPaths(),
+                            FirestoreDocuments.NOTIFICATION.serverTimestampFieldPaths());
+                        maxSeq = Math.max(maxSeq, rs.getLong("change_seq"));
+                        pushed++;
+                    }
+                }
+            }
+
+            if (pushed > 0) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO notification_sync_cursors (user_id, pushed_seq) VALUES (?, ?) " +
+                        "ON CONFLICT(user_id) DO UPDATE SET pushed_seq = excluded.pushed_seq")) {
+                    ps.setInt(1, userId);
+                    ps.setLong(2, maxSeq);
+                    ps.executeUpdate();
+                }
+            }
+            return pushed;
+        },
+        pushed -> {
+            if (pushed > 0) {
+                System.out.println("📤 Queued " + pushed + " changed notifications for user " + userId);
+                SyncOutbox.getInstance().wake();
+            }
+        },
+        error -> System.err.println("Error pushing notification changes: " + error.getMessage()));
+    }
+
+    // ==================== PULL ====================
+
+    /**
+     * updatedSince: stored cursor (null on the first pull); afterId: document the previous page
+     * ended on; firstPassMark: newest updated_at on the first page of the first pull
+     */
+    private record PullPosition(String updatedSince, String afterId, String firstPassMark) {}
+
+    private void pullPage(int userId, PullPosition position, Runnable done) {
+        FirebaseService.getInstance().fetchNotificationChanges(userId, position.updatedSince(), position.afterId(),
+            PULL_PAGE,
+            changes -> mergeAndAdvance(userId, position, changes, done),
+            error -> done.run());
+    }
+
+    private void mergeAndAdvance(int userId, PullPosition position, List<Notification> changes, Runnable done) {
+        boolean firstPass = position.updatedSince() == null;
+        boolean more = changes.size() >= PULL_PAGE;
+        DatabaseService.executeTransactionAsync(conn -> {
+            String newest = position.updatedSince();
+            for (Notification n : changes) {
+                if (n.getUserId() != userId) {
+                    continue;
+                }
+                merge(conn, n);
+                newest = later(newest, n.getUpdatedAt());
+            }
+
+            // Documents are notifications/{id}, so the id is the page's name cursor
+            Notification last = changes.isEmpty() ? null : changes.get(changes.size() - 1);
+            String afterId = more ? String.valueOf(last.getId()) : null;
+            PullPosition next;
+            String cursor;
+            if (firstPass) {
+                // Writes after the first page was read are stamped later than anything on it,
+                // so its newest updated_at is where the ranged pulls take over
+                String mark = position.afterId() == null ? newest : position.firstPassMark();
+                next = new PullPosition(null, afterId, mark);
+                cursor = more ? null : (mark != null ? mark : Instant.EPOCH.toString());
+            } else {
+                next = new PullPosition(more ? last.getUpdatedAt() : newest, afterId, null);
+                cursor = newest;
+            }
+            if (cursor != null) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO notification_sync_cursors (user_id, pulled_through) VALUES (?, ?) " +
+                        "ON CONFLICT(user_id) DO UPDATE SET pulled_through = excluded.pulled_through")) {
+                    ps.setInt(1, userId);
+                    ps.setString(2, cursor);
+                    ps.executeUpdate();
+                }
+            }
+            return next;
+        },
+        next -> {
+            System.out.println("📥 Merged " + changes.size() + " notification changes for user " + userId);
+            if (!changes.isEmpty()) {
+                UnreadCounters.getInstance().reload(UnreadCounters.Kind.NOTIFICATIONS, userId);
+            }
+            // A full page may have more behind it
+            if (next.afterId() != null) {
+                pullPage(userId, next, done);
+            } else {
+                // Rows re-flagged by the merge (remote behind a local read) go back out
+                pushChanges(userId);
+                System.out.println("✓ Notification sync completed");
+                done.run();
+            }
+        },
+        error -> {
+            System.err.println("Error merging notifications: " + error.getMessage());
+            done.run();
+        });
+    }
+
+    private static void merge(Connection conn, Notification n) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO notifications (id, user_id, title, message, type, related_id, is_read, created_at, " +
+                "change_seq, remote_updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?) " +
+                "ON CONFLICT(id) DO UPDATE SET " +
+                "change_seq = CASE WHEN is_read > excluded.is_read THEN " + NEXT_CHANGE_SEQ + " ELSE change_seq END, " +
+                "is_read = MAX(is_read, excluded.is_read), " +
+                "remote_updated_at = excluded.remote_updated_at")) {
+            ps.setInt(1, n.getId());
+            ps.setInt(2, n.getUserId());
+            ps.setString(3, n.getTitle());
+            ps.setString(4, n.getMessage());
+            ps.setString(5, n.getType());
+            ps.setObject(6, n.getRelatedId());
+            ps.setBoolean(7, n.isRead());
+            ps.setString(8, n.getCreatedAt());
+            ps.setString(9, n.getUpdatedAt());
+            ps.executeUpdate();
+        }
+    }
+
+    private static String later(String a, String b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return Instant.parse(b).isAfter(Instant.parse(a)) ? b : a;
+    }
+}
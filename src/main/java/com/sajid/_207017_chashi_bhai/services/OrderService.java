@@ -1,8 +1,19 @@
 package com.sajid._207017_chashi_bhai.services;
 
+import com.sajid._207017_chashi_bhai.models.Order;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * OrderService - centralizes order state transitions and related side-effects.
@@ -13,6 +24,21 @@ import java.sql.ResultSet;
  * - Status cannot be changed after completed.
  * - Accept deducts crop available quantity.
  * - Cancel/Delete restores crop quantity if it was previously deducted.
+ * - Completing an order updates farmer/buyer statistics in the same transaction.
+ * - Successful transitions are published on DataChangeEvents after commit.
+ *
+ * Concurrency (several desktops may share one database):
+ * - orders and crops carry a version column. Every write is a compare-and-set
+ *   "... WHERE id = ? AND version = ?" against the version read in the same transaction;
+ *   a miss means someone else got there first, so the transaction rolls back and the
+ *   transition is re-evaluated from fresh rows (up to MAX_ATTEMPTS).
+ * - Callers pass a request key (see RequestKeys). The key of a successful transition is
+ *   stored in order_requests in the same transaction, so a double-click or a retry after
+ *   an error replays the first result instead of applying the change twice.
+ *
+ * Bulk (farmer accept / reject / ship for many orders): one transaction, stock checked
+ * and deducted once per crop, order rows updated in one JDBC batch, Firestore status
+ * updates queued in the same transaction, buyer notifications group-committed after.
  */
 public final class OrderService {
 
@@ -27,65 +53,116 @@ public final class OrderService {
         DELETE
     }
 
+    private static final int MAX_ATTEMPTS = 5;
+    // Ids per "WHERE id IN (...)" read in bulk transitions
+    private static final int IN_CHUNK = 500;
+
+    private static final String MSG_ACCEPTED = "✅ অর্ডার গৃহীত হয়েছে!";
+    private static final String MSG_REJECTED = "❌ অর্ডার প্রত্যাখ্যাত হয়েছে।";
+    private static final String MSG_IN_TRANSIT = "🚚 ডেলিভারির জন্য পাঠানো হয়েছে!";
+
     public static final class ActionResult {
         public final boolean ok;
         public final String message;
+        // true when this request key already succeeded earlier; nothing was changed now
+        public final boolean replayed;
 
-        private ActionResult(boolean ok, String message) {
+        private ActionResult(boolean ok, String message, boolean replayed) {
             this.ok = ok;
             this.message = message;
+            this.replayed = replayed;
         }
 
         public static ActionResult ok(String message) {
-            return new ActionResult(true, message);
+            return new ActionResult(true, message, false);
         }
 
         public static ActionResult fail(String message) {
-            return new ActionResult(false, message);
+            return new ActionResult(false, message, false);
+        }
+
+        static ActionResult replay(String message) {
+            return new ActionResult(true, message, true);
+        }
+    }
+
+    /**
+     * Request keys for one screen: repeating the same action on the same order reuses
+     * the key, so a second click is recognised as the same request.
+     */
+    public static final class RequestKeys {
+        private final Map<String, String> keys = new ConcurrentHashMap<>();
+
+        public String keyFor(int orderId, Action action) {
+            return keys.computeIfAbsent(orderId + ":" + action, k -> UUID.randomUUID().toString());
+        }
+    }
+
+    /**
+     * A compare-and-set update found a newer version; the transaction is retried
+     */
+    private static final class ConcurrentUpdateException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        ConcurrentUpdateException(String what) {
+            super(what + " changed concurrently");
         }
     }
 
     public static void acceptOrderAsync(int orderId, int actorUserId,
+                                       String requestKey,
                                        java.util.function.Consumer<ActionResult> onSuccess,
                                        java.util.function.Consumer<Exception> onError) {
-        transitionAsync(orderId, actorUserId, Action.ACCEPT, onSuccess, onError);
+        transitionAsync(orderId, actorUserId, Action.ACCEPT, requestKey, 1, onSuccess, onError);
     }
 
     public static void rejectOrderAsync(int orderId, int actorUserId,
+                                       String requestKey,
                                        java.util.function.Consumer<ActionResult> onSuccess,
                                        java.util.function.Consumer<Exception> onError) {
-        transitionAsync(orderId, actorUserId, Action.REJECT, onSuccess, onError);
+        transitionAsync(orderId, actorUserId, Action.REJECT, requestKey, 1, onSuccess, onError);
     }
 
     public static void markInTransitAsync(int orderId, int actorUserId,
+                                         String requestKey,
                                          java.util.function.Consumer<ActionResult> onSuccess,
                                          java.util.function.Consumer<Exception> onError) {
-        transitionAsync(orderId, actorUserId, Action.MARK_IN_TRANSIT, onSuccess, onError);
+        transitionAsync(orderId, actorUserId, Action.MARK_IN_TRANSIT, requestKey, 1, onSuccess, onError);
     }
 
     public static void markReceivedAsync(int orderId, int actorUserId,
+                                        String requestKey,
                                         java.util.function.Consumer<ActionResult> onSuccess,
                                         java.util.function.Consumer<Exception> onError) {
-        transitionAsync(orderId, actorUserId, Action.MARK_RECEIVED, onSuccess, onError);
+        transitionAsync(orderId, actorUserId, Action.MARK_RECEIVED, requestKey, 1, onSuccess, onError);
     }
 
     public static void cancelOrderAsync(int orderId, int actorUserId,
+                                       String requestKey,
                                        java.util.function.Consumer<ActionResult> onSuccess,
                                        java.util.function.Consumer<Exception> onError) {
-        transitionAsync(orderId, actorUserId, Action.CANCEL, onSuccess, onError);
+        transitionAsync(orderId, actorUserId, Action.CANCEL, requestKey, 1, onSuccess, onError);
     }
 
     public static void deleteOrderAsync(int orderId, int actorUserId,
+                                       String requestKey,
                                        java.util.function.Consumer<ActionResult> onSuccess,
                                        java.util.function.Consumer<Exception> onError) {
-        transitionAsync(orderId, actorUserId, Action.DELETE, onSuccess, onError);
+        transitionAsync(orderId, actorUserId, Action.DELETE, requestKey, 1, onSuccess, onError);
     }
 
-    private static void transitionAsync(int orderId, int actorUserId, Action action,
+    private static void transitionAsync(int orderId, int actorUserId, Action action, String requestKey, int attempt,
                                         java.util.function.Consumer<ActionResult> onSuccess,
                                         java.util.function.Consumer<Exception> onError) {
+        OrderRow[] touched = new OrderRow[1];
         DatabaseService.executeTransactionAsync(conn -> {
+            String previous = findCompletedRequest(conn, requestKey, orderId, action);
+            if (previous != null) {
+                return ActionResult.replay(previous);
+            }
+
             OrderRow order = fetchOrder(conn, orderId);
+            touched[0] = order;
             if (order == null) {
                 return ActionResult.fail("অর্ডার খুঁজে পাওয়া যায়নি।");
             }
@@ -94,7 +171,7 @@ public final class OrderService {
                 return ActionResult.fail("এই অর্ডারটি সম্পন্ন হয়েছে—আর পরিবর্তন করা যাবে না।");
             }
 
-            return switch (action) {
+            ActionResult result = switch (action) {
                 case ACCEPT -> doAccept(conn, order, actorUserId);
                 case REJECT -> doReject(conn, order, actorUserId);
                 case MARK_IN_TRANSIT -> doInTransit(conn, order, actorUserId);
@@ -102,107 +179,374 @@ public final class OrderService {
                 case CANCEL -> doCancel(conn, order, actorUserId);
                 case DELETE -> doDelete(conn, order, actorUserId);
             };
+            if (result.ok) {
+                recordRequest(conn, requestKey, orderId, action, actorUserId, result.message);
+            }
+            return result;
         },
         result -> {
+            if (result.ok && !result.replayed && touched[0] != null) {
+                publishChange(touched[0], action);
+            }
             if (onSuccess != null) onSuccess.accept(result);
         },
-        onError);
+        error -> {
+            if (isRetryable(error) && attempt < MAX_ATTEMPTS) {
+                System.out.println("🔁 Order #" + orderId + " " + action + " retry " + attempt + ": " + error.getMessage());
+                transitionAsync(orderId, actorUserId, action, requestKey, attempt + 1, onSuccess, onError);
+            } else if (isRetryable(error)) {
+                if (onSuccess != null) {
+                    onSuccess.accept(ActionResult.fail("অর্ডারটি একই সময়ে অন্য কোথাও পরিবর্তন হচ্ছে। আবার চেষ্টা করুন।"));
+                }
+            } else if (onError != null) {
+                onError.accept(error);
+            }
+        });
     }
 
-    private static ActionResult doAccept(Connection conn, OrderRow order, int actorUserId) throws Exception {
-        if (actorUserId != order.farmerId) {
-            return ActionResult.fail("শুধুমাত্র এই অর্ডারের কৃষক গ্রহণ করতে পারবেন।");
-        }
-        if (!"new".equals(order.status)) {
-            return ActionResult.fail("শুধুমাত্র নতুন অর্ডার গ্রহণ করা যাবে।");
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof ConcurrentUpdateException) {
+            return true;
         }
+        // Another desktop holds the write lock, or a second use of the same key committed first
+        String msg = e.getMessage();
+        return e instanceof SQLException && msg != null
+            && (msg.contains("SQLITE_BUSY") || msg.contains("order_requests.request_key"));
+    }
 
-        CropRow crop = fetchCrop(conn, order.cropId);
-        if (crop == null) {
-            return ActionResult.fail("ফসল খুঁজে পাওয়া যায়নি।");
+    private static String findCompletedRequest(Connection conn, String requestKey, int orderId, Action action) throws Exception {
+        if (requestKey == null) {
+            return null;
         }
-        if (crop.availableQty < order.quantityKg) {
-            return ActionResult.fail("পর্যাপ্ত পরিমাণ নেই। Available: " + crop.availableQty + " কেজি");
+        try (PreparedStatement ps = conn.prepareStatement(
+            "SELECT message FROM order_requests WHERE request_key = ? AND order_id = ? AND action = ?")) {
+            ps.setString(1, requestKey);
+            ps.setInt(2, orderId);
+            ps.setString(3, action.name());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("message") : null;
+            }
         }
+    }
 
-        // Deduct first (guarded), then mark order accepted. If marking fails, restore.
-        int cropRows;
+    private static void recordRequest(Connection conn, String requestKey, int orderId, Action action,
+                                      int actorUserId, String message) throws Exception {
+        if (requestKey == null) {
+            return;
+        }
         try (PreparedStatement ps = conn.prepareStatement(
-            "UPDATE crops " +
-            "SET available_quantity_kg = available_quantity_kg - ?, " +
-            "    status = CASE WHEN (available_quantity_kg - ?) <= 0 THEN 'sold' ELSE status END, " +
-            "    updated_at = datetime('now') " +
-            "WHERE id = ? AND available_quantity_kg >= ?")) {
-            ps.setDouble(1, order.quantityKg);
-            ps.setDouble(2, order.quantityKg);
-            ps.setInt(3, order.cropId);
-            ps.setDouble(4, order.quantityKg);
-            cropRows = ps.executeUpdate();
-        }
-        if (cropRows <= 0) {
-            return ActionResult.fail("পর্যাপ্ত পরিমাণ নেই। Available: " + crop.availableQty + " কেজি");
+            "INSERT INTO order_requests (request_key, order_id, action, actor_user_id, message) VALUES (?, ?, ?, ?, ?)")) {
+            ps.setString(1, requestKey);
+            ps.setInt(2, orderId);
+            ps.setString(3, action.name());
+            ps.setInt(4, actorUserId);
+            ps.setString(5, message);
+            ps.executeUpdate();
         }
+    }
 
-        int orderRows;
-        try (PreparedStatement ps = conn.prepareStatement(
-            "UPDATE orders SET status = 'accepted', accepted_at = datetime('now'), updated_at = datetime('now') " +
-            "WHERE id = ? AND status = 'new' AND farmer_id = ?")) {
-            ps.setInt(1, order.id);
-            ps.setInt(2, actorUserId);
-            orderRows = ps.executeUpdate();
-        }
-        if (orderRows <= 0) {
-            // restore crop because order accept didn't go through
-            try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE crops SET available_quantity_kg = available_quantity_kg + ?, status = 'active', updated_at = datetime('now') WHERE id = ?")) {
-                ps.setDouble(1, order.quantityKg);
-                ps.setInt(2, order.cropId);
-                ps.executeUpdate();
+    // ==================== BULK (FARMER) ====================
+
+    public static final class BulkResult {
+        // Outcome per order, in the order the ids were given
+        public final Map<Integer, ActionResult> results;
+
+        private BulkResult(Map<Integer, ActionResult> results) {
+            this.results = Collections.unmodifiableMap(results);
+        }
+
+        public int succeeded() {
+            return (int) results.values().stream().filter(r -> r.ok).count();
+        }
+
+        public int failed() {
+            return results.size() - succeeded();
+        }
+    }
+
+    /**
+     * Accept / reject / mark in transit many orders in one transaction. Orders that fail a
+     * rule (wrong status, not enough stock, ...) are reported individually; the rest commit
+     * together. requestKeys (may be null) gives each order the same key as a single click.
+     */
+    public static void bulkTransitionAsync(List<Integer> orderIds, int actorUserId, Action action,
+                                           RequestKeys requestKeys,
+                                           java.util.function.Consumer<BulkResult> onSuccess,
+                                           java.util.function.Consumer<Exception> onError) {
+        if (action != Action.ACCEPT && action != Action.REJECT && action != Action.MARK_IN_TRANSIT) {
+            throw new IllegalArgumentException("Bulk transitions support farmer actions only: " + action);
+        }
+        bulkTransitionAsync(new ArrayList<>(orderIds), actorUserId, action, requestKeys, 1, onSuccess, onError);
+    }
+
+    private static void bulkTransitionAsync(List<Integer> orderIds, int actorUserId, Action action,
+                                            RequestKeys requestKeys, int attempt,
+                                            java.util.function.Consumer<BulkResult> onSuccess,
+                                            java.util.function.Consumer<Exception> onError) {
+        List<OrderRow> changed = new ArrayList<>();
+        String[] actorName = new String[1];
+        DatabaseService.executeTransactionAsync(conn -> {
+            changed.clear();
+            actorName[0] = fetchUserName(conn, actorUserId);
+            return applyBulk(conn, orderIds, actorUserId, action, requestKeys, changed);
+        },
+        results -> {
+            if (!changed.isEmpty()) {
+                publishBulkChange(changed, action);
+                notifyBuyers(changed, action, actorName[0]);
+                SyncOutbox.getInstance().wake();
+            }
+            System.out.println("📦 Bulk " + action + ": " + changed.size() + " of " + orderIds.size() + " orders changed");
+            if (onSuccess != null) onSuccess.accept(new BulkResult(results));
+        },
+        error -> {
+            if (isRetryable(error) && attempt < MAX_ATTEMPTS) {
+                System.out.println("🔁 Bulk " + action + " retry " + attempt + ": " + error.getMessage());
+                bulkTransitionAsync(orderIds, actorUserId, action, requestKeys, attempt + 1, onSuccess, onError);
+            } else if (isRetryable(error)) {
+                Map<Integer, ActionResult> busy = new LinkedHashMap<>();
+                for (int orderId : orderIds) {
+                    busy.put(orderId, ActionResult.fail("অর্ডারটি একই সময়ে অন্য কোথাও পরিবর্তন হচ্ছে। আবার চেষ্টা করুন।"));
+                }
+                if (onSuccess != null) onSuccess.accept(new BulkResult(busy));
+            } else if (onError != null) {
+                onError.accept(error);
+            }
+        });
+    }
+
+    static Map<Integer, ActionResult> applyBulk(Connection conn, List<Integer> requestedIds, int actorUserId,
+                                                Action action, RequestKeys requestKeys,
+                                                List<OrderRow> changed) throws Exception {
+        // A repeated id would deduct stock twice and then miss its own version check
+        List<Integer> orderIds = new ArrayList<>(new LinkedHashSet<>(requestedIds));
+        Map<Integer, ActionResult> outcome = new LinkedHashMap<>();
+        Map<Integer, OrderRow> orders = fetchOrders(conn, orderIds);
+        Map<Integer, List<OrderRow>> acceptsByCrop = new LinkedHashMap<>();
+
+        for (int orderId : orderIds) {
+            String previous = findCompletedRequest(conn, keyFor(requestKeys, orderId, action), orderId, action);
+            if (previous != null) {
+                outcome.put(orderId, ActionResult.replay(previous));
+                continue;
+            }
+            OrderRow order = orders.get(orderId);
+            ActionResult rejected = order == null
+                ? ActionResult.fail("অর্ডার খুঁজে পাওয়া যায়নি।")
+                : "completed".equals(order.status)
+                    ? ActionResult.fail("এই অর্ডারটি সম্পন্ন হয়েছে—আর পরিবর্তন করা যাবে না।")
+                    : checkFarmerAction(order, actorUserId, action);
+            if (rejected != null) {
+                outcome.put(orderId, rejected);
+            } else if (action == Action.ACCEPT) {
+                acceptsByCrop.computeIfAbsent(order.cropId, id -> new ArrayList<>()).add(order);
+            } else {
+                changed.add(order);
+            }
+        }
+
+        // Stock: one read and one compare-and-set per crop; orders are filled in the given order
+        for (Map.Entry<Integer, List<OrderRow>> entry : acceptsByCrop.entrySet()) {
+            CropRow crop = fetchCrop(conn, entry.getKey());
+            double remaining = crop != null ? crop.availableQty : 0;
+            double deducted = 0;
+            for (OrderRow order : entry.getValue()) {
+                if (crop == null) {
+                    outcome.put(order.id, ActionResult.fail("ফসল খুঁজে পাওয়া যায়নি।"));
+                } else if (remaining < order.quantityKg) {
+                    outcome.put(order.id, ActionResult.fail("পর্যাপ্ত পরিমাণ নেই। Available: " + remaining + " কেজি"));
+                } else {
+                    remaining -= order.quantityKg;
+                    deducted += order.quantityKg;
+                    changed.add(order);
+                }
+            }
+            if (deducted > 0) {
+                deductCrop(conn, crop, deducted);
             }
-            return ActionResult.fail("অর্ডার গ্রহণ করতে ব্যর্থ হয়েছে।");
         }
 
-        return ActionResult.ok("✅ অর্ডার গৃহীত হয়েছে!");
+        updateOrders(conn, changed, farmerAssignments(action));
+
+        String message = farmerSuccessMessage(action);
+        String status = statusAfter(action);
+        SyncOutbox outbox = SyncOutbox.getInstance();
+        for (OrderRow order : changed) {
+            outcome.put(order.id, ActionResult.ok(message));
+            recordRequest(conn, keyFor(requestKeys, order.id, action), order.id, action, actorUserId, message);
+
+            Order update = new Order();
+            update.setId(order.id);
+            update.setStatus(status);
+            outbox.enqueueUpsert(conn, SyncOutbox.Priority.ORDERS,
+                FirebaseService.COLLECTION_ORDERS + "/" + order.id,
+                FirestoreDocuments.ORDER_STATUS.toFieldsJson(update),
+                FirestoreDocuments.ORDER_STATUS.writableFieldPaths(), List.of());
+        }
+
+        // Report in the order the ids were given
+        Map<Integer, ActionResult> results = new LinkedHashMap<>();
+        for (int orderId : orderIds) {
+            results.put(orderId, outcome.get(orderId));
+        }
+        return results;
     }
 
-    private static ActionResult doReject(Connection conn, OrderRow order, int actorUserId) throws Exception {
-        if (actorUserId != order.farmerId) {
-            return ActionResult.fail("শুধুমাত্র এই অর্ডারের কৃষক প্রত্যাখ্যান করতে পারবেন।");
+    private static String keyFor(RequestKeys requestKeys, int orderId, Action action) {
+        return requestKeys != null ? requestKeys.keyFor(orderId, action) : null;
+    }
+
+    private static String statusAfter(Action action) {
+        return switch (action) {
+            case ACCEPT -> "accepted";
+            case REJECT -> "rejected";
+            case MARK_IN_TRANSIT -> "in_transit";
+            default -> throw new IllegalArgumentException("Not a farmer action: " + action);
+        };
+    }
+
+    private static String fetchUserName(Connection conn, int userId) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT name FROM users WHERE id = ?")) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("name") : "";
+            }
         }
-        if (!"new".equals(order.status)) {
-            return ActionResult.fail("শুধুমাত্র নতুন অর্ডার প্রত্যাখ্যান করা যাবে।");
+    }
+
+    private static void publishBulkChange(List<OrderRow> changed, Action action) {
+        DataChangeEvents events = DataChangeEvents.getInstance();
+        int[] users = changed.stream()
+            .flatMapToInt(o -> java.util.stream.IntStream.of(o.farmerId, o.buyerId))
+            .distinct()
+            .toArray();
+        events.publish(DataChangeEvents.Topic.ORDERS, users);
+        if (action == Action.ACCEPT) {
+            events.publish(DataChangeEvents.Topic.CROPS, changed.stream().mapToInt(o -> o.farmerId).distinct().toArray());
         }
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(
-            "UPDATE orders SET status = 'rejected', updated_at = datetime('now') WHERE id = ? AND status = 'new'")) {
-            ps.setInt(1, order.id);
-            int rows = ps.executeUpdate();
-            if (rows <= 0) {
-                return ActionResult.fail("অর্ডার প্রত্যাখ্যান করতে ব্যর্থ হয়েছে।");
+    /**
+     * One notification per buyer and order; WriteBatcher commits them as a group
+     */
+    private static void notifyBuyers(List<OrderRow> changed, Action action, String farmerName) {
+        NotificationService notifications = NotificationService.getInstance();
+        for (OrderRow order : changed) {
+            String cropName = order.cropName != null ? order.cropName : "";
+            switch (action) {
+                case ACCEPT -> notifications.notifyBuyerOrderAccepted(order.buyerId, order.id, farmerName, cropName);
+                case REJECT -> notifications.notifyBuyerOrderRejected(order.buyerId, order.id, farmerName, cropName);
+                case MARK_IN_TRANSIT -> notifications.notifyBuyerOrderInTransit(order.buyerId, order.id, farmerName, cropName);
+                default -> { }
             }
         }
+    }
 
-        return ActionResult.ok("❌ অর্ডার প্রত্যাখ্যাত হয়েছে।");
+    /**
+     * Tell cached views (dashboards) which users' orders/crops changed; runs after commit
+     */
+    private static void publishChange(OrderRow order, Action action) {
+        DataChangeEvents events = DataChangeEvents.getInstance();
+        events.publish(DataChangeEvents.Topic.ORDERS, order.farmerId, order.buyerId);
+        if (action == Action.ACCEPT || action == Action.CANCEL || action == Action.DELETE) {
+            // Available quantity / crop status may have moved
+            events.publish(DataChangeEvents.Topic.CROPS, order.farmerId);
+        }
     }
 
-    private static ActionResult doInTransit(Connection conn, OrderRow order, int actorUserId) throws Exception {
-        if (actorUserId != order.farmerId) {
-            return ActionResult.fail("শুধুমাত্র এই অর্ডারের কৃষক ডেলিভারির জন্য দিতে পারবেন।");
+    /**
+     * Actor/status rules for the farmer actions; null when the transition is allowed
+     */
+    private static ActionResult checkFarmerAction(OrderRow order, int actorUserId, Action action) {
+        switch (action) {
+            case ACCEPT:
+                if (actorUserId != order.farmerId) {
+                    return ActionResult.fail("শুধুমাত্র এই অর্ডারের কৃষক গ্রহণ করতে পারবেন।");
+                }
+                if (!"new".equals(order.status)) {
+                    return ActionResult.fail("শুধুমাত্র নতুন অর্ডার গ্রহণ করা যাবে।");
+                }
+                return null;
+            case REJECT:
+                if (actorUserId != order.farmerId) {
+                    return ActionResult.fail("শুধুমাত্র এই অর্ডারের কৃষক প্রত্যাখ্যান করতে পারবেন।");
+                }
+                if (!"new".equals(order.status)) {
+                    return ActionResult.fail("শুধুমাত্র নতুন অর্ডার প্রত্যাখ্যান করা যাবে।");
+                }
+                return null;
+            case MARK_IN_TRANSIT:
+                if (actorUserId != order.farmerId) {
+                    return ActionResult.fail("শুধুমাত্র এই অর্ডারের কৃষক ডেলিভারির জন্য দিতে পারবেন।");
+                }
+                if (!"accepted".equals(order.status)) {
+                    return ActionResult.fail("শুধুমাত্র গৃহীত অর্ডার ডেলিভারির জন্য দেওয়া যাবে।");
+                }
+                return null;
+            default:
+                throw new IllegalArgumentException("Not a farmer action: " + action);
         }
-        if (!"accepted".equals(order.status)) {
-            return ActionResult.fail("শুধুমাত্র গৃহীত অর্ডার ডেলিভারির জন্য দেওয়া যাবে।");
+    }
+
+    private static String farmerAssignments(Action action) {
+        return switch (action) {
+            case ACCEPT -> "status = 'accepted', accepted_at = datetime('now')";
+            case REJECT -> "status = 'rejected'";
+            case MARK_IN_TRANSIT -> "status = 'in_transit', in_transit_at = datetime('now')";
+            default -> throw new IllegalArgumentException("Not a farmer action: " + action);
+        };
+    }
+
+    private static String farmerSuccessMessage(Action action) {
+        return switch (action) {
+            case ACCEPT -> MSG_ACCEPTED;
+            case REJECT -> MSG_REJECTED;
+            case MARK_IN_TRANSIT -> MSG_IN_TRANSIT;
+            default -> throw new IllegalArgumentException("Not a farmer action: " + action);
+        };
+    }
+
+    private static ActionResult doAccept(Connection conn, OrderRow order, int actorUserId) throws Exception {
+        ActionResult rejected = checkFarmerAction(order, actorUserId, Action.ACCEPT);
+        if (rejected != null) {
+            return rejected;
         }
 
-        try (PreparedStatement ps = conn.prepareStatement(
-            "UPDATE orders SET status = 'in_transit', in_transit_at = datetime('now'), updated_at = datetime('now') WHERE id = ? AND status = 'accepted'")) {
-            ps.setInt(1, order.id);
-            int rows = ps.executeUpdate();
-            if (rows <= 0) {
-                return ActionResult.fail("স্ট্যাটাস আপডেট করতে ব্যর্থ হয়েছে।");
-            }
+        CropRow crop = fetchCrop(conn, order.cropId);
+        if (crop == null) {
+            return ActionResult.fail("ফসল খুঁজে পাওয়া যায়নি।");
+        }
+        if (crop.availableQty < order.quantityKg) {
+            return ActionResult.fail("পর্যাপ্ত পরিমাণ নেই। Available: " + crop.availableQty + " কেজি");
         }
 
-        return ActionResult.ok("🚚 ডেলিভারির জন্য পাঠানো হয়েছে!");
+        // Both writes are compare-and-set; a miss rolls back the whole transaction
+        deductCrop(conn, crop, order.quantityKg);
+        updateOrder(conn, order, farmerAssignments(Action.ACCEPT));
+
+        return ActionResult.ok(MSG_ACCEPTED);
+    }
+
+    private static ActionResult doReject(Connection conn, OrderRow order, int actorUserId) throws Exception {
+        ActionResult rejected = checkFarmerAction(order, actorUserId, Action.REJECT);
+        if (rejected != null) {
+            return rejected;
+        }
+
+        updateOrder(conn, order, farmerAssignments(Action.REJECT));
+
+        return ActionResult.ok(MSG_REJECTED);
+    }
+
+    private static ActionResult doInTransit(Connection conn, OrderRow order, int actorUserId) throws Exception {
+        ActionResult rejected = checkFarmerAction(order, actorUserId, Action.MARK_IN_TRANSIT);
+        if (rejected != null) {
+            return rejected;
+        }
+
+        updateOrder(conn, order, farmerAssignments(Action.MARK_IN_TRANSIT));
+
+        return ActionResult.ok(MSG_IN_TRANSIT);
     }
 
     private static ActionResult doCompleted(Connection conn, OrderRow order, int actorUserId) throws Exception {
@@ -213,13 +557,11 @@ public final class OrderService {
             return ActionResult.fail("শুধুমাত্র ডেলিভারির পথে থাকা অর্ডার সম্পন্ন করা যাবে।");
         }
 
-        try (PreparedStatement ps = conn.prepareStatement(
-            "UPDATE orders SET status = 'completed', completed_at = datetime('now'), updated_at = datetime('now') WHERE id = ? AND status IN ('in_transit','delivered')")) {
-            ps.setInt(1, order.id);
-            int rows = ps.executeUpdate();
-            if (rows <= 0) {
-                return ActionResult.fail("স্ট্যাটাস আপডেট করতে ব্যর্থ হয়েছে।");
-            }
+        updateOrder(conn, order, "status = 'completed', completed_at = datetime('now')");
+
+        // 'delivered' orders are already counted in the statistics
+        if ("in_transit".equals(order.status)) {
+            StatisticsService.applyOrderCompleted(conn, order.id);
         }
 
         return ActionResult.ok("✅ পণ্য গ্রহণ নিশ্চিত করা হয়েছে!");
@@ -236,28 +578,9 @@ public final class OrderService {
             return ActionResult.fail("এই স্ট্যাটাসে অর্ডার বাতিল করা যাবে না।");
         }
 
-        int rows;
+        updateOrder(conn, order, "status = 'cancelled'");
         if ("accepted".equals(order.status)) {
-            try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE orders SET status = 'cancelled', updated_at = datetime('now') WHERE id = ? AND status = 'accepted' AND buyer_id = ?")) {
-                ps.setInt(1, order.id);
-                ps.setInt(2, actorUserId);
-                rows = ps.executeUpdate();
-            }
-            if (rows <= 0) {
-                return ActionResult.fail("অর্ডার বাতিল করতে ব্যর্থ হয়েছে।");
-            }
             restoreCropQuantity(conn, order);
-        } else {
-            try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE orders SET status = 'cancelled', updated_at = datetime('now') WHERE id = ? AND status = 'new' AND buyer_id = ?")) {
-                ps.setInt(1, order.id);
-                ps.setInt(2, actorUserId);
-                rows = ps.executeUpdate();
-            }
-            if (rows <= 0) {
-                return ActionResult.fail("অর্ডার বাতিল করতে ব্যর্থ হয়েছে।");
-            }
         }
 
         return ActionResult.ok("❌ অর্ডার বাতিল হয়েছে।");
@@ -271,29 +594,15 @@ public final class OrderService {
             return ActionResult.fail("ডেলিভারির পর অর্ডার ডিলিট করা যাবে না।");
         }
 
-        boolean restored = false;
         if ("accepted".equals(order.status)) {
             restoreCropQuantity(conn, order);
-            restored = true;
         }
-
-        int rows;
-        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM orders WHERE id = ?")) {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM orders WHERE id = ? AND version = ?")) {
             ps.setInt(1, order.id);
-            rows = ps.executeUpdate();
-        }
-        if (rows <= 0) {
-            if (restored) {
-                // revert restore (best-effort)
-                try (PreparedStatement ps = conn.prepareStatement(
-                    "UPDATE crops SET available_quantity_kg = available_quantity_kg - ?, updated_at = datetime('now') WHERE id = ? AND available_quantity_kg >= ?")) {
-                    ps.setDouble(1, order.quantityKg);
-                    ps.setInt(2, order.cropId);
-                    ps.setDouble(3, order.quantityKg);
-                    ps.executeUpdate();
-                }
+            ps.setLong(2, order.version);
+            if (ps.executeUpdate() <= 0) {
+                throw new ConcurrentUpdateException("Order #" + order.id);
             }
-            return ActionResult.fail("অর্ডার ডিলিট করতে ব্যর্থ হয়েছে।");
         }
 
         return ActionResult.ok("🗑 অর্ডার ডিলিট হয়েছে।");
@@ -310,61 +619,144 @@ public final class OrderService {
         }
 
         try (PreparedStatement ps = conn.prepareStatement(
-            "UPDATE crops SET available_quantity_kg = ?, status = 'active', updated_at = datetime('now') WHERE id = ?")) {
+            "UPDATE crops SET available_quantity_kg = ?, status = 'active', version = version + 1, updated_at = datetime('now') " +
+            "WHERE id = ? AND version = ?")) {
             ps.setDouble(1, restored);
             ps.setInt(2, order.cropId);
-            ps.executeUpdate();
+            ps.setLong(3, crop.version);
+            if (ps.executeUpdate() <= 0) {
+                throw new ConcurrentUpdateException("Crop #" + order.cropId);
+            }
         }
     }
 
-    private static OrderRow fetchOrder(Connection conn, int orderId) throws Exception {
+    private static void deductCrop(Connection conn, CropRow crop, double quantityKg) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(
+            "UPDATE crops " +
+            "SET available_quantity_kg = available_quantity_kg - ?, " +
+            "    status = CASE WHEN (available_quantity_kg - ?) <= 0 THEN 'sold' ELSE status END, " +
+            "    version = version + 1, updated_at = datetime('now') " +
+            "WHERE id = ? AND version = ?")) {
+            ps.setDouble(1, quantityKg);
+            ps.setDouble(2, quantityKg);
+            ps.setInt(3, crop.id);
+            ps.setLong(4, crop.version);
+            if (ps.executeUpdate() <= 0) {
+                throw new ConcurrentUpdateException("Crop #" + crop.id);
+            }
+        }
+    }
+
+    /**
+     * Compare-and-set on the order version read at the start of the transaction
+     */
+    private static void updateOrder(Connection conn, OrderRow order, String assignments) throws Exception {
+        updateOrders(conn, List.of(order), assignments);
+    }
+
+    private static void updateOrders(Connection conn, List<OrderRow> orders, String assignments) throws Exception {
+        if (orders.isEmpty()) {
+            return;
+        }
         try (PreparedStatement ps = conn.prepareStatement(
-            "SELECT id, crop_id, farmer_id, buyer_id, quantity_kg, status FROM orders WHERE id = ?")) {
+            "UPDATE orders SET " + assignments + ", version = version + 1, updated_at = datetime('now') " +
+            "WHERE id = ? AND version = ?")) {
+            for (OrderRow order : orders) {
+                ps.setInt(1, order.id);
+                ps.setLong(2, order.version);
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] <= 0) {
+                    throw new ConcurrentUpdateException("Order #" + orders.get(i).id);
+                }
+            }
+        }
+    }
+
+    private static final String ORDER_COLUMNS =
+        "SELECT o.id, o.crop_id, o.farmer_id, o.buyer_id, o.quantity_kg, o.status, o.version, c.name as crop_name " +
+        "FROM orders o LEFT JOIN crops c ON c.id = o.crop_id ";
+
+    private static OrderRow fetchOrder(Connection conn, int orderId) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(ORDER_COLUMNS + "WHERE o.id = ?")) {
             ps.setInt(1, orderId);
             try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return null;
-                return new OrderRow(
-                    rs.getInt("id"),
-                    rs.getInt("crop_id"),
-                    rs.getInt("farmer_id"),
-                    rs.getInt("buyer_id"),
-                    rs.getDouble("quantity_kg"),
-                    rs.getString("status")
-                );
+                return rs.next() ? readOrder(rs) : null;
+            }
+        }
+    }
+
+    private static Map<Integer, OrderRow> fetchOrders(Connection conn, List<Integer> orderIds) throws Exception {
+        Map<Integer, OrderRow> orders = new LinkedHashMap<>();
+        for (int from = 0; from < orderIds.size(); from += IN_CHUNK) {
+            List<Integer> chunk = orderIds.subList(from, Math.min(orderIds.size(), from + IN_CHUNK));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement ps = conn.prepareStatement(ORDER_COLUMNS + "WHERE o.id IN (" + placeholders + ")")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        OrderRow order = readOrder(rs);
+                        orders.put(order.id, order);
+                    }
+                }
             }
         }
+        return orders;
+    }
+
+    private static OrderRow readOrder(ResultSet rs) throws Exception {
+        return new OrderRow(
+            rs.getInt("id"),
+            rs.getInt("crop_id"),
+            rs.getInt("farmer_id"),
+            rs.getInt("buyer_id"),
+            rs.getDouble("quantity_kg"),
+            rs.getString("status"),
+            rs.getLong("version"),
+            rs.getString("crop_name")
+        );
     }
 
     private static CropRow fetchCrop(Connection conn, int cropId) throws Exception {
         try (PreparedStatement ps = conn.prepareStatement(
-            "SELECT id, available_quantity_kg, initial_quantity_kg FROM crops WHERE id = ?")) {
+            "SELECT id, available_quantity_kg, initial_quantity_kg, version FROM crops WHERE id = ?")) {
             ps.setInt(1, cropId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
                 return new CropRow(
                     rs.getInt("id"),
                     rs.getDouble("available_quantity_kg"),
-                    rs.getDouble("initial_quantity_kg")
+                    rs.getDouble("initial_quantity_kg"),
+                    rs.getLong("version")
                 );
             }
         }
     }
 
-    private static final class OrderRow {
+    static final class OrderRow {
         final int id;
         final int cropId;
         final int farmerId;
         final int buyerId;
         final double quantityKg;
         final String status;
+        final long version;
+        final String cropName;
 
-        private OrderRow(int id, int cropId, int farmerId, int buyerId, double quantityKg, String status) {
+        private OrderRow(int id, int cropId, int farmerId, int buyerId, double quantityKg, String status,
+                         long version, String cropName) {
             this.id = id;
             this.cropId = cropId;
             this.farmerId = farmerId;
             this.buyerId = buyerId;
             this.quantityKg = quantityKg;
             this.status = status;
+            this.version = version;
+            this.cropName = cropName;
         }
     }
 
@@ -372,11 +764,13 @@ public final class OrderService {
         final int id;
         final double availableQty;
         final double initialQty;
+        final long version;
 
-        private CropRow(int id, double availableQty, double initialQty) {
+        private CropRow(int id, double availableQty, double initialQty, long version) {
             this.id = id;
             this.availableQty = availableQty;
             this.initialQty = initialQty;
+            this.version = version;
         }
     }
 }
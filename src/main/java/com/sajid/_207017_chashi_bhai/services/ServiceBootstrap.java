@@ -0,0 +1,186 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ServiceBootstrap - Starts services as a dependency graph and times every step
+ *
+ * - Each task names the tasks it needs (which must be added first, so there are no cycles);
+ *   tasks whose dependencies are done run in parallel on virtual threads
+ * - CRITICAL tasks start with start(); DEFERRED tasks wait for startDeferred(), which the
+ *   app calls once the first screen has been painted
+ * - A failed task is logged and the tasks depending on it are skipped; the rest carry on
+ * - printTimings() shows when each task started and how long it ran, measured from JVM start
+ */
+public final class ServiceBootstrap {
+
+    public enum Phase {
+        CRITICAL,
+        DEFERRED
+    }
+
+    @FunctionalInterface
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    private record Task(String name, Phase phase, Step step, List<String> dependsOn) {}
+
+    private record Timing(long startNanos, long endNanos, boolean failed) {}
+
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private final Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+    private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+    private final Map<String, Long> marks = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> deferredGate = new CompletableFuture<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long originNanos;
+
+    public ServiceBootstrap() {
+        // Measure from JVM start when the OS reports it, otherwise from now
+        long sinceJvmStart = ProcessHandle.current().info().startInstant()
+            .map(start -> Duration.between(start, Instant.now()).toNanos())
+            .orElse(0L);
+        this.originNanos = System.nanoTime() - Math.max(0, sinceJvmStart);
+    }
+
+    /**
+     * Register a task; its dependencies must already be registered
+     */
+    public synchronized ServiceBootstrap add(String name, Phase phase, Step step, String... dependsOn) {
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate bootstrap task: " + name);
+        }
+        for (String dependency : dependsOn) {
+            Task required = tasks.get(dependency);
+            if (required == null) {
+                throw new IllegalArgumentException(name + " depends on unknown task " + dependency);
+            }
+            if (phase == Phase.CRITICAL && required.phase() == Phase.DEFERRED) {
+                throw new IllegalArgumentException(name + " is critical but depends on deferred task " + dependency);
+            }
+        }
+        tasks.put(name, new Task(name, phase, step, List.of(dependsOn)));
+        return this;
+    }
+
+    /**
+     * Start all tasks; the returned future completes when every CRITICAL task has finished
+     * (successfully or not). DEFERRED tasks are wired up but held until startDeferred().
+     */
+    public synchronized CompletableFuture<Void> start() {
+        if (!futures.isEmpty()) {
+            throw new IllegalStateException("Bootstrap already started");
+        }
+        mark("bootstrap");
+        for (Task task : tasks.values()) {
+            List<CompletableFuture<Void>> prerequisites = new ArrayList<>();
+            for (String dependency : task.dependsOn()) {
+                prerequisites.add(futures.get(dependency));
+            }
+            if (task.phase() == Phase.DEFERRED) {
+                prerequisites.add(deferredGate);
+            }
+            CompletableFuture<Void> future = CompletableFuture
+                .allOf(prerequisites.toArray(CompletableFuture<?>[]::new))
+                .thenRunAsync(() -> run(task), executor);
+            future.exceptionally(error -> {
+                if (!timings.containsKey(task.name())) {
+                    System.err.println("[Startup] Skipped " + task.name() + " (a dependency failed)");
+                }
+                return null;
+            });
+            futures.put(task.name(), future);
+        }
+        return settled(Phase.CRITICAL);
+    }
+
+    /**
+     * Release DEFERRED tasks; the returned future completes when all tasks have finished
+     */
+    public CompletableFuture<Void> startDeferred() {
+        mark("deferred");
+        deferredGate.complete(null);
+        return settled(null);
+    }
+
+    /**
+     * Future of a single task (completes exceptionally if it or a dependency failed)
+     */
+    public synchronized CompletableFuture<Void> whenDone(String name) {
+        CompletableFuture<Void> future = futures.get(name);
+        if (future == null) {
+            throw new IllegalArgumentException("Unknown or not yet started bootstrap task: " + name);
+        }
+        return future;
+    }
+
+    /**
+     * Record a named point in time (e.g. "first-paint") for the timing report
+     */
+    public void mark(String label) {
+        marks.putIfAbsent(label, System.nanoTime());
+    }
+
+    /**
+     * Milliseconds from JVM start to a mark, or -1 if it was never recorded
+     */
+    public long millisSinceJvmStart(String label) {
+        Long at = marks.get(label);
+        return at == null ? -1 : toMillis(at - originNanos);
+    }
+
+    public void printTimings() {
+        StringBuilder report = new StringBuilder("[Startup] Timings (ms since JVM start)\n");
+        marks.entrySet().stream()
+            .sorted(Map.Entry.comparingByValue())
+            .forEach(e -> report.append(String.format("  %-20s at %6d%n", e.getKey(), toMillis(e.getValue() - originNanos))));
+        for (Task task : tasks.values()) {
+            Timing timing = timings.get(task.name());
+            if (timing == null) {
+                report.append(String.format("  %-20s %-8s not run%n", task.name(), task.phase()));
+            } else {
+                report.append(String.format("  %-20s %-8s at %6d took %5d%s%n", task.name(), task.phase(),
+                    toMillis(timing.startNanos() - originNanos),
+                    toMillis(timing.endNanos() - timing.startNanos()),
+                    timing.failed() ? "  FAILED" : ""));
+            }
+        }
+        System.out.print(report);
+    }
+
+    private void run(Task task) {
+        long start = System.nanoTime();
+        try {
+            task.step().run();
+            timings.put(task.name(), new Timing(start, System.nanoTime(), false));
+        } catch (Exception e) {
+            timings.put(task.name(), new Timing(start, System.nanoTime(), true));
+            System.err.println("[Startup] " + task.name() + " failed: " + e.getMessage());
+            throw new IllegalStateException(task.name() + " failed", e);
+        }
+    }
+
+    private synchronized CompletableFuture<Void> settled(Phase phase) {
+        List<CompletableFuture<Void>> selected = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (phase == null || task.phase() == phase) {
+                selected.add(futures.get(task.name()).exceptionally(error -> null));
+            }
+        }
+        return CompletableFuture.allOf(selected.toArray(CompletableFuture<?>[]::new));
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
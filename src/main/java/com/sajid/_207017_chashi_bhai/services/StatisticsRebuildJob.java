@@ -0,0 +1,336 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * StatisticsRebuildJob - Recomputes every user's statistics in bulk (repair tool)
+ *
+ * 1. read:    a handful of set-based GROUP BY passes over orders/reviews
+ * 2. compute: per-user results (totals, top crop) in parallel chunks on a fork-join pool
+ * 3. write:   batched UPDATE/INSERT statements flushed every WRITE_CHUNK rows,
+ *             then the daily rollups in one INSERT ... SELECT
+ *
+ * All writes are one transaction, so a failure leaves the old statistics in place.
+ * On an auto-commit connection the job commits at the end; when the caller already
+ * has a transaction open, the job only rolls back to its own savepoint on failure
+ * and leaves the commit to the caller.
+ *
+ * Progress and throughput are printed per phase. Run it while the app is idle;
+ * live deltas from StatisticsService are not merged during the rebuild.
+ */
+public final class StatisticsRebuildJob {
+
+    private static final String COUNTED_STATUSES = "o.status IN ('delivered', 'completed')";
+    private static final int COMPUTE_THRESHOLD = 1024;
+    private static final int WRITE_CHUNK = 5000;
+
+    private final Connection conn;
+    private final ForkJoinPool pool;
+
+    // Phase 1 results (read-only once loaded)
+    private int[] userIds;
+    private final Map<Integer, Totals> farmerTotals = new HashMap<>();
+    private final Map<Integer, Totals> buyerTotals = new HashMap<>();
+    private final Map<Integer, List<CropCount>> soldCrops = new HashMap<>();
+    private final Map<Integer, List<CropCount>> boughtCrops = new HashMap<>();
+    private final Map<Integer, Totals> ratings = new HashMap<>();
+
+    public StatisticsRebuildJob(Connection conn) {
+        this(conn, ForkJoinPool.commonPool());
+    }
+
+    public StatisticsRebuildJob(Connection conn, ForkJoinPool pool) {
+        this.conn = conn;
+        this.pool = pool;
+    }
+
+    /**
+     * Run the rebuild; returns the number of users written
+     */
+    public int run() throws Exception {
+        long start = System.nanoTime();
+        boolean ownsTransaction = conn.getAutoCommit();
+        Savepoint savepoint = null;
+        if (ownsTransaction) {
+            conn.setAutoCommit(false);
+        } else {
+            savepoint = conn.setSavepoint("statistics_rebuild");
+        }
+        try {
+            long t = System.nanoTime();
+            load();
+            System.out.println("📊 Loaded aggregates for " + userIds.length + " users in " + millisSince(t) + " ms");
+
+            t = System.nanoTime();
+            UserStats[] results = new UserStats[userIds.length];
+            pool.invoke(new ComputeChunk(results, 0, results.length));
+            System.out.println("📊 Computed statistics in " + millisSince(t) + " ms");
+
+            t = System.nanoTime();
+            writeCropCounters();
+            writeUsers(results);
+            int rollups = DailyRollupService.rebuild(conn);
+            if (ownsTransaction) {
+                conn.commit();
+            } else {
+                conn.releaseSavepoint(savepoint);
+            }
+            System.out.println("📊 Wrote " + rollups + " daily rollup rows");
+            System.out.println("📊 Wrote statistics in " + millisSince(t) + " ms");
+
+            long total = Math.max(1, millisSince(start));
+            System.out.println("✅ Rebuilt statistics for " + results.length + " users in " + total + " ms ("
+                + (results.length * 1000L / total) + " users/s)");
+            return results.length;
+        } catch (Exception e) {
+            if (ownsTransaction) {
+                conn.rollback();
+            } else {
+                conn.rollback(savepoint);
+            }
+            throw e;
+        } finally {
+            if (ownsTransaction) {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // ==================== PHASE 1: SET-BASED READS ====================
+
+    private void load() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT id FROM users ORDER BY id")) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+
+            try (ResultSet rs = stmt.executeQuery(
+                "SELECT c.farmer_id, COUNT(*), COALESCE(SUM(o.total_amount), 0.0) " +
+                "FROM orders o JOIN crops c ON o.crop_id = c.id WHERE " + COUNTED_STATUSES + " GROUP BY c.farmer_id")) {
+                while (rs.next()) farmerTotals.put(rs.getInt(1), new Totals(rs.getInt(2), rs.getDouble(3)));
+            }
+
+            try (ResultSet rs = stmt.executeQuery(
+                "SELECT o.buyer_id, COUNT(*), COALESCE(SUM(o.total_amount), 0.0) " +
+                "FROM orders o WHERE " + COUNTED_STATUSES + " GROUP BY o.buyer_id")) {
+                while (rs.next()) buyerTotals.put(rs.getInt(1), new Totals(rs.getInt(2), rs.getDouble(3)));
+            }
+
+            try (ResultSet rs = stmt.executeQuery(
+                "SELECT c.farmer_id, c.name, COUNT(*), COALESCE(SUM(o.quantity_kg), 0) " +
+                "FROM orders o JOIN crops c ON o.crop_id = c.id WHERE " + COUNTED_STATUSES + " AND c.name IS NOT NULL " +
+                "GROUP BY c.farmer_id, c.name")) {
+                readCropCounts(rs, soldCrops);
+            }
+
+            try (ResultSet rs = stmt.executeQuery(
+                "SELECT o.buyer_id, c.name, COUNT(*), COALESCE(SUM(o.quantity_kg), 0) " +
+                "FROM orders o JOIN crops c ON o.crop_id = c.id WHERE " + COUNTED_STATUSES + " AND c.name IS NOT NULL " +
+                "GROUP BY o.buyer_id, c.name")) {
+                readCropCounts(rs, boughtCrops);
+            }
+
+            try (ResultSet rs = stmt.executeQuery(
+                "SELECT reviewee_id, COUNT(*), AVG(rating) FROM reviews GROUP BY reviewee_id")) {
+                while (rs.next()) ratings.put(rs.getInt(1), new Totals(rs.getInt(2), rs.getDouble(3)));
+            }
+        }
+        userIds = ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void readCropCounts(ResultSet rs, Map<Integer, List<CropCount>> target) throws Exception {
+        while (rs.next()) {
+            target.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>())
+                .add(new CropCount(rs.getString(2), rs.getInt(3), rs.getDouble(4)));
+        }
+    }
+
+    // ==================== PHASE 2: PARALLEL COMPUTE ====================
+
+    private final class ComputeChunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks never leave this JVM; ForkJoinTask is only Serializable by inheritance
+        private final transient UserStats[] results;
+        private final int from;
+        private final int to;
+
+        ComputeChunk(UserStats[] results, int from, int to) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= COMPUTE_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = computeUser(userIds[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ComputeChunk(results, from, mid), new ComputeChunk(results, mid, to));
+        }
+    }
+
+    private UserStats computeUser(int userId) {
+        Totals sold = farmerTotals.getOrDefault(userId, Totals.EMPTY);
+        Totals bought = buyerTotals.getOrDefault(userId, Totals.EMPTY);
+        Totals rating = ratings.getOrDefault(userId, Totals.EMPTY);
+        return new UserStats(userId,
+            sold.count, sold.sum, topCrop(soldCrops.get(userId)),
+            rating.sum, rating.count,
+            bought.count, bought.sum, topCrop(boughtCrops.get(userId)));
+    }
+
+    private static String topCrop(List<CropCount> crops) {
+        if (crops == null) return null;
+        CropCount top = null;
+        for (CropCount crop : crops) {
+            if (top == null || crop.orderCount > top.orderCount) {
+                top = crop;
+            }
+        }
+        return top.name;
+    }
+
+    // ==================== PHASE 3: BATCHED WRITES ====================
+
+    private void writeCropCounters() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM user_crop_stats");
+        }
+        int written = 0;
+        try (PreparedStatement ps = conn.prepareStatement(
+            "INSERT INTO user_crop_stats (user_id, side, crop_name, order_count, quantity_kg) VALUES (?, ?, ?, ?, ?)")) {
+            written += insertCropCounters(ps, soldCrops, StatisticsService.SIDE_SOLD);
+            written += insertCropCounters(ps, boughtCrops, StatisticsService.SIDE_BOUGHT);
+            ps.executeBatch();
+        }
+        System.out.println("📊 Wrote " + written + " crop counters");
+    }
+
+    private int insertCropCounters(PreparedStatement ps, Map<Integer, List<CropCount>> counters,
+                                   String side) throws Exception {
+        int n = 0;
+        for (Map.Entry<Integer, List<CropCount>> entry : counters.entrySet()) {
+            for (CropCount crop : entry.getValue()) {
+                ps.setInt(1, entry.getKey());
+                ps.setString(2, side);
+                ps.setString(3, crop.name);
+                ps.setInt(4, crop.orderCount);
+                ps.setDouble(5, crop.quantityKg);
+                ps.addBatch();
+                if (++n % WRITE_CHUNK == 0) {
+                    ps.executeBatch();
+                }
+            }
+        }
+        return n;
+    }
+
+    private void writeUsers(UserStats[] results) throws Exception {
+        long start = System.nanoTime();
+        try (PreparedStatement ps = conn.prepareStatement(
+            "UPDATE users SET total_accepted_orders = ?, total_income = ?, most_sold_crop = ?, " +
+            "rating = ?, rating_count = ?, total_buyer_orders = ?, total_expense = ?, most_bought_crop = ? " +
+            "WHERE id = ?")) {
+            for (int i = 0; i < results.length; i++) {
+                UserStats s = results[i];
+                ps.setInt(1, s.soldOrders);
+                ps.setDouble(2, s.income);
+                setNullableString(ps, 3, s.mostSold);
+                ps.setDouble(4, s.rating);
+                ps.setInt(5, s.ratingCount);
+                ps.setInt(6, s.boughtOrders);
+                ps.setDouble(7, s.expense);
+                setNullableString(ps, 8, s.mostBought);
+                ps.setInt(9, s.userId);
+                ps.addBatch();
+
+                if ((i + 1) % WRITE_CHUNK == 0 || i == results.length - 1) {
+                    ps.executeBatch();
+                    long elapsed = Math.max(1, millisSince(start));
+                    System.out.println("📊 Users " + (i + 1) + "/" + results.length
+                        + " (" + ((i + 1) * 1000L / elapsed) + " users/s)");
+                }
+            }
+        }
+    }
+
+    private static void setNullableString(PreparedStatement ps, int index, String value) throws Exception {
+        if (value != null) {
+            ps.setString(index, value);
+        } else {
+            ps.setNull(index, Types.VARCHAR);
+        }
+    }
+
+    private static long millisSince(long nanos) {
+        return (System.nanoTime() - nanos) / 1_000_000;
+    }
+
+    // ==================== DATA ====================
+
+    private static final class Totals {
+        static final Totals EMPTY = new Totals(0, 0.0);
+
+        final int count;
+        final double sum;
+
+        Totals(int count, double sum) {
+            this.count = count;
+            this.sum = sum;
+        }
+    }
+
+    private static final class CropCount {
+        final String name;
+        final int orderCount;
+        final double quantityKg;
+
+        CropCount(String name, int orderCount, double quantityKg) {
+            this.name = name;
+            this.orderCount = orderCount;
+            this.quantityKg = quantityKg;
+        }
+    }
+
+    private static final class UserStats {
+        final int userId;
+        final int soldOrders;
+        final double income;
+        final String mostSold;
+        final double rating;
+        final int ratingCount;
+        final int boughtOrders;
+        final double expense;
+        final String mostBought;
+
+        UserStats(int userId, int soldOrders, double income, String mostSold, double rating, int ratingCount,
+                  int boughtOrders, double expense, String mostBought) {
+            this.userId = userId;
+            this.soldOrders = soldOrders;
+            this.income = income;
+            this.mostSold = mostSold;
+            this.rating = rating;
+            this.ratingCount = ratingCount;
+            this.boughtOrders = boughtOrders;
+            this.expense = expense;
+            this.mostBought = mostBought;
+        }
+    }
+}
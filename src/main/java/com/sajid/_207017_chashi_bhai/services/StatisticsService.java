@@ -0,0 +1,219 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/**
+ * StatisticsService - Keeps farmer/buyer statistics up to date with deltas
+ *
+ * Instead of re-aggregating all of a user's orders after every change, each event
+ * applies a small delta inside the same transaction as the change itself:
+ * - order completed: +1 order, +amount for farmer and buyer, +1 for the crop counter,
+ *   plus today's row in the daily rollups (see DailyRollupService)
+ * - review added: running average of the farmer rating
+ *
+ * Per-crop counters live in user_crop_stats; most_sold_crop / most_bought_crop are
+ * only replaced when the bumped crop overtakes the current top one. Counts only
+ * ever grow (completed orders cannot change any more), so this stays exact.
+ *
+ * rebuildUserStatistics / rebuildAll recompute everything from the orders table and
+ * are kept as repair tools only.
+ */
+public final class StatisticsService {
+
+    public static final String SIDE_SOLD = "sold";
+    public static final String SIDE_BOUGHT = "bought";
+
+    private StatisticsService() {}
+
+    // ==================== DELTAS ====================
+
+    /**
+     * Apply the delta for an order that just moved to 'completed'.
+     * Must run on the connection (and transaction) that changed the status.
+     */
+    public static void applyOrderCompleted(Connection conn, int orderId) throws Exception {
+        int farmerId;
+        int buyerId;
+        int cropId;
+        double amount;
+        double quantityKg;
+        String cropName;
+        String completedAt;
+        try (PreparedStatement ps = conn.prepareStatement(
+            "SELECT c.farmer_id, o.buyer_id, o.total_amount, o.quantity_kg, c.name, o.crop_id, " +
+            DailyRollupService.ORDER_COMPLETED_AT + " " +
+            "FROM orders o JOIN crops c ON o.crop_id = c.id WHERE o.id = ?")) {
+            ps.setInt(1, orderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return;
+                farmerId = rs.getInt(1);
+                buyerId = rs.getInt(2);
+                amount = rs.getDouble(3);
+                quantityKg = rs.getDouble(4);
+                cropName = rs.getString(5);
+                cropId = rs.getInt(6);
+                completedAt = rs.getString(7);
+            }
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(
+            "UPDATE users SET total_accepted_orders = COALESCE(total_accepted_orders, 0) + 1, " +
+            "total_income = COALESCE(total_income, 0) + ? WHERE id = ?")) {
+            ps.setDouble(1, amount);
+            ps.setInt(2, farmerId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+            "UPDATE users SET total_buyer_orders = COALESCE(total_buyer_orders, 0) + 1, " +
+            "total_expense = COALESCE(total_expense, 0) + ? WHERE id = ?")) {
+            ps.setDouble(1, amount);
+            ps.setInt(2, buyerId);
+            ps.executeUpdate();
+        }
+
+        if (cropName != null) {
+            bumpCropCounter(conn, farmerId, SIDE_SOLD, cropName, quantityKg);
+            bumpCropCounter(conn, buyerId, SIDE_BOUGHT, cropName, quantityKg);
+        }
+
+        DailyRollupService.recordCompletedOrder(conn, farmerId, buyerId, cropId, cropName, quantityKg, amount, completedAt);
+    }
+
+    /**
+     * Fold a new review into the farmer's running average rating
+     */
+    public static void applyReviewAdded(Connection conn, int farmerId, int rating) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(
+            "UPDATE users SET " +
+            "rating = (COALESCE(rating, 0) * COALESCE(rating_count, 0) + ?) / (COALESCE(rating_count, 0) + 1), " +
+            "rating_count = COALESCE(rating_count, 0) + 1 WHERE id = ?")) {
+            ps.setInt(1, rating);
+            ps.setInt(2, farmerId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Async wrapper for callers that stored the review outside a transaction
+     */
+    public static void applyReviewAddedAsync(int farmerId, int rating,
+                                             Runnable onSuccess, Consumer<Exception> onError) {
+        DatabaseService.executeTransactionAsync(conn -> {
+            applyReviewAdded(conn, farmerId, rating);
+            return null;
+        },
+        ignored -> {
+            if (onSuccess != null) onSuccess.run();
+        },
+        onError);
+    }
+
+    private static void bumpCropCounter(Connection conn, int userId, String side,
+                                        String cropName, double quantityKg) throws Exception {
+        long count;
+        try (PreparedStatement ps = conn.prepareStatement(
+            "INSERT INTO user_crop_stats (user_id, side, crop_name, order_count, quantity_kg) VALUES (?, ?, ?, 1, ?) " +
+            "ON CONFLICT(user_id, side, crop_name) DO UPDATE SET " +
+            "order_count = order_count + 1, quantity_kg = quantity_kg + excluded.quantity_kg " +
+            "RETURNING order_count")) {
+            ps.setInt(1, userId);
+            ps.setString(2, side);
+            ps.setString(3, cropName);
+            ps.setDouble(4, quantityKg);
+            try (ResultSet rs = ps.executeQuery()) {
+                count = rs.next() ? rs.getLong(1) : 1;
+            }
+        }
+
+        String topColumn = SIDE_SOLD.equals(side) ? "most_sold_crop" : "most_bought_crop";
+
+        // Compare against the current top crop's counter (primary key lookups only)
+        String currentTop = null;
+        long topCount = 0;
+        try (PreparedStatement ps = conn.prepareStatement(
+            "SELECT u." + topColumn + ", s.order_count FROM users u " +
+            "LEFT JOIN user_crop_stats s ON s.user_id = u.id AND s.side = ? AND s.crop_name = u." + topColumn + " " +
+            "WHERE u.id = ?")) {
+            ps.setString(1, side);
+            ps.setInt(2, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    currentTop = rs.getString(1);
+                    topCount = rs.getLong(2);
+                }
+            }
+        }
+
+        if (!cropName.equals(currentTop) && count > topCount) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE users SET " + topColumn + " = ? WHERE id = ?")) {
+                ps.setString(1, cropName);
+                ps.setInt(2, userId);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    // ==================== REPAIR ====================
+
+    /**
+     * Recompute one user's statistics (both roles) from orders and reviews
+     */
+    public static void rebuildUserStatistics(Connection conn, int userId) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(
+            "DELETE FROM user_crop_stats WHERE user_id = ?")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(
+            "INSERT INTO user_crop_stats (user_id, side, crop_name, order_count, quantity_kg) " +
+            "SELECT c.farmer_id, 'sold', c.name, COUNT(*), COALESCE(SUM(o.quantity_kg), 0) " +
+            "FROM orders o JOIN crops c ON o.crop_id = c.id " +
+            "WHERE c.farmer_id = ? AND o.status IN ('delivered', 'completed') AND c.name IS NOT NULL " +
+            "GROUP BY c.farmer_id, c.name")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+            "INSERT INTO user_crop_stats (user_id, side, crop_name, order_count, quantity_kg) " +
+            "SELECT o.buyer_id, 'bought', c.name, COUNT(*), COALESCE(SUM(o.quantity_kg), 0) " +
+            "FROM orders o JOIN crops c ON o.crop_id = c.id " +
+            "WHERE o.buyer_id = ? AND o.status IN ('delivered', 'completed') AND c.name IS NOT NULL " +
+            "GROUP BY o.buyer_id, c.name")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(
+            "UPDATE users SET " +
+            "total_accepted_orders = (SELECT COUNT(*) FROM orders o JOIN crops c ON o.crop_id = c.id " +
+            "    WHERE c.farmer_id = users.id AND o.status IN ('delivered', 'completed')), " +
+            "total_income = (SELECT COALESCE(SUM(o.total_amount), 0.0) FROM orders o JOIN crops c ON o.crop_id = c.id " +
+            "    WHERE c.farmer_id = users.id AND o.status IN ('delivered', 'completed')), " +
+            "total_buyer_orders = (SELECT COUNT(*) FROM orders " +
+            "    WHERE buyer_id = users.id AND status IN ('delivered', 'completed')), " +
+            "total_expense = (SELECT COALESCE(SUM(total_amount), 0.0) FROM orders " +
+            "    WHERE buyer_id = users.id AND status IN ('delivered', 'completed')), " +
+            "most_sold_crop = (SELECT crop_name FROM user_crop_stats " +
+            "    WHERE user_id = users.id AND side = 'sold' ORDER BY order_count DESC LIMIT 1), " +
+            "most_bought_crop = (SELECT crop_name FROM user_crop_stats " +
+            "    WHERE user_id = users.id AND side = 'bought' ORDER BY order_count DESC LIMIT 1), " +
+            "rating = (SELECT COALESCE(AVG(rating), 0.0) FROM reviews WHERE reviewee_id = users.id), " +
+            "rating_count = (SELECT COUNT(*) FROM reviews WHERE reviewee_id = users.id) " +
+            "WHERE id = ?")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Recompute statistics for every user (see StatisticsRebuildJob); returns the number of users rebuilt
+     */
+    public static int rebuildAll(Connection conn) throws Exception {
+        return new StatisticsRebuildJob(conn).run();
+    }
+}
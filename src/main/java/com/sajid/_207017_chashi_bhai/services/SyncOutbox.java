@@ -0,0 +1,529 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * SyncOutbox - Durable queue for every write we send to Firestore
+ *
+ * Writes are stored in the sync_outbox table before anything goes on the wire,
+ * so nothing is lost if the network is down or the app is closed. A single
+ * drainer thread sends them with Firestore's batchWrite endpoint:
+ * - highest priority first (chat > orders > notifications > photos)
+ * - repeated writes to the same document (and field mask) are coalesced into one row
+ * - only the oldest pending row of a document is sent; batchWrite does not apply
+ *   writes in order, so a later write of the same document waits for the next batch
+ * - at most MAX_BATCH_WRITES / MAX_BATCH_BYTES per request and one request every
+ *   MIN_BATCH_INTERVAL_MS, so a reconnect drains at a steady rate
+ * - failed writes back off with jitter and are parked as 'dead' after MAX_ATTEMPTS
+ */
+public class SyncOutbox {
+    private static SyncOutbox instance;
+
+    private static final String DB_URL = "jdbc:sqlite:data/chashi_bhai.db";
+
+    // Flow control
+    private static final int MAX_BATCH_WRITES = 20;
+    private static final int MAX_BATCH_BYTES = 2 * 1024 * 1024;
+    private static final long MIN_BATCH_INTERVAL_MS = 500;
+    private static final long IDLE_WAIT_MS = 30_000;
+
+    // Retry policy
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BASE_RETRY_MS = 2_000;
+    private static final long MAX_RETRY_MS = 30 * 60_000;
+    // google.rpc.Code values worth retrying: UNKNOWN, DEADLINE_EXCEEDED, RESOURCE_EXHAUSTED, ABORTED, INTERNAL, UNAVAILABLE
+    private static final Set<Integer> RETRYABLE_CODES = Set.of(2, 4, 8, 10, 13, 14);
+
+    /**
+     * Priority classes; lower value is sent first
+     */
+    public enum Priority {
+        CHAT(0),
+        ORDERS(1),        // orders and the other business records (users, crops)
+        NOTIFICATIONS(2),
+        PHOTOS(3);
+
+        final int value;
+
+        Priority(int value) {
+            this.value = value;
+        }
+    }
+
+    private final FirebaseService firebaseService;
+    private final HttpTransport transport;
+
+    // Completion callbacks are in memory only; rows resumed after a restart just sync silently
+    private final Map<String, List<Consumer<Boolean>>> listeners = new ConcurrentHashMap<>();
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private volatile boolean running;
+    private Thread drainer;
+
+    private SyncOutbox() {
+        this.firebaseService = FirebaseService.getInstance();
+        this.transport = HttpTransport.getInstance();
+    }
+
+    public static synchronized SyncOutbox getInstance() {
+        if (instance == null) {
+            instance = new SyncOutbox();
+        }
+        return instance;
+    }
+
+    // ==================== ENQUEUE ====================
+
+    /**
+     * Queue a merge-style write of the given fields (creates the document if missing).
+     * onResult (may be null) gets true once the write reached Firestore, false if it was given up.
+     */
+    public void enqueueUpsert(Priority priority, String documentPath, String fieldsJson,
+                              List<String> fieldMask, Consumer<Boolean> onResult) {
+        enqueueUpsert(priority, documentPath, fieldsJson, fieldMask, List.of(), onResult);
+    }
+
+    /**
+     * Same as above, and also stamps serverTimeFields with Firestore's request time
+     */
+    public void enqueueUpsert(Priority priority, String documentPath, String fieldsJson,
+                              List<String> fieldMask, List<String> serverTimeFields, Consumer<Boolean> onResult) {
+        String key = documentPath + "|" + String.join(",", fieldMask);
+        enqueue(key, onResult, upsertWork(key, priority, documentPath, fieldsJson, fieldMask, serverTimeFields));
+    }
+
+    /**
+     * Queue an upsert inside the caller's transaction (so it commits or rolls back with
+     * the caller's own changes). Call wake() after the commit.
+     */
+    public void enqueueUpsert(Connection conn, Priority priority, String documentPath, String fieldsJson,
+                              List<String> fieldMask, List<String> serverTimeFields) throws SQLException {
+        String key = documentPath + "|" + String.join(",", fieldMask);
+        upsertWork(key, priority, documentPath, fieldsJson, fieldMask, serverTimeFields).run(conn);
+    }
+
+    private static SqlWork upsertWork(String key, Priority priority, String documentPath, String fieldsJson,
+                                      List<String> fieldMask, List<String> serverTimeFields) {
+        String mask = String.join(",", fieldMask);
+        String serverTime = serverTimeFields.isEmpty() ? null : String.join(",", serverTimeFields);
+        String sql = "INSERT INTO sync_outbox (coalesce_key, priority, document_path, operation, fields_json, field_mask, server_time_fields) " +
+                     "VALUES (?, ?, ?, 'upsert', ?, ?, ?) " +
+                     "ON CONFLICT(coalesce_key) DO UPDATE SET " +
+                     "priority = MIN(priority, excluded.priority), operation = 'upsert', " +
+                     "fields_json = excluded.fields_json, server_time_fields = excluded.server_time_fields, " +
+                     "revision = revision + 1, attempts = 0, " +
+                     "next_attempt_at = 0, state = 'pending', last_error = NULL, updated_at = CURRENT_TIMESTAMP";
+        return conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, key);
+                stmt.setInt(2, priority.value);
+                stmt.setString(3, documentPath);
+                stmt.setString(4, fieldsJson);
+                stmt.setString(5, mask);
+                stmt.setString(6, serverTime);
+                stmt.executeUpdate();
+            }
+            return List.of();
+        };
+    }
+
+    /**
+     * Queue a document delete; pending upserts of the same document are dropped and
+     * their listeners get true (the delete supersedes them)
+     */
+    public void enqueueDelete(Priority priority, String documentPath, Consumer<Boolean> onResult) {
+        String key = documentPath + "|*";
+        enqueue(key, onResult, conn -> {
+            List<String> superseded = new ArrayList<>();
+            try (PreparedStatement pending = conn.prepareStatement(
+                    "SELECT coalesce_key FROM sync_outbox WHERE document_path = ? AND operation = 'upsert'");
+                 PreparedStatement drop = conn.prepareStatement(
+                    "DELETE FROM sync_outbox WHERE document_path = ? AND operation = 'upsert'");
+                 PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO sync_outbox (coalesce_key, priority, document_path, operation) VALUES (?, ?, ?, 'delete') " +
+                    "ON CONFLICT(coalesce_key) DO UPDATE SET priority = MIN(priority, excluded.priority), " +
+                    "revision = revision + 1, attempts = 0, next_attempt_at = 0, state = 'pending', " +
+                    "last_error = NULL, updated_at = CURRENT_TIMESTAMP")) {
+                pending.setString(1, documentPath);
+                try (ResultSet rs = pending.executeQuery()) {
+                    while (rs.next()) {
+                        superseded.add(rs.getString(1));
+                    }
+                }
+                drop.setString(1, documentPath);
+                drop.executeUpdate();
+                stmt.setString(1, key);
+                stmt.setInt(2, priority.value);
+                stmt.setString(3, documentPath);
+                stmt.executeUpdate();
+            }
+            return superseded;
+        });
+    }
+
+    /**
+     * Writes the queued row(s); returns the keys of rows it replaced, whose listeners are
+     * notified once the change is committed
+     */
+    private interface SqlWork {
+        List<String> run(Connection conn) throws SQLException;
+    }
+
+    private void enqueue(String key, Consumer<Boolean> onResult, SqlWork work) {
+        if (onResult != null) {
+            listeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(onResult);
+        }
+        DatabaseService.dbExecutor.submit(() -> {
+            try (Connection conn = DriverManager.getConnection(DB_URL)) {
+                conn.setAutoCommit(false);
+                List<String> superseded = work.run(conn);
+                conn.commit();
+                wakeUp.release();
+                for (String replaced : superseded) {
+                    notifyListeners(replaced, true);
+                }
+            } catch (SQLException e) {
+                System.err.println("❌ Could not queue Firestore write " + key + ": " + e.getMessage());
+                notifyListeners(key, false);
+            }
+        });
+    }
+
+    // ==================== DRAINING ====================
+
+    /**
+     * Start the drainer; rows left over from a previous run are picked up automatically
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        drainer = Thread.ofVirtual().name("SyncOutbox").start(this::drainLoop);
+        System.out.println("📤 Sync outbox started");
+    }
+
+    /**
+     * Nudge the drainer (e.g. after login or when the network comes back)
+     */
+    public void wake() {
+        wakeUp.release();
+    }
+
+    public synchronized void shutdown() {
+        running = false;
+        if (drainer != null) {
+            drainer.interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                if (!firebaseService.isAuthenticated()) {
+                    waitForWork(IDLE_WAIT_MS);
+                    continue;
+                }
+
+                List<Entry> batch = loadDueBatch();
+                if (batch.isEmpty()) {
+                    waitForWork(millisUntilNextDue());
+                    continue;
+                }
+
+                flush(batch);
+                Thread.sleep(MIN_BATCH_INTERVAL_MS);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("❌ Sync outbox error: " + e.getMessage());
+                try {
+                    Thread.sleep(BASE_RETRY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void waitForWork(long millis) throws InterruptedException {
+        wakeUp.tryAcquire(Math.max(1, millis), TimeUnit.MILLISECONDS);
+        wakeUp.drainPermits();
+    }
+
+    private static final class Entry {
+        long id;
+        long revision;
+        String key;
+        String documentPath;
+        String operation;
+        String fieldsJson;
+        String fieldMask;
+        String serverTimeFields;
+        int attempts;
+    }
+
+    private List<Entry> loadDueBatch() throws Exception {
+        return DatabaseService.dbExecutor.submit(() -> {
+            List<Entry> batch = new ArrayList<>();
+            // One write per document: skip rows that have an older pending row for the same path
+            String sql = "SELECT id, revision, coalesce_key, document_path, operation, fields_json, field_mask, server_time_fields, attempts " +
+                         "FROM sync_outbox o WHERE state = 'pending' AND next_attempt_at <= ? " +
+                         "AND NOT EXISTS (SELECT 1 FROM sync_outbox older WHERE older.document_path = o.document_path " +
+                         "AND older.state = 'pending' AND older.id < o.id) " +
+                         "ORDER BY priority, id LIMIT ?";
+            try (Connection conn = DriverManager.getConnection(DB_URL);
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, System.currentTimeMillis());
+                stmt.setInt(2, MAX_BATCH_WRITES);
+                ResultSet rs = stmt.executeQuery();
+                int bytes = 0;
+                while (rs.next()) {
+                    Entry e = new Entry();
+                    e.id = rs.getLong("id");
+                    e.revision = rs.getLong("revision");
+                    e.key = rs.getString("coalesce_key");
+                    e.documentPath = rs.getString("document_path");
+                    e.operation = rs.getString("operation");
+                    e.fieldsJson = rs.getString("fields_json");
+                    e.fieldMask = rs.getString("field_mask");
+                    e.serverTimeFields = rs.getString("server_time_fields");
+                    e.attempts = rs.getInt("attempts");
+
+                    // Keep large photo batches under the byte budget (always send at least one)
+                    int size = e.fieldsJson != null ? e.fieldsJson.length() : 0;
+                    if (!batch.isEmpty() && bytes + size > MAX_BATCH_BYTES) {
+                        break;
+                    }
+                    bytes += size;
+                    batch.add(e);
+                }
+            }
+            return batch;
+        }).get();
+    }
+
+    private long millisUntilNextDue() throws Exception {
+        return DatabaseService.dbExecutor.submit(() -> {
+            try (Connection conn = DriverManager.getConnection(DB_URL);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(next_attempt_at) FROM sync_outbox WHERE state = 'pending'")) {
+                if (rs.next() && rs.getObject(1) != null) {
+                    return Math.min(IDLE_WAIT_MS, rs.getLong(1) - System.currentTimeMillis());
+                }
+                return IDLE_WAIT_MS;
+            }
+        }).get();
+    }
+
+    /**
+     * Send one batchWrite and record the per-write outcome
+     */
+    private void flush(List<Entry> batch) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(FirebaseConfig.getDocumentsUrl() + ":batchWrite"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(buildBatchWrite(batch)))
+            .build();
+
+        HttpResponse<String> response;
+        try {
+            response = transport.send(request);
+        } catch (IOException e) {
+            recordFailures(batch, "IO: " + e.getMessage(), true);
+            return;
+        }
+
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            // 400 means the whole request was rejected; anything else (auth, quota, 5xx) is transient
+            boolean retryable = response.statusCode() != 400;
+            recordFailures(batch, "HTTP " + response.statusCode() + ": " + response.body(), retryable);
+            return;
+        }
+
+        JsonObject body = JsonParser.parseString(response.body()).getAsJsonObject();
+        JsonArray statuses = body.has("status") ? body.getAsJsonArray("status") : new JsonArray();
+
+        List<Entry> done = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int code = 0;
+            String message = null;
+            if (i < statuses.size() && statuses.get(i).isJsonObject()) {
+                JsonObject status = statuses.get(i).getAsJsonObject();
+                JsonElement c = status.get("code");
+                code = c != null ? c.getAsInt() : 0;
+                message = status.has("message") ? status.get("message").getAsString() : null;
+            }
+            Entry entry = batch.get(i);
+            if (code == 0 || ("delete".equals(entry.operation) && code == 5)) {
+                done.add(entry);
+            } else {
+                recordFailures(List.of(entry), "code " + code + ": " + message, RETRYABLE_CODES.contains(code));
+            }
+        }
+
+        recordSuccesses(done);
+        System.out.println("📤 Outbox flushed " + done.size() + "/" + batch.size() + " writes");
+    }
+
+    private String buildBatchWrite(List<Entry> batch) throws IOException {
+        // Read per request: the root names the project, and FIREBASE_PROJECT_ID may be set after class init
+        String documentsRoot = FirebaseConfig.getDocumentsRoot();
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name("writes").beginArray();
+            for (Entry entry : batch) {
+                String name = documentsRoot + "/" + entry.documentPath;
+                writer.beginObject();
+                if ("delete".equals(entry.operation)) {
+                    writer.name("delete").value(name);
+                } else {
+                    writer.name("update").beginObject();
+                    writer.name("name").value(name);
+                    writer.name("fields").jsonValue(entry.fieldsJson);
+                    writer.endObject();
+                    writer.name("updateMask").beginObject();
+                    writer.name("fieldPaths").beginArray();
+                    for (String field : entry.fieldMask.split(",")) {
+                        if (!field.isEmpty()) writer.value(field);
+                    }
+                    writer.endArray();
+                    writer.endObject();
+                    if (entry.serverTimeFields != null && !entry.serverTimeFields.isEmpty()) {
+                        writer.name("updateTransforms").beginArray();
+                        for (String field : entry.serverTimeFields.split(",")) {
+                            writer.beginObject();
+                            writer.name("fieldPath").value(field);
+                            writer.name("setToServerValue").value("REQUEST_TIME");
+                            writer.endObject();
+                        }
+                        writer.endArray();
+                    }
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        return out.toString();
+    }
+
+    private void recordSuccesses(List<Entry> done) throws Exception {
+        if (done.isEmpty()) return;
+        List<String> completed = DatabaseService.dbExecutor.submit(() -> {
+            List<String> keys = new ArrayList<>();
+            // Only remove the row if nobody coalesced a newer write into it meanwhile
+            try (Connection conn = DriverManager.getConnection(DB_URL);
+                 PreparedStatement stmt = conn.prepareStatement("DELETE FROM sync_outbox WHERE id = ? AND revision = ?")) {
+                conn.setAutoCommit(false);
+                for (Entry entry : done) {
+                    stmt.setLong(1, entry.id);
+                    stmt.setLong(2, entry.revision);
+                    if (stmt.executeUpdate() > 0) {
+                        keys.add(entry.key);
+                    }
+                }
+                conn.commit();
+            }
+            return keys;
+        }).get();
+
+        for (String key : completed) {
+            notifyListeners(key, true);
+        }
+    }
+
+    private void recordFailures(List<Entry> failed, String error, boolean retryable) throws Exception {
+        List<String> givenUp = DatabaseService.dbExecutor.submit(() -> {
+            List<String> keys = new ArrayList<>();
+            String sql = "UPDATE sync_outbox SET attempts = attempts + 1, next_attempt_at = ?, state = ?, " +
+                         "last_error = ? WHERE id = ? AND revision = ?";
+            try (Connection conn = DriverManager.getConnection(DB_URL);
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                conn.setAutoCommit(false);
+                for (Entry entry : failed) {
+                    int attempts = entry.attempts + 1;
+                    boolean dead = !retryable || attempts >= MAX_ATTEMPTS;
+                    stmt.setLong(1, System.currentTimeMillis() + retryDelayMillis(attempts));
+                    stmt.setString(2, dead ? "dead" : "pending");
+                    stmt.setString(3, error);
+                    stmt.setLong(4, entry.id);
+                    stmt.setLong(5, entry.revision);
+                    if (stmt.executeUpdate() > 0 && dead) {
+                        keys.add(entry.key);
+                    }
+                }
+                conn.commit();
+            }
+            return keys;
+        }).get();
+
+        System.err.println("⚠️ Outbox write failed (" + failed.size() + " entries): " + error);
+        for (String key : givenUp) {
+            System.err.println("❌ Giving up on Firestore write " + key);
+            notifyListeners(key, false);
+        }
+    }
+
+    private static long retryDelayMillis(int attempts) {
+        long cap = Math.min(MAX_RETRY_MS, BASE_RETRY_MS << Math.min(attempts, 20));
+        return ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+    }
+
+    private void notifyListeners(String key, boolean synced) {
+        List<Consumer<Boolean>> callbacks = listeners.remove(key);
+        if (callbacks == null) return;
+        for (Consumer<Boolean> callback : callbacks) {
+            try {
+                callback.accept(synced);
+            } catch (Exception e) {
+                System.err.println("Outbox callback error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Put parked ('dead') writes back in the queue, e.g. after fixing a rules problem
+     */
+    public void retryDead() {
+        DatabaseService.executeUpdateAsync(
+            "UPDATE sync_outbox SET state = 'pending', attempts = 0, next_attempt_at = 0 WHERE state = 'dead'",
+            new Object[]{},
+            rows -> {
+                System.out.println("📤 Re-queued " + rows + " parked writes");
+                wakeUp.release();
+            },
+            error -> System.err.println("Error re-queuing parked writes: " + error.getMessage())
+        );
+    }
+}
@@ -0,0 +1,186 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * UnreadCounters - Unread badges without COUNT(*) queries
+ *
+ * - Authoritative counts live in user_unread_counters (per user) and conversation_unread
+ *   (per user + conversation). Triggers on notifications/messages keep them in step inside
+ *   the same transaction as the insert / mark-read / delete.
+ * - This class caches each user's notification total in memory: one primary-key read the
+ *   first time, then exact deltas reported by the writers. Badges bind to the JavaFX property
+ *   and update as soon as a write commits; DataChangeEvents NOTIFICATIONS fires as well.
+ * - Chat unread counts have no in-memory copy: messages are written from several places
+ *   (sends, ChatService sync), so the chat list reads them through user_inbox, which the
+ *   triggers keep exact.
+ *
+ * Writers call the adjust/reload methods from the DB thread after their commit.
+ */
+public class UnreadCounters {
+    private static UnreadCounters instance;
+
+    public enum Kind {
+        NOTIFICATIONS("notifications", DataChangeEvents.Topic.NOTIFICATIONS);
+
+        final String column;
+        final DataChangeEvents.Topic topic;
+
+        Kind(String column, DataChangeEvents.Topic topic) {
+            this.column = column;
+            this.topic = topic;
+        }
+    }
+
+    private static final class Counter {
+        final AtomicInteger value = new AtomicInteger();
+        final ReadOnlyIntegerWrapper property = new ReadOnlyIntegerWrapper();
+        volatile boolean loaded;
+    }
+
+    private final Map<Kind, Map<Integer, Counter>> counters = new ConcurrentHashMap<>();
+
+    private UnreadCounters() {
+        for (Kind kind : Kind.values()) {
+            counters.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    public static synchronized UnreadCounters getInstance() {
+        if (instance == null) {
+            instance = new UnreadCounters();
+        }
+        return instance;
+    }
+
+    // ==================== READ ====================
+
+    /**
+     * Live unread count for binding (FX thread); loaded on first use
+     */
+    public ReadOnlyIntegerProperty property(Kind kind, int userId) {
+        return counter(kind, userId).property.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty notificationsProperty(int userId) {
+        return property(Kind.NOTIFICATIONS, userId);
+    }
+
+    /**
+     * One-shot read; onSuccess runs on the JavaFX thread
+     */
+    public void get(Kind kind, int userId, Consumer<Integer> onSuccess) {
+        Counter counter = counters.get(kind).get(userId);
+        if (counter != null && counter.loaded) {
+            int value = counter.value.get();
+            Platform.runLater(() -> onSuccess.accept(value));
+        } else {
+            load(kind, userId, onSuccess);
+        }
+    }
+
+    private Counter counter(Kind kind, int userId) {
+        Counter counter = counters.get(kind).computeIfAbsent(userId, id -> new Counter());
+        if (!counter.loaded) {
+            reload(kind, userId);
+        }
+        return counter;
+    }
+
+    // ==================== UPDATE (DB THREAD, AFTER COMMIT) ====================
+
+    /**
+     * Apply a known change (e.g. +1 for a new notification, -rows for mark-all-read)
+     */
+    public void adjust(Kind kind, int userId, int delta) {
+        Counter counter = counters.get(kind).get(userId);
+        // Not loaded yet: the pending primary-key read will see the committed value
+        if (counter != null && counter.loaded && delta != 0) {
+            publish(kind, userId, counter, counter.value.updateAndGet(v -> Math.max(0, v + delta)));
+        }
+    }
+
+    /**
+     * Re-read one user's counter (after writes whose effect isn't known, e.g. sync merges)
+     */
+    public void reload(Kind kind, int userId) {
+        load(kind, userId, null);
+    }
+
+    private void load(Kind kind, int userId, Consumer<Integer> onLoaded) {
+        DatabaseService.executeQueryAsync(
+            "SELECT " + kind.column + " FROM user_unread_counters WHERE user_id = ?",
+            new Object[]{userId},
+            rs -> {
+                try {
+                    int value = rs.next() ? rs.getInt(1) : 0;
+                    Counter counter = counters.get(kind).computeIfAbsent(userId, id -> new Counter());
+                    counter.value.set(value);
+                    counter.loaded = true;
+                    publish(kind, userId, counter, value);
+                    if (onLoaded != null) Platform.runLater(() -> onLoaded.accept(value));
+                } catch (Exception e) {
+                    System.err.println("Error loading unread counter: " + e.getMessage());
+                    if (onLoaded != null) Platform.runLater(() -> onLoaded.accept(0));
+                }
+            },
+            error -> {
+                System.err.println("Error loading unread counter: " + error.getMessage());
+                if (onLoaded != null) Platform.runLater(() -> onLoaded.accept(0));
+            }
+        );
+    }
+
+    /**
+     * Re-read every cached counter of this kind (after bulk deletes)
+     */
+    public void reloadAll(Kind kind) {
+        for (Integer userId : counters.get(kind).keySet()) {
+            reload(kind, userId);
+        }
+    }
+
+    private static void publish(Kind kind, int userId, Counter counter, int value) {
+        Platform.runLater(() -> counter.property.set(value));
+        DataChangeEvents.getInstance().publish(kind.topic, userId);
+    }
+
+    // ==================== REPAIR ====================
+
+    /**
+     * Recompute all counters from notifications/messages (first run or repair)
+     */
+    public static void rebuild(Connection conn) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM user_unread_counters");
+            stmt.executeUpdate("DELETE FROM conversation_unread");
+            stmt.executeUpdate(
+                "INSERT INTO user_unread_counters (user_id, notifications) " +
+                "SELECT user_id, COUNT(*) FROM notifications WHERE is_read = 0 GROUP BY user_id");
+            try {
+                stmt.executeUpdate(
+                    "INSERT INTO conversation_unread (user_id, conversation_id, unread) " +
+                    "SELECT receiver_id, conversation_id, COUNT(*) FROM messages WHERE is_read = 0 " +
+                    "GROUP BY receiver_id, conversation_id");
+            } catch (SQLException e) {
+                // messages created by an older chat schema without receiver_id
+                System.err.println("Chat unread counters not seeded: " + e.getMessage());
+                return;
+            }
+            stmt.executeUpdate(
+                "INSERT INTO user_unread_counters (user_id, chat_messages) " +
+                "SELECT user_id, SUM(unread) FROM conversation_unread WHERE true GROUP BY user_id " +
+                "ON CONFLICT(user_id) DO UPDATE SET chat_messages = excluded.chat_messages");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * WriteBatcher - Group commit for small, independent writes
+ *
+ * - Writes submitted within WINDOW_MS of each other are run in ONE transaction on the DB thread.
+ * - insert(): the SQL ends with "RETURNING id" and the new key is handed straight back
+ *   (no follow-up "SELECT latest" query).
+ * - update(): any INSERT/UPDATE/DELETE, including "INSERT ... ON CONFLICT DO UPDATE" upserts.
+ * - updateReturning(): an UPDATE ... RETURNING <column>; gets null when no row matched.
+ * - If the group fails, it is rolled back and each write is retried on its own, so one bad
+ *   statement only fails its own caller.
+ *
+ * Callbacks run on the DB thread (same as DatabaseService.executeUpdateAsync).
+ */
+public class WriteBatcher {
+    private static WriteBatcher instance;
+
+    private static final long WINDOW_MS = 4;
+    private static final int MAX_GROUP = 500;
+
+    private final ConcurrentLinkedQueue<Write> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName("WriteBatcher");
+        return thread;
+    });
+
+    private WriteBatcher() {}
+
+    public static synchronized WriteBatcher getInstance() {
+        if (instance == null) {
+            instance = new WriteBatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Queue an INSERT ... RETURNING id; onKey receives the generated id
+     */
+    public void insert(String sql, Object[] params, Consumer<Long> onKey, Consumer<Exception> onError) {
+        submit(new Write(sql, params, true, onKey, null, onError));
+    }
+
+    /**
+     * Queue an INSERT/UPDATE/DELETE (or upsert); onRows receives the affected row count
+     */
+    public void update(String sql, Object[] params, Consumer<Integer> onRows, Consumer<Exception> onError) {
+        submit(new Write(sql, params, false, null, onRows, onError));
+    }
+
+    /**
+     * Queue an UPDATE ... RETURNING <one integer column>; onValue gets null if no row matched
+     */
+    public void updateReturning(String sql, Object[] params, Consumer<Long> onValue, Consumer<Exception> onError) {
+        submit(new Write(sql, params, true, onValue, null, onError));
+    }
+
+    private void submit(Write write) {
+        pending.add(write);
+        if (flushScheduled.compareAndSet(false, true)) {
+            timer.schedule(() -> DatabaseService.dbExecutor.submit(this::flush), WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ==================== FLUSH (DB THREAD) ====================
+
+    private void flush() {
+        flushScheduled.set(false);
+        while (!pending.isEmpty()) {
+            List<Write> group = new ArrayList<>();
+            Write write;
+            while (group.size() < MAX_GROUP && (write = pending.poll()) != null) {
+                group.add(write);
+            }
+            runGroup(group);
+        }
+    }
+
+    private void runGroup(List<Write> group) {
+        try (Connection conn = DatabaseService.getConnection()) {
+            conn.setAutoCommit(false);
+            Object[] results = new Object[group.size()];
+            try {
+                for (int i = 0; i < group.size(); i++) {
+                    results[i] = run(conn, group.get(i));
+                }
+                conn.commit();
+            } catch (Exception e) {
+                try {
+                    conn.rollback();
+                } catch (Exception ignored) {
+                    // ignore rollback failures
+                }
+                conn.setAutoCommit(true);
+                if (group.size() > 1) {
+                    System.err.println("⚠️ Write group of " + group.size() + " failed, retrying individually: " + e.getMessage());
+                }
+                for (Write w : group) {
+                    try {
+                        w.succeed(run(conn, w));
+                    } catch (Exception single) {
+                        w.fail(single);
+                    }
+                }
+                return;
+            }
+            conn.setAutoCommit(true);
+
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).succeed(results[i]);
+            }
+        } catch (Exception e) {
+            System.err.println("Write group error: " + e.getMessage());
+            for (Write w : group) {
+                w.fail(e);
+            }
+        }
+    }
+
+    private static Object run(Connection conn, Write write) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(write.sql)) {
+            if (write.params != null) {
+                for (int i = 0; i < write.params.length; i++) {
+                    ps.setObject(i + 1, write.params[i]);
+                }
+            }
+            if (!write.returnsKey) {
+                return ps.executeUpdate();
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private static final class Write {
+        final String sql;
+        final Object[] params;
+        final boolean returnsKey;
+        final Consumer<Long> onKey;
+        final Consumer<Integer> onRows;
+        final Consumer<Exception> onError;
+
+        Write(String sql, Object[] params, boolean returnsKey,
+              Consumer<Long> onKey, Consumer<Integer> onRows, Consumer<Exception> onError) {
+            this.sql = sql;
+            this.params = params;
+            this.returnsKey = returnsKey;
+            this.onKey = onKey;
+            this.onRows = onRows;
+            this.onError = onError;
+        }
+
+        void succeed(Object result) {
+            try {
+                if (returnsKey) {
+                    if (onKey != null) onKey.accept((Long) result);
+                } else if (onRows != null) {
+                    onRows.accept((Integer) result);
+                }
+            } catch (Exception e) {
+                System.err.println("Write callback error: " + e.getMessage());
+            }
+        }
+
+        void fail(Exception e) {
+            if (onError != null) {
+                try {
+                    onError.accept(e);
+                } catch (Exception ignored) {
+                    // callback errors must not break the rest of the group
+                }
+            }
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class DataSyncManager {
     private static final int PROFILE_POLL_INTERVAL = 30;
     private static final int ORDERS_POLL_INTERVAL = 15;
     private static final int CROPS_POLL_INTERVAL = 60;
+    private static final int CHAT_POLL_INTERVAL = 5;
     
     // Retry settings
     private static final int MAX_RETRIES = 3;
@@ -36,7 +37,8 @@ public class DataSyncManager {
     private volatile long lastSuccessfulQuery = System.currentTimeMillis();
 
     private DataSyncManager() {
-        scheduler = Executors.newScheduledThreadPool(3, r -> {
+        // Only timing happens here (UI refresh and DB retries are handed off), so one thread is enough
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "DataSyncManager-Thread");
             t.setDaemon(true);
             return t;
@@ -152,6 +154,13 @@ public class DataSyncManager {
         startPolling("crop_feed", onRefresh, CROPS_POLL_INTERVAL);
     }
 
+    /**
+     * Start polling for new messages of an open conversation
+     */
+    public void startChatSync(int conversationId, Runnable onRefresh) {
+        startPolling("chat_" + conversationId, onRefresh, CHAT_POLL_INTERVAL);
+    }
+
     /**
      * Check if data is stale (older than threshold)
      */
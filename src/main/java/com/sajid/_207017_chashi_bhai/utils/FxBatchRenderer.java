@@ -0,0 +1,125 @@
+package com.sajid._207017_chashi_bhai.utils;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * FxBatchRenderer - Adds prepared items to the scene a few at a time
+ *
+ * - The first screenful after reset() is placed at once so the view is never empty
+ * - Everything else is placed from an AnimationTimer, at most budgetMillis of work per pulse
+ *   (and at least one item), so input and layout keep running between batches
+ * - Items can arrive in chunks (e.g. as worker threads finish preparing them); reset()
+ *   drops whatever has not been placed yet
+ *
+ * FX thread only.
+ */
+public final class FxBatchRenderer<T> {
+
+    interface Pulses {
+        void start(Runnable onPulse);
+
+        void stop();
+    }
+
+    private final int immediate;
+    private final long budgetNanos;
+    private final Consumer<T> place;
+    private final Pulses pulses;
+    private final ArrayDeque<T> queue = new ArrayDeque<>();
+    private int placedSinceReset;
+    private boolean pulsing;
+
+    /**
+     * @param immediate   items placed right away after a reset (the first screenful)
+     * @param budgetMillis time allowed per pulse for the rest
+     * @param place        adds one item to the scene
+     */
+    public FxBatchRenderer(int immediate, long budgetMillis, Consumer<T> place) {
+        this(immediate, budgetMillis, place, new TimerPulses());
+    }
+
+    FxBatchRenderer(int immediate, long budgetMillis, Consumer<T> place, Pulses pulses) {
+        this.immediate = immediate;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.place = place;
+        this.pulses = pulses;
+    }
+
+    public void enqueue(Collection<? extends T> items) {
+        queue.addAll(items);
+        if (placedSinceReset < immediate) {
+            drain(immediate - placedSinceReset, Long.MAX_VALUE);
+        }
+        if (!queue.isEmpty() && !pulsing) {
+            pulsing = true;
+            pulses.start(this::onPulse);
+        }
+    }
+
+    /**
+     * Forget items not placed yet; the next enqueue() starts a new first screenful
+     */
+    public void reset() {
+        queue.clear();
+        placedSinceReset = 0;
+        stop();
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void onPulse() {
+        drain(Integer.MAX_VALUE, budgetNanos);
+        if (queue.isEmpty()) {
+            stop();
+        }
+    }
+
+    private void drain(int maxItems, long budget) {
+        long start = System.nanoTime();
+        int placed = 0;
+        while (!queue.isEmpty() && placed < maxItems) {
+            place.accept(queue.poll());
+            placed++;
+            placedSinceReset++;
+            if (System.nanoTime() - start >= budget) {
+                break;
+            }
+        }
+    }
+
+    private void stop() {
+        if (pulsing) {
+            pulsing = false;
+            pulses.stop();
+        }
+    }
+
+    private static final class TimerPulses implements Pulses {
+        private AnimationTimer timer;
+
+        @Override
+        public void start(Runnable onPulse) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    onPulse.run();
+                }
+            };
+            timer.start();
+        }
+
+        @Override
+        public void stop() {
+            if (timer != null) {
+                timer.stop();
+                timer = null;
+            }
+        }
+    }
+}
@@ -60,6 +60,30 @@ public class ImageBase64Util {
         }
     }
 
+    /**
+     * Convert Base64 string to a JavaFX Image decoded at the given size
+     * (safe to call off the FX thread; smaller than decoding at full size and scaling later)
+     *
+     * @param base64String Base64 encoded image string
+     * @param width Requested width
+     * @param height Requested height
+     * @return JavaFX Image object, or null if it cannot be decoded
+     */
+    public static Image base64ToImage(String base64String, double width, double height) {
+        if (base64String == null || base64String.isEmpty()) {
+            return null;
+        }
+
+        try {
+            byte[] imageBytes = Base64.getDecoder().decode(base64String);
+            Image image = new Image(new ByteArrayInputStream(imageBytes), width, height, false, true);
+            return image.isError() ? null : image;
+        } catch (Exception e) {
+            System.err.println("Error converting Base64 to Image: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Convert Base64 string to byte array
      * 
@@ -0,0 +1,199 @@
+package com.sajid._207017_chashi_bhai.utils;
+
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * KeyedNodeList - Keeps a container's children in step with a list of row models
+ *
+ * - Rows are matched by key (e.g. order id); a row's node is rebuilt only when its
+ *   version (e.g. updated_at) changed, otherwise the node already on screen is kept
+ * - Children are patched in place: gone rows are removed, new/changed rows are inserted
+ *   at their position, reordered rows are moved. A refresh where nothing changed
+ *   touches no node, so there is no relayout, no scroll jump and no garbage.
+ * - patchItems() does the same for the items of a ListView/TableView: unchanged rows keep
+ *   their model instance, so cells, selection and scroll position survive a refresh
+ *
+ * FX thread only.
+ */
+public final class KeyedNodeList<K, R> {
+
+    /**
+     * What one update did
+     */
+    public record Patch(int inserted, int removed, int changed, int moved) {
+        public boolean isEmpty() {
+            return inserted + removed + changed + moved == 0;
+        }
+    }
+
+    private record Entry(Object version, Node node) {}
+
+    private final List<Node> children;
+    private final Function<R, K> keyOf;
+    private final Function<R, ?> versionOf;
+    private final Function<R, Node> render;
+    private Map<K, Entry> entries = new HashMap<>();
+
+    public KeyedNodeList(Pane container, Function<R, K> keyOf, Function<R, ?> versionOf, Function<R, Node> render) {
+        this(container.getChildren(), keyOf, versionOf, render);
+    }
+
+    KeyedNodeList(List<Node> children, Function<R, K> keyOf, Function<R, ?> versionOf, Function<R, Node> render) {
+        this.children = children;
+        this.keyOf = keyOf;
+        this.versionOf = versionOf;
+        this.render = render;
+    }
+
+    /**
+     * Show exactly these rows, in this order
+     */
+    public Patch update(List<R> rows) {
+        Map<K, Entry> next = new HashMap<>(rows.size() * 2);
+        List<Node> desired = new ArrayList<>(rows.size());
+        int inserted = 0;
+        int changed = 0;
+
+        for (R row : rows) {
+            K key = keyOf.apply(row);
+            if (next.containsKey(key)) {
+                continue; // duplicate key: first one wins
+            }
+            Object version = versionOf.apply(row);
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                inserted++;
+                entry = new Entry(version, render.apply(row));
+            } else if (!Objects.equals(entry.version(), version)) {
+                changed++;
+                entry = new Entry(version, render.apply(row));
+            }
+            next.put(key, entry);
+            desired.add(entry.node());
+        }
+
+        int removed = 0;
+        for (K key : entries.keySet()) {
+            if (!next.containsKey(key)) removed++;
+        }
+
+        int moved = reconcile(children, desired);
+        entries = next;
+        return new Patch(inserted, removed, changed, moved);
+    }
+
+    /**
+     * Patch a list of row models (e.g. TableView items) in place. A row whose key and
+     * version match one already in the list keeps the existing instance.
+     */
+    public static <K, R> Patch patchItems(List<R> items, List<R> rows, Function<R, K> keyOf, Function<R, ?> versionOf) {
+        Map<K, R> current = new HashMap<>(items.size() * 2);
+        for (R item : items) {
+            current.putIfAbsent(keyOf.apply(item), item);
+        }
+
+        Set<K> seen = new HashSet<>(rows.size() * 2);
+        List<R> desired = new ArrayList<>(rows.size());
+        int inserted = 0;
+        int changed = 0;
+        for (R row : rows) {
+            K key = keyOf.apply(row);
+            if (!seen.add(key)) {
+                continue;
+            }
+            R existing = current.get(key);
+            if (existing == null) {
+                inserted++;
+                desired.add(row);
+            } else if (!Objects.equals(versionOf.apply(existing), versionOf.apply(row))) {
+                changed++;
+                desired.add(row);
+            } else {
+                desired.add(existing);
+            }
+        }
+
+        int removed = 0;
+        for (K key : current.keySet()) {
+            if (!seen.contains(key)) removed++;
+        }
+
+        int moved = reconcile(items, desired);
+        return new Patch(inserted, removed, changed, moved);
+    }
+
+    /**
+     * Node currently shown for a key, or null
+     */
+    public Node nodeFor(K key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.node() : null;
+    }
+
+    /**
+     * Keys currently shown
+     */
+    public Set<K> keys() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public void clear() {
+        entries = new HashMap<>();
+        children.clear();
+    }
+
+    /**
+     * Make target equal to desired (by identity) with few list operations:
+     * 1) one batch removal of elements no longer wanted, 2) insert/move only out-of-place ones.
+     * Returns how many elements were moved.
+     */
+    private static <T> int reconcile(List<T> target, List<T> desired) {
+        Set<T> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+        keep.addAll(desired);
+        List<T> stale = new ArrayList<>();
+        for (T element : target) {
+            if (!keep.contains(element)) stale.add(element);
+        }
+        if (!stale.isEmpty()) {
+            target.removeAll(stale);
+        }
+
+        int moved = 0;
+        for (int i = 0; i < desired.size(); i++) {
+            T element = desired.get(i);
+            if (i < target.size() && target.get(i) == element) {
+                continue;
+            }
+            int at = indexOf(target, element, i + 1);
+            if (at >= 0) {
+                target.remove(at);
+                moved++;
+            }
+            target.add(i, element);
+        }
+        return moved;
+    }
+
+    private static <T> int indexOf(List<T> list, T element, int from) {
+        for (int i = from; i < list.size(); i++) {
+            if (list.get(i) == element) return i;
+        }
+        return -1;
+    }
+}
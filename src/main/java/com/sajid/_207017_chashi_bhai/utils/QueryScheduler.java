@@ -0,0 +1,175 @@
+package com.sajid._207017_chashi_bhai.utils;
+
+import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import javafx.application.Platform;
+
+import java.sql.ResultSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * QueryScheduler - Debounced, latest-wins queries for search and filter controls
+ *
+ * - submit()/debounce() wait until the input has been quiet for a moment, so a burst of
+ *   keystrokes or combo changes ends up as one query
+ * - Every request gets a generation number; a newer one cancels the older one (skipped if it
+ *   is still queued on the DB thread, Statement.cancel() if it is running)
+ * - Results and errors reach the FX thread only if their generation is still the latest,
+ *   so a slow, superseded query can never overwrite newer results
+ *
+ * One scheduler per control group (e.g. one per screen); call cancel() when the view is hidden.
+ */
+public final class QueryScheduler {
+
+    public static final long DEFAULT_DEBOUNCE_MS = 250;
+
+    /**
+     * Reads the rows on the DB thread (the ResultSet is closed after the callback)
+     */
+    @FunctionalInterface
+    public interface RowReader<T> {
+        T read(ResultSet rs) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface Runner {
+        DatabaseService.QueryHandle run(String sql, Object[] params, Consumer<ResultSet> onSuccess, Consumer<Exception> onError);
+    }
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "QueryScheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long debounceMillis;
+    private final ScheduledExecutorService timer;
+    private final Executor ui;
+    private final Runner runner;
+
+    private long generation;
+    private ScheduledFuture<?> pending;
+    private DatabaseService.QueryHandle running;
+
+    public QueryScheduler() {
+        this(DEFAULT_DEBOUNCE_MS);
+    }
+
+    public QueryScheduler(long debounceMillis) {
+        this(debounceMillis, TIMER, Platform::runLater, DatabaseService::executeCancellableQueryAsync);
+    }
+
+    QueryScheduler(long debounceMillis, ScheduledExecutorService timer, Executor ui, Runner runner) {
+        this.debounceMillis = debounceMillis;
+        this.timer = timer;
+        this.ui = ui;
+        this.runner = runner;
+    }
+
+    /**
+     * Run a query once input has been quiet; supersedes everything submitted before
+     */
+    public <T> void submit(String sql, Object[] params, RowReader<T> reader,
+                           Consumer<T> onResult, Consumer<Exception> onError) {
+        long gen = supersede();
+        schedule(gen, () -> start(gen, sql, params, reader, onResult, onError));
+    }
+
+    /**
+     * Run a query right away (buttons, first load, polling); still supersedes older requests
+     */
+    public <T> void submitNow(String sql, Object[] params, RowReader<T> reader,
+                              Consumer<T> onResult, Consumer<Exception> onError) {
+        start(supersede(), sql, params, reader, onResult, onError);
+    }
+
+    /**
+     * Run an FX-thread action (e.g. filtering rows already in memory) once input has been quiet
+     */
+    public void debounce(Runnable action) {
+        long gen = supersede();
+        schedule(gen, () -> deliver(gen, action));
+    }
+
+    /**
+     * Drop whatever is pending or running; nothing submitted so far will reach the UI
+     */
+    public void cancel() {
+        supersede();
+    }
+
+    private synchronized long supersede() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        if (running != null) {
+            running.cancel();
+            running = null;
+        }
+        return generation;
+    }
+
+    private synchronized boolean isCurrent(long gen) {
+        return gen == generation;
+    }
+
+    private synchronized void schedule(long gen, Runnable task) {
+        if (gen == generation) {
+            pending = timer.schedule(task, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private <T> void start(long gen, String sql, Object[] params, RowReader<T> reader,
+                           Consumer<T> onResult, Consumer<Exception> onError) {
+        if (!isCurrent(gen)) {
+            return;
+        }
+        DatabaseService.QueryHandle handle = runner.run(sql, params,
+            rs -> {
+                if (!isCurrent(gen)) {
+                    return;
+                }
+                T result;
+                try {
+                    result = reader.read(rs);
+                } catch (Exception e) {
+                    fail(gen, onError, e);
+                    return;
+                }
+                deliver(gen, () -> onResult.accept(result));
+            },
+            error -> fail(gen, onError, error));
+
+        synchronized (this) {
+            if (gen == generation) {
+                running = handle;
+                return;
+            }
+        }
+        handle.cancel(); // superseded while it was being submitted
+    }
+
+    private void fail(long gen, Consumer<Exception> onError, Exception error) {
+        if (onError != null) {
+            deliver(gen, () -> onError.accept(error));
+        }
+    }
+
+    private void deliver(long gen, Runnable action) {
+        if (!isCurrent(gen)) {
+            return;
+        }
+        // Re-checked on the FX thread: a newer request may arrive while this waits in the queue
+        ui.execute(() -> {
+            if (isCurrent(gen)) {
+                action.run();
+            }
+        });
+    }
+}
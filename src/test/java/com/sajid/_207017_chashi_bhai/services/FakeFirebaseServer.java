@@ -0,0 +1,833 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FakeFirebaseServer - In-process stand-in for the Firestore and Auth REST APIs
+ *
+ * Covers the subset the app uses, so sync paths can be exercised (and load-tested) without network:
+ * - documents: GET document / collection, POST create (?documentId=), PATCH (with updateMask), DELETE
+ * - :runQuery (from/collectionId, fieldFilter + AND compositeFilter, orderBy incl. __name__, startAt, limit)
+ * - :commit (all-or-nothing) and :batchWrite (per-write status), incl. REQUEST_TIME transforms
+ * - accounts:signUp / signInWithPassword / update
+ * - configurable latency, plus error injection (next N requests, or a random fraction)
+ *
+ * Plain HTTP/1.1 on 127.0.0.1 with keep-alive; one virtual thread per connection.
+ * install() points FirebaseConfig at it, close() points it back.
+ */
+public final class FakeFirebaseServer implements AutoCloseable {
+
+    private static final String DOCUMENTS = "/documents";
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = HttpTransport.newIoExecutor("FakeFirebase");
+    private final String baseUrl;
+
+    // Documents by path relative to the documents root ("users/5", "conversations/a/messages/b")
+    private final TreeMap<String, JsonObject> documents = new TreeMap<>();
+    private final Map<String, JsonObject> accountsByEmail = new HashMap<>();
+    private final Map<String, JsonObject> accountsByToken = new HashMap<>();
+
+    private volatile long minLatencyMs;
+    private volatile long maxLatencyMs;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private final AtomicInteger failNext = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private volatile boolean installed;
+
+    private FakeFirebaseServer() throws IOException {
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        baseUrl = "http://127.0.0.1:" + serverSocket.getLocalPort();
+        connections.submit(this::acceptLoop);
+    }
+
+    public static FakeFirebaseServer start() throws IOException {
+        return new FakeFirebaseServer();
+    }
+
+    /**
+     * Start and route FirebaseService / ChatService / SyncOutbox / FirebaseAuthService here
+     */
+    public static FakeFirebaseServer startAndInstall() throws IOException {
+        FakeFirebaseServer server = start();
+        server.install();
+        return server;
+    }
+
+    public void install() {
+        FirebaseConfig.setBaseUrls(firestoreBaseUrl(), authBaseUrl());
+        installed = true;
+    }
+
+    public String firestoreBaseUrl() {
+        return baseUrl + "/v1";
+    }
+
+    public String authBaseUrl() {
+        return baseUrl + "/auth/v1";
+    }
+
+    // ==================== FAULTS ====================
+
+    /**
+     * Delay every response by a uniform random time in [minMillis, maxMillis]
+     */
+    public FakeFirebaseServer setLatency(long minMillis, long maxMillis) {
+        this.minLatencyMs = minMillis;
+        this.maxLatencyMs = Math.max(minMillis, maxMillis);
+        return this;
+    }
+
+    /**
+     * Answer this fraction of requests (0..1) with the given HTTP status
+     */
+    public FakeFirebaseServer setErrorRate(double rate, int status) {
+        this.errorRate = rate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * Answer the next count requests with the given HTTP status
+     */
+    public FakeFirebaseServer failNext(int count, int status) {
+        this.errorStatus = status;
+        failNext.set(count);
+        return this;
+    }
+
+    // ==================== STATE ====================
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public synchronized int documentCount() {
+        return documents.size();
+    }
+
+    /**
+     * Seed a document; fields are Firestore-typed values ({"name": {"stringValue": ...}})
+     */
+    public synchronized void putDocument(String path, JsonObject fields) {
+        JsonObject doc = new JsonObject();
+        doc.add("fields", fields.deepCopy());
+        String now = Instant.now().toString();
+        doc.addProperty("createTime", now);
+        doc.addProperty("updateTime", now);
+        documents.put(trimSlashes(path), doc);
+    }
+
+    /**
+     * Fields of a stored document, or null
+     */
+    public synchronized JsonObject getFields(String path) {
+        JsonObject doc = documents.get(trimSlashes(path));
+        return doc != null ? doc.getAsJsonObject("fields").deepCopy() : null;
+    }
+
+    public synchronized void reset() {
+        documents.clear();
+        accountsByEmail.clear();
+        accountsByToken.clear();
+        failNext.set(0);
+        errorRate = 0;
+        minLatencyMs = maxLatencyMs = 0;
+    }
+
+    @Override
+    public void close() {
+        if (installed) {
+            FirebaseConfig.setBaseUrls(null, null);
+            installed = false;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+        connections.shutdownNow();
+    }
+
+    // ==================== HTTP ====================
+
+    private record Request(String method, URI uri, Map<String, String> headers, String body) {}
+
+    private record Response(int status, String body) {}
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            while (true) {
+                Request request = readRequest(in);
+                if (request == null) {
+                    return;
+                }
+                requests.incrementAndGet();
+                delay();
+                Response response = injectedFault();
+                if (response == null) {
+                    response = handle(request);
+                }
+                writeResponse(out, response);
+                if ("close".equalsIgnoreCase(request.headers().get("connection"))) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // client went away or server closed
+        }
+    }
+
+    private Request readRequest(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        while (requestLine != null && requestLine.isEmpty()) {
+            requestLine = readLine(in);
+        }
+        if (requestLine == null) {
+            return null;
+        }
+        String[] parts = requestLine.split(" ");
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        byte[] body;
+        if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+            body = readChunked(in);
+        } else {
+            int length = Integer.parseInt(headers.getOrDefault("content-length", "0"));
+            body = in.readNBytes(length);
+        }
+        return new Request(parts[0], URI.create(parts[1]), headers, new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readChunked(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            String sizeLine = readLine(in);
+            int size = Integer.parseInt(sizeLine.split(";")[0].trim(), 16);
+            if (size == 0) {
+                String trailer;
+                while ((trailer = readLine(in)) != null && !trailer.isEmpty()) {
+                    // skip trailers
+                }
+                return body.toByteArray();
+            }
+            body.write(in.readNBytes(size));
+            readLine(in);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int end = sb.length();
+                return end > 0 && sb.charAt(end - 1) == '\r' ? sb.substring(0, end - 1) : sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    private static void writeResponse(OutputStream out, Response response) throws IOException {
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + response.status() + " " + reason(response.status()) + "\r\n" +
+            "Content-Type: application/json; charset=UTF-8\r\n" +
+            "Content-Length: " + body.length + "\r\n" +
+            "\r\n";
+        out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(body);
+        out.flush();
+    }
+
+    private static String reason(int status) {
+        return switch (status) {
+            case 200 -> "OK";
+            case 400 -> "Bad Request";
+            case 404 -> "Not Found";
+            case 409 -> "Conflict";
+            case 429 -> "Too Many Requests";
+            case 500 -> "Internal Server Error";
+            case 503 -> "Service Unavailable";
+            default -> "Status";
+        };
+    }
+
+    private void delay() throws InterruptedException {
+        long min = minLatencyMs;
+        long max = maxLatencyMs;
+        if (max > 0) {
+            Thread.sleep(min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1));
+        }
+    }
+
+    private Response injectedFault() {
+        boolean fail = failNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0
+            || (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate);
+        return fail ? error(errorStatus, "UNAVAILABLE", "injected failure") : null;
+    }
+
+    private Response handle(Request request) {
+        try {
+            String path = request.uri().getPath();
+            if (path.startsWith("/auth/v1/")) {
+                return handleAuth(path.substring("/auth/v1/".length()), parseObject(request.body()));
+            }
+            int documentsAt = path.indexOf(DOCUMENTS);
+            if (!path.startsWith("/v1/projects/") || documentsAt < 0) {
+                return error(404, "NOT_FOUND", "unknown path " + path);
+            }
+            String root = path.substring("/v1/".length(), documentsAt + DOCUMENTS.length());
+            String rest = trimSlashes(path.substring(documentsAt + DOCUMENTS.length()));
+            return handleFirestore(request, root, rest);
+        } catch (RuntimeException e) {
+            return error(400, "INVALID_ARGUMENT", String.valueOf(e.getMessage()));
+        }
+    }
+
+    // ==================== FIRESTORE ====================
+
+    private Response handleFirestore(Request request, String root, String rest) {
+        int colon = rest.lastIndexOf(':');
+        if (colon >= 0 && "POST".equals(request.method())) {
+            String parent = rest.substring(0, colon);
+            JsonObject body = parseObject(request.body());
+            switch (rest.substring(colon + 1)) {
+                case "runQuery":
+                    return runQuery(root, parent, body);
+                case "commit":
+                    return commit(root, body);
+                case "batchWrite":
+                    return batchWrite(root, body);
+                default:
+                    return error(404, "NOT_FOUND", "unsupported method " + rest);
+            }
+        }
+        if (rest.isEmpty()) {
+            return error(400, "INVALID_ARGUMENT", "missing collection");
+        }
+        boolean isDocument = rest.split("/").length % 2 == 0;
+        Map<String, List<String>> query = queryParams(request.uri());
+        switch (request.method()) {
+            case "GET":
+                return isDocument ? getDocument(root, rest) : listCollection(root, rest);
+            case "POST": {
+                if (isDocument) return error(400, "INVALID_ARGUMENT", "POST needs a collection");
+                String id = first(query, "documentId", UUID.randomUUID().toString().replace("-", ""));
+                return createDocument(root, rest + "/" + id, parseObject(request.body()));
+            }
+            case "PATCH": {
+                if (!isDocument) return error(400, "INVALID_ARGUMENT", "PATCH needs a document");
+                List<String> mask = query.get("updateMask.fieldPaths");
+                return ok(patchDocument(root, rest, fieldsOf(parseObject(request.body())), mask, List.of()));
+            }
+            case "DELETE":
+                synchronized (this) {
+                    documents.remove(rest);
+                }
+                return new Response(200, "{}");
+            default:
+                return error(400, "INVALID_ARGUMENT", "unsupported " + request.method());
+        }
+    }
+
+    private synchronized Response getDocument(String root, String path) {
+        JsonObject doc = documents.get(path);
+        return doc != null ? ok(named(root, path, doc)) : error(404, "NOT_FOUND", "Document not found: " + path);
+    }
+
+    private synchronized Response listCollection(String root, String collection) {
+        JsonArray list = new JsonArray();
+        for (Map.Entry<String, JsonObject> entry : documents.subMap(collection + "/", collection + "/\uffff").entrySet()) {
+            if (entry.getKey().indexOf('/', collection.length() + 1) < 0) {
+                list.add(named(root, entry.getKey(), entry.getValue()));
+            }
+        }
+        JsonObject body = new JsonObject();
+        if (!list.isEmpty()) {
+            body.add("documents", list);
+        }
+        return ok(body);
+    }
+
+    private synchronized Response createDocument(String root, String path, JsonObject body) {
+        if (documents.containsKey(path)) {
+            return error(409, "ALREADY_EXISTS", "Document already exists: " + path);
+        }
+        return ok(patchDocument(root, path, fieldsOf(body), null, List.of()));
+    }
+
+    /**
+     * Write fields (only the masked ones if a mask is given) and set REQUEST_TIME transforms
+     */
+    private synchronized JsonObject patchDocument(String root, String path, JsonObject fields,
+                                                  List<String> mask, List<String> serverTimeFields) {
+        String now = Instant.now().toString();
+        JsonObject existing = documents.get(path);
+        JsonObject doc = existing != null ? existing : new JsonObject();
+        JsonObject target = existing != null && mask != null ? doc.getAsJsonObject("fields") : new JsonObject();
+        if (mask == null) {
+            for (Map.Entry<String, JsonElement> field : fields.entrySet()) {
+                target.add(field.getKey(), field.getValue().deepCopy());
+            }
+        } else {
+            for (String fieldPath : mask) {
+                if (fields.has(fieldPath)) {
+                    target.add(fieldPath, fields.get(fieldPath).deepCopy());
+                } else {
+                    target.remove(fieldPath);
+                }
+            }
+        }
+        for (String fieldPath : serverTimeFields) {
+            JsonObject timestamp = new JsonObject();
+            timestamp.addProperty("timestampValue", now);
+            target.add(fieldPath, timestamp);
+        }
+        doc.add("fields", target);
+        if (existing == null) {
+            doc.addProperty("createTime", now);
+        }
+        doc.addProperty("updateTime", now);
+        documents.put(path, doc);
+        return named(root, path, doc);
+    }
+
+    private Response runQuery(String root, String parent, JsonObject body) {
+        JsonObject query = body.getAsJsonObject("structuredQuery");
+        JsonObject from = query.getAsJsonArray("from").get(0).getAsJsonObject();
+        String collectionId = from.get("collectionId").getAsString();
+        boolean allDescendants = from.has("allDescendants") && from.get("allDescendants").getAsBoolean();
+        String prefix = parent.isEmpty() ? "" : parent + "/";
+
+        List<Map.Entry<String, JsonObject>> matches = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, JsonObject> entry : documents.entrySet()) {
+                String path = entry.getKey();
+                if (!path.startsWith(prefix)) continue;
+                String[] segments = path.substring(prefix.length()).split("/");
+                boolean inCollection = allDescendants
+                    ? segments.length >= 2 && collectionId.equals(segments[segments.length - 2])
+                    : segments.length == 2 && collectionId.equals(segments[0]);
+                if (inCollection && matchesFilter(query.getAsJsonObject("where"), entry.getValue().getAsJsonObject("fields"))) {
+                    matches.add(Map.entry(path, entry.getValue().deepCopy()));
+                }
+            }
+        }
+
+        if (query.has("orderBy")) {
+            JsonArray orderBy = query.getAsJsonArray("orderBy");
+            // Like Firestore, ordering by a field leaves out documents without it
+            matches.removeIf(match -> {
+                for (JsonElement element : orderBy) {
+                    if (orderValue(root, match, element.getAsJsonObject()) == null) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+            matches.sort((a, b) -> compareOrder(root, orderBy, a, b));
+            if (query.has("startAt")) {
+                JsonObject startAt = query.getAsJsonObject("startAt");
+                boolean before = startAt.has("before") && startAt.get("before").getAsBoolean();
+                JsonArray values = startAt.getAsJsonArray("values");
+                matches.removeIf(match -> {
+                    int cmp = compareToCursor(root, orderBy, match, values);
+                    return before ? cmp < 0 : cmp <= 0;
+                });
+            }
+        }
+        int limit = query.has("limit") ? query.get("limit").getAsInt() : Integer.MAX_VALUE;
+
+        JsonArray results = new JsonArray();
+        String readTime = Instant.now().toString();
+        for (Map.Entry<String, JsonObject> match : matches.subList(0, Math.min(limit, matches.size()))) {
+            JsonObject result = new JsonObject();
+            result.add("document", named(root, match.getKey(), match.getValue()));
+            result.addProperty("readTime", readTime);
+            results.add(result);
+        }
+        if (results.isEmpty()) {
+            // Firestore answers an empty query with a single readTime-only element
+            JsonObject empty = new JsonObject();
+            empty.addProperty("readTime", readTime);
+            results.add(empty);
+        }
+        return new Response(200, results.toString());
+    }
+
+    /**
+     * Value a document sorts by for one orderBy entry; __name__ is the full document name
+     */
+    private static JsonElement orderValue(String root, Map.Entry<String, JsonObject> match, JsonObject orderBy) {
+        String fieldPath = orderBy.getAsJsonObject("field").get("fieldPath").getAsString();
+        if ("__name__".equals(fieldPath)) {
+            JsonObject reference = new JsonObject();
+            reference.addProperty("referenceValue", root + "/" + match.getKey());
+            return reference;
+        }
+        return fieldsOf(match.getValue()).get(fieldPath);
+    }
+
+    private static boolean descending(JsonObject orderBy) {
+        return orderBy.has("direction") && "DESCENDING".equals(orderBy.get("direction").getAsString());
+    }
+
+    private static int compareOrder(String root, JsonArray orderBy,
+                                    Map.Entry<String, JsonObject> a, Map.Entry<String, JsonObject> b) {
+        for (JsonElement element : orderBy) {
+            JsonObject order = element.getAsJsonObject();
+            int cmp = compareValues(orderValue(root, a, order), orderValue(root, b, order));
+            if (cmp != 0) {
+                return descending(order) ? -cmp : cmp;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Position of a document relative to a startAt cursor (values cover a prefix of orderBy)
+     */
+    private static int compareToCursor(String root, JsonArray orderBy, Map.Entry<String, JsonObject> match,
+                                       JsonArray values) {
+        for (int i = 0; i < values.size(); i++) {
+            JsonObject order = orderBy.get(i).getAsJsonObject();
+            int cmp = compareValues(orderValue(root, match, order), values.get(i));
+            if (cmp != 0) {
+                return descending(order) ? -cmp : cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean matchesFilter(JsonObject where, JsonObject fields) {
+        if (where == null) {
+            return true;
+        }
+        if (where.has("compositeFilter")) {
+            JsonObject composite = where.getAsJsonObject("compositeFilter");
+            if (!"AND".equals(composite.get("op").getAsString())) {
+                throw new IllegalArgumentException("only AND composite filters are supported");
+            }
+            for (JsonElement filter : composite.getAsJsonArray("filters")) {
+                if (!matchesFilter(filter.getAsJsonObject(), fields)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        JsonObject filter = where.getAsJsonObject("fieldFilter");
+        JsonElement actual = fields.get(filter.getAsJsonObject("field").get("fieldPath").getAsString());
+        if (actual == null) {
+            return false;
+        }
+        int cmp = compareValues(actual, filter.get("value"));
+        return switch (filter.get("op").getAsString()) {
+            case "EQUAL" -> cmp == 0;
+            case "NOT_EQUAL" -> cmp != 0;
+            case "LESS_THAN" -> cmp < 0;
+            case "LESS_THAN_OR_EQUAL" -> cmp <= 0;
+            case "GREATER_THAN" -> cmp > 0;
+            case "GREATER_THAN_OR_EQUAL" -> cmp >= 0;
+            default -> throw new IllegalArgumentException("unsupported op " + filter.get("op"));
+        };
+    }
+
+    /**
+     * Order of two Firestore values: missing first, numbers numerically, everything else as strings
+     * (ISO timestamps sort correctly that way)
+     */
+    private static int compareValues(JsonElement a, JsonElement b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        Map.Entry<String, JsonElement> left = a.getAsJsonObject().entrySet().iterator().next();
+        Map.Entry<String, JsonElement> right = b.getAsJsonObject().entrySet().iterator().next();
+        boolean leftNumber = isNumber(left.getKey());
+        boolean rightNumber = isNumber(right.getKey());
+        if (leftNumber && rightNumber) {
+            return Double.compare(left.getValue().getAsDouble(), right.getValue().getAsDouble());
+        }
+        if (leftNumber != rightNumber || !left.getKey().equals(right.getKey())) {
+            return left.getKey().compareTo(right.getKey());
+        }
+        return left.getValue().toString().compareTo(right.getValue().toString());
+    }
+
+    private static boolean isNumber(String kind) {
+        return "integerValue".equals(kind) || "doubleValue".equals(kind);
+    }
+
+    private Response commit(String root, JsonObject body) {
+        JsonArray writes = body.has("writes") ? body.getAsJsonArray("writes") : new JsonArray();
+        JsonArray writeResults = new JsonArray();
+        String now = Instant.now().toString();
+        synchronized (this) {
+            // All or nothing: check preconditions before applying anything
+            for (JsonElement write : writes) {
+                String failure = preconditionFailure(root, write.getAsJsonObject());
+                if (failure != null) {
+                    return error(failure.startsWith("NOT_FOUND") ? 404 : 409, failure.split(":")[0], failure);
+                }
+            }
+            for (JsonElement write : writes) {
+                applyWrite(root, write.getAsJsonObject());
+                JsonObject result = new JsonObject();
+                result.addProperty("updateTime", now);
+                writeResults.add(result);
+            }
+        }
+        JsonObject response = new JsonObject();
+        response.add("writeResults", writeResults);
+        response.addProperty("commitTime", now);
+        return ok(response);
+    }
+
+    private Response batchWrite(String root, JsonObject body) {
+        JsonArray writes = body.has("writes") ? body.getAsJsonArray("writes") : new JsonArray();
+        JsonArray writeResults = new JsonArray();
+        JsonArray statuses = new JsonArray();
+        String now = Instant.now().toString();
+        synchronized (this) {
+            for (JsonElement element : writes) {
+                JsonObject write = element.getAsJsonObject();
+                JsonObject status = new JsonObject();
+                JsonObject result = new JsonObject();
+                String failure = preconditionFailure(root, write);
+                if (failure == null) {
+                    applyWrite(root, write);
+                    result.addProperty("updateTime", now);
+                } else {
+                    // google.rpc.Code: NOT_FOUND = 5, FAILED_PRECONDITION = 9
+                    status.addProperty("code", failure.startsWith("NOT_FOUND") ? 5 : 9);
+                    status.addProperty("message", failure);
+                }
+                writeResults.add(result);
+                statuses.add(status);
+            }
+        }
+        JsonObject response = new JsonObject();
+        response.add("writeResults", writeResults);
+        response.add("status", statuses);
+        return ok(response);
+    }
+
+    private String preconditionFailure(String root, JsonObject write) {
+        String name = write.has("delete") ? write.get("delete").getAsString()
+            : write.getAsJsonObject("update").get("name").getAsString();
+        String path = relativePath(root, name);
+        if (write.has("currentDocument")) {
+            JsonObject current = write.getAsJsonObject("currentDocument");
+            if (current.has("exists") && current.get("exists").getAsBoolean() != documents.containsKey(path)) {
+                return current.get("exists").getAsBoolean()
+                    ? "NOT_FOUND: " + path
+                    : "FAILED_PRECONDITION: document already exists: " + path;
+            }
+        }
+        return null;
+    }
+
+    private void applyWrite(String root, JsonObject write) {
+        if (write.has("delete")) {
+            documents.remove(relativePath(root, write.get("delete").getAsString()));
+            return;
+        }
+        JsonObject update = write.getAsJsonObject("update");
+        List<String> mask = null;
+        if (write.has("updateMask")) {
+            mask = new ArrayList<>();
+            for (JsonElement field : write.getAsJsonObject("updateMask").getAsJsonArray("fieldPaths")) {
+                mask.add(field.getAsString());
+            }
+        }
+        List<String> serverTime = new ArrayList<>();
+        if (write.has("updateTransforms")) {
+            for (JsonElement transform : write.getAsJsonArray("updateTransforms")) {
+                JsonObject t = transform.getAsJsonObject();
+                if (t.has("setToServerValue")) {
+                    serverTime.add(t.get("fieldPath").getAsString());
+                }
+            }
+        }
+        patchDocument(root, relativePath(root, update.get("name").getAsString()), fieldsOf(update), mask, serverTime);
+    }
+
+    private static String relativePath(String root, String name) {
+        if (!name.startsWith(root + "/")) {
+            throw new IllegalArgumentException("document " + name + " is outside " + root);
+        }
+        return name.substring(root.length() + 1);
+    }
+
+    private static JsonObject named(String root, String path, JsonObject doc) {
+        JsonObject named = new JsonObject();
+        named.addProperty("name", root + "/" + path);
+        for (Map.Entry<String, JsonElement> entry : doc.entrySet()) {
+            named.add(entry.getKey(), entry.getValue().deepCopy());
+        }
+        return named;
+    }
+
+    private static JsonObject fieldsOf(JsonObject document) {
+        return document.has("fields") ? document.getAsJsonObject("fields") : new JsonObject();
+    }
+
+    // ==================== AUTH ====================
+
+    private synchronized Response handleAuth(String method, JsonObject body) {
+        switch (method) {
+            case "accounts:signUp": {
+                String email = body.get("email").getAsString();
+                if (accountsByEmail.containsKey(email)) {
+                    return error(400, "INVALID_ARGUMENT", "EMAIL_EXISTS");
+                }
+                String password = body.get("password").getAsString();
+                if (password.length() < 6) {
+                    return error(400, "INVALID_ARGUMENT", "WEAK_PASSWORD : Password should be at least 6 characters");
+                }
+                JsonObject account = new JsonObject();
+                account.addProperty("localId", UUID.randomUUID().toString().replace("-", "").substring(0, 28));
+                account.addProperty("email", email);
+                account.addProperty("password", password);
+                accountsByEmail.put(email, account);
+                return ok(session(account));
+            }
+            case "accounts:signInWithPassword": {
+                JsonObject account = accountsByEmail.get(body.get("email").getAsString());
+                if (account == null || !account.get("password").getAsString().equals(body.get("password").getAsString())) {
+                    return error(400, "INVALID_ARGUMENT", "INVALID_LOGIN_CREDENTIALS");
+                }
+                return ok(session(account));
+            }
+            case "accounts:update": {
+                JsonObject account = accountsByToken.get(body.get("idToken").getAsString());
+                if (account == null) {
+                    return error(400, "INVALID_ARGUMENT", "INVALID_ID_TOKEN");
+                }
+                if (body.has("displayName")) {
+                    account.addProperty("displayName", body.get("displayName").getAsString());
+                }
+                JsonObject response = new JsonObject();
+                response.add("localId", account.get("localId"));
+                response.add("email", account.get("email"));
+                if (account.has("displayName")) {
+                    response.add("displayName", account.get("displayName"));
+                }
+                return ok(response);
+            }
+            default:
+                return error(404, "NOT_FOUND", "unsupported auth method " + method);
+        }
+    }
+
+    private JsonObject session(JsonObject account) {
+        String idToken = "fake-id-" + UUID.randomUUID();
+        accountsByToken.put(idToken, account);
+        JsonObject response = new JsonObject();
+        response.add("localId", account.get("localId"));
+        response.add("email", account.get("email"));
+        if (account.has("displayName")) {
+            response.add("displayName", account.get("displayName"));
+        }
+        response.addProperty("idToken", idToken);
+        response.addProperty("refreshToken", "fake-refresh-" + UUID.randomUUID());
+        response.addProperty("expiresIn", "3600");
+        return response;
+    }
+
+    // ==================== HELPERS ====================
+
+    private static Response ok(JsonObject body) {
+        return new Response(200, body.toString());
+    }
+
+    private static Response error(int code, String status, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        error.addProperty("status", status);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+        return new Response(code, body.toString());
+    }
+
+    private static JsonObject parseObject(String body) {
+        return body == null || body.isBlank() ? new JsonObject() : JsonParser.parseString(body).getAsJsonObject();
+    }
+
+    private static Map<String, List<String>> queryParams(URI uri) {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static String first(Map<String, List<String>> params, String key, String fallback) {
+        List<String> values = params.get(key);
+        return values != null && !values.isEmpty() ? values.get(0) : fallback;
+    }
+
+    private static String trimSlashes(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') start++;
+        while (end > start && path.charAt(end - 1) == '/') end--;
+        return path.substring(start, end);
+    }
+}
@@ -0,0 +1,188 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sajid._207017_chashi_bhai.models.Notification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Auth, document, query and write paths against the local Firestore stand-in, plus fault injection
+ */
+class FakeFirebaseServerTest {
+
+    private FakeFirebaseServer server;
+    private final HttpTransport transport = HttpTransport.getInstance();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = FakeFirebaseServer.startAndInstall();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        assertEquals(FirebaseConfig.DEFAULT_FIRESTORE_BASE_URL, FirebaseConfig.getFirestoreBaseUrl());
+    }
+
+    @Test
+    void testAuthServiceSignsUpAndInOffline() throws Exception {
+        FirebaseAuthService auth = new FirebaseAuthService();
+        FirebaseAuthService.AuthResult signUp = auth.signUp("01712345678", "1234", "করিম");
+        assertTrue(signUp.isNewUser());
+
+        FirebaseAuthService.AuthResult signIn = auth.signIn("01712345678", "1234");
+        assertEquals(signUp.getFirebaseUserId(), signIn.getFirebaseUserId());
+        assertEquals("করিম", signIn.getDisplayName());
+
+        assertThrows(IOException.class, () -> auth.signIn("01712345678", "9999"));
+        assertThrows(IOException.class, () -> auth.signUp("01712345678", "1234", "আবার"));
+    }
+
+    @Test
+    void testDocumentsQueryAndWrites() throws Exception {
+        String root = FirebaseConfig.getDocumentsRoot();
+        for (int i = 1; i <= 3; i++) {
+            HttpResponse<String> created = send("POST", "/notifications?documentId=n" + i,
+                "{\"fields\":{\"user_id\":{\"integerValue\":\"" + (i == 3 ? 8 : 7) + "\"}," +
+                "\"updated_at\":{\"timestampValue\":\"2024-01-0" + i + "T00:00:00Z\"}}}");
+            assertEquals(200, created.statusCode());
+        }
+        assertEquals(409, send("POST", "/notifications?documentId=n1", "{\"fields\":{}}").statusCode());
+
+        HttpResponse<String> patched = send("PATCH", "/notifications/n1?updateMask.fieldPaths=is_read",
+            "{\"fields\":{\"is_read\":{\"booleanValue\":true}}}");
+        assertEquals(200, patched.statusCode());
+        assertTrue(server.getFields("notifications/n1").has("user_id"), "masked PATCH keeps other fields");
+
+        String query = "{\"structuredQuery\":{\"from\":[{\"collectionId\":\"notifications\"}]," +
+            "\"where\":{\"compositeFilter\":{\"op\":\"AND\",\"filters\":[" +
+            "{\"fieldFilter\":{\"field\":{\"fieldPath\":\"user_id\"},\"op\":\"EQUAL\",\"value\":{\"integerValue\":\"7\"}}}," +
+            "{\"fieldFilter\":{\"field\":{\"fieldPath\":\"updated_at\"},\"op\":\"GREATER_THAN_OR_EQUAL\"," +
+            "\"value\":{\"timestampValue\":\"2024-01-01T00:00:00Z\"}}}]}}," +
+            "\"orderBy\":[{\"field\":{\"fieldPath\":\"updated_at\"},\"direction\":\"DESCENDING\"}],\"limit\":5}}";
+        JsonArray results = JsonParser.parseString(send("POST", ":runQuery", query).body()).getAsJsonArray();
+        assertEquals(2, results.size());
+        assertEquals(root + "/notifications/n2",
+            results.get(0).getAsJsonObject().getAsJsonObject("document").get("name").getAsString());
+
+        String batch = "{\"writes\":[" +
+            "{\"update\":{\"name\":\"" + root + "/crops/5\",\"fields\":{\"name\":{\"stringValue\":\"ধান\"}}}," +
+            "\"updateMask\":{\"fieldPaths\":[\"name\"]}," +
+            "\"updateTransforms\":[{\"fieldPath\":\"updated_at\",\"setToServerValue\":\"REQUEST_TIME\"}]}," +
+            "{\"delete\":\"" + root + "/notifications/n3\"}]}";
+        JsonObject written = JsonParser.parseString(send("POST", ":batchWrite", batch).body()).getAsJsonObject();
+        assertEquals(2, written.getAsJsonArray("status").size());
+        assertTrue(server.getFields("crops/5").has("updated_at"));
+        assertNull(server.getFields("notifications/n3"));
+
+        // commit is all-or-nothing: the failed precondition keeps the first write out too
+        String commit = "{\"writes\":[" +
+            "{\"update\":{\"name\":\"" + root + "/crops/6\",\"fields\":{}}}," +
+            "{\"update\":{\"name\":\"" + root + "/crops/7\",\"fields\":{}},\"currentDocument\":{\"exists\":true}}]}";
+        assertEquals(404, send("POST", ":commit", commit).statusCode());
+        assertNull(server.getFields("crops/6"));
+
+        JsonObject listed = JsonParser.parseString(send("GET", "/notifications", null).body()).getAsJsonObject();
+        assertEquals(2, listed.getAsJsonArray("documents").size());
+    }
+
+    @Test
+    void testInjectedFailuresAreRetriedOnlyWhenIdempotent() throws Exception {
+        server.putDocument("users/1", new JsonObject());
+
+        server.failNext(2, 503);
+        assertEquals(200, send("GET", "/users/1", null).statusCode());
+        assertEquals(3, server.requestCount());
+
+        server.failNext(1, 503);
+        assertEquals(503, send("POST", "/users?documentId=2", "{\"fields\":{}}").statusCode());
+        assertEquals(4, server.requestCount());
+        assertNull(server.getFields("users/2"));
+
+        server.setLatency(50, 50);
+        long start = System.nanoTime();
+        send("GET", "/users/1", null);
+        assertTrue(System.nanoTime() - start >= 50_000_000L);
+    }
+
+    @Test
+    void testCropPhotoErrorsReachOnError() throws Exception {
+        JsonObject photo = new JsonObject();
+        JsonObject image = new JsonObject();
+        image.addProperty("stringValue", "aGVsbG8=");
+        photo.add("image_base64", image);
+        server.putDocument("crop_photos/5_1", photo);
+
+        // Missing slots (404) are just skipped
+        CompletableFuture<List<String>> loaded = new CompletableFuture<>();
+        FirebaseService.getInstance().loadAllCropPhotos("5", loaded::complete, loaded::completeExceptionally);
+        assertEquals(List.of("aGVsbG8="), loaded.get(10, TimeUnit.SECONDS));
+
+        // Any other failure is an error, not "no photo"
+        server.setErrorRate(1.0, 403);
+        CompletableFuture<List<String>> failed = new CompletableFuture<>();
+        FirebaseService.getInstance().loadAllCropPhotos("5", failed::complete, failed::completeExceptionally);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertTrue(error.getCause().getMessage().contains("HTTP 403"));
+    }
+
+    @Test
+    void testNotificationPagesMoveOnPastEqualTimestamps() throws Exception {
+        for (int id = 1; id <= 6; id++) {
+            JsonObject fields = new JsonObject();
+            fields.add("notification_id", JsonParser.parseString("{\"integerValue\":\"" + id + "\"}"));
+            fields.add("user_id", JsonParser.parseString("{\"integerValue\":\"" + (id == 6 ? 8 : 7) + "\"}"));
+            if (id != 5) {
+                // 5 predates updated_at
+                fields.add("updated_at", JsonParser.parseString("{\"timestampValue\":\"2024-01-01T00:00:00Z\"}"));
+            }
+            server.putDocument("notifications/" + id, fields);
+        }
+        FirebaseService firebase = FirebaseService.getInstance();
+        firebase.setIdToken("test-token");
+        try {
+            // First pull: every document of the user, by name
+            assertEquals(List.of(1, 2), notificationPage(null, null));
+            assertEquals(List.of(3, 4), notificationPage(null, "2"));
+            assertEquals(List.of(5), notificationPage(null, "4"));
+
+            // Ranged pull: a page full of one timestamp continues after its last document
+            String since = "2024-01-01T00:00:00Z";
+            assertEquals(List.of(1, 2), notificationPage(since, null));
+            assertEquals(List.of(3, 4), notificationPage(since, "2"));
+            assertEquals(List.of(), notificationPage(since, "4"));
+        } finally {
+            firebase.setIdToken(null);
+        }
+    }
+
+    private List<Integer> notificationPage(String updatedSince, String afterId) throws Exception {
+        CompletableFuture<List<Notification>> page = new CompletableFuture<>();
+        FirebaseService.getInstance().fetchNotificationChanges(7, updatedSince, afterId, 2,
+            page::complete, page::completeExceptionally);
+        return page.get(10, TimeUnit.SECONDS).stream().map(Notification::getId).toList();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(FirebaseConfig.getDocumentsUrl() + path))
+            .header("Content-Type", "application/json")
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return transport.send(request);
+    }
+}
@@ -0,0 +1,112 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import com.sajid._207017_chashi_bhai.models.Notification;
+import com.sajid._207017_chashi_bhai.models.Order;
+import com.sajid._207017_chashi_bhai.services.ChatService.ChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the Firestore document codecs
+ */
+class FirestoreCodecTest {
+
+    @Test
+    void testOrderRoundTrip() {
+        Order order = new Order();
+        order.setOrderNumber("ORD-20240115-7719");
+        order.setCropId(42);
+        order.setQuantityKg(150.5);
+        order.setBuyerName("রহিম");
+        order.setStatus("new");
+        order.setCreatedAt("2024-01-15 10:02:11");
+
+        String json = FirestoreDocuments.ORDER.toDocumentJson(order);
+        assertTrue(json.contains("\"crop_id\":{\"integerValue\":\"42\"}"));
+        assertTrue(json.contains("\"quantity_kg\":{\"doubleValue\":150.5}"));
+
+        Order decoded = FirestoreDocuments.ORDER.fromDocumentJson(
+            "{\"name\":\"projects/p/databases/(default)/documents/orders/311\"," + json.substring(1));
+        assertEquals(311, decoded.getId());
+        assertEquals("ORD-20240115-7719", decoded.getOrderNumber());
+        assertEquals(42, decoded.getCropId());
+        assertEquals(150.5, decoded.getQuantityKg());
+        assertEquals("রহিম", decoded.getBuyerName());
+        assertEquals("2024-01-15 10:02:11", decoded.getCreatedAt());
+    }
+
+    @Test
+    void testCorruptTimestampIsLeftOut() {
+        Order order = new Order();
+        order.setStatus("new");
+        order.setCreatedAt("15/01/2024 garbage");
+
+        String fields = FirestoreDocuments.ORDER.toFieldsJson(order);
+        assertFalse(fields.contains("created_at"));
+        assertTrue(fields.contains("\"status\":{\"stringValue\":\"new\"}"));
+        assertFalse(FirestoreDocuments.ORDER.writableFieldPaths(order).contains("created_at"));
+        assertTrue(FirestoreDocuments.ORDER.writableFieldPaths().contains("created_at"));
+
+        order.setCreatedAt("2024-01-15 10:02:11");
+        assertSame(FirestoreDocuments.ORDER.writableFieldPaths(), FirestoreDocuments.ORDER.writableFieldPaths(order));
+    }
+
+    @Test
+    void testNullValuesAreWritten() {
+        Notification notification = new Notification(5, 7, "title", "message", "info", null, false, "2024-01-15 10:02:11");
+
+        String json = FirestoreDocuments.NOTIFICATION.toDocumentJson(notification);
+        assertTrue(json.contains("\"related_id\":{\"nullValue\":null}"));
+
+        Notification decoded = FirestoreDocuments.NOTIFICATION.fromDocumentJson(json);
+        assertNull(decoded.getRelatedId());
+        assertEquals(7, decoded.getUserId());
+    }
+
+    @Test
+    void testServerTimestampIsReadButNotWritten() {
+        Notification notification = new Notification(5, 7, "title", "message", "info", 3, true, "2024-01-15 10:02:11");
+
+        String json = FirestoreDocuments.NOTIFICATION.toDocumentJson(notification);
+        assertFalse(json.contains("updated_at"));
+        assertFalse(FirestoreDocuments.NOTIFICATION.writableFieldPaths().contains("updated_at"));
+        assertEquals(List.of("updated_at"), FirestoreDocuments.NOTIFICATION.serverTimestampFieldPaths());
+
+        Notification decoded = FirestoreDocuments.NOTIFICATION.fromDocumentJson(
+            json.replace("\"is_read\"", "\"updated_at\":{\"timestampValue\":\"2024-01-15T04:02:11.123456Z\"},\"is_read\""));
+        assertEquals("2024-01-15T04:02:11.123456Z", decoded.getUpdatedAt());
+        assertTrue(decoded.isRead());
+    }
+
+    @Test
+    void testDocumentListAndQueryResults() {
+        ChatMessage msg = new ChatMessage();
+        msg.setSenderId(19);
+        msg.setText("hello");
+        msg.setType("text");
+        msg.setCreatedAt(new Timestamp(1_700_000_000_000L));
+        String fields = FirestoreDocuments.CHAT_MESSAGE.toDocumentJson(msg).substring(1);
+
+        List<ChatMessage> list = FirestoreDocuments.CHAT_MESSAGE.readDocumentList(
+            "{\"documents\":[{\"name\":\"c/abc/messages/m1\"," + fields + "]}");
+        assertEquals(1, list.size());
+        assertEquals("m1", list.get(0).getFirebaseId());
+        assertEquals(1_700_000_000_000L, list.get(0).getCreatedAt().getTime());
+
+        List<ChatMessage> results = FirestoreDocuments.CHAT_MESSAGE.readQueryResults(
+            "[{\"readTime\":\"x\"},{\"document\":{\"name\":\"c/abc/messages/m2\"," + fields + "}]");
+        assertEquals(1, results.size());
+        assertEquals("sent", results.get(0).getStatus());
+    }
+
+    @Test
+    void testMapDocumentMatchesLegacyShape() {
+        String json = FirestoreCodec.mapToDocumentJson(Map.of("used", true));
+        assertEquals("{\"fields\":{\"used\":{\"booleanValue\":true}}}", json);
+    }
+}
@@ -0,0 +1,58 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ordering and uniqueness of generated order numbers / product codes
+ */
+class IdServiceTest {
+
+    @Test
+    void testIdsAreFixedWidthAndSortable() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        IdService ids = new IdService(12345, clock::get);
+
+        String previous = ids.nextOrderNumber();
+        assertTrue(previous.matches("ORD-[0-9A-HJKMNP-TV-Z]{16}"), previous);
+        for (int i = 0; i < 5000; i++) {
+            if (i % 7 == 0) clock.addAndGet(3);
+            String next = ids.nextOrderNumber();
+            assertEquals(previous.length(), next.length());
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testClockGoingBackStillMonotonicAndUnique() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        IdService ids = new IdService(7, clock::get);
+
+        Set<String> seen = new HashSet<>();
+        String previous = ids.next();
+        seen.add(previous);
+        clock.addAndGet(-60_000);
+        // More than one millisecond's worth of sequence numbers while the clock is behind
+        for (int i = 0; i < 3000; i++) {
+            String next = ids.next();
+            assertTrue(next.compareTo(previous) > 0);
+            assertTrue(seen.add(next));
+            previous = next;
+        }
+    }
+
+    @Test
+    void testDevicesDoNotCollide() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        IdService a = new IdService(1, clock::get);
+        IdService b = new IdService(2, clock::get);
+        assertNotEquals(a.nextProductCode(), b.nextProductCode());
+        assertTrue(a.nextProductCode().startsWith("CRP-"));
+    }
+}
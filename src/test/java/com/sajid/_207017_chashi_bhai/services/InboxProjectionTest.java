@@ -0,0 +1,115 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the trigger-maintained inbox matches a full rebuild
+ */
+class InboxProjectionTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestDatabase.open();
+        TestDatabase.user(conn, 1, "করিম", "farmer");
+        TestDatabase.user(conn, 2, "রহিম", "buyer");
+        TestDatabase.user(conn, 3, "সালমা", "buyer");
+        TestDatabase.crop(conn, 10, 1, "ধান", 100);
+        execute("UPDATE users SET is_verified = 1 WHERE id = 1");
+        try (Statement stmt = conn.createStatement()) {
+            // Installed by the schema setup; installing again is a no-op
+            assertFalse(InboxProjection.install(stmt));
+        }
+    }
+
+    @Test
+    void testTriggersMatchRebuild() throws Exception {
+        execute("INSERT INTO conversations (user1_id, user2_id, crop_id) VALUES (2, 1, 10)");
+        execute("INSERT INTO conversations (user1_id, user2_id, crop_id) VALUES (3, 1, NULL)");
+        message(1, 2, 1, "ধানের দাম কত?", "2024-01-01 10:00:00");
+        message(2, 3, 1, "hello", "2024-01-01 11:00:00");
+        message(1, 1, 2, "x".repeat(60), "2024-01-01 12:00:00");
+        execute("UPDATE messages SET is_read = 1 WHERE conversation_id = 2");
+        execute("UPDATE users SET name = 'করিম মিয়া', is_verified = 0 WHERE id = 1");
+        execute("UPDATE crops SET name = 'আমন ধান' WHERE id = 10");
+
+        String incremental = snapshot();
+        InboxProjection.rebuild(conn);
+        assertEquals(incremental, snapshot());
+
+        // Farmer's inbox: newest first, other party resolved, unread from conversation_unread
+        try (PreparedStatement ps = conn.prepareStatement(InboxProjection.INBOX_QUERY)) {
+            ps.setInt(1, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt("conversation_id"));
+                assertEquals("রহিম", rs.getString("other_user_name"));
+                assertEquals("আমন ধান", rs.getString("crop_name"));
+                assertEquals("x".repeat(50) + "...", rs.getString("last_message"));
+                assertEquals(1, rs.getInt("unread"));
+                assertTrue(rs.next());
+                assertEquals("সালমা", rs.getString("other_user_name"));
+                assertEquals(0, rs.getInt("unread"));
+                assertFalse(rs.next());
+            }
+        }
+    }
+
+    @Test
+    void testDeletedAndReplacedConversationsLeaveNoRows() throws Exception {
+        execute("INSERT INTO conversations (user1_id, user2_id, crop_id) VALUES (2, 1, 10)");
+        execute("INSERT OR REPLACE INTO conversations (user1_id, user2_id, crop_id) VALUES (2, 1, 10)");
+        assertEquals(2, count());
+        execute("DELETE FROM conversations");
+        assertEquals(0, count());
+    }
+
+    private void message(int conversationId, int senderId, int receiverId, String text, String at) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO messages (conversation_id, sender_id, receiver_id, " +
+                "message_text, created_at) VALUES (?, ?, ?, ?, ?)")) {
+            ps.setInt(1, conversationId);
+            ps.setInt(2, senderId);
+            ps.setInt(3, receiverId);
+            ps.setString(4, text);
+            ps.setString(5, at);
+            ps.executeUpdate();
+        }
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private int count() throws Exception {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM user_inbox")) {
+            return rs.getInt(1);
+        }
+    }
+
+    private String snapshot() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM user_inbox ORDER BY user_id, conversation_id")) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    sb.append(rs.getString(i)).append('|');
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
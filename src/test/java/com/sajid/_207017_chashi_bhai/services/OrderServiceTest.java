@@ -0,0 +1,123 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk farmer transitions: stock checks, request-key replay and the order/crop version checks
+ */
+class OrderServiceTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestDatabase.open();
+        TestDatabase.crop(conn, 10, 7, "ধান", 100);
+        TestDatabase.order(conn, 1, 10, 7, 2, 30, 600, "new");
+        TestDatabase.order(conn, 2, 10, 7, 3, 20, 400, "new");
+    }
+
+    @Test
+    void testRepeatedIdIsAcceptedOnce() throws Exception {
+        List<OrderService.OrderRow> changed = new ArrayList<>();
+        Map<Integer, OrderService.ActionResult> results = OrderService.applyBulk(
+            conn, List.of(1, 2, 1), 7, OrderService.Action.ACCEPT, null, changed);
+
+        assertEquals(List.of(1, 2), new ArrayList<>(results.keySet()));
+        assertTrue(results.get(1).ok, results.get(1).message);
+        assertTrue(results.get(2).ok, results.get(2).message);
+        assertEquals(2, changed.size());
+        assertEquals(50.0, queryDouble("SELECT available_quantity_kg FROM crops WHERE id = 10"));
+        assertEquals(2.0, queryDouble("SELECT COUNT(*) FROM orders WHERE status = 'accepted'"));
+    }
+
+    @Test
+    void testStockIsCheckedAndDeductedOncePerCrop() throws Exception {
+        TestDatabase.crop(conn, 11, 7, "আলু", 50);
+        TestDatabase.order(conn, 3, 10, 7, 4, 60, 1200, "new");
+        TestDatabase.order(conn, 4, 11, 7, 2, 40, 800, "new");
+        TestDatabase.order(conn, 5, 11, 8, 2, 5, 100, "new");
+
+        List<OrderService.OrderRow> changed = new ArrayList<>();
+        Map<Integer, OrderService.ActionResult> results = OrderService.applyBulk(
+            conn, List.of(1, 3, 2, 4, 5), 7, OrderService.Action.ACCEPT, null, changed);
+
+        // Filled in the given order: 30 + 60 fit into 100 kg, the next 20 kg don't
+        assertTrue(results.get(1).ok, results.get(1).message);
+        assertTrue(results.get(3).ok, results.get(3).message);
+        assertFalse(results.get(2).ok);
+        assertTrue(results.get(2).message.contains("10.0"), results.get(2).message);
+        assertTrue(results.get(4).ok, results.get(4).message);
+        assertFalse(results.get(5).ok, "another farmer's order");
+        assertEquals(3, changed.size());
+
+        assertEquals(10.0, queryDouble("SELECT available_quantity_kg FROM crops WHERE id = 10"));
+        assertEquals(10.0, queryDouble("SELECT available_quantity_kg FROM crops WHERE id = 11"));
+        // One compare-and-set per crop
+        assertEquals(1.0, queryDouble("SELECT version FROM crops WHERE id = 10"));
+        assertEquals(1.0, queryDouble("SELECT version FROM crops WHERE id = 11"));
+        assertEquals(1.0, queryDouble("SELECT COUNT(*) FROM orders WHERE id = 2 AND status = 'new' AND version = 0"));
+        assertEquals(3.0, queryDouble("SELECT COUNT(*) FROM sync_outbox WHERE document_path LIKE 'orders/%'"));
+    }
+
+    @Test
+    void testRequestKeyReplaysTheFirstResult() throws Exception {
+        OrderService.RequestKeys keys = new OrderService.RequestKeys();
+        List<OrderService.OrderRow> changed = new ArrayList<>();
+        assertTrue(OrderService.applyBulk(conn, List.of(1), 7, OrderService.Action.ACCEPT, keys, changed).get(1).ok);
+
+        // Same click again: replayed, nothing deducted or written twice
+        changed.clear();
+        OrderService.ActionResult replay = OrderService.applyBulk(
+            conn, List.of(1), 7, OrderService.Action.ACCEPT, keys, changed).get(1);
+        assertTrue(replay.ok);
+        assertTrue(replay.replayed);
+        assertTrue(changed.isEmpty());
+        assertEquals(70.0, queryDouble("SELECT available_quantity_kg FROM crops WHERE id = 10"));
+        assertEquals(1.0, queryDouble("SELECT COUNT(*) FROM order_requests WHERE order_id = 1 AND action = 'ACCEPT'"));
+
+        // A new request for the same transition is checked against the current status instead
+        OrderService.ActionResult fresh = OrderService.applyBulk(conn, List.of(1), 7,
+            OrderService.Action.ACCEPT, new OrderService.RequestKeys(), changed).get(1);
+        assertFalse(fresh.ok);
+        assertFalse(fresh.replayed);
+    }
+
+    @Test
+    void testStaleOrderVersionRollsBackTheBatch() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            // Another desktop changes order 2 after it was read, while stock is being deducted
+            stmt.execute("CREATE TEMP TRIGGER concurrent_edit AFTER UPDATE OF available_quantity_kg ON crops BEGIN " +
+                "UPDATE orders SET version = version + 1 WHERE id = 2; END");
+        }
+        conn.setAutoCommit(false);
+        Exception error = assertThrows(Exception.class, () -> OrderService.applyBulk(
+            conn, List.of(1, 2), 7, OrderService.Action.ACCEPT, new OrderService.RequestKeys(), new ArrayList<>()));
+        assertTrue(error.getMessage().contains("Order #2 changed concurrently"), error.getMessage());
+        conn.rollback();
+        conn.setAutoCommit(true);
+
+        assertEquals(100.0, queryDouble("SELECT available_quantity_kg FROM crops WHERE id = 10"));
+        assertEquals(0.0, queryDouble("SELECT version FROM crops WHERE id = 10"));
+        assertEquals(0.0, queryDouble("SELECT COUNT(*) FROM orders WHERE status <> 'new'"));
+        assertEquals(0.0, queryDouble("SELECT COUNT(*) FROM order_requests"));
+        assertEquals(0.0, queryDouble("SELECT COUNT(*) FROM sync_outbox"));
+    }
+
+    private double queryDouble(String sql) throws Exception {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getDouble(1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ordering, parallelism and failure handling of the startup graph
+ */
+class ServiceBootstrapTest {
+
+    @Test
+    void testDependenciesRunFirstAndIndependentTasksOverlap() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        ServiceBootstrap.Step parallel = () -> {
+            bothRunning.countDown();
+            // Only returns if the other independent task is running at the same time
+            assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+        };
+
+        ServiceBootstrap bootstrap = new ServiceBootstrap()
+            .add("a", ServiceBootstrap.Phase.CRITICAL, () -> { parallel.run(); order.add("a"); })
+            .add("b", ServiceBootstrap.Phase.CRITICAL, () -> { parallel.run(); order.add("b"); })
+            .add("c", ServiceBootstrap.Phase.CRITICAL, () -> order.add("c"), "a", "b");
+
+        bootstrap.start().get(5, TimeUnit.SECONDS);
+        assertEquals(3, order.size());
+        assertEquals("c", order.get(2));
+    }
+
+    @Test
+    void testDeferredWaitsAndFailureSkipsDependents() throws Exception {
+        List<String> ran = new CopyOnWriteArrayList<>();
+        ServiceBootstrap bootstrap = new ServiceBootstrap()
+            .add("db", ServiceBootstrap.Phase.CRITICAL, () -> ran.add("db"))
+            .add("broken", ServiceBootstrap.Phase.CRITICAL, () -> { throw new IllegalStateException("boom"); })
+            .add("needs-broken", ServiceBootstrap.Phase.CRITICAL, () -> ran.add("needs-broken"), "broken")
+            .add("sync", ServiceBootstrap.Phase.DEFERRED, () -> ran.add("sync"), "db");
+
+        bootstrap.start().get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("db"), ran);
+        assertTrue(bootstrap.whenDone("needs-broken").isCompletedExceptionally());
+        assertFalse(bootstrap.whenDone("sync").isDone());
+
+        bootstrap.startDeferred().get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("db", "sync"), ran);
+    }
+
+    @Test
+    void testRejectsUnknownOrDeferredDependencyOfCriticalTask() {
+        ServiceBootstrap bootstrap = new ServiceBootstrap()
+            .add("later", ServiceBootstrap.Phase.DEFERRED, () -> {});
+        assertThrows(IllegalArgumentException.class,
+            () -> bootstrap.add("x", ServiceBootstrap.Phase.CRITICAL, () -> {}, "missing"));
+        assertThrows(IllegalArgumentException.class,
+            () -> bootstrap.add("y", ServiceBootstrap.Phase.CRITICAL, () -> {}, "later"));
+    }
+}
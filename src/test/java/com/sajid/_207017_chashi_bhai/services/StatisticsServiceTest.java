@@ -0,0 +1,129 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that incremental statistics deltas match a full rebuild
+ */
+class StatisticsServiceTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestDatabase.open();
+        TestDatabase.user(conn, 1, "করিম", "farmer");
+        TestDatabase.user(conn, 2, "রহিম", "buyer");
+        TestDatabase.crop(conn, 10, 1, "ধান", 500);
+        TestDatabase.crop(conn, 11, 1, "আলু", 500);
+    }
+
+    @Test
+    void testDeltasMatchRebuild() throws Exception {
+        completeOrder(100, 10, 50, 1000);
+        completeOrder(101, 11, 20, 400);
+        completeOrder(102, 11, 30, 600);
+        StatisticsService.applyReviewAdded(conn, 1, 5);
+        StatisticsService.applyReviewAdded(conn, 1, 4);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO reviews (order_id, reviewer_id, reviewee_id, rating) VALUES (100, 2, 1, 5), (101, 2, 1, 4)");
+        }
+
+        String incremental = snapshot();
+        String incrementalRollups = rollups();
+        StatisticsService.rebuildAll(conn);
+        assertEquals(snapshot(), incremental);
+        assertEquals(rollups(), incrementalRollups);
+        assertTrue(incremental.contains("আলু"));
+        assertTrue(incrementalRollups.contains("11|আলু|2|50.0|1000.0"));
+    }
+
+    @Test
+    void testRollupDayIsCompletionDay() throws Exception {
+        TestDatabase.order(conn, 100, 10, 1, 2, 50, 1000, "completed");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE orders SET completed_at = '2024-01-10 23:30:00' WHERE id = 100");
+        }
+        StatisticsService.applyOrderCompleted(conn, 100);
+
+        String incrementalRollups = rollups();
+        assertTrue(incrementalRollups.startsWith("1|2024-01-10|"), incrementalRollups);
+        StatisticsService.rebuildAll(conn);
+        assertEquals(incrementalRollups, rollups());
+    }
+
+    @Test
+    void testFailedRebuildKeepsOldStatistics() throws Exception {
+        completeOrder(100, 10, 50, 1000);
+        try (Statement stmt = conn.createStatement()) {
+            // Something the rebuild would overwrite, then make its last step fail
+            stmt.execute("INSERT INTO user_crop_stats VALUES (1, 'sold', 'পুরনো', 9, 9)");
+            stmt.execute("DROP TABLE daily_order_rollups");
+        }
+        String before = snapshot();
+        assertThrows(Exception.class, () -> StatisticsService.rebuildAll(conn));
+        assertTrue(conn.getAutoCommit());
+        assertEquals(before, snapshot());
+        assertEquals(1, count("SELECT COUNT(*) FROM user_crop_stats WHERE crop_name = 'পুরনো'"));
+
+        // Inside the caller's transaction only the job's own work is undone
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO reviews (order_id, reviewer_id, reviewee_id, rating) VALUES (100, 2, 1, 3)");
+        }
+        assertThrows(Exception.class, () -> StatisticsService.rebuildAll(conn));
+        assertFalse(conn.getAutoCommit());
+        assertEquals(1, count("SELECT COUNT(*) FROM reviews"));
+        assertEquals(1, count("SELECT COUNT(*) FROM user_crop_stats WHERE crop_name = 'পুরনো'"));
+        conn.rollback();
+        assertEquals(0, count("SELECT COUNT(*) FROM reviews"));
+    }
+
+    private int count(String sql) throws Exception {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void completeOrder(int orderId, int cropId, double kg, double amount) throws Exception {
+        TestDatabase.order(conn, orderId, cropId, 1, 2, kg, amount, "completed");
+        StatisticsService.applyOrderCompleted(conn, orderId);
+    }
+
+    private String rollups() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT farmer_id, day, buyer_id, crop_id, crop_name, order_count, " +
+                 "quantity_kg, revenue FROM daily_order_rollups ORDER BY crop_id")) {
+            while (rs.next()) {
+                for (int i = 1; i <= 8; i++) {
+                    sb.append(rs.getString(i)).append('|');
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private String snapshot() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, total_accepted_orders, total_income, most_sold_crop, rating, " +
+                 "rating_count, total_buyer_orders, total_expense, most_bought_crop FROM users ORDER BY id")) {
+            while (rs.next()) {
+                for (int i = 1; i <= 9; i++) {
+                    sb.append(rs.getString(i)).append('|');
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.sajid._207017_chashi_bhai.services;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+
+/**
+ * In-memory SQLite database with the production schema (DatabaseService.createSchema),
+ * plus inserts that fill the NOT NULL columns tests don't care about
+ */
+final class TestDatabase {
+
+    private TestDatabase() {}
+
+    static Connection open() throws Exception {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        DatabaseService.createSchema(conn);
+        return conn;
+    }
+
+    static void user(Connection conn, int id, String name, String role) throws Exception {
+        update(conn, "INSERT INTO users (id, name, phone, pin, role) VALUES (?, ?, ?, '0000', ?)",
+            id, name, "0170000" + id, role);
+    }
+
+    static void crop(Connection conn, int id, int farmerId, String name, double quantityKg) throws Exception {
+        update(conn, "INSERT INTO crops (id, product_code, farmer_id, name, category, initial_quantity_kg, " +
+            "available_quantity_kg, price_per_kg, district) VALUES (?, ?, ?, ?, 'grain', ?, ?, 20, 'ঢাকা')",
+            id, "CRP-" + id, farmerId, name, quantityKg, quantityKg);
+    }
+
+    static void order(Connection conn, int id, int cropId, int farmerId, int buyerId,
+                      double quantityKg, double totalAmount, String status) throws Exception {
+        update(conn, "INSERT INTO orders (id, order_number, crop_id, farmer_id, buyer_id, quantity_kg, price_per_kg, " +
+            "total_amount, buyer_phone, buyer_name, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, '018', 'ক্রেতা', ?)",
+            id, "ORD-" + id, cropId, farmerId, buyerId, quantityKg, totalAmount / quantityKg, totalAmount, status);
+    }
+
+    private static void update(Connection conn, String sql, Object... params) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ps.executeUpdate();
+        }
+    }
+}
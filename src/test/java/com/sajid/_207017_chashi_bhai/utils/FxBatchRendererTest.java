@@ -0,0 +1,63 @@
+package com.sajid._207017_chashi_bhai.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * First-screenful and per-pulse placement of FxBatchRenderer (pulses driven by hand)
+ */
+class FxBatchRendererTest {
+
+    private static final class ManualPulses implements FxBatchRenderer.Pulses {
+        Runnable onPulse;
+
+        @Override
+        public void start(Runnable onPulse) {
+            this.onPulse = onPulse;
+        }
+
+        @Override
+        public void stop() {
+            onPulse = null;
+        }
+    }
+
+    private final List<Integer> placed = new ArrayList<>();
+    private final ManualPulses pulses = new ManualPulses();
+    // Zero budget: exactly one item per pulse
+    private final FxBatchRenderer<Integer> renderer = new FxBatchRenderer<>(3, 0, placed::add, pulses);
+
+    @Test
+    void testFirstScreenfulNowRestPerPulse() {
+        renderer.enqueue(List.of(1, 2));
+        assertEquals(List.of(1, 2), placed);
+        assertNull(pulses.onPulse);
+
+        renderer.enqueue(List.of(3, 4, 5));
+        assertEquals(List.of(1, 2, 3), placed);
+        assertNotNull(pulses.onPulse);
+
+        pulses.onPulse.run();
+        assertEquals(List.of(1, 2, 3, 4), placed);
+        pulses.onPulse.run();
+        assertEquals(List.of(1, 2, 3, 4, 5), placed);
+        assertNull(pulses.onPulse, "timer stops once the queue is empty");
+    }
+
+    @Test
+    void testResetDropsUnplacedItems() {
+        renderer.enqueue(List.of(1, 2, 3, 4, 5, 6));
+        assertEquals(3, renderer.pending());
+
+        renderer.reset();
+        assertEquals(0, renderer.pending());
+        assertNull(pulses.onPulse);
+
+        renderer.enqueue(List.of(7, 8));
+        assertEquals(List.of(1, 2, 3, 7, 8), placed);
+    }
+}
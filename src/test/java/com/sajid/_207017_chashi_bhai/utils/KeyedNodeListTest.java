@@ -0,0 +1,74 @@
+package com.sajid._207017_chashi_bhai.utils;
+
+import javafx.scene.Node;
+import javafx.scene.layout.Region;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Row patching of KeyedNodeList (plain list of children, no FX toolkit needed)
+ */
+class KeyedNodeListTest {
+
+    private record Row(int id, String updatedAt) {}
+
+    private final List<Node> children = new ArrayList<>();
+    private int rendered;
+    private final KeyedNodeList<Integer, Row> list = new KeyedNodeList<>(children, Row::id, Row::updatedAt, row -> {
+        rendered++;
+        Region node = new Region();
+        node.setId("row-" + row.id() + "@" + row.updatedAt());
+        return node;
+    });
+
+    @Test
+    void testUnchangedRefreshTouchesNothing() {
+        list.update(List.of(new Row(1, "a"), new Row(2, "a"), new Row(3, "a")));
+        List<Node> before = new ArrayList<>(children);
+        int renderedBefore = rendered;
+
+        KeyedNodeList.Patch patch = list.update(List.of(new Row(1, "a"), new Row(2, "a"), new Row(3, "a")));
+        assertTrue(patch.isEmpty());
+        assertEquals(renderedBefore, rendered);
+        for (int i = 0; i < before.size(); i++) {
+            assertSame(before.get(i), children.get(i));
+        }
+    }
+
+    @Test
+    void testPatchesInsertRemoveChangeAndMove() {
+        list.update(List.of(new Row(1, "a"), new Row(2, "a"), new Row(3, "a")));
+        Node one = list.nodeFor(1);
+        Node three = list.nodeFor(3);
+
+        // 4 is new, 2 is gone, 3 changed version, 1 moved after 3
+        KeyedNodeList.Patch patch = list.update(List.of(new Row(4, "a"), new Row(3, "b"), new Row(1, "a")));
+        assertEquals(1, patch.inserted());
+        assertEquals(1, patch.removed());
+        assertEquals(1, patch.changed());
+
+        assertEquals(List.of("row-4@a", "row-3@b", "row-1@a"), children.stream().map(Node::getId).toList());
+        assertSame(one, children.get(2));
+        assertNotSame(three, children.get(1));
+        assertEquals(3, list.keys().size());
+    }
+
+    @Test
+    void testPatchItemsKeepsUnchangedInstances() {
+        Row a = new Row(1, "a");
+        Row b = new Row(2, "a");
+        List<Row> items = new ArrayList<>(List.of(a, b));
+
+        KeyedNodeList.Patch patch = KeyedNodeList.patchItems(items,
+            List.of(new Row(2, "b"), new Row(1, "a"), new Row(3, "a")), Row::id, Row::updatedAt);
+        assertEquals(1, patch.inserted());
+        assertEquals(1, patch.changed());
+        assertEquals(0, patch.removed());
+        assertEquals(List.of(new Row(2, "b"), a, new Row(3, "a")), items);
+        assertSame(a, items.get(1));
+    }
+}
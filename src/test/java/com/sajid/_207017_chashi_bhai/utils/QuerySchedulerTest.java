@@ -0,0 +1,86 @@
+package com.sajid._207017_chashi_bhai.utils;
+
+import com.sajid._207017_chashi_bhai.services.DatabaseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Debouncing and latest-wins delivery of QueryScheduler (fake DB runner, UI runs inline)
+ */
+class QuerySchedulerTest {
+
+    private record Started(String sql, Consumer<ResultSet> onSuccess, DatabaseService.QueryHandle handle) {}
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final List<Started> started = new CopyOnWriteArrayList<>();
+    private final QueryScheduler scheduler = new QueryScheduler(30, timer, Runnable::run, (sql, params, onSuccess, onError) -> {
+        DatabaseService.QueryHandle handle = new DatabaseService.QueryHandle();
+        started.add(new Started(sql, onSuccess, handle));
+        return handle;
+    });
+
+    @AfterEach
+    void tearDown() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    void testBurstRunsOnlyLastQuery() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(1);
+        List<String> results = new CopyOnWriteArrayList<>();
+        for (String text : new String[]{"a", "al", "alu"}) {
+            scheduler.submit("q:" + text, null, rs -> text, result -> {
+                results.add(result);
+                delivered.countDown();
+            }, null);
+        }
+
+        waitUntil(() -> !started.isEmpty());
+        assertEquals(1, started.size());
+        assertEquals("q:alu", started.get(0).sql());
+        started.get(0).onSuccess().accept(null);
+        assertTrue(delivered.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("alu"), results);
+    }
+
+    @Test
+    void testSupersededQueryIsCancelledAndDropped() {
+        List<String> results = new ArrayList<>();
+        scheduler.submitNow("old", null, rs -> "old", results::add, null);
+        scheduler.submitNow("new", null, rs -> "new", results::add, null);
+
+        assertEquals(2, started.size());
+        assertTrue(started.get(0).handle().isCancelled());
+        assertFalse(started.get(1).handle().isCancelled());
+
+        // The old query finishing late must not overwrite the newer result
+        started.get(1).onSuccess().accept(null);
+        started.get(0).onSuccess().accept(null);
+        assertEquals(List.of("new"), results);
+
+        scheduler.cancel();
+        started.get(1).onSuccess().accept(null);
+        assertEquals(List.of("new"), results);
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // Give a wrongly scheduled extra run a chance to show up
+        Thread.sleep(60);
+    }
+}